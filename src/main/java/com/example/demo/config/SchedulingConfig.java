@@ -0,0 +1,12 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Abilita i job @Scheduled (allineamento indice di revoca, pulizia token scaduti, ...)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,20 @@
+package com.example.demo.configchange;
+
+import com.example.demo.enums.ConfigChangeType;
+
+import java.time.Instant;
+
+/**
+ * Modifica di configurazione letta dall'outbox e pubblicata ai subscriber locali.
+ *
+ * @param sequence numero di sequenza (id della riga di outbox), crescente senza buchi salvo rollback;
+ *                 una riga committata dopo il timeout del buco arriva fuori ordine, preceduta da onReset
+ * @param local    true se la modifica è stata fatta da questo nodo (già applicata in modo sincrono)
+ */
+public record ConfigChange(long sequence,
+                           Long tenantId,
+                           ConfigChangeType type,
+                           Long entityId,
+                           boolean local,
+                           Instant createdAt) {
+}
@@ -0,0 +1,17 @@
+package com.example.demo.configchange;
+
+/**
+ * Subscriber locale delle modifiche di configurazione registrate nell'outbox (da qualunque nodo).
+ * Le implementazioni devono essere veloci: vengono invocate dal thread del poller.
+ */
+public interface ConfigChangeListener {
+
+    void onConfigChange(ConfigChange change);
+
+    /**
+     * Il poller ha rilevato una sequenza mancante (righe perse o già eliminate):
+     * lo stato derivato dalla configurazione va ricaricato per intero.
+     */
+    default void onReset() {
+    }
+}
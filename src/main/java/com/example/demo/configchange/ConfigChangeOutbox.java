@@ -0,0 +1,83 @@
+package com.example.demo.configchange;
+
+import com.example.demo.entity.ConfigChangeOutboxEntry;
+import com.example.demo.enums.ConfigChangeType;
+import com.example.demo.repository.ConfigChangeOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Registra le modifiche di configurazione nell'outbox, nella stessa transazione della modifica.
+ *
+ * Le modifiche di una transazione sono raccolte (senza duplicati) e scritte in beforeCommit:
+ * una transazione che fallisce prima del commit non consuma numeri di sequenza, e il tempo tra
+ * l'assegnazione della sequenza e il commit resta minimo (vedi ConfigChangePoller per i buchi).
+ * Ogni modifica incrementa anche la versione della tenant in {@link ConfigVersionRegistry}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConfigChangeOutbox {
+
+    // Identifica questo processo come origine delle righe scritte
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConfigChangeOutboxRepository outboxRepository;
+    private final ConfigVersionRegistry configVersionRegistry;
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public void append(Long tenantId, ConfigChangeType type, Long entityId) {
+        PendingChange change = new PendingChange(tenantId, type, entityId);
+        configVersionRegistry.bump(tenantId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            save(change);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<PendingChange> pending = (Set<PendingChange>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<PendingChange> changes = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    changes.forEach(ConfigChangeOutbox.this::save);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ConfigChangeOutbox.this);
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+    /**
+     * True se la transazione corrente ha registrato modifiche non ancora committate:
+     * chi legge la configurazione in questa transazione non può usare strutture condivise tra transazioni.
+     */
+    public boolean hasPendingChanges() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        Object pending = TransactionSynchronizationManager.getResource(this);
+        return pending instanceof Set<?> changes && !changes.isEmpty();
+    }
+
+    private void save(PendingChange change) {
+        outboxRepository.save(new ConfigChangeOutboxEntry(change.tenantId(), change.type(), change.entityId(), nodeId));
+    }
+
+    private record PendingChange(Long tenantId, ConfigChangeType type, Long entityId) {
+    }
+}
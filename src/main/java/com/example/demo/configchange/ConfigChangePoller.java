@@ -0,0 +1,189 @@
+package com.example.demo.configchange;
+
+import com.example.demo.entity.ConfigChangeOutboxEntry;
+import com.example.demo.repository.ConfigChangeOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Legge l'outbox delle modifiche di configurazione (senza broker esterni) e le pubblica ai
+ * ConfigChangeListener locali, in ordine di sequenza.
+ *
+ * Le sequenze sono gli id auto increment dell'outbox, quindi un buco può essere:
+ * - una transazione con id già assegnato ma non ancora committata: si attende fino a gap-timeout
+ * - una transazione fallita dopo l'insert, o righe già eliminate dalla pulizia: superato il timeout
+ *   i subscriber ricevono onReset e ricaricano tutto, poi la lettura riprende dalla riga successiva
+ *
+ * Il timeout non distingue una transazione fallita da una che committa tardi (l'id è assegnato in beforeCommit,
+ * flush e commit vengono dopo). Le sequenze saltate restano quindi in attesa per late-window: se la riga compare,
+ * viene pubblicata insieme a un nuovo onReset, perché il ricaricamento fatto al momento del buco non poteva
+ * ancora vederla.
+ */
+@Slf4j
+@Component
+public class ConfigChangePoller {
+
+    private static final int MAX_SKIPPED = 10_000;
+
+    private final ConfigChangeOutboxRepository outboxRepository;
+    private final ConfigChangeOutbox outbox;
+    private final ObjectProvider<ConfigChangeListener> listeners;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    private final Duration lateWindow;
+
+    private volatile long lastSequence;
+    // Prima sequenza mancante e momento in cui il buco è stato visto la prima volta
+    private long gapSequence = -1;
+    private Instant gapSince;
+    // Sequenze saltate per timeout, con il momento in cui sono state saltate: possono ancora comparire
+    private final Map<Long, Instant> skipped = new TreeMap<>();
+
+    public ConfigChangePoller(ConfigChangeOutboxRepository outboxRepository,
+                              ConfigChangeOutbox outbox,
+                              ObjectProvider<ConfigChangeListener> listeners,
+                              @Value("${config.outbox.batch-size:500}") int batchSize,
+                              @Value("${config.outbox.gap-timeout:PT10S}") Duration gapTimeout,
+                              @Value("${config.outbox.retention:P1D}") Duration retention,
+                              @Value("${config.outbox.late-window:PT10M}") Duration lateWindow) {
+        this.outboxRepository = outboxRepository;
+        this.outbox = outbox;
+        this.listeners = listeners;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+        this.lateWindow = lateWindow;
+    }
+
+    /**
+     * All'avvio lo stato in-memory viene costruito da zero: si parte dall'ultima sequenza presente.
+     */
+    @PostConstruct
+    public void initialize() {
+        lastSequence = outboxRepository.findMaxSequence();
+        log.info("Outbox configurazione: nodo {}, lettura dalla sequenza {}", outbox.nodeId(), lastSequence);
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    @Scheduled(fixedDelayString = "${config.outbox.poll-interval-ms:250}")
+    public synchronized void poll() {
+        List<ConfigChangeOutboxEntry> entries;
+        List<ConfigChangeOutboxEntry> late;
+        try {
+            late = skipped.isEmpty() ? List.of() : outboxRepository.findBySequences(new ArrayList<>(skipped.keySet()));
+            entries = outboxRepository.findAfter(lastSequence, PageRequest.of(0, batchSize));
+        } catch (RuntimeException e) {
+            // lastSequence resta invariata: il prossimo giro riprende dallo stesso punto
+            log.warn("Lettura outbox configurazione fallita: {}", e.getMessage());
+            return;
+        }
+
+        publishLate(late);
+
+        for (ConfigChangeOutboxEntry entry : entries) {
+            long expected = lastSequence + 1;
+            if (entry.getId() > expected && !gapExpired(expected)) {
+                return;
+            }
+            if (entry.getId() > expected) {
+                log.warn("Outbox configurazione: sequenze {}..{} mancanti, ricarico completo", expected, entry.getId() - 1);
+                skip(expected, entry.getId() - 1);
+                publishReset();
+            }
+            gapSequence = -1;
+            gapSince = null;
+            lastSequence = entry.getId();
+            publish(toChange(entry));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${config.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        try {
+            int deleted = outboxRepository.deleteCreatedBefore(Instant.now().minus(retention));
+            if (deleted > 0) {
+                log.debug("Outbox configurazione: eliminate {} righe", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pulizia outbox configurazione fallita: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Righe comparse sotto lastSequence dopo essere state saltate: un nuovo reset (ora il commit è avvenuto)
+     * e la modifica stessa, per i subscriber che reagiscono alla singola modifica. Le sequenze più vecchie
+     * di late-window si considerano transazioni fallite.
+     */
+    private void publishLate(List<ConfigChangeOutboxEntry> late) {
+        if (!late.isEmpty()) {
+            log.warn("Outbox configurazione: {} righe committate dopo il timeout del buco, ricarico completo", late.size());
+            late.forEach(entry -> skipped.remove(entry.getId()));
+            publishReset();
+            late.forEach(entry -> publish(toChange(entry)));
+        }
+        Instant expiredBefore = Instant.now().minus(lateWindow);
+        skipped.values().removeIf(skippedAt -> !skippedAt.isAfter(expiredBefore));
+    }
+
+    private void skip(long fromSequence, long toSequence) {
+        Instant now = Instant.now();
+        for (long sequence = fromSequence; sequence <= toSequence && skipped.size() < MAX_SKIPPED; sequence++) {
+            skipped.put(sequence, now);
+        }
+        if (toSequence - fromSequence + 1 > MAX_SKIPPED) {
+            // Buchi così grandi sono righe eliminate, non transazioni in corso
+            log.warn("Outbox configurazione: troppe sequenze mancanti, seguite solo le prime {}", MAX_SKIPPED);
+        }
+    }
+
+    private boolean gapExpired(long expected) {
+        Instant now = Instant.now();
+        if (gapSequence != expected) {
+            gapSequence = expected;
+            gapSince = now;
+        }
+        return Duration.between(gapSince, now).compareTo(gapTimeout) >= 0;
+    }
+
+    private ConfigChange toChange(ConfigChangeOutboxEntry entry) {
+        return new ConfigChange(entry.getId(), entry.getTenantId(), entry.getChangeType(), entry.getEntityId(),
+                outbox.nodeId().equals(entry.getOriginNode()), entry.getCreatedAt());
+    }
+
+    private void publish(ConfigChange change) {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onConfigChange(change);
+            } catch (RuntimeException e) {
+                log.warn("Subscriber {} fallito sulla modifica {}: {}",
+                        listener.getClass().getSimpleName(), change.sequence(), e.getMessage());
+            }
+        });
+    }
+
+    private void publishReset() {
+        listeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onReset();
+            } catch (RuntimeException e) {
+                log.warn("Reset del subscriber {} fallito: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        });
+    }
+}
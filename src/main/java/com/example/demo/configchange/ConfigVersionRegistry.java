@@ -0,0 +1,78 @@
+package com.example.demo.configchange;
+
+import com.example.demo.repository.ConfigChangeOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versione della configurazione di una tenant (workflow, ItemTypeSet, FieldSet, permission, ruoli, ...).
+ *
+ * Ogni modifica registrata nell'outbox incrementa la versione: le strutture in-memory derivate dalla
+ * configurazione (snapshot per le analisi d'impatto, ...) confrontano la versione con cui sono state
+ * costruite e si ricostruiscono se è cambiata. Le modifiche fatte su altri nodi arrivano dal poller;
+ * dopo un buco nell'outbox la versione globale invalida tutte le versioni precedenti.
+ *
+ * {@link #current} è un contatore di questo processo (riparte da 0 al riavvio, ogni nodo ha il suo): serve solo
+ * come chiave delle cache locali. La versione mostrata ai client e verificata in conferma è {@link #sequence},
+ * uguale su tutti i nodi.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConfigVersionRegistry implements ConfigChangeListener {
+
+    private final ConfigChangeOutboxRepository outboxRepository;
+
+    private final Map<Long, AtomicLong> versions = new ConcurrentHashMap<>();
+    // Sommata a tutte le versioni: incrementarla equivale a incrementarle tutte
+    private final AtomicLong globalVersion = new AtomicLong();
+
+    public long current(Long tenantId) {
+        AtomicLong version = versions.get(tenantId);
+        return (version != null ? version.get() : 0L) + globalVersion.get();
+    }
+
+    /**
+     * Ultima sequenza dell'outbox della tenant, letta dal database: cresce a ogni modifica committata da qualunque
+     * nodo e non dipende da riavvii. Una transazione con l'id già assegnato ma non ancora committata non
+     * è ancora visibile.
+     */
+    public long sequence(Long tenantId) {
+        return outboxRepository.findMaxSequenceByTenantId(tenantId);
+    }
+
+    /**
+     * Incrementa subito la versione e, se c'è una transazione attiva, di nuovo dopo il commit:
+     * così uno snapshot letto prima del commit non resta in cache come valido.
+     */
+    public void bump(Long tenantId) {
+        Runnable increment = () -> versions.computeIfAbsent(tenantId, k -> new AtomicLong()).incrementAndGet();
+        increment.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment.run();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onConfigChange(ConfigChange change) {
+        // Le modifiche locali hanno già incrementato la versione in ConfigChangeOutbox.append
+        if (!change.local()) {
+            bump(change.tenantId());
+        }
+    }
+
+    @Override
+    public void onReset() {
+        globalVersion.incrementAndGet();
+    }
+}
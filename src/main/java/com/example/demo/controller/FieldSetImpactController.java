@@ -4,16 +4,17 @@ import com.example.demo.dto.FieldSetRemovalImpactDto;
 import com.example.demo.entity.Tenant;
 import com.example.demo.security.CurrentTenant;
 import com.example.demo.service.FieldSetService;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
 import com.example.demo.util.CsvUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.time.LocalDateTime;
@@ -23,11 +24,11 @@ import java.util.Set;
 @RestController
 @RequestMapping("/api/field-sets")
 @RequiredArgsConstructor
-@Slf4j
 public class FieldSetImpactController {
 
     private final FieldSetService fieldSetService;
     private final ObjectMapper objectMapper;
+    private final ImpactResultCache impactResultCache;
 
     /**
      * Analizza gli impatti della rimozione di FieldConfiguration da un FieldSet
@@ -105,59 +106,55 @@ public class FieldSetImpactController {
      */
     @PostMapping("/{fieldSetId}/export-removal-impact-csv")
     @PreAuthorize("@securityService.canEditFieldSet(principal, #tenant, #fieldSetId)")
-    public ResponseEntity<byte[]> exportRemovalImpactCsv(
+    public ResponseEntity<StreamingResponseBody> exportRemovalImpactCsv(
             @PathVariable Long fieldSetId,
             @RequestBody Set<Long> removedFieldConfigIds,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @CurrentTenant Tenant tenant
     ) {
-        try {
-            FieldSetRemovalImpactDto impact = fieldSetService.analyzeFieldSetRemovalImpact(
-                    tenant, fieldSetId, removedFieldConfigIds, new java.util.HashSet<>());
-        
-        StringBuilder csv = new StringBuilder();
-        
-        // Header del CSV
-        csv.append("Permission Type,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,");
-        csv.append("Field Configuration ID,Field Configuration Name,Workflow Status ID,Workflow Status Name,");
-        csv.append("Assigned Roles,Has Assignments\n");
-        
-        // Field Owner Permissions
-        for (FieldSetRemovalImpactDto.PermissionImpact perm : impact.getFieldOwnerPermissions()) {
-            csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,,,%s,%s\n",
-                CsvUtils.escapeCsv(perm.getPermissionType()),
-                perm.getItemTypeSetId(),
-                CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                perm.getFieldConfigurationId() != null ? perm.getFieldConfigurationId().toString() : "",
-                CsvUtils.escapeCsv(perm.getFieldConfigurationName() != null ? perm.getFieldConfigurationName() : ""),
-                CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
-                perm.isHasAssignments()
-            ));
-        }
-        
-        // Field Status Permissions
-        for (FieldSetRemovalImpactDto.PermissionImpact perm : impact.getFieldStatusPermissions()) {
-            csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                CsvUtils.escapeCsv(perm.getPermissionType()),
-                perm.getItemTypeSetId(),
-                CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                perm.getFieldConfigurationId() != null ? perm.getFieldConfigurationId().toString() : "",
-                CsvUtils.escapeCsv(perm.getFieldConfigurationName() != null ? perm.getFieldConfigurationName() : ""),
-                perm.getWorkflowStatusId() != null ? perm.getWorkflowStatusId().toString() : "",
-                CsvUtils.escapeCsv(perm.getWorkflowStatusName() != null ? perm.getWorkflowStatusName() : ""),
-                CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
-                perm.isHasAssignments()
-            ));
-        }
-        
-        return CsvUtils.createCsvResponse(csv.toString(), "fieldset_removal_impact", fieldSetId);
-        } catch (Exception e) {
-            log.error("Error generating CSV export", e);
-            throw new com.example.demo.exception.ApiException("Error generating CSV export: " + e.getMessage(), e);
-        }
+        FieldSetRemovalImpactDto impact = fieldSetService.analyzeFieldSetRemovalImpact(
+                tenant, fieldSetId, removedFieldConfigIds, new java.util.HashSet<>());
+
+        return CsvUtils.streamCsv("fieldset_removal_impact", fieldSetId, gzip, csv -> {
+            // Header del CSV
+            csv.row("Permission Type", "ItemTypeSet ID", "ItemTypeSet Name", "Project ID", "Project Name",
+                    "Field Configuration ID", "Field Configuration Name", "Workflow Status ID", "Workflow Status Name",
+                    "Assigned Roles", "Has Assignments");
+
+            // Field Owner Permissions
+            for (FieldSetRemovalImpactDto.PermissionImpact perm : impact.getFieldOwnerPermissions()) {
+                csv.row(
+                    perm.getPermissionType(),
+                    perm.getItemTypeSetId(),
+                    perm.getItemTypeSetName(),
+                    perm.getProjectId(),
+                    perm.getProjectName(),
+                    perm.getFieldConfigurationId(),
+                    perm.getFieldConfigurationName(),
+                    null,
+                    null,
+                    String.join(";", perm.getAssignedRoles()),
+                    perm.isHasAssignments()
+                );
+            }
+
+            // Field Status Permissions
+            for (FieldSetRemovalImpactDto.PermissionImpact perm : impact.getFieldStatusPermissions()) {
+                csv.row(
+                    perm.getPermissionType(),
+                    perm.getItemTypeSetId(),
+                    perm.getItemTypeSetName(),
+                    perm.getProjectId(),
+                    perm.getProjectName(),
+                    perm.getFieldConfigurationId(),
+                    perm.getFieldConfigurationName(),
+                    perm.getWorkflowStatusId(),
+                    perm.getWorkflowStatusName(),
+                    String.join(";", perm.getAssignedRoles()),
+                    perm.isHasAssignments()
+                );
+            }
+        });
     }
     
     /**
@@ -169,8 +166,10 @@ public class FieldSetImpactController {
     public ResponseEntity<String> removeOrphanedPermissions(
             @PathVariable Long fieldSetId,
             @RequestBody RemoveOrphanedPermissionsRequest request,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         Set<Long> removedFieldConfigIds = request.removedFieldConfigIds() != null 
                 ? request.removedFieldConfigIds() 
                 : new java.util.HashSet<>();
@@ -0,0 +1,60 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ImpactJobDto;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.service.impactjob.ImpactJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Stato, report e annullamento dei job di analisi d'impatto. I job si avviano dagli endpoint
+ * .../jobs dei controller di workflow e migrazione; solo l'utente che ha avviato un job può leggerlo.
+ */
+@RestController
+@RequestMapping("/api/impact-jobs")
+@RequiredArgsConstructor
+public class ImpactJobController {
+
+    private final ImpactJobService impactJobService;
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImpactJobDto> getJob(
+            @PathVariable String jobId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(impactJobService.getJob(tenant, user, jobId));
+    }
+
+    /**
+     * Report del job (StatusRemovalImpactDto o ItemTypeConfigurationMigrationImpactDto), disponibile quando è COMPLETED
+     */
+    @GetMapping(value = "/{jobId}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<String> getResult(
+            @PathVariable String jobId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(impactJobService.getResultJson(tenant, user, jobId));
+    }
+
+    @DeleteMapping("/{jobId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImpactJobDto> cancel(
+            @PathVariable String jobId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(impactJobService.cancel(tenant, user, jobId));
+    }
+}
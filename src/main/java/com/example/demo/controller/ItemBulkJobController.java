@@ -0,0 +1,78 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ItemBulkJobCreateDto;
+import com.example.demo.dto.ItemBulkJobDto;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.service.item.ItemBulkJobService;
+import com.example.demo.util.CsvUtils;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Job in blocco sugli item del progetto. L'avvio restituisce subito il job; workflow e permessi vengono
+ * verificati item per item con i permessi di chi l'ha avviato, l'unico che può leggerlo o annullarlo.
+ */
+@RestController
+@RequestMapping("/api/projects/{projectId}/item-bulk-jobs")
+@RequiredArgsConstructor
+public class ItemBulkJobController {
+
+    private final ItemBulkJobService itemBulkJobService;
+
+    @PostMapping
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemBulkJobDto> submit(
+            @PathVariable Long projectId,
+            @Valid @RequestBody ItemBulkJobCreateDto dto,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemBulkJobService.submit(tenant, user, projectId, dto));
+    }
+
+    @GetMapping("/{jobId}")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemBulkJobDto> getJob(
+            @PathVariable Long projectId,
+            @PathVariable String jobId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemBulkJobService.getJob(tenant, user, projectId, jobId));
+    }
+
+    /**
+     * Item non modificati dal job (id e motivo), aggiornato a ogni blocco committato
+     */
+    @GetMapping("/{jobId}/failures")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<StreamingResponseBody> exportFailures(
+            @PathVariable Long projectId,
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        itemBulkJobService.getJob(tenant, user, projectId, jobId);
+        return CsvUtils.streamCsv("item_bulk_job_failures", projectId, gzip,
+                csv -> itemBulkJobService.writeFailures(jobId, csv));
+    }
+
+    @DeleteMapping("/{jobId}")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemBulkJobDto> cancel(
+            @PathVariable Long projectId,
+            @PathVariable String jobId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemBulkJobService.cancel(tenant, user, projectId, jobId));
+    }
+}
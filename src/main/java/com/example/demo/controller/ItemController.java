@@ -0,0 +1,125 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.AvailableTransitionDto;
+import com.example.demo.dto.ItemCreateDto;
+import com.example.demo.dto.ItemDetailDto;
+import com.example.demo.dto.ItemFieldsUpdateDto;
+import com.example.demo.dto.ItemPageDto;
+import com.example.demo.dto.ItemTransitionDto;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.service.item.ItemService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Item dei progetti. Serve l'accesso agli item del progetto (ruolo USER o admin) e, per ogni operazione,
+ * il permesso della configurazione: CreatorPermission per creare, ExecutorPermission per le transizioni,
+ * FieldStatusPermission EDITORS per modificare i field e VIEWERS (o EDITORS) per leggerli.
+ * Admin della tenant e admin del progetto sono esenti da tutti questi permessi, ovunque con la stessa regola;
+ * restano i vincoli di workflow e di FieldSet.
+ */
+@RestController
+@RequestMapping("/api/projects/{projectId}/items")
+@RequiredArgsConstructor
+public class ItemController {
+
+    private final ItemService itemService;
+
+    @PostMapping
+    @PreAuthorize("@securityService.canCreateItem(principal, #tenant, #projectId, #dto.itemTypeConfigurationId())")
+    public ResponseEntity<ItemDetailDto> createItem(
+            @PathVariable Long projectId,
+            @Valid @RequestBody ItemCreateDto dto,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.create(tenant, user, projectId, dto));
+    }
+
+    /**
+     * Lista paginata (keyset) degli item del progetto, filtrabile per WorkflowStatus:
+     * cursor è il nextCursor della pagina precedente. fieldIds sono i field da includere in ogni riga;
+     * con fieldId la lista contiene gli item con un valore per quel field, ordinati per valore
+     * (desc per l'ordine decrescente) e filtrati per value oppure per l'intervallo from-to.
+     * Restano solo i valori dei field che l'utente può vedere (VIEWERS o EDITORS) nello stato di ogni item.
+     */
+    @GetMapping
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemPageDto> getItems(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) Long workflowStatusId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) List<Long> fieldIds,
+            @RequestParam(required = false) Long fieldId,
+            @RequestParam(required = false) String value,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "false") boolean desc,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.getPage(tenant, user, projectId, workflowStatusId, cursor, size,
+                fieldIds, fieldId, value, from, to, desc));
+    }
+
+    @GetMapping("/{itemId}")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemDetailDto> getItem(
+            @PathVariable Long projectId,
+            @PathVariable Long itemId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.getDetail(tenant, user, projectId, itemId));
+    }
+
+    /**
+     * Transizioni eseguibili dall'utente sull'item nel suo stato attuale (ExecutorPermission; tutte per gli admin)
+     */
+    @GetMapping("/{itemId}/transitions")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<List<AvailableTransitionDto>> getAvailableTransitions(
+            @PathVariable Long projectId,
+            @PathVariable Long itemId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.getAvailableTransitions(tenant, user, projectId, itemId));
+    }
+
+    @PostMapping("/{itemId}/transitions")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemDetailDto> transition(
+            @PathVariable Long projectId,
+            @PathVariable Long itemId,
+            @Valid @RequestBody ItemTransitionDto dto,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.transition(tenant, user, projectId, itemId, dto));
+    }
+
+    /**
+     * Modifica dei field dell'item nel suo stato attuale (FieldStatusPermission EDITORS; non richiesta agli admin)
+     */
+    @PutMapping("/{itemId}/fields")
+    @PreAuthorize("@securityService.canAccessProjectItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemDetailDto> updateFields(
+            @PathVariable Long projectId,
+            @PathVariable Long itemId,
+            @Valid @RequestBody ItemFieldsUpdateDto dto,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemService.updateFields(tenant, user, projectId, itemId, dto));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ItemImportDto;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.enums.ItemImportFormat;
+import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
+import com.example.demo.service.item.ItemImportService;
+import com.example.demo.util.CsvUtils;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+
+/**
+ * Import in blocco di item: si crea l'import indicando il formato, poi si carica il file (CSV o NDJSON,
+ * eventualmente gzip) come corpo grezzo della richiesta. Avanzamento e righe scartate si leggono a parte.
+ */
+@RestController
+@RequestMapping("/api/projects/{projectId}/item-imports")
+@RequiredArgsConstructor
+public class ItemImportController {
+
+    private final ItemImportService itemImportService;
+
+    @PostMapping
+    @PreAuthorize("@securityService.canImportItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemImportDto> createImport(
+            @PathVariable Long projectId,
+            @RequestParam(defaultValue = "CSV") ItemImportFormat format,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemImportService.create(tenant, user, projectId, format));
+    }
+
+    /**
+     * Contenuto dell'import, letto in streaming: la risposta arriva a import concluso
+     * (lo stato intermedio è leggibile con GET da un'altra richiesta).
+     */
+    @PutMapping("/{importId}/content")
+    @PreAuthorize("@securityService.canImportItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemImportDto> uploadContent(
+            @PathVariable Long projectId,
+            @PathVariable Long importId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            InputStream content,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        return ResponseEntity.ok(itemImportService.upload(tenant, user, projectId, importId, content, gzip));
+    }
+
+    @GetMapping("/{importId}")
+    @PreAuthorize("@securityService.canImportItems(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemImportDto> getImport(
+            @PathVariable Long projectId,
+            @PathVariable Long importId,
+            @CurrentTenant Tenant tenant
+    ) {
+        return ResponseEntity.ok(itemImportService.getImport(tenant, projectId, importId));
+    }
+
+    /**
+     * File errori dell'import: numero della riga di dati (a partire da 1) e motivo dello scarto
+     */
+    @GetMapping("/{importId}/errors")
+    @PreAuthorize("@securityService.canImportItems(principal, #tenant, #projectId)")
+    public ResponseEntity<StreamingResponseBody> exportErrors(
+            @PathVariable Long projectId,
+            @PathVariable Long importId,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @CurrentTenant Tenant tenant
+    ) {
+        itemImportService.getImport(tenant, projectId, importId);
+        return CsvUtils.streamCsv("item_import_errors", importId, gzip,
+                csv -> itemImportService.writeErrors(importId, csv));
+    }
+}
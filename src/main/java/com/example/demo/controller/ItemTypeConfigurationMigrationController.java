@@ -1,16 +1,27 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.ImpactJobDto;
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
 import com.example.demo.dto.ItemTypeConfigurationMigrationRequest;
+import com.example.demo.dto.ItemTypeConfigurationMigrationResultDto;
 import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
 import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
 import com.example.demo.service.ItemTypeConfigurationMigrationService;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.impactjob.ImpactJobService;
 import com.example.demo.util.CsvUtils;
+import com.example.demo.util.CsvWriter;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
 
 
 /**
@@ -20,10 +31,11 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/api/item-type-configurations")
 @RequiredArgsConstructor
-@Slf4j
 public class ItemTypeConfigurationMigrationController {
     
     private final ItemTypeConfigurationMigrationService migrationService;
+    private final ImpactResultCache impactResultCache;
+    private final ImpactJobService impactJobService;
     
     /**
      * Analizza l'impatto della migrazione quando cambiano FieldSet e/o Workflow
@@ -50,28 +62,52 @@ public class ItemTypeConfigurationMigrationController {
         );
         return ResponseEntity.ok(impact);
     }
+
+    /**
+     * Avvia l'analisi di migrazione come job asincrono: stato e report si leggono da /api/impact-jobs/{jobId}
+     *
+     * @param itemTypeConfigurationId ID della ItemTypeConfiguration da analizzare
+     * @param newFieldSetId ID del nuovo FieldSet (opzionale)
+     * @param newWorkflowId ID del nuovo Workflow (opzionale)
+     * @return stato iniziale del job
+     */
+    @PostMapping("/{itemTypeConfigurationId}/migration-impact/jobs")
+    @PreAuthorize("@securityService.canAccessItemTypeConfigurationMigration(principal, #tenant, #itemTypeConfigurationId)")
+    public ResponseEntity<ImpactJobDto> submitMigrationImpactJob(
+            @PathVariable Long itemTypeConfigurationId,
+            @RequestParam(required = false) Long newFieldSetId,
+            @RequestParam(required = false) Long newWorkflowId,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        ImpactJobDto job = impactJobService.submitMigration(tenant, user, itemTypeConfigurationId, newFieldSetId, newWorkflowId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
     
     /**
      * Applica la migrazione selettiva delle permission
      * 
      * @param itemTypeConfigurationId ID della ItemTypeConfiguration
      * @param request Request con lista di permission da preservare e flag globali
+     * @param configVersion versione della configurazione del report mostrato (opzionale, rifiutata se non più corrente)
      * @param tenant Tenant corrente
-     * @return 204 No Content se successo
+     * @return esito con conteggi e tempi delle fasi
      */
     @PostMapping("/{itemTypeConfigurationId}/migrate-permissions")
     @PreAuthorize("@securityService.canAccessItemTypeConfigurationMigration(principal, #tenant, #itemTypeConfigurationId)")
-    public ResponseEntity<Void> applyMigration(
+    public ResponseEntity<ItemTypeConfigurationMigrationResultDto> applyMigration(
             @PathVariable Long itemTypeConfigurationId,
             @RequestBody ItemTypeConfigurationMigrationRequest request,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
         if (!request.itemTypeConfigurationId().equals(itemTypeConfigurationId)) {
             return ResponseEntity.badRequest().build();
         }
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         
-        migrationService.applyMigration(tenant, itemTypeConfigurationId, request);
-        return ResponseEntity.noContent().build();
+        ItemTypeConfigurationMigrationResultDto result = migrationService.applyMigration(tenant, itemTypeConfigurationId, request);
+        return ResponseEntity.ok(result);
     }
     
     /**
@@ -85,126 +121,98 @@ public class ItemTypeConfigurationMigrationController {
      */
     @GetMapping("/{itemTypeConfigurationId}/export-migration-impact-csv")
     @PreAuthorize("@securityService.canAccessItemTypeConfigurationMigration(principal, #tenant, #itemTypeConfigurationId)")
-    public ResponseEntity<byte[]> exportMigrationImpactCsv(
+    public ResponseEntity<StreamingResponseBody> exportMigrationImpactCsv(
             @PathVariable Long itemTypeConfigurationId,
             @RequestParam(required = false) Long newFieldSetId,
             @RequestParam(required = false) Long newWorkflowId,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @CurrentTenant Tenant tenant
     ) {
-        try {
-            ItemTypeConfigurationMigrationImpactDto impact = migrationService.analyzeMigrationImpact(
-                    tenant,
-                    itemTypeConfigurationId,
-                    newFieldSetId,
-                    newWorkflowId
-            );
-            
-            StringBuilder csv = new StringBuilder();
-            
+        ItemTypeConfigurationMigrationImpactDto impact = migrationService.analyzeMigrationImpact(
+                tenant,
+                itemTypeConfigurationId,
+                newFieldSetId,
+                newWorkflowId
+        );
+
+        return CsvUtils.streamCsv("itemtypeconfiguration_migration_impact", itemTypeConfigurationId, gzip, csv -> {
             // Header informativo
-            csv.append("ItemTypeConfiguration Migration Impact Report\n");
-            csv.append(String.format("ItemTypeConfiguration ID: %d\n", impact.getItemTypeConfigurationId()));
-            csv.append(String.format("ItemTypeConfiguration Name: %s\n", CsvUtils.escapeCsv(impact.getItemTypeConfigurationName())));
-            csv.append(String.format("ItemTypeSet: %s\n", CsvUtils.escapeCsv(impact.getItemTypeSetName() != null ? impact.getItemTypeSetName() : "N/A")));
-            csv.append(String.format("ItemType: %s\n", CsvUtils.escapeCsv(impact.getItemTypeName())));
+            csv.text("ItemTypeConfiguration Migration Impact Report").newLine();
+            csv.text("ItemTypeConfiguration ID: ").text(String.valueOf(impact.getItemTypeConfigurationId())).newLine();
+            csv.text("ItemTypeConfiguration Name: ").field(impact.getItemTypeConfigurationName()).newLine();
+            csv.text("ItemTypeSet: ").field(impact.getItemTypeSetName() != null ? impact.getItemTypeSetName() : "N/A").newLine();
+            csv.text("ItemType: ").field(impact.getItemTypeName()).newLine();
             if (impact.isFieldSetChanged()) {
-                csv.append(String.format("FieldSet: %s -> %s\n", 
-                    CsvUtils.escapeCsv(impact.getOldFieldSet() != null ? impact.getOldFieldSet().getFieldSetName() : "N/A"),
-                    CsvUtils.escapeCsv(impact.getNewFieldSet() != null ? impact.getNewFieldSet().getFieldSetName() : "N/A")));
+                csv.text("FieldSet: ")
+                        .field(impact.getOldFieldSet() != null ? impact.getOldFieldSet().getFieldSetName() : "N/A")
+                        .text(" -> ")
+                        .field(impact.getNewFieldSet() != null ? impact.getNewFieldSet().getFieldSetName() : "N/A")
+                        .newLine();
             }
             if (impact.isWorkflowChanged()) {
-                csv.append(String.format("Workflow: %s -> %s\n", 
-                    CsvUtils.escapeCsv(impact.getOldWorkflow() != null ? impact.getOldWorkflow().getWorkflowName() : "N/A"),
-                    CsvUtils.escapeCsv(impact.getNewWorkflow() != null ? impact.getNewWorkflow().getWorkflowName() : "N/A")));
+                csv.text("Workflow: ")
+                        .field(impact.getOldWorkflow() != null ? impact.getOldWorkflow().getWorkflowName() : "N/A")
+                        .text(" -> ")
+                        .field(impact.getNewWorkflow() != null ? impact.getNewWorkflow().getWorkflowName() : "N/A")
+                        .newLine();
             }
-            csv.append("\n");
-            
+            csv.newLine();
+
             // Header del CSV per le permission (16 colonne totali)
-            csv.append("Permission Type,Permission ID,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,");
-            csv.append("Entity Type,Entity ID,Entity Name,Field ID,Field Name,WorkflowStatus ID,WorkflowStatus Name,");
-            csv.append("Matching Entity ID,Matching Entity Name,Assigned Roles\n");
-            
-            // Helper method per scrivere una riga di permission in modo uniforme (16 colonne totali)
-            // Header: Permission Type,Permission ID,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,
-            //         Entity Type,Entity ID,Entity Name,Field ID,Field Name,WorkflowStatus ID,WorkflowStatus Name,
-            //         Matching Entity ID,Matching Entity Name,Assigned Roles
-            java.util.function.Function<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact, String> writePermissionRow = perm -> {
-                StringBuilder row = new StringBuilder();
-                row.append(CsvUtils.escapeCsv(perm.getPermissionType())).append(",");
-                row.append(perm.getPermissionId()).append(",");
-                row.append(perm.getItemTypeSetId() != null ? perm.getItemTypeSetId().toString() : "").append(",");
-                row.append(CsvUtils.escapeCsv(perm.getItemTypeSetName() != null ? perm.getItemTypeSetName() : "")).append(",");
-                row.append(perm.getProjectId() != null ? perm.getProjectId().toString() : "").append(",");
-                row.append(CsvUtils.escapeCsv(perm.getProjectName() != null ? perm.getProjectName() : "")).append(",");
-                
-                // Entity Type (7)
-                if ("FIELD_OWNERS".equals(perm.getPermissionType())) {
-                    row.append("Field,");
-                } else if ("STATUS_OWNERS".equals(perm.getPermissionType())) {
-                    row.append("WorkflowStatus,");
-                } else if ("EXECUTORS".equals(perm.getPermissionType())) {
-                    row.append("Transition,");
-                } else {
-                    row.append("FieldStatus,");
-                }
-                
-                // Entity ID (8)
-                row.append(perm.getEntityId() != null ? perm.getEntityId().toString() : "").append(",");
-                // Entity Name (9)
-                row.append(CsvUtils.escapeCsv(perm.getEntityName() != null ? perm.getEntityName() : "")).append(",");
-                
-                // Field ID (10) - solo per FieldStatus
-                row.append(perm.getFieldId() != null ? perm.getFieldId().toString() : "").append(",");
-                // Field Name (11) - solo per FieldStatus
-                row.append(CsvUtils.escapeCsv(perm.getFieldName() != null ? perm.getFieldName() : "")).append(",");
-                // WorkflowStatus ID (12) - solo per FieldStatus
-                row.append(perm.getWorkflowStatusId() != null ? perm.getWorkflowStatusId().toString() : "").append(",");
-                // WorkflowStatus Name (13) - solo per FieldStatus
-                row.append(CsvUtils.escapeCsv(perm.getWorkflowStatusName() != null ? perm.getWorkflowStatusName() : "")).append(",");
-                
-                // Matching Entity ID (14)
-                row.append(perm.getMatchingEntityId() != null ? perm.getMatchingEntityId().toString() : "").append(",");
-                // Matching Entity Name (15)
-                row.append(CsvUtils.escapeCsv(perm.getMatchingEntityName() != null ? perm.getMatchingEntityName() : "")).append(",");
-                // Assigned Roles (16)
-                row.append(CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles()))).append("\n");
-                
-                return row.toString();
-            };
-            
-            // Field Owner Permissions (solo quelle con ruoli)
-            for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm : impact.getFieldOwnerPermissions()) {
-                if (perm.isHasAssignments()) {
-                    csv.append(writePermissionRow.apply(perm));
-                }
-            }
-            
-            // Status Owner Permissions (solo quelle con ruoli)
-            for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm : impact.getStatusOwnerPermissions()) {
-                if (perm.isHasAssignments()) {
-                    csv.append(writePermissionRow.apply(perm));
-                }
-            }
-            
-            // Field Status Permissions (solo quelle con ruoli)
-            for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm : impact.getFieldStatusPermissions()) {
-                if (perm.isHasAssignments()) {
-                    csv.append(writePermissionRow.apply(perm));
-                }
-            }
-            
-            // Executor Permissions (solo quelle con ruoli)
-            for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm : impact.getExecutorPermissions()) {
-                if (perm.isHasAssignments()) {
-                    csv.append(writePermissionRow.apply(perm));
+            csv.row("Permission Type", "Permission ID", "ItemTypeSet ID", "ItemTypeSet Name", "Project ID", "Project Name",
+                    "Entity Type", "Entity ID", "Entity Name", "Field ID", "Field Name", "WorkflowStatus ID", "WorkflowStatus Name",
+                    "Matching Entity ID", "Matching Entity Name", "Assigned Roles");
+
+            // Solo le permission con ruoli, nell'ordine Field Owner, Status Owner, Field Status, Executor
+            for (List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> section : List.of(
+                    impact.getFieldOwnerPermissions(),
+                    impact.getStatusOwnerPermissions(),
+                    impact.getFieldStatusPermissions(),
+                    impact.getExecutorPermissions())) {
+                for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm : section) {
+                    if (perm.isHasAssignments()) {
+                        writePermissionRow(csv, perm);
+                    }
                 }
             }
-            
-            return CsvUtils.createCsvResponse(csv.toString(), "itemtypeconfiguration_migration_impact", itemTypeConfigurationId);
-        } catch (Exception e) {
-            log.error("Error generating CSV export", e);
-            throw new com.example.demo.exception.ApiException("Error generating CSV export: " + e.getMessage(), e);
+        });
+    }
+
+    /**
+     * Riga di una permission (16 colonne): Entity Type dipende dal tipo di permission,
+     * Field e WorkflowStatus sono valorizzati solo per FieldStatus
+     */
+    private static void writePermissionRow(CsvWriter csv, ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact perm)
+            throws IOException {
+        String entityType;
+        if ("FIELD_OWNERS".equals(perm.getPermissionType())) {
+            entityType = "Field";
+        } else if ("STATUS_OWNERS".equals(perm.getPermissionType())) {
+            entityType = "WorkflowStatus";
+        } else if ("EXECUTORS".equals(perm.getPermissionType())) {
+            entityType = "Transition";
+        } else {
+            entityType = "FieldStatus";
         }
+
+        csv.row(
+                perm.getPermissionType(),
+                perm.getPermissionId(),
+                perm.getItemTypeSetId(),
+                perm.getItemTypeSetName(),
+                perm.getProjectId(),
+                perm.getProjectName(),
+                entityType,
+                perm.getEntityId(),
+                perm.getEntityName(),
+                perm.getFieldId(),
+                perm.getFieldName(),
+                perm.getWorkflowStatusId(),
+                perm.getWorkflowStatusName(),
+                perm.getMatchingEntityId(),
+                perm.getMatchingEntityName(),
+                String.join(";", perm.getAssignedRoles())
+        );
     }
     
 }
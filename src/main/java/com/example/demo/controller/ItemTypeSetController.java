@@ -9,12 +9,14 @@ import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.security.CurrentTenant;
 import com.example.demo.service.ItemTypeSetService;
 import com.example.demo.service.ItemTypeSetPermissionService;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
 import com.example.demo.util.CsvUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -27,6 +29,7 @@ public class ItemTypeSetController {
     private final ItemTypeSetService itemTypeSetService;
     private final DtoMapperFacade dtoMapper;
     private final ItemTypeSetPermissionService itemTypeSetPermissionService;
+    private final ImpactResultCache impactResultCache;
 
     @GetMapping("/global")
     @PreAuthorize("@securityService.hasAccessToGlobals(principal, #tenant)")
@@ -207,67 +210,56 @@ public class ItemTypeSetController {
      */
     @PostMapping("/{itemTypeSetId}/export-itemtypeconfiguration-removal-impact-csv")
     @PreAuthorize("@securityService.hasAccessToGlobals(principal, #tenant)")
-    public ResponseEntity<byte[]> exportItemTypeConfigurationRemovalImpactCsv(
+    public ResponseEntity<StreamingResponseBody> exportItemTypeConfigurationRemovalImpactCsv(
             @PathVariable Long itemTypeSetId,
             @RequestBody java.util.List<Long> removedItemTypeConfigurationIds,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @CurrentTenant Tenant tenant
     ) {
-        try {
-            java.util.Set<Long> configIdsSet = new java.util.HashSet<>(removedItemTypeConfigurationIds);
-            ItemTypeConfigurationRemovalImpactDto impact = itemTypeSetService.analyzeItemTypeConfigurationRemovalImpact(
-                    tenant, itemTypeSetId, configIdsSet);
-
-            StringBuilder csv = new StringBuilder();
-            csv.append("Permission Type,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,");
-            csv.append("ItemTypeConfiguration ID,ItemType Name,ItemType Category,");
-            csv.append("Field Configuration ID,Field Configuration Name,Workflow Status ID,Workflow Status Name,");
-            csv.append("Transition ID,Transition Name,Assigned Roles,Has Assignments\n");
+        java.util.Set<Long> configIdsSet = new java.util.HashSet<>(removedItemTypeConfigurationIds);
+        ItemTypeConfigurationRemovalImpactDto impact = itemTypeSetService.analyzeItemTypeConfigurationRemovalImpact(
+                tenant, itemTypeSetId, configIdsSet);
 
-            java.util.function.Consumer<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> exporter = perm -> {
-                csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                        CsvUtils.escapeCsv(perm.getPermissionType()),
-                        perm.getItemTypeSetId(),
-                        CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                        perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                        perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                        perm.getItemTypeConfigurationId() != null ? perm.getItemTypeConfigurationId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getItemTypeName() != null ? perm.getItemTypeName() : ""),
-                        CsvUtils.escapeCsv(perm.getItemTypeCategory() != null ? perm.getItemTypeCategory() : ""),
-                        perm.getFieldConfigurationId() != null ? perm.getFieldConfigurationId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getFieldConfigurationName() != null ? perm.getFieldConfigurationName() : ""),
-                        perm.getWorkflowStatusId() != null ? perm.getWorkflowStatusId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getWorkflowStatusName() != null ? perm.getWorkflowStatusName() : ""),
-                        perm.getTransitionId() != null ? perm.getTransitionId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getTransitionName() != null ? perm.getTransitionName() : ""),
-                        CsvUtils.escapeCsv(perm.getAssignedRoles() != null ? String.join(";", perm.getAssignedRoles()) : ""),
-                        perm.isHasAssignments()
-                ));
-            };
+        return CsvUtils.streamCsv("itemtypeset_removal_impact", itemTypeSetId, gzip, csv -> {
+            csv.row("Permission Type", "ItemTypeSet ID", "ItemTypeSet Name", "Project ID", "Project Name",
+                    "ItemTypeConfiguration ID", "ItemType Name", "ItemType Category",
+                    "Field Configuration ID", "Field Configuration Name", "Workflow Status ID", "Workflow Status Name",
+                    "Transition ID", "Transition Name", "Assigned Roles", "Has Assignments");
 
-            if (impact.getWorkerPermissions() != null) {
-                impact.getWorkerPermissions().forEach(exporter);
-            }
-            if (impact.getCreatorPermissions() != null) {
-                impact.getCreatorPermissions().forEach(exporter);
-            }
-            if (impact.getStatusOwnerPermissions() != null) {
-                impact.getStatusOwnerPermissions().forEach(exporter);
+            List<List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact>> sections = java.util.Arrays.asList(
+                    impact.getWorkerPermissions(),
+                    impact.getCreatorPermissions(),
+                    impact.getStatusOwnerPermissions(),
+                    impact.getFieldOwnerPermissions(),
+                    impact.getFieldStatusPermissions(),
+                    impact.getExecutorPermissions()
+            );
+            for (List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> section : sections) {
+                if (section == null) {
+                    continue;
+                }
+                for (ItemTypeConfigurationRemovalImpactDto.PermissionImpact perm : section) {
+                    csv.row(
+                            perm.getPermissionType(),
+                            perm.getItemTypeSetId(),
+                            perm.getItemTypeSetName(),
+                            perm.getProjectId(),
+                            perm.getProjectName(),
+                            perm.getItemTypeConfigurationId(),
+                            perm.getItemTypeName(),
+                            perm.getItemTypeCategory(),
+                            perm.getFieldConfigurationId(),
+                            perm.getFieldConfigurationName(),
+                            perm.getWorkflowStatusId(),
+                            perm.getWorkflowStatusName(),
+                            perm.getTransitionId(),
+                            perm.getTransitionName(),
+                            perm.getAssignedRoles() != null ? String.join(";", perm.getAssignedRoles()) : null,
+                            perm.isHasAssignments()
+                    );
+                }
             }
-            if (impact.getFieldOwnerPermissions() != null) {
-                impact.getFieldOwnerPermissions().forEach(exporter);
-            }
-            if (impact.getFieldStatusPermissions() != null) {
-                impact.getFieldStatusPermissions().forEach(exporter);
-            }
-            if (impact.getExecutorPermissions() != null) {
-                impact.getExecutorPermissions().forEach(exporter);
-            }
-
-            return CsvUtils.createCsvResponse(csv.toString(), "itemtypeset_removal_impact", itemTypeSetId);
-        } catch (Exception e) {
-            log.error("Error generating CSV export for ItemTypeSet removal impact", e);
-            throw new com.example.demo.exception.ApiException("Error generating CSV export: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
@@ -278,8 +270,10 @@ public class ItemTypeSetController {
     public ResponseEntity<String> removeItemTypeConfigurationPermissions(
             @PathVariable Long itemTypeSetId,
             @RequestBody RemoveItemTypeConfigurationPermissionsRequest request,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         java.util.Set<Long> removedConfigIds = request.removedItemTypeConfigurationIds() != null
                 ? new java.util.HashSet<>(request.removedItemTypeConfigurationIds())
                 : new java.util.HashSet<>();
@@ -1,16 +1,25 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.ItemTypeSetPermissionPageDto;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.PermissionReportSection;
 import com.example.demo.security.CurrentTenant;
 import com.example.demo.service.ItemTypeSetPermissionService;
 import com.example.demo.dto.RoleViewDto;
 import com.example.demo.service.RoleService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +31,7 @@ public class ItemTypeSetPermissionController {
     
     private final ItemTypeSetPermissionService itemTypeSetPermissionService;
     private final RoleService roleService;
+    private final ObjectMapper objectMapper;
     
     /**
      * Ottiene tutte le permissions per un ItemTypeSet.
@@ -29,14 +39,62 @@ public class ItemTypeSetPermissionController {
      */
     @GetMapping("/itemtypeset/{itemTypeSetId}")
     @PreAuthorize("@securityService.canViewItemTypeSetPermissions(principal, #tenant, #projectId)")
-    public ResponseEntity<Map<String, List<Map<String, Object>>>> getPermissionsByItemTypeSet(
+    public ResponseEntity<Map<String, List<ItemTypeSetPermissionRowDto>>> getPermissionsByItemTypeSet(
             @PathVariable Long itemTypeSetId,
             @RequestParam(required = false) Long projectId,
             @CurrentTenant Tenant tenant) {
-        Map<String, List<Map<String, Object>>> permissions = 
+        Map<String, List<ItemTypeSetPermissionRowDto>> permissions =
             itemTypeSetPermissionService.getPermissionsByItemTypeSet(itemTypeSetId, tenant, projectId);
         return ResponseEntity.ok(permissions);
     }
+
+    /**
+     * Report permessi paginato (keyset): section e itemTypeConfigurationId filtrano le righe,
+     * cursor è il nextCursor della pagina precedente.
+     */
+    @GetMapping("/itemtypeset/{itemTypeSetId}/page")
+    @PreAuthorize("@securityService.canViewItemTypeSetPermissions(principal, #tenant, #projectId)")
+    public ResponseEntity<ItemTypeSetPermissionPageDto> getPermissionPage(
+            @PathVariable Long itemTypeSetId,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) PermissionReportSection section,
+            @RequestParam(required = false) Long itemTypeConfigurationId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int size,
+            @CurrentTenant Tenant tenant) {
+        return ResponseEntity.ok(itemTypeSetPermissionService.getPermissionPage(
+                itemTypeSetId, tenant, projectId, section, itemTypeConfigurationId, cursor, size));
+    }
+
+    /**
+     * Report permessi completo in NDJSON (una riga JSON per permission), scritto man mano che viene letto.
+     */
+    @GetMapping(value = "/itemtypeset/{itemTypeSetId}/stream", produces = "application/x-ndjson")
+    @PreAuthorize("@securityService.canViewItemTypeSetPermissions(principal, #tenant, #projectId)")
+    public ResponseEntity<StreamingResponseBody> streamPermissions(
+            @PathVariable Long itemTypeSetId,
+            @RequestParam(required = false) Long projectId,
+            @RequestParam(required = false) PermissionReportSection section,
+            @RequestParam(required = false) Long itemTypeConfigurationId,
+            @CurrentTenant Tenant tenant) {
+        StreamingResponseBody body = out -> itemTypeSetPermissionService.streamPermissions(
+                itemTypeSetId, tenant, projectId, section, itemTypeConfigurationId, chunk -> writeNdjson(out, chunk));
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private void writeNdjson(OutputStream out, List<ItemTypeSetPermissionRowDto> rows) {
+        try {
+            for (ItemTypeSetPermissionRowDto row : rows) {
+                out.write(objectMapper.writeValueAsBytes(row));
+                out.write('\n');
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     
     /**
      * Crea automaticamente tutte le permissions per un ItemTypeSet
@@ -141,6 +141,18 @@ public class TenantUserManagementController {
         // IllegalStateException e SecurityException ora gestiti da GlobalExceptionHandler
     }
 
+    /**
+     * GET /api/tenant/users/{userId}/access-profile - Ruoli e permission effettive di un utente
+     * (audit e offboarding). Accessibile solo agli ADMIN
+     */
+    @GetMapping("/{userId}/access-profile")
+    @PreAuthorize("hasRole('TENANT_ADMIN')")
+    public ResponseEntity<UserAccessProfileDto> getUserAccessProfile(
+            @PathVariable Long userId,
+            @CurrentTenant Tenant tenant) {
+        return ResponseEntity.ok(tenantUserManagementService.getUserAccessProfile(userId, tenant));
+    }
+
     /**
      * GET /api/tenant/users/{userId}/can-revoke - Verifica se un utente può essere rimosso
      * Accessibile solo agli ADMIN
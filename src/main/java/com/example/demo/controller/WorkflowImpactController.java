@@ -1,39 +1,47 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.ImpactJobDto;
 import com.example.demo.dto.StatusRemovalImpactDto;
 import com.example.demo.dto.TransitionRemovalImpactDto;
 import com.example.demo.dto.WorkflowStatusUpdateDto;
 import com.example.demo.dto.WorkflowUpdateDto;
 import com.example.demo.dto.WorkflowViewDto;
 import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
 import com.example.demo.security.CurrentTenant;
+import com.example.demo.security.CurrentUser;
 import com.example.demo.service.WorkflowService;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.impactjob.ImpactJobService;
 import com.example.demo.util.CsvUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/workflows")
 @RequiredArgsConstructor
-@Slf4j
 public class WorkflowImpactController {
 
     private final WorkflowService workflowService;
     private final ObjectMapper objectMapper;
+    private final ImpactResultCache impactResultCache;
+    private final ImpactJobService impactJobService;
 
     /**
      * Analizza gli impatti della rimozione di Transition da un Workflow
@@ -91,55 +99,49 @@ public class WorkflowImpactController {
      */
     @PostMapping("/{workflowId}/export-transition-removal-impact-csv")
     @PreAuthorize("@securityService.canEditWorkflow(principal, #tenant, #workflowId)")
-    public ResponseEntity<byte[]> exportTransitionRemovalImpactCsv(
+    public ResponseEntity<StreamingResponseBody> exportTransitionRemovalImpactCsv(
             @PathVariable Long workflowId,
             @RequestBody Set<Long> removedTransitionIds,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @CurrentTenant Tenant tenant
-    ) throws IOException {
-        try {
-            TransitionRemovalImpactDto impact = workflowService.analyzeTransitionRemovalImpact(
-                    tenant, workflowId, removedTransitionIds);
-        
-            StringBuilder csv = new StringBuilder();
-            
+    ) {
+        TransitionRemovalImpactDto impact = workflowService.analyzeTransitionRemovalImpact(
+                tenant, workflowId, removedTransitionIds);
+
+        return CsvUtils.streamCsv("workflow_transition_removal_impact", workflowId, gzip, csv -> {
             // Header del CSV
-            csv.append("Permission Type,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,");
-            csv.append("Transition ID,Transition Name,From Status,To Status,");
-            csv.append("Field ID,Field Name,Workflow Status ID,Workflow Status Name,Status ID,Status Name,");
-            csv.append("Assigned Roles,Has Assignments\n");
-            
+            csv.row("Permission Type", "ItemTypeSet ID", "ItemTypeSet Name", "Project ID", "Project Name",
+                    "Transition ID", "Transition Name", "From Status", "To Status",
+                    "Field ID", "Field Name", "Workflow Status ID", "Workflow Status Name", "Status ID", "Status Name",
+                    "Assigned Roles", "Has Assignments");
+
             // Executor Permissions
             for (TransitionRemovalImpactDto.PermissionImpact perm : impact.getExecutorPermissions()) {
-                csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                    CsvUtils.escapeCsv(perm.getPermissionType()),
+                csv.row(
+                    perm.getPermissionType(),
                     perm.getItemTypeSetId(),
-                    CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                    perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                    perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                    perm.getTransitionId() != null ? perm.getTransitionId().toString() : "",
-                    CsvUtils.escapeCsv(perm.getTransitionName() != null ? perm.getTransitionName() : ""),
-                    CsvUtils.escapeCsv(perm.getFromStatusName() != null ? perm.getFromStatusName() : ""),
-                    CsvUtils.escapeCsv(perm.getToStatusName() != null ? perm.getToStatusName() : ""),
-                    "",
-                    "",
-                    "",
-                    "",
-                    "",
-                    "",
-                    CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
+                    perm.getItemTypeSetName(),
+                    perm.getProjectId(),
+                    perm.getProjectName(),
+                    perm.getTransitionId(),
+                    perm.getTransitionName(),
+                    perm.getFromStatusName(),
+                    perm.getToStatusName(),
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    roles(perm.getAssignedRoles()),
                     perm.isHasAssignments()
-                ));
+                );
             }
 
             // La rimozione di transizioni impatta solo le ExecutorPermission
             // StatusOwnerPermission e FieldStatusPermission non sono impattate dalla rimozione di transizioni
             // quindi non le includiamo nel CSV
-            
-            return CsvUtils.createCsvResponse(csv.toString(), "workflow_transition_removal_impact", workflowId);
-        } catch (Exception e) {
-            log.error("Error generating CSV export", e);
-            throw new com.example.demo.exception.ApiException("Error generating CSV export: " + e.getMessage(), e);
-        }
+        });
     }
     
     /**
@@ -184,8 +186,10 @@ public class WorkflowImpactController {
     public ResponseEntity<String> confirmTransitionRemoval(
             @PathVariable Long workflowId,
             @PathVariable Long transitionId,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         Set<Long> transitionIds = Set.of(transitionId);
         
         // Rimuovi le ExecutorPermissions orfane
@@ -205,8 +209,10 @@ public class WorkflowImpactController {
     public ResponseEntity<WorkflowViewDto> confirmTransitionRemoval(
             @PathVariable Long workflowId,
             @RequestBody WorkflowUpdateDto dto,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         WorkflowViewDto result = workflowService.confirmTransitionRemoval(workflowId, dto, tenant);
         return ResponseEntity.ok(result);
     }
@@ -218,6 +224,31 @@ public class WorkflowImpactController {
             @RequestBody WorkflowUpdateDto dto,
             @CurrentTenant Tenant tenant
     ) {
+        StatusRemoval removal = statusRemoval(workflowId, dto, tenant);
+        StatusRemovalImpactDto impact = workflowService.analyzeStatusRemovalImpact(
+                tenant, workflowId, removal.removedStatusIds(), removal.removedTransitionIds());
+        return ResponseEntity.ok(impact);
+    }
+
+    /**
+     * Avvia la stessa analisi come job asincrono (workflow usati da molti progetti): stato e report
+     * si leggono da /api/impact-jobs/{jobId}
+     */
+    @PostMapping("/{workflowId}/analyze-status-removal-impact/jobs")
+    @PreAuthorize("@securityService.canEditWorkflow(principal, #tenant, #workflowId)")
+    public ResponseEntity<ImpactJobDto> submitStatusRemovalImpactJob(
+            @PathVariable Long workflowId,
+            @RequestBody WorkflowUpdateDto dto,
+            @CurrentTenant Tenant tenant,
+            @CurrentUser User user
+    ) {
+        StatusRemoval removal = statusRemoval(workflowId, dto, tenant);
+        ImpactJobDto job = impactJobService.submitStatusRemoval(
+                tenant, user, workflowId, removal.removedStatusIds(), removal.removedTransitionIds());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    private StatusRemoval statusRemoval(Long workflowId, WorkflowUpdateDto dto, Tenant tenant) {
         // Identifica gli Status che verranno rimossi
         Set<Long> existingStatusIds = workflowService.getWorkflowStatusIds(workflowId, tenant);
         Set<Long> newStatusIds = dto.workflowStatuses().stream()
@@ -241,9 +272,10 @@ public class WorkflowImpactController {
                 .filter(id -> !newTransitionIds.contains(id))
                 .collect(Collectors.toSet());
 
-        StatusRemovalImpactDto impact = workflowService.analyzeStatusRemovalImpact(
-                tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds);
-        return ResponseEntity.ok(impact);
+        return new StatusRemoval(removedStatusIds, actuallyRemovedTransitionIds);
+    }
+
+    private record StatusRemoval(Set<Long> removedStatusIds, Set<Long> removedTransitionIds) {
     }
 
 
@@ -252,108 +284,108 @@ public class WorkflowImpactController {
     public ResponseEntity<WorkflowViewDto> confirmStatusRemoval(
             @PathVariable Long workflowId,
             @RequestBody WorkflowUpdateDto dto,
+            @RequestHeader(value = ImpactResultCache.CONFIG_VERSION_HEADER, required = false) Long configVersion,
             @CurrentTenant Tenant tenant
     ) {
+        impactResultCache.requireCurrentVersion(tenant.getId(), configVersion);
         WorkflowViewDto result = workflowService.confirmStatusRemoval(workflowId, dto, tenant);
         return ResponseEntity.ok(result);
     }
 
     @PostMapping("/{workflowId}/export-status-removal-impact-csv")
     @PreAuthorize("@securityService.canEditWorkflow(principal, #tenant, #workflowId)")
-    public ResponseEntity<byte[]> exportStatusRemovalImpactCsv(
+    public ResponseEntity<StreamingResponseBody> exportStatusRemovalImpactCsv(
             @PathVariable Long workflowId,
             @RequestBody Set<Long> removedStatusIds,
+            @RequestParam(defaultValue = "false") boolean gzip,
             @CurrentTenant Tenant tenant
-    ) throws IOException {
-        try {
-            StatusRemovalImpactDto impact = workflowService.analyzeStatusRemovalImpact(
-                    tenant, workflowId, removedStatusIds);
-        
-            StringBuilder csv = new StringBuilder();
-            
+    ) {
+        StatusRemovalImpactDto impact = workflowService.analyzeStatusRemovalImpact(
+                tenant, workflowId, removedStatusIds);
+
+        return CsvUtils.streamCsv("workflow_status_removal_impact", workflowId, gzip, csv -> {
             // Header del CSV
-            csv.append("Permission Type,ItemTypeSet ID,ItemTypeSet Name,Project ID,Project Name,");
-            csv.append("Workflow Status ID,Status Name,Status Category,");
-            csv.append("Transition ID,Transition Name,From Status,To Status,");
-            csv.append("Field ID,Field Name,Assigned Roles,Has Assignments\n");
-            
+            csv.row("Permission Type", "ItemTypeSet ID", "ItemTypeSet Name", "Project ID", "Project Name",
+                    "Workflow Status ID", "Status Name", "Status Category",
+                    "Transition ID", "Transition Name", "From Status", "To Status",
+                    "Field ID", "Field Name", "Assigned Roles", "Has Assignments");
+
             // Status Owner Permissions
             if (impact.getStatusOwnerPermissions() != null) {
                 for (StatusRemovalImpactDto.PermissionImpact perm : impact.getStatusOwnerPermissions()) {
-                    csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                        CsvUtils.escapeCsv(perm.getPermissionType()),
+                    csv.row(
+                        perm.getPermissionType(),
                         perm.getItemTypeSetId(),
-                        CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                        perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                        perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                        perm.getWorkflowStatusId() != null ? perm.getWorkflowStatusId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getStatusName() != null ? perm.getStatusName() : ""),
-                        CsvUtils.escapeCsv(perm.getStatusCategory() != null ? perm.getStatusCategory() : ""),
-                        "",
-                        "",
-                        "",
-                        "",
-                        "",
-                        "",
-                        CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
+                        perm.getItemTypeSetName(),
+                        perm.getProjectId(),
+                        perm.getProjectName(),
+                        perm.getWorkflowStatusId(),
+                        perm.getStatusName(),
+                        perm.getStatusCategory(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        roles(perm.getAssignedRoles()),
                         perm.isHasAssignments()
-                    ));
+                    );
                 }
             }
 
             // Executor Permissions derivanti dagli status rimossi
             if (impact.getExecutorPermissions() != null) {
                 for (StatusRemovalImpactDto.ExecutorPermissionImpact perm : impact.getExecutorPermissions()) {
-                    csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                        CsvUtils.escapeCsv(perm.getPermissionType()),
+                    csv.row(
+                        perm.getPermissionType(),
                         perm.getItemTypeSetId(),
-                        CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                        perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                        perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                        "",
-                        "",
-                        "",
-                        perm.getTransitionId() != null ? perm.getTransitionId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getTransitionName() != null ? perm.getTransitionName() : ""),
-                        CsvUtils.escapeCsv(perm.getFromStatusName() != null ? perm.getFromStatusName() : ""),
-                        CsvUtils.escapeCsv(perm.getToStatusName() != null ? perm.getToStatusName() : ""),
-                        "",
-                        "",
-                        CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
+                        perm.getItemTypeSetName(),
+                        perm.getProjectId(),
+                        perm.getProjectName(),
+                        null,
+                        null,
+                        null,
+                        perm.getTransitionId(),
+                        perm.getTransitionName(),
+                        perm.getFromStatusName(),
+                        perm.getToStatusName(),
+                        null,
+                        null,
+                        roles(perm.getAssignedRoles()),
                         perm.isHasAssignments()
-                    ));
+                    );
                 }
             }
 
             // Field Status Permissions (EDITORS/VIEWERS)
             if (impact.getFieldStatusPermissions() != null) {
                 for (StatusRemovalImpactDto.FieldStatusPermissionImpact perm : impact.getFieldStatusPermissions()) {
-                    csv.append(String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s\n",
-                        CsvUtils.escapeCsv(perm.getPermissionType()),
+                    csv.row(
+                        perm.getPermissionType(),
                         perm.getItemTypeSetId(),
-                        CsvUtils.escapeCsv(perm.getItemTypeSetName()),
-                        perm.getProjectId() != null ? perm.getProjectId().toString() : "",
-                        perm.getProjectName() != null ? CsvUtils.escapeCsv(perm.getProjectName()) : "",
-                        perm.getWorkflowStatusId() != null ? perm.getWorkflowStatusId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getStatusName() != null ? perm.getStatusName() : ""),
-                        "",
-                        "",
-                        "",
-                        "",
-                        "",
-                        perm.getFieldId() != null ? perm.getFieldId().toString() : "",
-                        CsvUtils.escapeCsv(perm.getFieldName() != null ? perm.getFieldName() : ""),
-                        CsvUtils.escapeCsv(String.join(";", perm.getAssignedRoles())),
+                        perm.getItemTypeSetName(),
+                        perm.getProjectId(),
+                        perm.getProjectName(),
+                        perm.getWorkflowStatusId(),
+                        perm.getStatusName(),
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        perm.getFieldId(),
+                        perm.getFieldName(),
+                        roles(perm.getAssignedRoles()),
                         perm.isHasAssignments()
-                    ));
+                    );
                 }
             }
-            
-            return CsvUtils.createCsvResponse(csv.toString(), "workflow_status_removal_impact", workflowId);
-        } catch (Exception e) {
-            log.error("Error generating Status CSV export", e);
-            throw new com.example.demo.exception.ApiException("Error generating Status CSV export: " + e.getMessage(), e);
-        }
+        });
+    }
+
+    private static String roles(List<String> assignedRoles) {
+        return assignedRoles != null ? String.join(";", assignedRoles) : null;
     }
     
 }
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.StatusCategory;
+
+/**
+ * Transizione eseguibile dall'utente sull'item nel suo stato attuale
+ */
+public record AvailableTransitionDto(
+    Long transitionId,
+    String name,
+    Long toWorkflowStatusId,
+    String toStatusName,
+    StatusCategory toStatusCategory
+) {
+}
@@ -13,6 +13,9 @@ public class FieldSetRemovalImpactDto {
     private String fieldSetName;
     private List<Long> removedFieldConfigurationIds;
     private List<String> removedFieldConfigurationNames;
+
+    // Versione della configurazione su cui è calcolato il report (da rimandare in conferma)
+    private Long configVersion;
     
     // ItemTypeSet coinvolti
     private List<ItemTypeSetImpact> affectedItemTypeSets;
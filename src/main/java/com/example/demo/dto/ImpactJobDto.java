@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.ImpactJobStatus;
+import com.example.demo.enums.ImpactJobType;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stato di un job di analisi d'impatto; il report si legge a parte quando status è COMPLETED
+ */
+public record ImpactJobDto(
+    String jobId,
+    ImpactJobType type,
+    Long targetId, // Workflow (STATUS_REMOVAL) o ItemTypeConfiguration (CONFIGURATION_MIGRATION)
+    ImpactJobStatus status,
+    String phase, // ultima fase iniziata
+    Map<String, Long> counts, // ItemTypeSet coinvolti, permission trovate per tipo, ...
+    String error,
+    Instant createdAt,
+    Instant startedAt,
+    Instant completedAt
+) {
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.ItemBulkJobType;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job in blocco sugli item del progetto: gli item sono itemIds se indicati, altrimenti tutti quelli
+ * che rispettano il filtro (workflowStatusId, itemTypeConfigurationId; nessun filtro = tutto il progetto).
+ */
+public record ItemBulkJobCreateDto(
+    @NotNull ItemBulkJobType type,
+    List<Long> itemIds,
+    Long workflowStatusId,
+    Long itemTypeConfigurationId,
+    Long transitionId, // TRANSITION
+    Map<Long, String> fields // EDIT (e facoltativo per TRANSITION): id del Field -> valore
+) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.ItemBulkJobStatus;
+import com.example.demo.enums.ItemBulkJobType;
+
+import java.time.Instant;
+
+/**
+ * Stato di un job in blocco sugli item; i contatori comprendono solo i blocchi già committati
+ */
+public record ItemBulkJobDto(
+    String jobId,
+    Long projectId,
+    ItemBulkJobType type,
+    ItemBulkJobStatus status,
+    long itemsProcessed,
+    long itemsUpdated,
+    long itemsFailed, // dettaglio nell'elenco degli item non modificati (.../failures)
+    String error,
+    Instant createdAt,
+    Instant startedAt,
+    Instant completedAt
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+public record ItemCreateDto (
+    @NotNull(message = "Item type configuration required")
+    Long itemTypeConfigurationId,
+    @NotBlank(message = "Item title required")
+    @Size(max = 255, message = "Item title too long")
+    String title,
+    String description
+
+) {}
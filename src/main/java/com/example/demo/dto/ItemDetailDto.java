@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.StatusCategory;
+
+import java.time.Instant;
+import java.util.Map;
+
+public record ItemDetailDto(
+    Long id,
+    Long projectId,
+    String title,
+    String description,
+    Long itemTypeConfigurationId,
+    String itemTypeName,
+    Long workflowStatusId,
+    String statusName,
+    StatusCategory statusCategory,
+    Long createdById,
+    Instant createdAt,
+    Instant updatedAt,
+    Map<Long, Object> fields, // valori dei field per id del Field (liste di id per le scelte multiple)
+    long version // da rimandare nelle modifiche (controllo di concorrenza ottimistico)
+) {
+}
@@ -0,0 +1,11 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.Map;
+
+public record ItemFieldsUpdateDto(
+    Long version, // se indicata, la modifica fallisce se l'item è cambiato nel frattempo
+    @NotEmpty Map<Long, String> fields // id del Field -> nuovo valore (vuoto per cancellarlo)
+) {
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.ItemImportFormat;
+import com.example.demo.enums.ItemImportStatus;
+
+import java.time.Instant;
+
+/**
+ * Stato di un import item; i contatori comprendono solo i blocchi di righe già committati
+ */
+public record ItemImportDto(
+    Long id,
+    Long projectId,
+    ItemImportFormat format,
+    ItemImportStatus status,
+    long rowsRead,
+    long rowsImported,
+    long rowsFailed, // dettaglio nel file errori (.../errors)
+    String error, // motivo dell'interruzione, solo se status è FAILED
+    Instant createdAt,
+    Instant startedAt,
+    Instant completedAt
+) {
+}
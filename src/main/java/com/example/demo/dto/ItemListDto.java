@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import com.example.demo.enums.StatusCategory;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Riga della lista item: i nomi di tipo e stato arrivano dallo snapshot della configurazione, non da join
+ */
+public record ItemListDto(
+    Long id,
+    String title,
+    Long itemTypeConfigurationId,
+    String itemTypeName,
+    Long workflowStatusId,
+    String statusName,
+    StatusCategory statusCategory,
+    Instant updatedAt,
+    Map<Long, Object> fields // solo i field richiesti nella lista
+) {
+}
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Pagina della lista item di un progetto.
+ * nextCursor è null sull'ultima pagina; altrimenti va passato come cursor per la pagina successiva.
+ */
+public record ItemPageDto(List<ItemListDto> items, String nextCursor) {}
@@ -0,0 +1,12 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Map;
+
+public record ItemTransitionDto(
+    @NotNull Long transitionId,
+    Long version, // versione letta dal client: se indicata, la transizione fallisce se l'item è cambiato nel frattempo
+    Map<Long, String> fields // field modificati durante la transizione (id del Field -> valore)
+) {
+}
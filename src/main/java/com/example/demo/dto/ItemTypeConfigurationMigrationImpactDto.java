@@ -19,6 +19,9 @@ public class ItemTypeConfigurationMigrationImpactDto {
     private String itemTypeSetName;
     private Long itemTypeId;
     private String itemTypeName;
+
+    // Versione della configurazione su cui è calcolato il report (da rimandare in conferma)
+    private Long configVersion;
     
     // Informazioni su cosa sta cambiando
     private FieldSetInfo oldFieldSet;
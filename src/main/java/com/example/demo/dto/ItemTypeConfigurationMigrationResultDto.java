@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+/**
+ * Esito dell'applicazione di una migrazione selettiva delle permission, con i tempi di ogni fase
+ */
+public record ItemTypeConfigurationMigrationResultDto(
+    Long itemTypeConfigurationId,
+
+    int preservedPermissions,
+    int removedPermissions,
+    int removedAssignments, // globali e di progetto
+    int removedGrants,
+
+    Timings timings
+) {
+    /**
+     * Durata delle fasi in millisecondi
+     */
+    public record Timings(
+        long analysisMs, // calcolo dell'impatto
+        long planMs, // insiemi da preservare/rimuovere
+        long assignmentsMs, // lettura ed eliminazione delle PermissionAssignment
+        long permissionsMs, // eliminazione delle permission
+        long grantsMs, // recupero delle Grant dirette
+        long totalMs
+    ) {
+    }
+}
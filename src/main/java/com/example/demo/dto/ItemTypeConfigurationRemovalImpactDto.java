@@ -13,6 +13,9 @@ public class ItemTypeConfigurationRemovalImpactDto {
     private String itemTypeSetName;
     private List<Long> removedItemTypeConfigurationIds;
     private List<String> removedItemTypeConfigurationNames;
+
+    // Versione della configurazione su cui è calcolato il report (da rimandare in conferma)
+    private Long configVersion;
     
     // ItemTypeSet coinvolti (sempre l'ItemTypeSet stesso, ma include info progetto se applicabile)
     private List<ItemTypeSetImpact> affectedItemTypeSets;
@@ -0,0 +1,9 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Pagina del report permessi di un ItemTypeSet.
+ * nextCursor è null sull'ultima pagina; altrimenti va passato come cursor per la pagina successiva.
+ */
+public record ItemTypeSetPermissionPageDto(List<ItemTypeSetPermissionRowDto> rows, String nextCursor) {}
@@ -0,0 +1,54 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Riga del report permessi di un ItemTypeSet (una per permission).
+ * I riferimenti non pertinenti al tipo di permission (es. transition per i Workers) restano null
+ * e non vengono serializzati.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ItemTypeSetPermissionRowDto(
+        Long id,
+        String name,
+        String permissionType,
+        Ref itemType,
+        Ref workflow,
+        Ref workflowStatus,
+        Ref fieldConfiguration,
+        Ref transition,
+        Ref fromStatus,
+        Ref toStatus,
+        int assignedRolesCount,
+        List<RoleRef> assignedRoles,
+        Long grantId,
+        String grantName,
+        Long projectGrantId,
+        String projectGrantName,
+        ProjectGrant projectGrant,
+        List<RoleRef> projectAssignedRoles,
+        boolean hasProjectRoles,
+        boolean hasAssignments
+) {
+
+    public ItemTypeSetPermissionRowDto withProjectGrant(ProjectGrant details) {
+        return new ItemTypeSetPermissionRowDto(id, name, permissionType, itemType, workflow, workflowStatus,
+                fieldConfiguration, transition, fromStatus, toStatus, assignedRolesCount, assignedRoles,
+                grantId, grantName, projectGrantId, projectGrantName, details, projectAssignedRoles,
+                hasProjectRoles, hasAssignments);
+    }
+
+    public record Ref(Long id, String name) {}
+
+    public record RoleRef(Long id, String name, String description) {}
+
+    public record UserRef(Long id, String username, String fullName) {}
+
+    public record ProjectGrant(Long id,
+                               List<UserRef> users,
+                               List<Ref> groups,
+                               List<UserRef> negatedUsers,
+                               List<Ref> negatedGroups) {}
+}
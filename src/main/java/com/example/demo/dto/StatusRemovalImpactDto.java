@@ -14,6 +14,9 @@ public class StatusRemovalImpactDto {
     private List<Long> removedStatusIds;
     private List<String> removedStatusNames;
 
+    // Versione della configurazione su cui è calcolato il report (da rimandare in conferma)
+    private Long configVersion;
+
     private List<ItemTypeSetImpact> affectedItemTypeSets;
 
     private List<PermissionImpact> statusOwnerPermissions;
@@ -13,6 +13,9 @@ public class TransitionRemovalImpactDto {
     private String workflowName;
     private List<Long> removedTransitionIds;
     private List<String> removedTransitionNames;
+
+    // Versione della configurazione su cui è calcolato il report (da rimandare in conferma)
+    private Long configVersion;
     
     // ItemTypeSet coinvolti
     private List<ItemTypeSetImpact> affectedItemTypeSets;
@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * Profilo completo di accesso di un utente a una tenant (audit/offboarding):
+ * ruoli della tenant e tutte le permission che possiede, con il motivo.
+ * Le permission restano visibili anche dopo la revoca dell'accesso, finché l'utente è citato nelle grant.
+ */
+public record UserAccessProfileDto(
+        Long userId,
+        String username,
+        String fullName,
+        boolean hasAccess,
+        List<String> tenantRoles,
+        List<PermissionAccess> permissions
+) {
+
+    /**
+     * projectId null = permission globale valida in tutti i progetti.
+     */
+    public record PermissionAccess(
+            String permissionType,
+            Long permissionId,
+            Long projectId,
+            boolean direct,          // Utente citato direttamente nella grant
+            List<Long> viaGroupIds,
+            List<Long> viaRoleIds
+    ) {}
+}
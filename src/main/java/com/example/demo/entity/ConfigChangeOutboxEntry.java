@@ -0,0 +1,54 @@
+package com.example.demo.entity;
+
+import com.example.demo.enums.ConfigChangeType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Riga dell'outbox delle modifiche di configurazione, scritta nella stessa transazione della modifica.
+ * L'id (auto increment) è il numero di sequenza letto dai poller di tutti i nodi.
+ */
+@Entity
+@Table(name = "config_change_outbox", indexes = {
+        @Index(name = "idx_config_change_outbox_created_at", columnList = "created_at"),
+        @Index(name = "idx_config_change_outbox_tenant_id", columnList = "tenant_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ConfigChangeOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 32)
+    private ConfigChangeType changeType;
+
+    // Id dell'entità modificata (workflow, permission, gruppo, utente, ...), se significativo
+    @Column(name = "entity_id")
+    private Long entityId;
+
+    // Nodo che ha scritto la riga: i suoi subscriber hanno già applicato la modifica in modo sincrono
+    @Column(name = "origin_node", nullable = false, length = 36)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ConfigChangeOutboxEntry(Long tenantId, ConfigChangeType changeType, Long entityId, String originNode) {
+        this.tenantId = tenantId;
+        this.changeType = changeType;
+        this.entityId = entityId;
+        this.originNode = originNode;
+        this.createdAt = Instant.now();
+    }
+}
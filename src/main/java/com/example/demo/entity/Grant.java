@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -25,7 +26,11 @@ public class Grant {
     @JoinColumn(nullable = true)
     private Role role; // Può essere null quando assegnato direttamente a PermissionAssignment
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    // Collezioni LAZY: letture e valutazioni usano gli id di GrantMembershipLookup,
+    // le entity User/Group vengono caricate (a blocchi) solo dagli editor che mostrano i nomi
+
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
             name = "grant_assignment_users",
             joinColumns = @JoinColumn(name = "grant_id"),
@@ -33,7 +38,8 @@ public class Grant {
     )
     private Set<User> users = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
             name = "grant_assignment_groups",
             joinColumns = @JoinColumn(name = "grant_id"),
@@ -41,7 +47,8 @@ public class Grant {
     )
     private Set<Group> groups = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
             name = "grant_negated_users",
             joinColumns = @JoinColumn(name = "grant_id"),
@@ -49,7 +56,8 @@ public class Grant {
     )
     private Set<User> negatedUsers = new HashSet<>();
 
-    @ManyToMany(fetch = FetchType.EAGER, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
+    @BatchSize(size = 50)
     @JoinTable(
             name = "grant_negated_groups",
             joinColumns = @JoinColumn(name = "grant_id"),
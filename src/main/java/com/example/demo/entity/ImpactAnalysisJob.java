@@ -0,0 +1,81 @@
+package com.example.demo.entity;
+
+import com.example.demo.enums.ImpactJobStatus;
+import com.example.demo.enums.ImpactJobType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
+
+/**
+ * Stato persistito di un job di analisi d'impatto. Il nodo che esegue il job lo tiene anche in memoria;
+ * gli altri nodi leggono da qui stato, avanzamento e risultato (JSON del report).
+ * Gli update scrivono solo le colonne cambiate: cancel_requested, impostata dagli altri nodi, non viene sovrascritta.
+ */
+@Entity
+@DynamicUpdate
+@Table(name = "impact_analysis_job", indexes = {
+        @Index(name = "idx_impact_analysis_job_updated_at", columnList = "updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImpactAnalysisJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    // Utente che ha avviato il job: l'unico che può leggerlo o annullarlo
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 32)
+    private ImpactJobType type;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ImpactJobStatus status;
+
+    @Column(length = 64)
+    private String phase;
+
+    // Conteggi dell'avanzamento, come oggetto JSON nome -> valore
+    @Column(name = "counts_json", columnDefinition = "TEXT")
+    private String countsJson;
+
+    @Column(name = "result_json", columnDefinition = "LONGTEXT")
+    private String resultJson;
+
+    @Column(length = 1000)
+    private String error;
+
+    // Annullamento richiesto da un nodo diverso da quello che esegue il job
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "origin_node", nullable = false, length = 36)
+    private String originNode;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -1,27 +1,68 @@
 package com.example.demo.entity;
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
+import java.time.Instant;
+
+/**
+ * Item di un progetto: tipo (ItemTypeConfiguration dell'ItemTypeSet del progetto) e stato corrente
+ * (WorkflowStatus del workflow della configurazione).
+ *
+ * Le liste leggono per (progetto, stato, id) con paginazione keyset: gli indici composti coprono filtro e
+ * ordinamento senza OFFSET; l'id finale è implicito negli indici InnoDB ma resta esplicito per chiarezza.
+ */
 @Entity
+@Table(name = "item", indexes = {
+        @Index(name = "idx_item_project_status_id", columnList = "project_id, workflow_status_id, id"),
+        @Index(name = "idx_item_project_id", columnList = "project_id, id"),
+        @Index(name = "idx_item_configuration_id", columnList = "item_type_configuration_id, id")
+})
+@Getter
+@Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class Item {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
-    @JoinColumn(name = "project_id")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "tenant_id", nullable = false)
+    private Tenant tenant;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "project_id", nullable = false)
     private Project project;
 
-    private String status; // Es. "To Do", "In Progress", "Done"
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "item_type_configuration_id", nullable = false)
+    private ItemTypeConfiguration itemTypeConfiguration;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "workflow_status_id", nullable = false)
+    private WorkflowStatus workflowStatus;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by_id")
+    private User createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
 
-    @ManyToOne
-    @JoinColumn(name = "itemtype_id")
-    private ItemType itemType;
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
 
-    // Getters/Setters
+    // Incrementata anche dagli UPDATE in blocco: una modifica concorrente non viene sovrascritta
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
@@ -0,0 +1,77 @@
+package com.example.demo.entity;
+
+import com.example.demo.enums.ItemBulkJobStatus;
+import com.example.demo.enums.ItemBulkJobType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Job in blocco (transizione o modifica) sugli item di un progetto. Richiesta e avanzamento sono persistiti:
+ * i contatori vengono aggiornati nella transazione di ogni blocco di item e qualsiasi nodo può leggerli.
+ */
+@Entity
+@Table(name = "item_bulk_job", indexes = {
+        @Index(name = "idx_item_bulk_job_updated_at", columnList = "updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemBulkJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    // Utente che ha avviato il job: i permessi verificati su ogni item sono i suoi
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 16)
+    private ItemBulkJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ItemBulkJobStatus status;
+
+    // Richiesta originale (filtro o id, transizione o field), come JSON
+    @Column(name = "request_json", nullable = false, columnDefinition = "LONGTEXT")
+    private String requestJson;
+
+    @Column(name = "items_processed", nullable = false)
+    private long itemsProcessed;
+
+    @Column(name = "items_updated", nullable = false)
+    private long itemsUpdated;
+
+    @Column(name = "items_failed", nullable = false)
+    private long itemsFailed;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "cancel_requested", nullable = false)
+    private boolean cancelRequested;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Item non modificato da un job in blocco, con il motivo. Scritta da ItemBulkInsertRepository.
+ */
+@Entity
+@Table(name = "item_bulk_job_failure", indexes = {
+        @Index(name = "idx_item_bulk_job_failure_job_id", columnList = "job_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemBulkJobFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(nullable = false, length = 500)
+    private String message;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Una riga per FieldOption, utente o gruppo selezionato (select, checkbox, radio, user e group picker).
+ */
+@Entity
+@Table(name = "item_field_id", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_field_id_item_field_value", columnNames = {"item_id", "field_id", "value_id"})
+}, indexes = {
+        @Index(name = "idx_item_field_id_project_field_value", columnList = "project_id, field_id, value_id, item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemFieldIdValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "value_id", nullable = false)
+    private Long valueId;
+}
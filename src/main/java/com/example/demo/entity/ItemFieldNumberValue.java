@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Valore di un field NUMBER di un item. project_id è quello dell'item: filtri e ordinamenti di un progetto
+ * leggono solo il suo intervallo dell'indice. Le righe sono scritte e lette da ItemFieldValueRepository.
+ */
+@Entity
+@Table(name = "item_field_number", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_field_number_item_field", columnNames = {"item_id", "field_id"})
+}, indexes = {
+        @Index(name = "idx_item_field_number_project_field_value", columnList = "project_id, field_id, value, item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemFieldNumberValue {
+
+    // DECIMAL(PRECISION, SCALE): al più PRECISION - SCALE cifre intere e SCALE decimali
+    public static final int PRECISION = 30;
+    public static final int SCALE = 8;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "value", nullable = false, precision = PRECISION, scale = SCALE)
+    private BigDecimal value;
+}
@@ -0,0 +1,37 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Valore di testo breve (SHORT_TEXT, LINK), al massimo 255 caratteri.
+ */
+@Entity
+@Table(name = "item_field_string", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_field_string_item_field", columnNames = {"item_id", "field_id"})
+}, indexes = {
+        @Index(name = "idx_item_field_string_project_field_value", columnList = "project_id, field_id, value, item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemFieldStringValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "value", nullable = false, length = 255)
+    private String value;
+}
@@ -0,0 +1,39 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Data o data e ora (DATE alla mezzanotte UTC, DATETIME).
+ */
+@Entity
+@Table(name = "item_field_temporal", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_field_temporal_item_field", columnNames = {"item_id", "field_id"})
+}, indexes = {
+        @Index(name = "idx_item_field_temporal_project_field_value", columnList = "project_id, field_id, value, item_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemFieldTemporalValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "value", nullable = false)
+    private Instant value;
+}
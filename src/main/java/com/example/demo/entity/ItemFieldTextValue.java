@@ -0,0 +1,35 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Testo lungo (TEXT_AREA, RTF): non indicizzato, non filtrabile.
+ */
+@Entity
+@Table(name = "item_field_text", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_item_field_text_item_field", columnNames = {"item_id", "field_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemFieldTextValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "field_id", nullable = false)
+    private Long fieldId;
+
+    @Column(name = "value", nullable = false, columnDefinition = "LONGTEXT")
+    private String value;
+}
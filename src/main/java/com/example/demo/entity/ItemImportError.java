@@ -0,0 +1,33 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Riga scartata da un import item (numero della riga di dati, a partire da 1, e motivo).
+ * Scritta in blocco da ItemBulkInsertRepository; l'entity serve a schema e lettura del file errori.
+ */
+@Entity
+@Table(name = "item_import_error", indexes = {
+        @Index(name = "idx_item_import_error_import_row", columnList = "import_id, source_row")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ItemImportError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "import_id", nullable = false)
+    private Long importId;
+
+    @Column(name = "source_row", nullable = false)
+    private long rowNumber;
+
+    @Column(nullable = false, length = 500)
+    private String message;
+}
@@ -0,0 +1,34 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Versione persistita dei ruoli di un utente in una tenant, incrementata nella stessa transazione della modifica.
+ * user_id = 0 è la versione di tenant delle GrantRoleAssignment, che non hanno un singolo utente di riferimento.
+ * Le due versioni formano il role stamp scritto nei token, uguale su tutti i nodi e dopo un riavvio.
+ */
+@Entity
+@Table(name = "role_version", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_role_version_tenant_user", columnNames = {"tenant_id", "user_id"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RoleVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+}
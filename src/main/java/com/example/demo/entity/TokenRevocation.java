@@ -0,0 +1,38 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Revoca di un token, scritta insieme alla riga di InvalidatedToken.
+ * L'id (auto increment) è la posizione letta dal TokenRevocationIndex degli altri nodi: non dipende
+ * dall'orologio del nodo che ha revocato il token.
+ */
+@Entity
+@Table(name = "token_revocation", indexes = {
+        @Index(name = "idx_token_revocation_expiration_time", columnList = "expiration_time")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class TokenRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 512)
+    private String token;
+
+    @Column(name = "expiration_time", nullable = false)
+    private Instant expirationTime;
+
+    public TokenRevocation(String token, Instant expirationTime) {
+        this.token = token;
+        this.expirationTime = expirationTime;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.enums;
+
+/**
+ * Tipo di configurazione modificata, registrato nell'outbox delle modifiche di configurazione.
+ */
+public enum ConfigChangeType {
+    WORKFLOW,
+    ITEM_TYPE_SET,
+    FIELD_SET,
+    PERMISSION_ASSIGNMENT,
+    ROLE,
+    GROUP,
+    TENANT_USER,
+    PROJECT,
+    ITEM_TYPE,
+    STATUS,
+    FIELD
+}
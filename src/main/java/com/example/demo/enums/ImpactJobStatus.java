@@ -0,0 +1,17 @@
+package com.example.demo.enums;
+
+/**
+ * Stato di un job di analisi d'impatto: QUEUED in attesa di uno slot della tenant, poi RUNNING
+ * fino a uno stato finale (COMPLETED, FAILED, CANCELLED).
+ */
+public enum ImpactJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.demo.enums;
+
+/**
+ * Analisi d'impatto eseguibili come job asincrono.
+ */
+public enum ImpactJobType {
+    STATUS_REMOVAL,
+    CONFIGURATION_MIGRATION
+}
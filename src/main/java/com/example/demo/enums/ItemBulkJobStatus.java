@@ -0,0 +1,17 @@
+package com.example.demo.enums;
+
+/**
+ * Stato di un job in blocco sugli item: QUEUED in attesa di un thread del pool, poi RUNNING
+ * fino a uno stato finale (COMPLETED, FAILED, CANCELLED).
+ */
+public enum ItemBulkJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED || this == CANCELLED;
+    }
+}
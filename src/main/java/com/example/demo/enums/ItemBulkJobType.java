@@ -0,0 +1,10 @@
+package com.example.demo.enums;
+
+/**
+ * Operazione di un job in blocco sugli item: TRANSITION esegue la stessa Transition su ogni item,
+ * EDIT modifica gli stessi field su ogni item.
+ */
+public enum ItemBulkJobType {
+    TRANSITION,
+    EDIT
+}
@@ -0,0 +1,9 @@
+package com.example.demo.enums;
+
+/**
+ * Formato del file di import item: CSV con intestazione, o NDJSON (un oggetto JSON per riga).
+ */
+public enum ItemImportFormat {
+    CSV,
+    NDJSON
+}
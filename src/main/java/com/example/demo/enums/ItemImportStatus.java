@@ -0,0 +1,12 @@
+package com.example.demo.enums;
+
+/**
+ * Stato di un import item: CREATED finché il file non viene caricato, RUNNING durante la lettura,
+ * poi COMPLETED (anche con righe scartate) o FAILED (file illeggibile o upload interrotto).
+ */
+public enum ItemImportStatus {
+    CREATED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
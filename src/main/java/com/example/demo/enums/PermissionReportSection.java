@@ -0,0 +1,30 @@
+package com.example.demo.enums;
+
+/**
+ * Sezioni del report permessi di un ItemTypeSet, nell'ordine in cui vengono restituite.
+ */
+public enum PermissionReportSection {
+    WORKERS("Workers", "WorkerPermission"),
+    STATUS_OWNERS("Status Owners", "StatusOwnerPermission"),
+    FIELD_OWNERS("Field Owners", "FieldOwnerPermission"),
+    CREATORS("Creators", "CreatorPermission"),
+    EXECUTORS("Executors", "ExecutorPermission"),
+    EDITORS("Editors", "FieldStatusPermission"),
+    VIEWERS("Viewers", "FieldStatusPermission");
+
+    private final String label;
+    private final String permissionType;
+
+    PermissionReportSection(String label, String permissionType) {
+        this.label = label;
+        this.permissionType = permissionType;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getPermissionType() {
+        return permissionType;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.fieldtype;
+
+import com.example.demo.enums.FieldType;
+
+/**
+ * Dove vengono salvati i valori degli item per un tipo di field: ogni tipo ha una tabella con la colonna valore
+ * del tipo SQL adatto (vedi le entity ItemField*Value). NUMBER, STRING, TEMPORAL e ID hanno un indice
+ * (progetto, field, valore, item) e si possono filtrare; NUMBER, STRING e TEMPORAL anche ordinare.
+ * TEXT (testi lunghi, RTF) non è indicizzato.
+ */
+public enum FieldValueKind {
+    NUMBER("item_field_number"),
+    STRING("item_field_string"),
+    TEMPORAL("item_field_temporal"),
+    ID("item_field_id"),
+    TEXT("item_field_text");
+
+    private final String table;
+
+    FieldValueKind(String table) {
+        this.table = table;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public boolean isFilterable() {
+        return this != TEXT;
+    }
+
+    public boolean isSortable() {
+        return this == NUMBER || this == STRING || this == TEMPORAL;
+    }
+
+    public static FieldValueKind of(FieldType fieldType) {
+        return switch (fieldType) {
+            case NUMBER -> NUMBER;
+            case SHORT_TEXT, LINK -> STRING;
+            case DATE, DATETIME -> TEMPORAL;
+            case CHECKBOX, RADIO, SINGLE_SELECT, MULTI_SELECT, CASCADING_SELECT,
+                 SINGLE_USER, MULTI_USER, SINGLE_GROUP, MULTI_GROUP -> ID;
+            case TEXT_AREA, RTF -> TEXT;
+        };
+    }
+}
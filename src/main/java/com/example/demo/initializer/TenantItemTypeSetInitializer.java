@@ -6,7 +6,6 @@ import com.example.demo.entity.*;
 import com.example.demo.enums.ItemTypeCategory;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.repository.*;
-import com.example.demo.service.ItemTypePermissionService;
 import com.example.demo.service.ItemTypeSetPermissionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.annotation.Order;
@@ -28,7 +27,6 @@ public class TenantItemTypeSetInitializer implements TenantInitializer {
     private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
     private final WorkflowRepository workflowRepository;
     private final FieldSetRepository fieldSetRepository;
-    private final ItemTypePermissionService itemTypePermissionService;
     private final ItemTypeSetPermissionService itemTypeSetPermissionService;
 
     @Override
@@ -61,10 +59,8 @@ public class TenantItemTypeSetInitializer implements TenantInitializer {
                         configuration.setFieldSet(fieldSetRepository.findFirstByTenantAndDefaultFieldSetTrue(tenant));
 
                         itemTypeConfigurationRepository.save(configuration);
-                        
-                        // Crea le permissions base per questa configurazione (Creator, Executor, ecc.)
-                        itemTypePermissionService.createPermissionsForItemTypeConfiguration(configuration);
-                        
+
+                        // Le permissions vengono create in blocco per l'intero ItemTypeSet (vedi sotto)
                         return configuration;
                     })
                     .filter(Objects::nonNull)
@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ConfigChangeOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ConfigChangeOutboxRepository extends JpaRepository<ConfigChangeOutboxEntry, Long> {
+
+    /**
+     * Righe successive all'ultima sequenza elaborata, in ordine di sequenza
+     */
+    @Query("SELECT e FROM ConfigChangeOutboxEntry e WHERE e.id > :afterSequence ORDER BY e.id")
+    List<ConfigChangeOutboxEntry> findAfter(@Param("afterSequence") Long afterSequence, Pageable pageable);
+
+    /**
+     * Righe di sequenze saltate dal poller, comparse dopo il timeout del buco (commit in ritardo)
+     */
+    @Query("SELECT e FROM ConfigChangeOutboxEntry e WHERE e.id IN :sequences ORDER BY e.id")
+    List<ConfigChangeOutboxEntry> findBySequences(@Param("sequences") Collection<Long> sequences);
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM ConfigChangeOutboxEntry e")
+    long findMaxSequence();
+
+    /**
+     * Ultima sequenza della tenant: versione della configurazione condivisa da tutti i nodi (idx (tenant_id, id))
+     */
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM ConfigChangeOutboxEntry e WHERE e.tenantId = :tenantId")
+    long findMaxSequenceByTenantId(@Param("tenantId") Long tenantId);
+
+    // Pulizia periodica delle righe già lette da tutti i nodi. L'ultima riga di ogni tenant resta:
+    // è la versione della sua configurazione e non deve tornare indietro
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE o FROM config_change_outbox o " +
+                   "LEFT JOIN (SELECT MAX(id) AS id FROM config_change_outbox GROUP BY tenant_id) latest ON latest.id = o.id " +
+                   "WHERE o.created_at < :before AND latest.id IS NULL", nativeQuery = true)
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.CreatorPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -33,4 +34,28 @@ public interface CreatorPermissionRepository extends JpaRepository<CreatorPermis
     @Query("SELECT p FROM CreatorPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<CreatorPermission> findAllByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
                                                                         @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Pagina keyset (id crescente) per il report paginato/streaming dei permessi dell'ItemTypeSet
+    @Query("SELECT p FROM CreatorPermission p " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<CreatorPermission> findPageByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
+                                                     @Param("tenant") com.example.demo.entity.Tenant tenant,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    // Chiavi naturali di tutte le CreatorPermission della tenant, per l'indice della PermissionMatrix
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId " +
+           "FROM CreatorPermission p WHERE p.itemTypeConfiguration.tenant.id = :tenantId")
+    List<KeyView> findKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    // Chiavi naturali delle CreatorPermission già presenti per le configurazioni, per il provisioning in blocco
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId " +
+           "FROM CreatorPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds")
+    List<KeyView> findKeysByItemTypeConfigurationIdIn(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds);
+
+    interface KeyView {
+        Long getPermissionId();
+        Long getItemTypeConfigurationId();
+    }
 }
@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.ExecutorPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -41,14 +42,47 @@ public interface ExecutorPermissionRepository extends JpaRepository<ExecutorPerm
     @Query("SELECT p FROM ExecutorPermission p JOIN p.transition t JOIN t.workflow w WHERE t.id = :transitionId AND w.tenant = :tenant")
     List<ExecutorPermission> findByTransitionIdAndTenant(@Param("transitionId") Long transitionId, @Param("tenant") com.example.demo.entity.Tenant tenant);
 
-    @Query("SELECT p FROM ExecutorPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
+    // Fetch delle associazioni lette dal report permessi dell'ItemTypeSet (nessun caricamento lazy per riga)
+    @Query("SELECT p FROM ExecutorPermission p " +
+           "LEFT JOIN FETCH p.transition t " +
+           "LEFT JOIN FETCH t.fromStatus fs LEFT JOIN FETCH fs.status " +
+           "LEFT JOIN FETCH t.toStatus ts LEFT JOIN FETCH ts.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<ExecutorPermission> findAllByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
                                                                          @Param("tenant") com.example.demo.entity.Tenant tenant);
 
+    // Pagina keyset (id crescente) per il report paginato/streaming dei permessi dell'ItemTypeSet
+    @Query("SELECT p FROM ExecutorPermission p " +
+           "LEFT JOIN FETCH p.transition t " +
+           "LEFT JOIN FETCH t.fromStatus fs LEFT JOIN FETCH fs.status " +
+           "LEFT JOIN FETCH t.toStatus ts LEFT JOIN FETCH ts.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<ExecutorPermission> findPageByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
+                                                     @Param("tenant") com.example.demo.entity.Tenant tenant,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
     @Modifying
     @Query("DELETE FROM ExecutorPermission p WHERE p.transition.id IN :transitionIds")
     void deleteAllByTransitionIds(@Param("transitionIds") Collection<Long> transitionIds);
 
     @Query("SELECT p FROM ExecutorPermission p WHERE p.transition.id IN :transitionIds")
     List<ExecutorPermission> findAllByTransitionIdIn(@Param("transitionIds") Collection<Long> transitionIds);
+
+    // Chiavi naturali di tutte le ExecutorPermission della tenant, per l'indice della PermissionMatrix
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, t.id AS targetId " +
+           "FROM ExecutorPermission p JOIN p.transition t WHERE p.itemTypeConfiguration.tenant.id = :tenantId")
+    List<KeyView> findKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    // Chiavi naturali delle ExecutorPermission già presenti per le configurazioni, per il provisioning in blocco
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, t.id AS targetId " +
+           "FROM ExecutorPermission p JOIN p.transition t WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds")
+    List<KeyView> findKeysByItemTypeConfigurationIdIn(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds);
+
+    interface KeyView {
+        Long getPermissionId();
+        Long getItemTypeConfigurationId();
+        Long getTargetId();
+    }
 }
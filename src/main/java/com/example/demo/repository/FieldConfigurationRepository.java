@@ -1,9 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.FieldConfiguration;
+import com.example.demo.enums.FieldType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,5 +28,26 @@ public interface FieldConfigurationRepository extends JpaRepository<FieldConfigu
     List<FieldConfiguration> findAllByIdInAndTenant(List<Long> configIds, Tenant tenant);
 
     void deleteByIdAndTenant(Long id, Tenant tenant);
+
+    // FieldConfiguration della tenant come soli id e tipo, per lo snapshot di configurazione
+    @Query("SELECT fc.id AS id, fc.field.id AS fieldId, fc.fieldType AS fieldType " +
+           "FROM FieldConfiguration fc WHERE fc.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    // Coppie (FieldConfiguration, FieldOption abilitata) della tenant, per lo snapshot di configurazione
+    @Query("SELECT fc.id AS fieldConfigurationId, o.id AS optionId " +
+           "FROM FieldConfiguration fc JOIN fc.options o WHERE fc.tenant.id = :tenantId AND o.enabled = true")
+    List<OptionRowView> findOptionRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    interface SnapshotRowView {
+        Long getId();
+        Long getFieldId();
+        FieldType getFieldType();
+    }
+
+    interface OptionRowView {
+        Long getFieldConfigurationId();
+        Long getOptionId();
+    }
 }
 
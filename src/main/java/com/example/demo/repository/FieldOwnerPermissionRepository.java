@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.FieldOwnerPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -41,7 +42,34 @@ public interface FieldOwnerPermissionRepository extends JpaRepository<FieldOwner
         @Param("fieldId") Long fieldId
     );
 
-    @Query("SELECT p FROM FieldOwnerPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
+    // Fetch delle associazioni lette dal report permessi dell'ItemTypeSet (nessun caricamento lazy per riga)
+    @Query("SELECT p FROM FieldOwnerPermission p LEFT JOIN FETCH p.field " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<FieldOwnerPermission> findAllByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
                                                                            @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Pagina keyset (id crescente) per il report paginato/streaming dei permessi dell'ItemTypeSet
+    @Query("SELECT p FROM FieldOwnerPermission p LEFT JOIN FETCH p.field " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<FieldOwnerPermission> findPageByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
+                                                     @Param("tenant") com.example.demo.entity.Tenant tenant,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
+
+    // Chiavi naturali di tutte le FieldOwnerPermission della tenant, per l'indice della PermissionMatrix
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, f.id AS targetId " +
+           "FROM FieldOwnerPermission p JOIN p.field f WHERE p.itemTypeConfiguration.tenant.id = :tenantId")
+    List<KeyView> findKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    // Chiavi naturali delle FieldOwnerPermission già presenti per le configurazioni, per il provisioning in blocco
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, f.id AS targetId " +
+           "FROM FieldOwnerPermission p JOIN p.field f WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds")
+    List<KeyView> findKeysByItemTypeConfigurationIdIn(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds);
+
+    interface KeyView {
+        Long getPermissionId();
+        Long getItemTypeConfigurationId();
+        Long getTargetId();
+    }
 }
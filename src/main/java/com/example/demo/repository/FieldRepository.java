@@ -4,6 +4,8 @@ package com.example.demo.repository;
 import com.example.demo.entity.Field;
 import com.example.demo.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +17,20 @@ public interface FieldRepository extends JpaRepository<Field, Long> {
     Optional<Field> findByTenantAndName(Tenant tenant, String name);
     Optional<Field> findByIdAndTenant(Long id, Tenant tenant);
     List<Field> findByDefaultFieldTrueAndTenant(Tenant tenant);
+
+    /**
+     * Field della tenant con la prima FieldConfiguration (id più basso), per lo snapshot di configurazione
+     */
+    @Query("SELECT f.id AS id, f.name AS name, fc.id AS fieldConfigurationId, fc.name AS fieldConfigurationName " +
+           "FROM Field f LEFT JOIN FieldConfiguration fc ON fc.field = f AND fc.id = " +
+           "(SELECT MIN(fc2.id) FROM FieldConfiguration fc2 WHERE fc2.field = f AND fc2.tenant = f.tenant) " +
+           "WHERE f.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    interface SnapshotRowView {
+        Long getId();
+        String getName();
+        Long getFieldConfigurationId();
+        String getFieldConfigurationName();
+    }
 }
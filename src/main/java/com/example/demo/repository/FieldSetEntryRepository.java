@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -35,4 +36,35 @@ public interface FieldSetEntryRepository extends JpaRepository<FieldSetEntry, Lo
 
     boolean existsByFieldConfiguration_IdAndFieldSet_Tenant_Id(Long fieldConfigurationId, Long tenantId);
 
+    /**
+     * Coppie (FieldSet, Field) come soli id, per il provisioning in blocco delle permission
+     */
+    @Query("""
+    SELECT DISTINCT e.fieldSet.id AS fieldSetId, e.fieldConfiguration.field.id AS fieldId
+    FROM FieldSetEntry e
+    WHERE e.fieldSet.id IN :fieldSetIds
+""")
+    List<FieldIdRowView> findFieldIdRowsByFieldSetIdIn(@Param("fieldSetIds") Collection<Long> fieldSetIds);
+
+    /**
+     * Terne (FieldSet, Field, FieldConfiguration) di tutta la tenant, per lo snapshot di configurazione
+     */
+    @Query("""
+    SELECT e.fieldSet.id AS fieldSetId, e.fieldConfiguration.field.id AS fieldId,
+           e.fieldConfiguration.id AS fieldConfigurationId
+    FROM FieldSetEntry e
+    WHERE e.fieldSet.tenant.id = :tenantId
+""")
+    List<FieldConfigurationRowView> findFieldConfigurationRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    interface FieldIdRowView {
+        Long getFieldSetId();
+        Long getFieldId();
+    }
+
+    interface FieldConfigurationRowView {
+        Long getFieldSetId();
+        Long getFieldId();
+        Long getFieldConfigurationId();
+    }
 }
@@ -4,6 +4,7 @@ import com.example.demo.entity.Field;
 import com.example.demo.entity.FieldStatusPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
 import com.example.demo.entity.WorkflowStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -72,9 +73,21 @@ public interface FieldStatusPermissionRepository extends JpaRepository<FieldStat
             @Param("workflowStatusIds") Set<Long> workflowStatusIds
     );
 
-    @Query("SELECT p FROM FieldStatusPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
+    // Fetch delle associazioni lette dal report permessi dell'ItemTypeSet (nessun caricamento lazy per riga)
+    @Query("SELECT p FROM FieldStatusPermission p LEFT JOIN FETCH p.field LEFT JOIN FETCH p.workflowStatus ws LEFT JOIN FETCH ws.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<FieldStatusPermission> findAllByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
                                                                             @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Pagina keyset (id crescente) per il report paginato/streaming dei permessi dell'ItemTypeSet
+    @Query("SELECT p FROM FieldStatusPermission p LEFT JOIN FETCH p.field LEFT JOIN FETCH p.workflowStatus ws LEFT JOIN FETCH ws.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant AND p.permissionType = :permissionType " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<FieldStatusPermission> findPageByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
+                                                     @Param("tenant") com.example.demo.entity.Tenant tenant,
+                                                     @Param("permissionType") FieldStatusPermission.PermissionType permissionType,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
     
     /**
      * Trova tutte le FieldStatusPermission per un WorkflowStatus, filtrate per Tenant (sicurezza)
@@ -87,4 +100,26 @@ public interface FieldStatusPermissionRepository extends JpaRepository<FieldStat
      */
     @Query("SELECT p FROM FieldStatusPermission p WHERE p.workflowStatus.id IN :workflowStatusIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<FieldStatusPermission> findByWorkflowStatusIdInAndTenant(@Param("workflowStatusIds") Set<Long> workflowStatusIds, @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Chiavi naturali di tutte le FieldStatusPermission della tenant, per l'indice della PermissionMatrix
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "f.id AS fieldId, ws.id AS workflowStatusId, p.permissionType AS permissionType " +
+           "FROM FieldStatusPermission p JOIN p.field f JOIN p.workflowStatus ws " +
+           "WHERE p.itemTypeConfiguration.tenant.id = :tenantId")
+    List<KeyView> findKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    // Chiavi naturali delle FieldStatusPermission già presenti per le configurazioni, per il provisioning in blocco
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "f.id AS fieldId, ws.id AS workflowStatusId, p.permissionType AS permissionType " +
+           "FROM FieldStatusPermission p JOIN p.field f JOIN p.workflowStatus ws " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds")
+    List<KeyView> findKeysByItemTypeConfigurationIdIn(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds);
+
+    interface KeyView {
+        Long getPermissionId();
+        Long getItemTypeConfigurationId();
+        Long getFieldId();
+        Long getWorkflowStatusId();
+        FieldStatusPermission.PermissionType getPermissionType();
+    }
 }
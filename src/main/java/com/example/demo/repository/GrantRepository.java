@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +26,11 @@ public interface GrantRepository extends JpaRepository<Grant, Long> {
     // Trova tutti i grant che negano esplicitamente un gruppo
     List<Grant> findByNegatedGroupsContaining(Group group);
     
-    // Trova una grant con eager fetching di tutte le collezioni per evitare lazy loading
+    /**
+     * Trova una grant con eager fetching di tutte le collezioni (join cartesiana sulle quattro collezioni).
+     * @deprecated per leggere i membri usare GrantMembershipLookup; per modificarli basta findById.
+     */
+    @Deprecated
     @Query("SELECT g FROM Grant g " +
            "LEFT JOIN FETCH g.users " +
            "LEFT JOIN FETCH g.groups " +
@@ -43,7 +48,9 @@ public interface GrantRepository extends JpaRepository<Grant, Long> {
     
     /**
      * Trova una Grant con collezioni per ID e Tenant (sicurezza)
+     * @deprecated vedi findByIdWithCollections
      */
+    @Deprecated
     @Query("SELECT g FROM Grant g " +
            "LEFT JOIN FETCH g.users " +
            "LEFT JOIN FETCH g.groups " +
@@ -58,4 +65,21 @@ public interface GrantRepository extends JpaRepository<Grant, Long> {
     @Query(value = "DELETE FROM grant_assignment WHERE id = :grantId", nativeQuery = true)
     void deleteGrantNative(@Param("grantId") Long grantId);
 
+    // Membri (solo id) dei grant indicati, dalle quattro join table in un'unica query
+    @Query(value = "SELECT grant_id AS grantId, 'USER' AS kind, users_id AS memberId " +
+                   "FROM grant_assignment_users WHERE grant_id IN (:grantIds) " +
+                   "UNION ALL " +
+                   "SELECT grant_id, 'GROUP', groups_id FROM grant_assignment_groups WHERE grant_id IN (:grantIds) " +
+                   "UNION ALL " +
+                   "SELECT grant_id, 'NEGATED_USER', negated_users_id FROM grant_negated_users WHERE grant_id IN (:grantIds) " +
+                   "UNION ALL " +
+                   "SELECT grant_id, 'NEGATED_GROUP', negated_groups_id FROM grant_negated_groups WHERE grant_id IN (:grantIds)",
+           nativeQuery = true)
+    List<GrantMembershipRowView> findMembershipRowsByGrantIdIn(@Param("grantIds") Collection<Long> grantIds);
+
+    interface GrantMembershipRowView {
+        Long getGrantId();
+        String getKind();
+        Long getMemberId();
+    }
 }
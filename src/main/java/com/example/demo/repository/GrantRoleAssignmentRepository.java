@@ -153,6 +153,19 @@ public interface GrantRoleAssignmentRepository extends JpaRepository<GrantRoleAs
                                                     @Param("tenantId") Long tenantId,
                                                     @Param("roleName") String roleName);
 
+    // Coppie (progetto, ruolo) PROJECT-level di un utente in una tenant, in un'unica query
+    @Query("""
+        SELECT DISTINCT ga.project.id AS projectId, ga.role.name AS roleName
+        FROM GrantRoleAssignment ga
+        JOIN ga.grant g
+        JOIN g.users u
+        WHERE u.id = :userId
+          AND ga.tenant.id = :tenantId
+          AND ga.project IS NOT NULL
+    """)
+    List<ProjectRoleView> findProjectRolesByUserAndTenant(@Param("userId") Long userId,
+                                                          @Param("tenantId") Long tenantId);
+
     /**
      * Restituisce tutte le GrantRoleAssignment per un progetto e tenant.
      */
@@ -166,4 +179,34 @@ public interface GrantRoleAssignmentRepository extends JpaRepository<GrantRoleAs
     List<GrantRoleAssignment> findAllByProjectAndTenantAndRole(@Param("project") Project project,
                                                                @Param("tenant") Tenant tenant,
                                                                @Param("role") Role role);
+
+    // Triple (ruolo, progetto, grant) della tenant, per la compilazione della PermissionMatrix
+    @Query("""
+        SELECT ga.role.id AS roleId, p.id AS projectId, ga.grant.id AS grantId
+        FROM GrantRoleAssignment ga
+        LEFT JOIN ga.project p
+        WHERE ga.tenant.id = :tenantId
+    """)
+    List<RoleGrantView> findRoleGrantsByTenantId(@Param("tenantId") Long tenantId);
+
+    // Come findRoleGrantsByTenantId, per un solo ruolo (aggiornamento incrementale della PermissionMatrix)
+    @Query("""
+        SELECT ga.role.id AS roleId, p.id AS projectId, ga.grant.id AS grantId
+        FROM GrantRoleAssignment ga
+        LEFT JOIN ga.project p
+        WHERE ga.tenant.id = :tenantId AND ga.role.id = :roleId
+    """)
+    List<RoleGrantView> findRoleGrantsByTenantIdAndRoleId(@Param("tenantId") Long tenantId,
+                                                          @Param("roleId") Long roleId);
+
+    interface ProjectRoleView {
+        Long getProjectId();
+        String getRoleName();
+    }
+
+    interface RoleGrantView {
+        Long getRoleId();
+        Long getProjectId();
+        Long getGrantId();
+    }
 }
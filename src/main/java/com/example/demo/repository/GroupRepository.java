@@ -3,6 +3,8 @@ package com.example.demo.repository;
 import com.example.demo.entity.Group;
 import com.example.demo.entity.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,5 +16,26 @@ public interface GroupRepository extends JpaRepository<Group, Long> {
     Optional<Group> findByIdAndTenant(Long id, Tenant tenant);
     Optional<Group> findByNameAndTenant(String name, Tenant tenant);
     boolean existsByNameAndTenant(String name, Tenant tenant);
-}
 
+    // Coppie (gruppo, utente) della tenant, per la compilazione della PermissionMatrix
+    @Query("SELECT g.id AS groupId, u.id AS userId FROM Group g JOIN g.users u WHERE g.tenant.id = :tenantId")
+    List<GroupMemberView> findMembersByTenantId(@Param("tenantId") Long tenantId);
+
+    @Query("SELECT g.id AS groupId, u.id AS userId FROM Group g JOIN g.deniedUsers u WHERE g.tenant.id = :tenantId")
+    List<GroupMemberView> findDeniedUsersByTenantId(@Param("tenantId") Long tenantId);
+
+    @Query("SELECT u.id FROM Group g JOIN g.users u WHERE g.id = :groupId AND g.tenant.id = :tenantId")
+    List<Long> findMemberIds(@Param("groupId") Long groupId, @Param("tenantId") Long tenantId);
+
+    @Query("SELECT u.id FROM Group g JOIN g.deniedUsers u WHERE g.id = :groupId AND g.tenant.id = :tenantId")
+    List<Long> findDeniedUserIds(@Param("groupId") Long groupId, @Param("tenantId") Long tenantId);
+
+    @Query("SELECT CASE WHEN COUNT(g) > 0 THEN true ELSE false END FROM Group g JOIN g.users u " +
+           "WHERE g.tenant.id = :tenantId AND u.id = :userId")
+    boolean isMemberOfTenantGroup(@Param("userId") Long userId, @Param("tenantId") Long tenantId);
+
+    interface GroupMemberView {
+        Long getGroupId();
+        Long getUserId();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ImpactAnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface ImpactAnalysisJobRepository extends JpaRepository<ImpactAnalysisJob, String> {
+
+    Optional<ImpactAnalysisJob> findByIdAndTenantId(String id, Long tenantId);
+
+    @Query("SELECT j.cancelRequested FROM ImpactAnalysisJob j WHERE j.id = :id")
+    Optional<Boolean> findCancelRequested(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImpactAnalysisJob j SET j.cancelRequested = true WHERE j.id = :id")
+    int requestCancel(@Param("id") String id);
+
+    // Pulizia periodica dei job non più aggiornati
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ImpactAnalysisJob j WHERE j.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,144 @@
+package com.example.demo.repository;
+
+import com.example.demo.fieldtype.FieldValueKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserimento in blocco di item, dei valori dei loro field, degli errori degli import e degli item non modificati
+ * dai job in blocco,
+ * con INSERT multi-riga come PermissionBulkInsertRepository: ogni statement scrive fino a
+ * {@link #ROWS_PER_STATEMENT} righe e nessuna riga passa dal persistence context.
+ * La transazione è quella del chiamante.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemBulkInsertRepository {
+
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private static final List<String> ITEM_COLUMNS = List.of("tenant_id", "project_id", "item_type_configuration_id",
+            "workflow_status_id", "title", "description", "created_by_id", "created_at", "updated_at", "version");
+
+    private static final List<String> ERROR_COLUMNS = List.of("import_id", "source_row", "message");
+
+    private static final List<String> FAILURE_COLUMNS = List.of("job_id", "item_id", "message");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Valori dei field nella tabella del tipo; gli Instant diventano Timestamp, gli altri valori passano così come sono.
+     */
+    public int insertFieldValues(FieldValueKind kind, Long projectId, List<FieldValueRow> rows) {
+        List<String> columns = List.of("item_id", "project_id", "field_id",
+                ItemFieldValueRepository.valueColumn(kind));
+        return insert(kind.table(), columns, rows.stream()
+                .map(row -> new Object[]{row.itemId(), projectId, row.fieldId(),
+                        row.value() instanceof Instant instant ? Timestamp.from(instant) : row.value()})
+                .toList());
+    }
+
+    /**
+     * Inserisce gli item e restituisce gli id generati nell'ordine delle righe (chiavi generate dell'INSERT multi-riga).
+     */
+    public List<Long> insertItems(Long tenantId, Long projectId, Long createdById, Instant createdAt, List<ItemRow> rows) {
+        Timestamp timestamp = Timestamp.from(createdAt);
+        List<Long> ids = new ArrayList<>(rows.size());
+        insert("item", ITEM_COLUMNS, rows.stream()
+                .map(row -> new Object[]{tenantId, projectId, row.itemTypeConfigurationId(), row.workflowStatusId(),
+                        row.title(), row.description(), createdById, timestamp, timestamp, 0L})
+                .toList(), ids);
+        return ids;
+    }
+
+    public int insertImportErrors(Long importId, List<ErrorRow> rows) {
+        return insert("item_import_error", ERROR_COLUMNS, rows.stream()
+                .map(row -> new Object[]{importId, row.rowNumber(), row.message()})
+                .toList());
+    }
+
+    public int insertBulkJobFailures(String jobId, List<FailureRow> rows) {
+        return insert("item_bulk_job_failure", FAILURE_COLUMNS, rows.stream()
+                .map(row -> new Object[]{jobId, row.itemId(), row.message()})
+                .toList());
+    }
+
+    private int insert(String table, List<String> columns, List<Object[]> rows) {
+        return insert(table, columns, rows, null);
+    }
+
+    /**
+     * generatedIds, se non è null, riceve gli id generati nell'ordine delle righe.
+     */
+    private int insert(String table, List<String> columns, List<Object[]> rows, List<Long> generatedIds) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        String prefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        String tuple = "(" + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            StringBuilder sql = new StringBuilder(prefix.length() + chunk.size() * (tuple.length() + 2)).append(prefix);
+            List<Object> params = new ArrayList<>(chunk.size() * columns.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(tuple);
+                // description e created_by_id possono essere null
+                params.addAll(Arrays.asList(chunk.get(i)));
+            }
+            if (generatedIds == null) {
+                inserted += jdbcTemplate.update(sql.toString(), params.toArray());
+                continue;
+            }
+            String statement = sql.toString();
+            ArgumentPreparedStatementSetter arguments = new ArgumentPreparedStatementSetter(params.toArray());
+            KeyHolder keys = new GeneratedKeyHolder();
+            inserted += jdbcTemplate.update(connection -> {
+                PreparedStatement ps = connection.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS);
+                arguments.setValues(ps);
+                return ps;
+            }, keys);
+            for (Map<String, Object> key : keys.getKeyList()) {
+                generatedIds.add(((Number) key.values().iterator().next()).longValue());
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Item validato, nello stato già risolto (iniziale o indicato nel file).
+     */
+    public record ItemRow(Long itemTypeConfigurationId, Long workflowStatusId, String title, String description) {
+    }
+
+    /**
+     * Riga scartata: numero della riga di dati (a partire da 1) e motivo.
+     */
+    public record ErrorRow(long rowNumber, String message) {
+    }
+
+    /**
+     * Valore di un field di un item, già convertito nel tipo della colonna (una riga per ogni id scelto).
+     */
+    public record FieldValueRow(Long itemId, Long fieldId, Object value) {
+    }
+
+    /**
+     * Item non modificato da un job in blocco e motivo.
+     */
+    public record FailureRow(Long itemId, String message) {
+    }
+}
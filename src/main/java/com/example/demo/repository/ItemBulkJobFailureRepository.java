@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ItemBulkJobFailure;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface ItemBulkJobFailureRepository extends JpaRepository<ItemBulkJobFailure, Long> {
+
+    // Pagina keyset degli item non modificati, nell'ordine in cui il job li ha trovati
+    @Query("SELECT f FROM ItemBulkJobFailure f WHERE f.jobId = :jobId AND f.id > :afterId ORDER BY f.id")
+    List<ItemBulkJobFailure> findPage(@Param("jobId") String jobId,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ItemBulkJobFailure f WHERE f.jobId IN " +
+           "(SELECT j.id FROM ItemBulkJob j WHERE j.updatedAt < :before)")
+    int deleteOfJobsUpdatedBefore(@Param("before") Instant before);
+}
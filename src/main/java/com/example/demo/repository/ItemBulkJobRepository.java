@@ -0,0 +1,60 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ItemBulkJob;
+import com.example.demo.enums.ItemBulkJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface ItemBulkJobRepository extends JpaRepository<ItemBulkJob, String> {
+
+    Optional<ItemBulkJob> findByIdAndTenantIdAndProjectId(String id, Long tenantId, Long projectId);
+
+    @Query("SELECT j.cancelRequested FROM ItemBulkJob j WHERE j.id = :id")
+    Optional<Boolean> findCancelRequested(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemBulkJob j SET j.cancelRequested = true WHERE j.id = :id")
+    int requestCancel(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemBulkJob j SET j.status = :status, j.startedAt = :now, j.updatedAt = :now WHERE j.id = :id")
+    int markStarted(@Param("id") String id,
+                    @Param("status") ItemBulkJobStatus status,
+                    @Param("now") Instant now);
+
+    // Chiamato nella transazione del blocco di item appena applicato
+    @Modifying
+    @Query("UPDATE ItemBulkJob j SET j.itemsProcessed = j.itemsProcessed + :processed, " +
+           "j.itemsUpdated = j.itemsUpdated + :updated, j.itemsFailed = j.itemsFailed + :failed, " +
+           "j.updatedAt = :now WHERE j.id = :id")
+    int addProgress(@Param("id") String id,
+                    @Param("processed") long processed,
+                    @Param("updated") long updated,
+                    @Param("failed") long failed,
+                    @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemBulkJob j SET j.status = :status, j.error = :error, j.completedAt = :now, j.updatedAt = :now " +
+           "WHERE j.id = :id")
+    int finish(@Param("id") String id,
+               @Param("status") ItemBulkJobStatus status,
+               @Param("error") String error,
+               @Param("now") Instant now);
+
+    // Pulizia periodica dei job non più aggiornati (gli errori prima, vedi ItemBulkJobFailureRepository)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ItemBulkJob j WHERE j.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") Instant before);
+}
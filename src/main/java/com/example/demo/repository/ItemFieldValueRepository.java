@@ -0,0 +1,146 @@
+package com.example.demo.repository;
+
+import com.example.demo.fieldtype.FieldValueKind;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Letture e cancellazioni dei valori dei field degli item, una tabella per {@link FieldValueKind}.
+ * Le query sono SQL diretto sulla tabella del tipo: una query per tipo, qualunque sia il numero di item e di field,
+ * e i filtri/ordinamenti usano l'indice (project_id, field_id, valore, item_id). Gli inserimenti sono in
+ * ItemBulkInsertRepository.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemFieldValueRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Valori degli item indicati (tutti i field se fieldIds è null), in ordine di item e field.
+     */
+    public List<ValueRow> findValues(FieldValueKind kind, Collection<Long> itemIds, Collection<Long> fieldIds) {
+        if (itemIds.isEmpty() || (fieldIds != null && fieldIds.isEmpty())) {
+            return List.of();
+        }
+        String column = valueColumn(kind);
+        StringBuilder sql = new StringBuilder("SELECT item_id, field_id, ").append(column)
+                .append(" FROM ").append(kind.table())
+                .append(" WHERE item_id IN (").append(placeholders(itemIds.size())).append(")");
+        List<Object> params = new ArrayList<>(itemIds);
+        if (fieldIds != null) {
+            sql.append(" AND field_id IN (").append(placeholders(fieldIds.size())).append(")");
+            params.addAll(fieldIds);
+        }
+        sql.append(" ORDER BY item_id, field_id").append(kind == FieldValueKind.ID ? ", value_id" : "");
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new ValueRow(rs.getLong(1), rs.getLong(2), readValue(kind, rs)),
+                params.toArray());
+    }
+
+    public int deleteValues(FieldValueKind kind, Collection<Long> itemIds, Collection<Long> fieldIds) {
+        if (itemIds.isEmpty() || fieldIds.isEmpty()) {
+            return 0;
+        }
+        List<Object> params = new ArrayList<>(itemIds.size() + fieldIds.size());
+        params.addAll(itemIds);
+        params.addAll(fieldIds);
+        return jdbcTemplate.update("DELETE FROM " + kind.table()
+                + " WHERE item_id IN (" + placeholders(itemIds.size()) + ")"
+                + " AND field_id IN (" + placeholders(fieldIds.size()) + ")", params.toArray());
+    }
+
+    /**
+     * Pagina keyset degli item del progetto con un valore del field, ordinata per (valore, item) e letta
+     * dall'indice (project_id, field_id, valore, item_id). Gli estremi e il cursore sono già convertiti nel tipo
+     * del valore (BigDecimal, String, Instant, Long); il filtro per stato passa dalla chiave primaria di item.
+     */
+    public List<ValueRow> findPage(FieldValueKind kind,
+                                   Long projectId,
+                                   Long fieldId,
+                                   Object equalTo,
+                                   Object from,
+                                   Object to,
+                                   Long workflowStatusId,
+                                   Object afterValue,
+                                   Long afterItemId,
+                                   boolean descending,
+                                   int limit) {
+        String column = "v." + valueColumn(kind);
+        StringBuilder sql = new StringBuilder("SELECT v.item_id, v.field_id, ").append(column)
+                .append(" FROM ").append(kind.table()).append(" v");
+        if (workflowStatusId != null) {
+            sql.append(" JOIN item i ON i.id = v.item_id");
+        }
+        sql.append(" WHERE v.project_id = ? AND v.field_id = ?");
+        List<Object> params = new ArrayList<>(List.of(projectId, fieldId));
+        if (equalTo != null) {
+            sql.append(" AND ").append(column).append(" = ?");
+            params.add(bind(equalTo));
+        }
+        if (from != null) {
+            sql.append(" AND ").append(column).append(" >= ?");
+            params.add(bind(from));
+        }
+        if (to != null) {
+            sql.append(" AND ").append(column).append(" <= ?");
+            params.add(bind(to));
+        }
+        if (workflowStatusId != null) {
+            sql.append(" AND i.workflow_status_id = ?");
+            params.add(workflowStatusId);
+        }
+        if (afterItemId != null) {
+            String direction = descending ? " < ?" : " > ?";
+            sql.append(" AND (").append(column).append(direction)
+                    .append(" OR (").append(column).append(" = ? AND v.item_id").append(direction).append("))");
+            Collections.addAll(params, bind(afterValue), bind(afterValue), afterItemId);
+        }
+        String order = descending ? " DESC" : "";
+        sql.append(" ORDER BY ").append(column).append(order).append(", v.item_id").append(order).append(" LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(),
+                (rs, rowNum) -> new ValueRow(rs.getLong(1), rs.getLong(2), readValue(kind, rs)),
+                params.toArray());
+    }
+
+    static String valueColumn(FieldValueKind kind) {
+        return kind == FieldValueKind.ID ? "value_id" : "value";
+    }
+
+    private static Object readValue(FieldValueKind kind, ResultSet rs) throws SQLException {
+        return switch (kind) {
+            case NUMBER -> rs.getBigDecimal(3);
+            case STRING, TEXT -> rs.getString(3);
+            case TEMPORAL -> {
+                Timestamp timestamp = rs.getTimestamp(3);
+                yield timestamp != null ? timestamp.toInstant() : null;
+            }
+            case ID -> rs.getLong(3);
+        };
+    }
+
+    private static Object bind(Object value) {
+        return value instanceof Instant instant ? Timestamp.from(instant) : value;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Valore di un field di un item: BigDecimal, String, Instant o Long (una riga per id scelto) secondo il tipo.
+     */
+    public record ValueRow(Long itemId, Long fieldId, Object value) {
+    }
+}
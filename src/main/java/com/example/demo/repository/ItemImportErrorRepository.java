@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ItemImportError;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ItemImportErrorRepository extends JpaRepository<ItemImportError, Long> {
+
+    // Pagina keyset degli errori dell'import; scritti in ordine di riga, quindi l'ordine per id è quello del file
+    @Query("SELECT e FROM ItemImportError e WHERE e.importId = :importId AND e.id > :afterId ORDER BY e.id")
+    List<ItemImportError> findPage(@Param("importId") Long importId,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
+}
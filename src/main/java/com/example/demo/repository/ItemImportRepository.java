@@ -0,0 +1,48 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.ItemImport;
+import com.example.demo.enums.ItemImportStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface ItemImportRepository extends JpaRepository<ItemImport, Long> {
+
+    Optional<ItemImport> findByIdAndTenantIdAndProjectId(Long id, Long tenantId, Long projectId);
+
+    // Passa l'import da CREATED a RUNNING: 0 se il contenuto è già stato caricato (anche da un'altra richiesta)
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemImport i SET i.status = :running, i.startedAt = :now, i.updatedAt = :now " +
+           "WHERE i.id = :id AND i.status = :created")
+    int markRunning(@Param("id") Long id,
+                    @Param("created") ItemImportStatus created,
+                    @Param("running") ItemImportStatus running,
+                    @Param("now") Instant now);
+
+    // Chiamato nella transazione del blocco di righe appena inserito
+    @Modifying
+    @Query("UPDATE ItemImport i SET i.rowsRead = i.rowsRead + :read, i.rowsImported = i.rowsImported + :imported, " +
+           "i.rowsFailed = i.rowsFailed + :failed, i.updatedAt = :now WHERE i.id = :id")
+    int addProgress(@Param("id") Long id,
+                    @Param("read") long read,
+                    @Param("imported") long imported,
+                    @Param("failed") long failed,
+                    @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE ItemImport i SET i.status = :status, i.error = :error, i.completedAt = :now, i.updatedAt = :now " +
+           "WHERE i.id = :id")
+    int finish(@Param("id") Long id,
+               @Param("status") ItemImportStatus status,
+               @Param("error") String error,
+               @Param("now") Instant now);
+}
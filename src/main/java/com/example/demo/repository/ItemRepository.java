@@ -0,0 +1,155 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Item;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ItemRepository extends JpaRepository<Item, Long> {
+
+    // Pagina keyset (id crescente) degli item del progetto: solo colonne di item, nessuna join né entity
+    @Query("SELECT i.id AS id, i.title AS title, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.updatedAt AS updatedAt " +
+           "FROM Item i WHERE i.project.id = :projectId AND i.id > :afterId ORDER BY i.id")
+    List<ListRowView> findPageByProjectId(@Param("projectId") Long projectId,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+
+    // Pagina keyset (id crescente) degli item del progetto in uno stato, letta da idx_item_project_status_id
+    @Query("SELECT i.id AS id, i.title AS title, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.updatedAt AS updatedAt " +
+           "FROM Item i WHERE i.project.id = :projectId AND i.workflowStatus.id = :workflowStatusId " +
+           "AND i.id > :afterId ORDER BY i.id")
+    List<ListRowView> findPageByProjectIdAndWorkflowStatusId(@Param("projectId") Long projectId,
+                                                             @Param("workflowStatusId") Long workflowStatusId,
+                                                             @Param("afterId") Long afterId,
+                                                             Pageable pageable);
+
+    // Righe della lista per gli id di una pagina ordinata su un field (l'ordine lo rimette il chiamante)
+    @Query("SELECT i.id AS id, i.title AS title, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.updatedAt AS updatedAt " +
+           "FROM Item i WHERE i.id IN :ids AND i.project.id = :projectId")
+    List<ListRowView> findListRows(@Param("ids") Collection<Long> ids,
+                                   @Param("projectId") Long projectId);
+
+    @Query("SELECT i.id AS id, i.project.id AS projectId, i.title AS title, i.description AS description, " +
+           "i.itemTypeConfiguration.id AS itemTypeConfigurationId, i.workflowStatus.id AS workflowStatusId, " +
+           "i.createdBy.id AS createdById, i.createdAt AS createdAt, i.updatedAt AS updatedAt, i.version AS version " +
+           "FROM Item i WHERE i.id = :id AND i.project.id = :projectId AND i.tenant.id = :tenantId")
+    Optional<DetailView> findDetail(@Param("id") Long id,
+                                    @Param("projectId") Long projectId,
+                                    @Param("tenantId") Long tenantId);
+
+    // Stato corrente dell'item, quanto basta a valutare una transizione
+    @Query("SELECT i.id AS id, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.version AS version " +
+           "FROM Item i WHERE i.id = :id AND i.project.id = :projectId AND i.tenant.id = :tenantId")
+    Optional<StateView> findState(@Param("id") Long id,
+                                  @Param("projectId") Long projectId,
+                                  @Param("tenantId") Long tenantId);
+
+    // Cambio di stato condizionato allo stato letto (e alla versione, se indicata): 0 se l'item è cambiato nel frattempo
+    @Modifying
+    @Query(value = "UPDATE item SET workflow_status_id = :toWorkflowStatusId, updated_at = :now, version = version + 1 " +
+                   "WHERE id = :id AND workflow_status_id = :fromWorkflowStatusId " +
+                   "AND (:version IS NULL OR version = :version)", nativeQuery = true)
+    int updateWorkflowStatus(@Param("id") Long id,
+                             @Param("fromWorkflowStatusId") Long fromWorkflowStatusId,
+                             @Param("toWorkflowStatusId") Long toWorkflowStatusId,
+                             @Param("version") Long version,
+                             @Param("now") Instant now);
+
+    // Modifica dei field senza cambio di stato: nuova versione solo se stato (e versione, se indicata) sono quelli letti
+    @Modifying
+    @Query(value = "UPDATE item SET updated_at = :now, version = version + 1 " +
+                   "WHERE id = :id AND workflow_status_id = :workflowStatusId " +
+                   "AND (:version IS NULL OR version = :version)", nativeQuery = true)
+    int touch(@Param("id") Long id,
+              @Param("workflowStatusId") Long workflowStatusId,
+              @Param("version") Long version,
+              @Param("now") Instant now);
+
+    // Pagine keyset degli stati degli item del progetto, per i job in blocco con filtro
+    @Query("SELECT i.id AS id, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.version AS version " +
+           "FROM Item i WHERE i.project.id = :projectId AND i.id > :afterId ORDER BY i.id")
+    List<StateView> findStatePageByProjectId(@Param("projectId") Long projectId,
+                                             @Param("afterId") Long afterId,
+                                             Pageable pageable);
+
+    @Query("SELECT i.id AS id, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.version AS version " +
+           "FROM Item i WHERE i.project.id = :projectId AND i.workflowStatus.id = :workflowStatusId " +
+           "AND i.id > :afterId ORDER BY i.id")
+    List<StateView> findStatePageByProjectIdAndWorkflowStatusId(@Param("projectId") Long projectId,
+                                                                @Param("workflowStatusId") Long workflowStatusId,
+                                                                @Param("afterId") Long afterId,
+                                                                Pageable pageable);
+
+    @Query("SELECT i.id AS id, i.itemTypeConfiguration.id AS itemTypeConfigurationId, " +
+           "i.workflowStatus.id AS workflowStatusId, i.version AS version " +
+           "FROM Item i WHERE i.id IN :ids AND i.project.id = :projectId AND i.tenant.id = :tenantId")
+    List<StateView> findStates(@Param("ids") Collection<Long> ids,
+                               @Param("projectId") Long projectId,
+                               @Param("tenantId") Long tenantId);
+
+    // Cambio di stato in blocco: solo gli item ancora nello stato di partenza verificato
+    @Modifying
+    @Query(value = "UPDATE item SET workflow_status_id = :toWorkflowStatusId, updated_at = :now, version = version + 1 " +
+                   "WHERE id IN (:ids) AND workflow_status_id = :fromWorkflowStatusId", nativeQuery = true)
+    int updateWorkflowStatusInBulk(@Param("ids") Collection<Long> ids,
+                                   @Param("fromWorkflowStatusId") Long fromWorkflowStatusId,
+                                   @Param("toWorkflowStatusId") Long toWorkflowStatusId,
+                                   @Param("now") Instant now);
+
+    // Modifica in blocco dei field: solo gli item ancora nello stato in cui sono stati verificati i permessi
+    @Modifying
+    @Query(value = "UPDATE item SET updated_at = :now, version = version + 1 " +
+                   "WHERE id IN (:ids) AND workflow_status_id = :workflowStatusId", nativeQuery = true)
+    int touchInBulk(@Param("ids") Collection<Long> ids,
+                    @Param("workflowStatusId") Long workflowStatusId,
+                    @Param("now") Instant now);
+
+    // Item ancora nello stato verificato, bloccati fino al commit: l'UPDATE in blocco che segue cambia esattamente questi
+    @Query(value = "SELECT id FROM item WHERE id IN (:ids) AND workflow_status_id = :workflowStatusId FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockIdsInWorkflowStatus(@Param("ids") Collection<Long> ids,
+                                       @Param("workflowStatusId") Long workflowStatusId);
+
+    interface ListRowView {
+        Long getId();
+        String getTitle();
+        Long getItemTypeConfigurationId();
+        Long getWorkflowStatusId();
+        Instant getUpdatedAt();
+    }
+
+    interface DetailView {
+        Long getId();
+        Long getProjectId();
+        String getTitle();
+        String getDescription();
+        Long getItemTypeConfigurationId();
+        Long getWorkflowStatusId();
+        Long getCreatedById();
+        Instant getCreatedAt();
+        Instant getUpdatedAt();
+        Long getVersion();
+    }
+
+    interface StateView {
+        Long getId();
+        Long getItemTypeConfigurationId();
+        Long getWorkflowStatusId();
+        Long getVersion();
+    }
+}
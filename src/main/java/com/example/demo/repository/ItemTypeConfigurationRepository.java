@@ -68,4 +68,26 @@ public interface ItemTypeConfigurationRepository extends JpaRepository<ItemTypeC
     """)
     java.util.Optional<ItemTypeConfiguration> findByIdWithWorkflowAndFieldSet(@Param("id") Long id);
 
+    /**
+     * Righe compatte delle ItemTypeConfiguration della tenant, per lo snapshot di configurazione
+     */
+    @Query("""
+        SELECT itc.id AS id, it.id AS itemTypeId, it.name AS itemTypeName, itc.category AS category,
+               w.id AS workflowId, fs.id AS fieldSetId
+        FROM ItemTypeConfiguration itc
+        JOIN itc.itemType it
+        LEFT JOIN itc.workflow w
+        LEFT JOIN itc.fieldSet fs
+        WHERE itc.tenant.id = :tenantId
+    """)
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    interface SnapshotRowView {
+        Long getId();
+        Long getItemTypeId();
+        String getItemTypeName();
+        ItemTypeCategory getCategory();
+        Long getWorkflowId();
+        Long getFieldSetId();
+    }
 }
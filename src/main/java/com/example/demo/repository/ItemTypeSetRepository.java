@@ -142,4 +142,29 @@ public interface ItemTypeSetRepository extends JpaRepository<ItemTypeSet, Long>
         @Param("tenant") Tenant tenant
     );
 
+    /**
+     * Righe compatte (id, nome, progetto proprietario) degli ItemTypeSet della tenant, per lo snapshot di configurazione
+     */
+    @Query("SELECT s.id AS id, s.name AS name, p.id AS projectId, p.name AS projectName " +
+           "FROM ItemTypeSet s LEFT JOIN s.project p WHERE s.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Coppie (ItemTypeSet, ItemTypeConfiguration) della tenant come soli id
+     */
+    @Query("SELECT s.id AS itemTypeSetId, c.id AS itemTypeConfigurationId " +
+           "FROM ItemTypeSet s JOIN s.itemTypeConfigurations c WHERE s.tenant.id = :tenantId")
+    List<ConfigurationLinkView> findConfigurationLinksByTenantId(@Param("tenantId") Long tenantId);
+
+    interface SnapshotRowView {
+        Long getId();
+        String getName();
+        Long getProjectId();
+        String getProjectName();
+    }
+
+    interface ConfigurationLinkView {
+        Long getItemTypeSetId();
+        Long getItemTypeConfigurationId();
+    }
 }
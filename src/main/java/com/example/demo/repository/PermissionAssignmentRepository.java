@@ -35,14 +35,11 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
     
     /**
      * Trova PermissionAssignment globale con eager fetching di ruoli e grant (project = null).
+     * I membri della grant restano LAZY: per gli id usare GrantMembershipLookup.
      */
     @Query("SELECT pa FROM PermissionAssignment pa " +
            "LEFT JOIN FETCH pa.roles " +
            "LEFT JOIN FETCH pa.grant g " +
-           "LEFT JOIN FETCH g.users " +
-           "LEFT JOIN FETCH g.groups " +
-           "LEFT JOIN FETCH g.negatedUsers " +
-           "LEFT JOIN FETCH g.negatedGroups " +
            "WHERE pa.permissionType = :permissionType " +
            "AND pa.permissionId = :permissionId " +
            "AND pa.tenant = :tenant " +
@@ -59,10 +56,6 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
     @Query("SELECT pa FROM PermissionAssignment pa " +
            "LEFT JOIN FETCH pa.roles " +
            "LEFT JOIN FETCH pa.grant g " +
-           "LEFT JOIN FETCH g.users " +
-           "LEFT JOIN FETCH g.groups " +
-           "LEFT JOIN FETCH g.negatedUsers " +
-           "LEFT JOIN FETCH g.negatedGroups " +
            "WHERE pa.permissionType = :permissionType " +
            "AND pa.permissionId = :permissionId " +
            "AND pa.tenant = :tenant " +
@@ -77,10 +70,6 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
     @Query("SELECT pa FROM PermissionAssignment pa " +
            "LEFT JOIN FETCH pa.roles " +
            "LEFT JOIN FETCH pa.grant g " +
-           "LEFT JOIN FETCH g.users " +
-           "LEFT JOIN FETCH g.groups " +
-           "LEFT JOIN FETCH g.negatedUsers " +
-           "LEFT JOIN FETCH g.negatedGroups " +
            "WHERE pa.permissionType = :permissionType " +
            "AND pa.permissionId IN :permissionIds " +
            "AND pa.tenant = :tenant " +
@@ -94,10 +83,6 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
     @Query("SELECT pa FROM PermissionAssignment pa " +
            "LEFT JOIN FETCH pa.roles " +
            "LEFT JOIN FETCH pa.grant g " +
-           "LEFT JOIN FETCH g.users " +
-           "LEFT JOIN FETCH g.groups " +
-           "LEFT JOIN FETCH g.negatedUsers " +
-           "LEFT JOIN FETCH g.negatedGroups " +
            "WHERE pa.permissionType = :permissionType " +
            "AND pa.permissionId IN :permissionIds " +
            "AND pa.tenant = :tenant " +
@@ -162,6 +147,41 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
      */
     boolean existsByPermissionTypeAndPermissionIdAndTenantAndProject(String permissionType, Long permissionId, Tenant tenant, Project project);
     
+    /**
+     * Righe compatte (senza collezioni) di tutte le assegnazioni della tenant, globali e di progetto.
+     * Usato per compilare la PermissionMatrix.
+     */
+    @Query("SELECT pa.id AS assignmentId, pa.permissionType AS permissionType, pa.permissionId AS permissionId, " +
+           "p.id AS projectId, g.id AS grantId " +
+           "FROM PermissionAssignment pa " +
+           "LEFT JOIN pa.project p " +
+           "LEFT JOIN pa.grant g " +
+           "WHERE pa.tenant.id = :tenantId")
+    List<AssignmentRowView> findMatrixRowsByTenantId(@Param("tenantId") Long tenantId);
+    
+    @Query("SELECT pa.id AS assignmentId, r.id AS roleId " +
+           "FROM PermissionAssignment pa JOIN pa.roles r " +
+           "WHERE pa.tenant.id = :tenantId")
+    List<AssignmentRoleView> findMatrixRoleRowsByTenantId(@Param("tenantId") Long tenantId);
+    
+    /**
+     * Come findMatrixRowsByTenantId, con il nome del ruolo della grant (null per le grant dirette).
+     * Usato per costruire lo snapshot di configurazione letto dalle analisi d'impatto.
+     */
+    @Query("SELECT pa.id AS assignmentId, pa.permissionType AS permissionType, pa.permissionId AS permissionId, " +
+           "p.id AS projectId, g.id AS grantId, gr.name AS grantRoleName " +
+           "FROM PermissionAssignment pa " +
+           "LEFT JOIN pa.project p " +
+           "LEFT JOIN pa.grant g " +
+           "LEFT JOIN g.role gr " +
+           "WHERE pa.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+    
+    @Query("SELECT pa.id AS assignmentId, r.name AS roleName " +
+           "FROM PermissionAssignment pa JOIN pa.roles r " +
+           "WHERE pa.tenant.id = :tenantId")
+    List<AssignmentRoleNameView> findRoleNameRowsByTenantId(@Param("tenantId") Long tenantId);
+    
     /**
      * @deprecated Usa findByPermissionTypeAndPermissionIdAndTenantAndProjectIsNull per assegnazioni globali
      */
@@ -190,5 +210,31 @@ public interface PermissionAssignmentRepository extends JpaRepository<Permission
         deleteByPermissionTypeAndPermissionIdAndTenantAndProjectIsNull(permissionType, permissionId, tenant);
     }
     
+    interface AssignmentRowView {
+        Long getAssignmentId();
+        String getPermissionType();
+        Long getPermissionId();
+        Long getProjectId();
+        Long getGrantId();
+    }
+    
+    interface AssignmentRoleView {
+        Long getAssignmentId();
+        Long getRoleId();
+    }
+    
+    interface SnapshotRowView {
+        Long getAssignmentId();
+        String getPermissionType();
+        Long getPermissionId();
+        Long getProjectId();
+        Long getGrantId();
+        String getGrantRoleName();
+    }
+    
+    interface AssignmentRoleNameView {
+        Long getAssignmentId();
+        String getRoleName();
+    }
+    
 }
-
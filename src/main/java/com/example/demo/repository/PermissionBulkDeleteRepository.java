@@ -0,0 +1,138 @@
+package com.example.demo.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Eliminazione in blocco delle permission di ItemTypeConfiguration, delle loro PermissionAssignment
+ * (globali e di progetto) e delle Grant dirette, con DELETE ... WHERE id IN (...).
+ *
+ * Alternativa set-based alla rimozione una per una tramite PermissionAssignmentService: il costo cresce con il
+ * numero di blocchi da {@link PermissionBulkInsertRepository#ROWS_PER_STATEMENT} id e non con il numero di righe.
+ * Le entity già caricate nel persistence context non vengono aggiornate: il chiamante non deve riusarle.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PermissionBulkDeleteRepository {
+
+    // Tabella per tipo di permission (stessi nomi salvati in permission_assignment.permission_type)
+    private static final Map<String, String> PERMISSION_TABLES = Map.of(
+            "WorkerPermission", "worker_permission",
+            "CreatorPermission", "creator_permission",
+            "StatusOwnerPermission", "status_owner_permission",
+            "ExecutorPermission", "executor_permission",
+            "FieldOwnerPermission", "field_owner_permission",
+            "FieldStatusPermission", "field_status_permission"
+    );
+
+    private static final List<String> GRANT_MEMBER_TABLES = List.of(
+            "grant_assignment_users", "grant_assignment_groups", "grant_negated_users", "grant_negated_groups");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    /**
+     * Assegnazioni (globali e di progetto) delle permission indicate, con l'eventuale Grant diretta.
+     */
+    public List<AssignmentRef> findAssignments(Long tenantId, String permissionType, Collection<Long> permissionIds) {
+        List<AssignmentRef> refs = new ArrayList<>();
+        if (permissionIds.isEmpty()) {
+            return refs;
+        }
+        entityManager.flush();
+        for (List<Long> chunk : chunks(permissionIds)) {
+            refs.addAll(jdbcTemplate.query(
+                    "SELECT id, grant_id FROM permission_assignment WHERE tenant_id = ? AND permission_type = ? " +
+                            "AND permission_id IN (" + placeholders(chunk.size()) + ")",
+                    (rs, rowNum) -> new AssignmentRef(rs.getLong("id"), rs.getObject("grant_id", Long.class)),
+                    params(List.<Object>of(tenantId, permissionType), chunk)));
+        }
+        return refs;
+    }
+
+    /**
+     * Elimina le PermissionAssignment indicate insieme ai loro ruoli. Le Grant restano: vanno recuperate
+     * con {@link #deleteGrants(Collection)} dopo aver rimosso i riferimenti.
+     */
+    public int deleteAssignments(Collection<Long> assignmentIds) {
+        if (assignmentIds.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        deleteIn("permission_assignment_role", "permission_assignment_id", assignmentIds);
+        return deleteIn("permission_assignment", "id", assignmentIds);
+    }
+
+    /**
+     * Elimina le Grant indicate e i loro membri (utenti, gruppi, negati).
+     */
+    public int deleteGrants(Collection<Long> grantIds) {
+        if (grantIds.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        for (String table : GRANT_MEMBER_TABLES) {
+            deleteIn(table, "grant_id", grantIds);
+        }
+        return deleteIn("grant_assignment", "id", grantIds);
+    }
+
+    /**
+     * Elimina le permission di un tipo (es. "FieldOwnerPermission") per id.
+     */
+    public int deletePermissions(String permissionType, Collection<Long> permissionIds) {
+        String table = PERMISSION_TABLES.get(permissionType);
+        if (table == null) {
+            throw new IllegalArgumentException("Unsupported permission type: " + permissionType);
+        }
+        if (permissionIds.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        return deleteIn(table, "id", permissionIds);
+    }
+
+    private int deleteIn(String table, String column, Collection<Long> ids) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(ids)) {
+            deleted += jdbcTemplate.update(
+                    "DELETE FROM " + table + " WHERE " + column + " IN (" + placeholders(chunk.size()) + ")",
+                    chunk.toArray());
+        }
+        return deleted;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = List.copyOf(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += PermissionBulkInsertRepository.ROWS_PER_STATEMENT) {
+            chunks.add(all.subList(from, Math.min(from + PermissionBulkInsertRepository.ROWS_PER_STATEMENT, all.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static Object[] params(List<Object> leading, List<Long> ids) {
+        List<Object> params = new ArrayList<>(leading.size() + ids.size());
+        params.addAll(leading);
+        params.addAll(ids);
+        return params.toArray();
+    }
+
+    /**
+     * PermissionAssignment da eliminare e la sua Grant diretta (null se assente).
+     */
+    public record AssignmentRef(Long assignmentId, Long grantId) {
+    }
+}
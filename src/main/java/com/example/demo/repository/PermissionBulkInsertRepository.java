@@ -0,0 +1,103 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.FieldStatusPermission;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Inserimento in blocco delle permission di ItemTypeConfiguration (Worker, Creator, StatusOwner, Executor,
+ * FieldOwner, FieldStatus) con INSERT multi-riga.
+ *
+ * Le entity usano GenerationType.IDENTITY, che impedisce il batching JDBC di Hibernate (una INSERT per riga):
+ * qui ogni statement inserisce fino a {@link #ROWS_PER_STATEMENT} righe, quindi il costo cresce con il numero
+ * di blocchi e non con il numero di righe. Le righe inserite non entrano nel persistence context.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PermissionBulkInsertRepository {
+
+    // Righe per statement: tiene ogni INSERT ben sotto max_allowed_packet e il limite di placeholder
+    static final int ROWS_PER_STATEMENT = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public int insertWorkerPermissions(Collection<Long> itemTypeConfigurationIds) {
+        return insert("worker_permission", List.of("itemtypeconfiguration_id"),
+                itemTypeConfigurationIds.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    public int insertCreatorPermissions(Collection<Long> itemTypeConfigurationIds) {
+        return insert("creator_permission", List.of("itemtypeconfiguration_id"),
+                itemTypeConfigurationIds.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    public int insertStatusOwnerPermissions(Collection<TargetRow> rows) {
+        return insert("status_owner_permission", List.of("itemtypeconfiguration_id", "workflowstatus_id"),
+                rows.stream().map(TargetRow::toParams).toList());
+    }
+
+    public int insertExecutorPermissions(Collection<TargetRow> rows) {
+        return insert("executor_permission", List.of("itemtypeconfiguration_id", "transition_id"),
+                rows.stream().map(TargetRow::toParams).toList());
+    }
+
+    public int insertFieldOwnerPermissions(Collection<TargetRow> rows) {
+        return insert("field_owner_permission", List.of("itemtypeconfiguration_id", "field_id"),
+                rows.stream().map(TargetRow::toParams).toList());
+    }
+
+    public int insertFieldStatusPermissions(Collection<FieldStatusRow> rows) {
+        return insert("field_status_permission",
+                List.of("itemtypeconfiguration_id", "field_id", "workflowstatus_id", "permission_type"),
+                rows.stream().map(FieldStatusRow::toParams).toList());
+    }
+
+    private int insert(String table, List<String> columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Le configurazioni appena create nella stessa transazione devono esistere prima delle FK
+        entityManager.flush();
+
+        String prefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        String tuple = "(" + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            StringBuilder sql = new StringBuilder(prefix.length() + chunk.size() * (tuple.length() + 2)).append(prefix);
+            List<Object> params = new ArrayList<>(chunk.size() * columns.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(tuple);
+                params.addAll(List.of(chunk.get(i)));
+            }
+            inserted += jdbcTemplate.update(sql.toString(), params.toArray());
+        }
+        return inserted;
+    }
+
+    /**
+     * Permission legata a una configurazione e a un target (WorkflowStatus, Transition o Field).
+     */
+    public record TargetRow(Long itemTypeConfigurationId, Long targetId) {
+        Object[] toParams() {
+            return new Object[]{itemTypeConfigurationId, targetId};
+        }
+    }
+
+    /**
+     * FieldStatusPermission da creare: (configurazione, Field, WorkflowStatus, EDITORS/VIEWERS).
+     */
+    public record FieldStatusRow(Long itemTypeConfigurationId, Long fieldId, Long workflowStatusId,
+                                 FieldStatusPermission.PermissionType permissionType) {
+        Object[] toParams() {
+            return new Object[]{itemTypeConfigurationId, fieldId, workflowStatusId, permissionType.name()};
+        }
+    }
+}
@@ -73,8 +73,16 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query("SELECT COUNT(p) FROM Project p WHERE p.itemTypeSet.id = :itemTypeSetId AND p.tenant.id = :tenantId")
     long countByItemTypeSetIdAndTenantId(@Param("itemTypeSetId") Long itemTypeSetId, @Param("tenantId") Long tenantId);
 
-
-
-
-
+    /**
+     * Progetti della tenant con l'ItemTypeSet applicato, per lo snapshot di configurazione
+     */
+    @Query("SELECT p.id AS projectId, p.name AS projectName, s.id AS itemTypeSetId " +
+           "FROM Project p JOIN p.itemTypeSet s WHERE p.tenant.id = :tenantId")
+    List<ItemTypeSetLinkView> findItemTypeSetLinksByTenantId(@Param("tenantId") Long tenantId);
+
+    interface ItemTypeSetLinkView {
+        Long getProjectId();
+        String getProjectName();
+        Long getItemTypeSetId();
+    }
 }
@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.RoleVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface RoleVersionRepository extends JpaRepository<RoleVersion, Long> {
+
+    // Incremento atomico nella transazione della modifica ai ruoli (riga creata alla prima modifica)
+    @Modifying
+    @Query(value = "INSERT INTO role_version (tenant_id, user_id, version) VALUES (:tenantId, :userId, 1) " +
+                   "ON DUPLICATE KEY UPDATE version = version + 1", nativeQuery = true)
+    int increment(@Param("tenantId") Long tenantId, @Param("userId") Long userId);
+
+    // Versione dell'utente e versione di tenant (user_id = 0) in una sola lettura dell'indice univoco
+    @Query("SELECT v.userId AS userId, v.version AS version FROM RoleVersion v " +
+           "WHERE v.tenantId = :tenantId AND v.userId IN (:userId, 0)")
+    List<VersionView> findUserAndTenantVersions(@Param("tenantId") Long tenantId, @Param("userId") Long userId);
+
+    interface VersionView {
+        Long getUserId();
+        long getVersion();
+    }
+}
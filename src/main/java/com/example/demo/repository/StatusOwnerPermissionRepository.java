@@ -2,6 +2,7 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.StatusOwnerPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -41,9 +42,20 @@ public interface StatusOwnerPermissionRepository extends JpaRepository<StatusOwn
            "WHERE p.itemTypeConfiguration = :config AND p.itemTypeConfiguration.tenant = :tenant")
     List<StatusOwnerPermission> findAllByItemTypeConfigurationAndTenant(@Param("config") ItemTypeConfiguration itemTypeConfiguration, @Param("tenant") com.example.demo.entity.Tenant tenant);
 
-    @Query("SELECT p FROM StatusOwnerPermission p WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
+    // Fetch delle associazioni lette dal report permessi dell'ItemTypeSet (nessun caricamento lazy per riga)
+    @Query("SELECT p FROM StatusOwnerPermission p LEFT JOIN FETCH p.workflowStatus ws LEFT JOIN FETCH ws.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant")
     List<StatusOwnerPermission> findAllByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
                                                                             @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Pagina keyset (id crescente) per il report paginato/streaming dei permessi dell'ItemTypeSet
+    @Query("SELECT p FROM StatusOwnerPermission p LEFT JOIN FETCH p.workflowStatus ws LEFT JOIN FETCH ws.status " +
+           "WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds AND p.itemTypeConfiguration.tenant = :tenant " +
+           "AND p.id > :afterId ORDER BY p.id")
+    List<StatusOwnerPermission> findPageByItemTypeConfigurationIdInAndTenant(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds,
+                                                     @Param("tenant") com.example.demo.entity.Tenant tenant,
+                                                     @Param("afterId") Long afterId,
+                                                     Pageable pageable);
     
     boolean existsByItemTypeConfigurationIdAndWorkflowStatusId(Long itemTypeConfigurationId, Long workflowStatusId);
     StatusOwnerPermission findByItemTypeConfigurationAndWorkflowStatusId(ItemTypeConfiguration itemTypeConfiguration, Long workflowStatusId);
@@ -61,4 +73,20 @@ public interface StatusOwnerPermissionRepository extends JpaRepository<StatusOwn
      */
     @Query("SELECT p FROM StatusOwnerPermission p JOIN p.workflowStatus ws JOIN ws.workflow w WHERE ws.id IN :workflowStatusIds AND w.tenant = :tenant")
     List<StatusOwnerPermission> findByWorkflowStatusIdInAndTenant(@Param("workflowStatusIds") Set<Long> workflowStatusIds, @Param("tenant") com.example.demo.entity.Tenant tenant);
+
+    // Chiavi naturali di tutte le StatusOwnerPermission della tenant, per l'indice della PermissionMatrix
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, ws.id AS targetId " +
+           "FROM StatusOwnerPermission p JOIN p.workflowStatus ws WHERE p.itemTypeConfiguration.tenant.id = :tenantId")
+    List<KeyView> findKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    // Chiavi naturali delle StatusOwnerPermission già presenti per le configurazioni, per il provisioning in blocco
+    @Query("SELECT p.id AS permissionId, p.itemTypeConfiguration.id AS itemTypeConfigurationId, ws.id AS targetId " +
+           "FROM StatusOwnerPermission p JOIN p.workflowStatus ws WHERE p.itemTypeConfiguration.id IN :itemTypeConfigurationIds")
+    List<KeyView> findKeysByItemTypeConfigurationIdIn(@Param("itemTypeConfigurationIds") Collection<Long> itemTypeConfigurationIds);
+
+    interface KeyView {
+        Long getPermissionId();
+        Long getItemTypeConfigurationId();
+        Long getTargetId();
+    }
 }
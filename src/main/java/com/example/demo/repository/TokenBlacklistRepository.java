@@ -3,10 +3,13 @@ package com.example.demo.repository;
 import com.example.demo.entity.InvalidatedToken;
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,9 +19,21 @@ public interface TokenBlacklistRepository extends JpaRepository<InvalidatedToken
     boolean existsByToken(String token);
 
     // Elimina i token scaduti (può essere chiamato periodicamente)
+    @Modifying
     @Query("DELETE FROM InvalidatedToken t WHERE t.expirationTime < ?1")
     void deleteAllExpiredSince(Instant now);
 
     // Opzionale: trova un token per user (utile per logout globale)
     Optional<InvalidatedToken> findByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * Token revocati non ancora scaduti: caricamento completo dell'indice di revoca in-memory
+     */
+    @Query("SELECT t.token AS token, t.expirationTime AS expirationTime FROM InvalidatedToken t WHERE t.expirationTime > :now")
+    List<RevokedTokenView> findActive(@Param("now") Instant now);
+
+    interface RevokedTokenView {
+        String getToken();
+        Instant getExpirationTime();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.TokenRevocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TokenRevocationRepository extends JpaRepository<TokenRevocation, Long> {
+
+    /**
+     * Revoche successive all'ultimo id letto, in ordine di id
+     */
+    @Query("SELECT r.id AS id, r.token AS token, r.expirationTime AS expirationTime FROM TokenRevocation r " +
+           "WHERE r.id > :afterId ORDER BY r.id")
+    List<RevocationView> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Revoche con id saltati dal polling, comparse dopo (commit in ritardo)
+     */
+    @Query("SELECT r.id AS id, r.token AS token, r.expirationTime AS expirationTime FROM TokenRevocation r " +
+           "WHERE r.id IN :ids")
+    List<RevocationView> findByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM TokenRevocation r")
+    long findMaxId();
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocation r WHERE r.expirationTime < :now")
+    void deleteExpired(@Param("now") Instant now);
+
+    interface RevocationView {
+        Long getId();
+        String getToken();
+        Instant getExpirationTime();
+    }
+}
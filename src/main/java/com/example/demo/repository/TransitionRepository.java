@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -57,4 +58,43 @@ public interface TransitionRepository extends JpaRepository<Transition, Long> {
     @Query("SELECT t FROM Transition t JOIN t.workflow w WHERE t.id = :transitionId AND w.tenant = :tenant")
     Optional<Transition> findByTransitionIdAndTenant(@Param("transitionId") Long transitionId, @Param("tenant") com.example.demo.entity.Tenant tenant);
 
+    /**
+     * Coppie (workflow, Transition) come soli id, filtrate per Tenant, per il provisioning in blocco delle permission
+     */
+    @Query("SELECT t.workflow.id AS workflowId, t.id AS id FROM Transition t " +
+           "WHERE t.workflow.id IN :workflowIds AND t.workflow.tenant.id = :tenantId")
+    List<WorkflowIdRowView> findIdRowsByWorkflowIdInAndTenantId(@Param("workflowIds") Collection<Long> workflowIds,
+                                                               @Param("tenantId") Long tenantId);
+
+    /**
+     * Righe compatte delle Transition della tenant, per lo snapshot di configurazione
+     */
+    @Query("SELECT t.id AS id, w.id AS workflowId, t.name AS name, " +
+           "fs.id AS fromWorkflowStatusId, ts.id AS toWorkflowStatusId " +
+           "FROM Transition t JOIN t.workflow w LEFT JOIN t.fromStatus fs LEFT JOIN t.toStatus ts " +
+           "WHERE w.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Righe compatte delle Transition di un Workflow della tenant, per la compilazione della macchina a stati
+     */
+    @Query("SELECT t.id AS id, w.id AS workflowId, t.name AS name, " +
+           "fs.id AS fromWorkflowStatusId, ts.id AS toWorkflowStatusId " +
+           "FROM Transition t JOIN t.workflow w LEFT JOIN t.fromStatus fs LEFT JOIN t.toStatus ts " +
+           "WHERE w.id = :workflowId AND w.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByWorkflowIdAndTenantId(@Param("workflowId") Long workflowId,
+                                                                  @Param("tenantId") Long tenantId);
+
+    interface WorkflowIdRowView {
+        Long getWorkflowId();
+        Long getId();
+    }
+
+    interface SnapshotRowView {
+        Long getId();
+        Long getWorkflowId();
+        String getName();
+        Long getFromWorkflowStatusId();
+        Long getToWorkflowStatusId();
+    }
 }
@@ -57,6 +57,14 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
                                                    @Param("tenantId") Long tenantId, 
                                                    @Param("roleName") String roleName);
 
+    /**
+     * Nomi dei ruoli TENANT di un utente in una tenant (stesso criterio di existsByUserIdAndTenantIdAndRoleName)
+     */
+    @Query("SELECT DISTINCT ur.roleName FROM UserRole ur " +
+           "WHERE ur.user.id = :userId AND ur.tenant.id = :tenantId AND ur.scope = 'TENANT'")
+    Set<String> findTenantRoleNamesByUserIdAndTenantId(@Param("userId") Long userId,
+                                                       @Param("tenantId") Long tenantId);
+
     /**
      * Conta quanti utenti hanno un determinato ruolo in una tenant
      */
@@ -186,6 +194,13 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
            "WHERE ur.user.id = :userId AND ur.tenant.id = :tenantId AND ur.scope = 'TENANT'")
     boolean hasAccessToTenant(@Param("userId") Long userId, @Param("tenantId") Long tenantId);
 
+    /**
+     * Verifica se un utente ha un qualsiasi ruolo (TENANT o PROJECT) in una tenant
+     */
+    @Query("SELECT CASE WHEN COUNT(ur) > 0 THEN true ELSE false END FROM UserRole ur " +
+           "WHERE ur.user.id = :userId AND ur.tenant.id = :tenantId")
+    boolean hasAnyRoleInTenant(@Param("userId") Long userId, @Param("tenantId") Long tenantId);
+
     /**
      * Verifica se un utente ha accesso a un progetto (qualsiasi ruolo PROJECT)
      */
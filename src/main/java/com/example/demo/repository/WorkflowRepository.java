@@ -15,6 +15,7 @@ import java.util.Optional;
 public interface WorkflowRepository extends JpaRepository<Workflow, Long> {
     Optional<Workflow> findByIdAndTenant(Long id, Tenant tenant);
     Optional<Workflow> findByTenantIdAndName(Long tenantId, String name);
+    boolean existsByIdAndTenantId(Long id, Long tenantId);
     Optional<Workflow> findByTenantAndDefaultWorkflowTrue(Tenant tenant);
     List<Workflow> findAllByTenant(Tenant tenant);
     
@@ -1,11 +1,13 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.*;
+import com.example.demo.enums.StatusCategory;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -91,4 +93,48 @@ public interface WorkflowStatusRepository extends JpaRepository<WorkflowStatus,
     """)
     Optional<WorkflowStatus> findByIdAndTenantWithAssociations(@Param("id") Long id, @Param("tenant") Tenant tenant);
 
+    /**
+     * Coppie (workflow, WorkflowStatus) come soli id, per il provisioning in blocco delle permission
+     */
+    @Query("SELECT ws.workflow.id AS workflowId, ws.id AS id FROM WorkflowStatus ws WHERE ws.workflow.id IN :workflowIds")
+    List<WorkflowIdRowView> findIdRowsByWorkflowIdIn(@Param("workflowIds") Collection<Long> workflowIds);
+
+    /**
+     * Righe compatte dei WorkflowStatus della tenant (con lo Status), per lo snapshot di configurazione
+     */
+    @Query("SELECT ws.id AS id, w.id AS workflowId, s.id AS statusId, s.name AS statusName, ws.statusCategory AS statusCategory " +
+           "FROM WorkflowStatus ws JOIN ws.workflow w LEFT JOIN ws.status s WHERE w.tenant.id = :tenantId")
+    List<SnapshotRowView> findSnapshotRowsByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Righe compatte dei WorkflowStatus di un Workflow della tenant (con lo Status), per la compilazione
+     * della macchina a stati
+     */
+    @Query("SELECT ws.id AS id, s.id AS statusId, s.name AS statusName, ws.statusCategory AS statusCategory, " +
+           "ws.initial AS initial " +
+           "FROM WorkflowStatus ws JOIN ws.workflow w LEFT JOIN ws.status s " +
+           "WHERE w.id = :workflowId AND w.tenant.id = :tenantId")
+    List<CompiledRowView> findCompiledRowsByWorkflowIdAndTenantId(@Param("workflowId") Long workflowId,
+                                                                  @Param("tenantId") Long tenantId);
+
+    interface WorkflowIdRowView {
+        Long getWorkflowId();
+        Long getId();
+    }
+
+    interface SnapshotRowView {
+        Long getId();
+        Long getWorkflowId();
+        Long getStatusId();
+        String getStatusName();
+        StatusCategory getStatusCategory();
+    }
+
+    interface CompiledRowView {
+        Long getId();
+        Long getStatusId();
+        String getStatusName();
+        StatusCategory getStatusCategory();
+        Boolean getInitial();
+    }
 }
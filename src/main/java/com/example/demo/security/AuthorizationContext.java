@@ -0,0 +1,46 @@
+package com.example.demo.security;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ruoli di un utente in una tenant, risolti una sola volta per richiesta:
+ * - tenantRoles: ruoli TENANT (UserRole)
+ * - projectRoles: ruoli PROJECT per progetto (GrantRoleAssignment)
+ */
+public record AuthorizationContext(
+        Long userId,
+        Long tenantId,
+        String roleStamp,
+        Set<String> tenantRoles,
+        Map<Long, Set<String>> projectRoles
+) {
+
+    public AuthorizationContext {
+        tenantRoles = Set.copyOf(tenantRoles);
+        projectRoles = Map.copyOf(projectRoles);
+    }
+
+    public boolean hasTenantRole(String roleName) {
+        return tenantRoles.contains(roleName);
+    }
+
+    public boolean hasProjectRole(Long projectId, String roleName) {
+        Set<String> roles = projectRoles.get(projectId);
+        return roles != null && roles.contains(roleName);
+    }
+
+    public boolean hasProjectRoleInAll(Collection<Long> projectIds, String roleName) {
+        for (Long projectId : projectIds) {
+            if (!hasProjectRole(projectId, roleName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasRoleInAnyProject(String roleName) {
+        return projectRoles.values().stream().anyMatch(roles -> roles.contains(roleName));
+    }
+}
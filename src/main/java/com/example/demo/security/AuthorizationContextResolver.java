@@ -0,0 +1,148 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.GrantRoleAssignmentRepository;
+import com.example.demo.repository.UserRoleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Risolve l'AuthorizationContext di (utente, tenant) e lo memorizza negli attributi
+ * della richiesta corrente: tutte le espressioni @PreAuthorize e i controlli del
+ * SecurityServiceFacade della stessa richiesta rispondono dalla memoria.
+ * Fuori da una richiesta HTTP il contesto viene ricalcolato ad ogni chiamata.
+ *
+ * In modalità claims-first i ruoli vengono letti direttamente dal token verificato,
+ * purché il suo role stamp coincida con quello corrente del RoleVersionRegistry (versioni persistite,
+ * uguali su tutti i nodi); altrimenti si ricade sulle query al database.
+ */
+@Component
+public class AuthorizationContextResolver {
+
+    private static final String MEMO_ATTRIBUTE = AuthorizationContextResolver.class.getName() + ".MEMO";
+
+    private final UserRoleRepository userRoleRepository;
+    private final GrantRoleAssignmentRepository grantRoleAssignmentRepository;
+    private final RoleVersionRegistry roleVersionRegistry;
+    private final boolean claimsFirst;
+
+    public AuthorizationContextResolver(UserRoleRepository userRoleRepository,
+                                        GrantRoleAssignmentRepository grantRoleAssignmentRepository,
+                                        RoleVersionRegistry roleVersionRegistry,
+                                        @Value("${security.authorization.claims-first:true}") boolean claimsFirst) {
+        this.userRoleRepository = userRoleRepository;
+        this.grantRoleAssignmentRepository = grantRoleAssignmentRepository;
+        this.roleVersionRegistry = roleVersionRegistry;
+        this.claimsFirst = claimsFirst;
+    }
+
+    public AuthorizationContext resolve(Long userId, Long tenantId) {
+        String roleStamp = roleVersionRegistry.stamp(userId, tenantId);
+        Map<MemoKey, AuthorizationContext> memo = requestMemo();
+
+        MemoKey key = new MemoKey(userId, tenantId);
+        AuthorizationContext context = memo != null ? memo.get(key) : null;
+        // Se i ruoli sono cambiati durante la richiesta il memo non è più valido
+        if (context != null && context.roleStamp().equals(roleStamp)) {
+            return context;
+        }
+
+        context = fromClaims(userId, tenantId, roleStamp);
+        if (context == null) {
+            context = load(userId, tenantId, roleStamp);
+        }
+        if (memo != null) {
+            memo.put(key, context);
+        }
+        return context;
+    }
+
+    /**
+     * Il token porta ruoli non più aggiornati: il client dovrebbe richiederne uno nuovo.
+     * Se lo stamp in cache non coincide viene riletto dal database (la modifica può venire da un altro nodo e non
+     * essere ancora arrivata dall'outbox), così le resolve() della richiesta usano lo stamp riletto.
+     */
+    public boolean isStale(VerifiedToken token) {
+        if (!claimsFirst || token.userId() == null || token.tenantId() == null) {
+            return false;
+        }
+        String roleStamp = roleVersionRegistry.stamp(token.userId(), token.tenantId());
+        if (roleStamp.equals(token.roleStamp())) {
+            return false;
+        }
+        return !roleVersionRegistry.reload(token.userId(), token.tenantId()).equals(token.roleStamp());
+    }
+
+    private AuthorizationContext fromClaims(Long userId, Long tenantId, String roleStamp) {
+        if (!claimsFirst) {
+            return null;
+        }
+        VerifiedToken token = currentToken();
+        if (token == null
+                || !Objects.equals(token.userId(), userId)
+                || !Objects.equals(token.tenantId(), tenantId)
+                || !roleStamp.equals(token.roleStamp())) {
+            return null;
+        }
+
+        Set<String> tenantRoles = token.roles().stream()
+                .filter(role -> "TENANT".equals(role.scope()))
+                .map(VerifiedToken.TokenRole::name)
+                .collect(Collectors.toSet());
+
+        return new AuthorizationContext(userId, tenantId, roleStamp, tenantRoles, token.projectGrantRoles());
+    }
+
+    private AuthorizationContext load(Long userId, Long tenantId, String roleStamp) {
+        Set<String> tenantRoles = userRoleRepository.findTenantRoleNamesByUserIdAndTenantId(userId, tenantId);
+        return new AuthorizationContext(userId, tenantId, roleStamp, tenantRoles, loadProjectGrantRoles(userId, tenantId));
+    }
+
+    /**
+     * Ruoli PROJECT-level (GrantRoleAssignment) per progetto, usati sia per il contesto
+     * che per il claim scritto nel token da JwtTokenUtil.
+     */
+    public Map<Long, Set<String>> loadProjectGrantRoles(Long userId, Long tenantId) {
+        Map<Long, Set<String>> projectRoles = new HashMap<>();
+        grantRoleAssignmentRepository.findProjectRolesByUserAndTenant(userId, tenantId)
+                .forEach(view -> projectRoles
+                        .computeIfAbsent(view.getProjectId(), id -> new HashSet<>())
+                        .add(view.getRoleName()));
+        projectRoles.replaceAll((projectId, roles) -> Set.copyOf(roles));
+        return projectRoles;
+    }
+
+    private VerifiedToken currentToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object token = attributes.getAttribute(VerifiedToken.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return token instanceof VerifiedToken verifiedToken ? verifiedToken : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<MemoKey, AuthorizationContext> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(MEMO_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<MemoKey, AuthorizationContext>();
+            attributes.setAttribute(MEMO_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<MemoKey, AuthorizationContext>) memo;
+    }
+
+    private record MemoKey(Long userId, Long tenantId) {
+    }
+}
@@ -2,8 +2,9 @@ package com.example.demo.security;
 
 import com.example.demo.entity.Tenant;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.TenantRepository;
+import com.example.demo.tenant.TenantCache;
 import com.example.demo.tenant.TenantContext;
+import com.example.demo.tenant.TenantView;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.MethodParameter;
 import org.springframework.lang.NonNull;
@@ -17,7 +18,7 @@ import org.springframework.web.method.support.ModelAndViewContainer;
 @RequiredArgsConstructor
 public class CurrentTenantResolver implements HandlerMethodArgumentResolver {
 
-    private final TenantRepository tenantRepository;
+    private final TenantCache tenantCache;
 
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
@@ -31,7 +32,8 @@ public class CurrentTenantResolver implements HandlerMethodArgumentResolver {
                                   @NonNull NativeWebRequest webRequest,
                                   WebDataBinderFactory binderFactory) {
         Long tenantId = TenantContext.getCurrentTenantId();
-        return tenantRepository.findById(tenantId)
+        return tenantCache.get(tenantId)
+                .map(TenantView::toTenant)
                 .orElseThrow(() -> new ApiException("Tenant corrente non trovato"));
     }
 }
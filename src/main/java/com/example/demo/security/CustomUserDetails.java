@@ -26,6 +26,18 @@ public class CustomUserDetails implements UserDetails {
         this.userRoles = userRoles;
     }
 
+    /**
+     * Copia con un User staccato senza hash della password, da tenere in cache.
+     */
+    public CustomUserDetails withoutCredentials() {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setFullName(user.getFullName());
+        copy.setActiveTenant(user.getActiveTenant());
+        return new CustomUserDetails(copy, userRoles);
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return userRoles.stream()
@@ -9,7 +9,6 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collections;
 import java.util.List;
@@ -19,31 +18,60 @@ public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final UserRoleRepository userRoleRepository;
+    private final PrincipalCache principalCache;
 
     public CustomUserDetailsService(UserRepository userRepository,
-                                    UserRoleRepository userRoleRepository) {
+                                    UserRoleRepository userRoleRepository,
+                                    PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.userRoleRepository = userRoleRepository;
+        this.principalCache = principalCache;
     }
 
+    /**
+     * Percorso delle credenziali (AuthenticationManager al login): legge sempre utente e password dal database,
+     * così una password cambiata o un utente rimosso hanno effetto subito.
+     */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
-
-        List<UserRole> userRoles = Collections.emptyList();
-        
         // Usa TenantContext invece di user.getActiveTenant() (che è @Transient)
         Long currentTenantId = TenantContext.getCurrentTenantId();
-        
-        if (currentTenantId != null) {
-            userRoles = userRoleRepository.findByUserIdAndTenantId(
-                    user.getId(), currentTenantId);
+        User user = findUser(username);
+        return new CustomUserDetails(user, loadRoles(user.getId(), currentTenantId));
+    }
+
+    /**
+     * Principal di una richiesta con JWT già verificato, servito dalla PrincipalCache.
+     * Il valore in cache non contiene la password: questo percorso non controlla credenziali.
+     * Nessuna @Transactional: in caso di hit non viene aperta nessuna connessione,
+     * in caso di miss le due query usano le transazioni read-only dei repository.
+     */
+    public CustomUserDetails loadPrincipal(String username) throws UsernameNotFoundException {
+        Long currentTenantId = TenantContext.getCurrentTenantId();
+
+        CustomUserDetails cached = principalCache.get(username, currentTenantId);
+        if (cached != null) {
+            return cached;
         }
 
-        return new CustomUserDetails(user, userRoles);
+        User user = findUser(username);
+        long roleVersion = principalCache.currentVersion(user.getId(), currentTenantId);
+        CustomUserDetails userDetails = new CustomUserDetails(user, loadRoles(user.getId(), currentTenantId))
+                .withoutCredentials();
+        principalCache.put(username, currentTenantId, roleVersion, userDetails);
+        return userDetails;
     }
 
-}
+    private User findUser(String username) {
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    private List<UserRole> loadRoles(Long userId, Long tenantId) {
+        if (tenantId == null) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(userRoleRepository.findByUserIdAndTenantId(userId, tenantId));
+    }
 
+}
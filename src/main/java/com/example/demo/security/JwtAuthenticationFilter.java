@@ -1,7 +1,8 @@
 package com.example.demo.security;
 
-import com.example.demo.repository.TokenBlacklistRepository;
 import com.example.demo.tenant.TenantContext;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,15 +20,19 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String ROLES_STALE_HEADER = "X-Roles-Stale";
+
     private final JwtTokenUtil jwtTokenUtil;
     private final CustomUserDetailsService userDetailsService;
-    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final AuthorizationContextResolver authorizationContextResolver;
 
     @Override
     protected void doFilterInternal(
@@ -45,32 +50,52 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             final String token = authHeader.substring(7);
 
-            // Verifica se il token è nella blacklist
-            if (tokenBlacklistRepository.existsByToken(token)) {
+            // Verifica se il token è nella blacklist (indice in-memory, nessuna query)
+            if (tokenRevocationIndex.isRevoked(token)) {
                 log.warn("Tentativo di accesso con token revocato");
                 sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Token revocato");
                 return;
             }
 
-            // Verifica la scadenza del token
-            if (jwtTokenUtil.isTokenExpired(token)) {
+            // Verifica firma e scadenza una sola volta: i claims decodificati servono a tutta la richiesta
+            final VerifiedToken verifiedToken;
+            try {
+                verifiedToken = jwtTokenUtil.verify(token);
+            } catch (ExpiredJwtException e) {
+                log.warn("Tentativo di accesso con token scaduto");
+                sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Token scaduto");
+                return;
+            } catch (JwtException | IllegalArgumentException e) {
+                log.warn("Token JWT non valido: {}", e.getMessage());
+                sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Token non valido");
+                return;
+            }
+
+            if (verifiedToken.isExpired(Instant.now())) {
                 log.warn("Tentativo di accesso con token scaduto");
                 sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Token scaduto");
                 return;
             }
 
             // Estrai username e verifica il token
-            final String username = jwtTokenUtil.extractUsername(token);
+            final String username = verifiedToken.username();
             if (username == null) {
                 log.warn("Token JWT non valido: username mancante");
                 sendErrorResponse(response, HttpStatus.UNAUTHORIZED, "Token non valido");
                 return;
             }
 
+            // I controlli di autorizzazione della richiesta leggono i ruoli dai claims verificati
+            request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
+            if (authorizationContextResolver.isStale(verifiedToken)) {
+                // Ruoli cambiati dopo l'emissione: si ricade sul database, il client dovrebbe rinnovare il token
+                response.setHeader(ROLES_STALE_HEADER, "true");
+            }
+
             // Carica i dettagli dell'utente solo se necessario
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
                 // IMPORTANTE: Estrai il tenantId dal token PRIMA di caricare l'utente
-                Long tenantId = jwtTokenUtil.extractTenantId(token);
+                Long tenantId = verifiedToken.tenantId();
                 
                 // Imposta il tenant nel contesto PRIMA di caricare UserDetails
                 if (tenantId != null) {
@@ -80,9 +105,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 }
                 
                 // Ora carica i dettagli dell'utente (che userà il tenantId dal contesto)
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                UserDetails userDetails = userDetailsService.loadPrincipal(username);
                 
-                if (jwtTokenUtil.validateToken(token, userDetails)) {
+                if (jwtTokenUtil.validateToken(verifiedToken, userDetails)) {
                     // Crea il contesto di autenticazione
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
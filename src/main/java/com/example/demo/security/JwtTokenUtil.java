@@ -6,20 +6,30 @@ import com.example.demo.enums.ScopeType;
 import com.example.demo.repository.UserRoleRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.*;
-import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenUtil {
 
     private final UserRoleRepository userRoleRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AuthorizationContextResolver authorizationContextResolver;
+    private final RoleVersionRegistry roleVersionRegistry;
 
     private static final String ROLES = "roles";
+    private static final String TENANT_ID = "tenantId";
+    // Ruoli PROJECT-level da GrantRoleAssignment: { projectId: [roleName, ...] }
+    private static final String PROJECT_GRANT_ROLES = "pgr";
+    // Role stamp del RoleVersionRegistry al momento dell'emissione
+    private static final String ROLE_STAMP = "rv";
 
     @Value("${jwt.secret}")
     private String secret;
@@ -30,8 +40,26 @@ public class JwtTokenUtil {
     @Value("${jwt.refresh-token-expiration}")
     private long refreshTokenExpirationMs;
 
-    public JwtTokenUtil(UserRoleRepository userRoleRepository) {
+    // Chiave e parser sono immutabili e thread-safe: costruiti una sola volta
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    public JwtTokenUtil(UserRoleRepository userRoleRepository,
+                        VerifiedTokenCache verifiedTokenCache,
+                        AuthorizationContextResolver authorizationContextResolver,
+                        RoleVersionRegistry roleVersionRegistry) {
         this.userRoleRepository = userRoleRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.authorizationContextResolver = authorizationContextResolver;
+        this.roleVersionRegistry = roleVersionRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
 
@@ -55,7 +83,10 @@ public class JwtTokenUtil {
         User user = userDetails.getUser();
 
         claims.put("userId", user.getId());
-        claims.put("tenantId", tenantId);
+        claims.put(TENANT_ID, tenantId);
+
+        // Lo stamp va letto PRIMA dei ruoli: una modifica concorrente rende il token subito "stale"
+        claims.put(ROLE_STAMP, roleVersionRegistry.stamp(user.getId(), tenantId));
 
         // Ottieni i ruoli TENANT e PROJECT dell'utente per quella tenant
         List<Map<String, Object>> tenantRoles = userRoleRepository
@@ -86,6 +117,11 @@ public class JwtTokenUtil {
 
         claims.put(ROLES, roles);
 
+        Map<String, List<String>> projectGrantRoles = new HashMap<>();
+        authorizationContextResolver.loadProjectGrantRoles(user.getId(), tenantId)
+                .forEach((projectId, roleNames) -> projectGrantRoles.put(String.valueOf(projectId), List.copyOf(roleNames)));
+        claims.put(PROJECT_GRANT_ROLES, projectGrantRoles);
+
         return buildToken(claims, userDetails.getUsername(), accessTokenExpirationMs);
     }
 
@@ -105,72 +141,129 @@ public class JwtTokenUtil {
                 .compact();
     }
 
+    /**
+     * Verifica firma e scadenza del token una sola volta e restituisce i claims decodificati.
+     * I token già verificati vengono serviti dalla {@link VerifiedTokenCache} senza ricalcolare l'HMAC.
+     *
+     * @throws ExpiredJwtException se il token è scaduto
+     * @throws JwtException se il token non è valido
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            return cached;
+        }
+
+        VerifiedToken verifiedToken = toVerifiedToken(extractAllClaims(token));
+        verifiedTokenCache.put(token, verifiedToken);
+        return verifiedToken;
+    }
+
     // Estrae l'username dal token
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).username();
     }
 
     // Estrae la data di scadenza
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiration());
     }
 
     // Verifica se il token è scaduto
     public boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return verify(token).isExpired(Instant.now());
     }
 
     // Validazione del token
     public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(verify(token), userDetails);
     }
 
-    // Metodo generico per estrarre claims
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    // Validazione di un token già verificato (nessun nuovo parsing)
+    public boolean validateToken(VerifiedToken verifiedToken, UserDetails userDetails) {
+        return verifiedToken.username() != null
+                && verifiedToken.username().equals(userDetails.getUsername())
+                && !verifiedToken.isExpired(Instant.now());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
-    public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        Object rolesObject = claims.get(ROLES);
-        if (rolesObject instanceof List<?>) {
-            return ((List<?>) rolesObject).stream()
-                    .filter(String.class::isInstance)
-                    .map(String.class::cast)
-                    .toList();
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                toLong(claims.get("userId")),
+                toLong(claims.get(TENANT_ID)),
+                toTokenRoles(claims.get(ROLES)),
+                toProjectGrantRoles(claims.get(PROJECT_GRANT_ROLES)),
+                claims.get(ROLE_STAMP, String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null
+        );
+    }
+
+    private List<VerifiedToken.TokenRole> toTokenRoles(Object rolesObject) {
+        if (!(rolesObject instanceof List<?> rolesList)) {
+            return List.of();
+        }
+        List<VerifiedToken.TokenRole> roles = new ArrayList<>(rolesList.size());
+        for (Object entry : rolesList) {
+            if (entry instanceof Map<?, ?> role && role.get("name") != null) {
+                roles.add(new VerifiedToken.TokenRole(
+                        String.valueOf(role.get("name")),
+                        role.get("scope") != null ? String.valueOf(role.get("scope")) : null,
+                        toLong(role.get("projectId"))
+                ));
+            }
         }
-        return List.of();
+        return roles;
+    }
+
+    private Map<Long, Set<String>> toProjectGrantRoles(Object projectRolesObject) {
+        if (!(projectRolesObject instanceof Map<?, ?> projectRolesMap)) {
+            return Map.of();
+        }
+        Map<Long, Set<String>> projectRoles = new HashMap<>();
+        projectRolesMap.forEach((projectIdKey, roleNames) -> {
+            Long projectId = toLong(projectIdKey);
+            if (projectId != null && roleNames instanceof List<?> roleList) {
+                projectRoles.put(projectId, roleList.stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.toUnmodifiableSet()));
+            }
+        });
+        return projectRoles;
+    }
+
+    // Nomi dei ruoli del claim "roles", letti dal token già verificato (nessun nuovo parsing)
+    public List<String> extractRoles(String token) {
+        return verify(token).roles().stream()
+                .map(VerifiedToken.TokenRole::name)
+                .toList();
     }
 
     public Long extractTenantId(String token) {
-        Claims claims = extractAllClaims(token);
-        Object tenantIdObj = claims.get("tenantId");
+        return verify(token).tenantId();
+    }
 
-        if (tenantIdObj == null) {
-            return null;  // Nessun tenantId nel token
+    private static Long toLong(Object value) {
+        if (value == null) {
+            return null;
         }
 
-        return switch (tenantIdObj) {
-            case Long tenantId -> tenantId;
-            case Integer tenantId -> tenantId.longValue();
-            case String tenantId -> {
+        return switch (value) {
+            case Long longValue -> longValue;
+            case Integer intValue -> intValue.longValue();
+            case String stringValue -> {
                 try {
-                    yield Long.parseLong(tenantId);
+                    yield Long.parseLong(stringValue);
                 } catch (NumberFormatException e) {
                     yield null;
                 }
@@ -179,8 +272,4 @@ public class JwtTokenUtil {
         };
     }
 
-
-
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cache dei principal (CustomUserDetails + UserRole) per (username, tenantId), usata solo per le richieste
+ * con JWT già verificato: il login legge sempre le credenziali dal database e i valori in cache non contengono
+ * la password. Ogni entry ricorda la versione dei ruoli con cui è stata caricata: se nel
+ * RoleVersionRegistry la versione è cambiata l'entry viene considerata un miss.
+ * Le modifiche a un utente rimuovono tutte le sue entry con {@link #invalidateUser}.
+ */
+@Slf4j
+@Component
+public class PrincipalCache {
+
+    private final Cache<PrincipalKey, CachedPrincipal> cache;
+    private final RoleVersionRegistry roleVersionRegistry;
+
+    public PrincipalCache(RoleVersionRegistry roleVersionRegistry,
+                          @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${security.principal-cache.ttl:PT5M}") Duration ttl) {
+        this.roleVersionRegistry = roleVersionRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public CustomUserDetails get(String username, Long tenantId) {
+        PrincipalKey key = new PrincipalKey(username, tenantId);
+        CachedPrincipal cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.roleVersion() != roleVersionRegistry.current(cached.userId(), tenantId)) {
+            cache.invalidate(key);
+            return null;
+        }
+        return cached.userDetails();
+    }
+
+    /**
+     * La versione va letta PRIMA di caricare i ruoli dal database, altrimenti una
+     * modifica concorrente potrebbe essere marcata come già vista.
+     */
+    public void put(String username, Long tenantId, long roleVersion, CustomUserDetails userDetails) {
+        cache.put(new PrincipalKey(username, tenantId),
+                new CachedPrincipal(userDetails.getUser().getId(), roleVersion, userDetails));
+    }
+
+    public long currentVersion(Long userId, Long tenantId) {
+        return roleVersionRegistry.current(userId, tenantId);
+    }
+
+    public void invalidateUser(String username) {
+        cache.asMap().keySet().removeIf(key -> key.username().equals(username));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Scheduled(fixedDelayString = "${security.principal-cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        CacheStats stats = cache.stats();
+        log.info("Principal cache: size={}, hit={}, miss={}, hitRate={}, eviction={}",
+                cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                String.format("%.3f", stats.hitRate()), stats.evictionCount());
+    }
+
+    private record PrincipalKey(String username, Long tenantId) {
+    }
+
+    private record CachedPrincipal(Long userId, long roleVersion, CustomUserDetails userDetails) {
+    }
+}
@@ -2,33 +2,35 @@ package com.example.demo.security;
 
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.User;
-import com.example.demo.repository.GrantRoleAssignmentRepository;
-import com.example.demo.repository.TenantRepository;
-import com.example.demo.repository.UserRepository;
 import com.example.demo.tenant.TenantContext;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
 
 
 @Service
-@Transactional(readOnly = true)
 @AllArgsConstructor
 public class ProjectSecurityService {
 
-    private static final String USER_NOT_FOUND = "User not found";
-    private final UserRepository userRepository;
-    private final TenantRepository tenantRepository;
-    private final GrantRoleAssignmentRepository grantRoleAssignmentRepository;
+    private final AuthorizationContextResolver authorizationContextResolver;
 
     public boolean hasRoleNameInAnyProject(User user, Tenant tenant, String roleName) {
-        return grantRoleAssignmentRepository.existsByUserAndTenantAndRoleProject(user.getId(), tenant.getId(), roleName );
+        return authorizationContextResolver.resolve(user.getId(), tenant.getId()).hasRoleInAnyProject(roleName);
     }
 
     public boolean hasProjectRole(User user, Tenant tenant, Long projectId, String roleName) {
-        return grantRoleAssignmentRepository.existsByUserAndTenantAndProjectAndRoleProject(user.getId(), tenant.getId(), projectId, roleName);
+        return authorizationContextResolver.resolve(user.getId(), tenant.getId()).hasProjectRole(projectId, roleName);
+    }
+
+    /**
+     * Verifica in blocco che l'utente abbia il ruolo in TUTTI i progetti indicati.
+     * Una sola risoluzione dei ruoli (una query per richiesta) invece di una query per progetto.
+     */
+    public boolean hasProjectRoleInAll(User user, Tenant tenant, Collection<Long> projectIds, String roleName) {
+        return authorizationContextResolver.resolve(user.getId(), tenant.getId()).hasProjectRoleInAll(projectIds, roleName);
     }
     
     /**
@@ -37,23 +39,18 @@ public class ProjectSecurityService {
      */
     public boolean hasProjectRole(Long projectId, String roleName) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails)) {
+        if (authentication == null || !(authentication.getPrincipal() instanceof CustomUserDetails userDetails)) {
             return false;
         }
         
-        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-        User user = userRepository.findByUsername(userDetails.getUsername())
-            .orElseThrow(() -> new SecurityException(USER_NOT_FOUND));
-        
         Long tenantId = TenantContext.getCurrentTenantId();
         if (tenantId == null) {
             return false;
         }
         
-        Tenant tenant = tenantRepository.findById(tenantId)
-            .orElseThrow(() -> new SecurityException("Tenant not found"));
-        
-        return hasProjectRole(user, tenant, projectId, roleName);
+        // Utente e tenant bastano come id: i ruoli arrivano dall'AuthorizationContext della richiesta
+        return authorizationContextResolver.resolve(userDetails.getUser().getId(), tenantId)
+                .hasProjectRole(projectId, roleName);
     }
     
     /**
@@ -66,10 +63,8 @@ public class ProjectSecurityService {
     }
     
     private User extractUser(Object principal) {
-        if (principal instanceof CustomUserDetails) {
-            CustomUserDetails userDetails = (CustomUserDetails) principal;
-            return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new SecurityException(USER_NOT_FOUND));
+        if (principal instanceof CustomUserDetails userDetails) {
+            return userDetails.getUser();
         }
         throw new SecurityException("Principal is not CustomUserDetails");
     }
@@ -82,4 +77,4 @@ public class ProjectSecurityService {
 
 
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.example.demo.security;
+
+import com.example.demo.configchange.ConfigChange;
+import com.example.demo.configchange.ConfigChangeListener;
+import com.example.demo.configchange.ConfigChangeOutbox;
+import com.example.demo.enums.ConfigChangeType;
+import com.example.demo.repository.RoleVersionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versione dei ruoli (UserRole) di un utente in una tenant.
+ * Ogni modifica ai ruoli TENANT o PROJECT incrementa la versione: le strutture in-memory
+ * che dipendono dai ruoli (principal cache, ...) confrontano la versione con cui sono
+ * state costruite e si ricaricano se è cambiata.
+ *
+ * Le assegnazioni GrantRoleAssignment non hanno un singolo utente di riferimento,
+ * quindi hanno una versione per tenant.
+ *
+ * Le versioni esistono a due livelli:
+ * - persistite (tabella role_version), incrementate nella transazione della modifica: formano il role stamp
+ *   scritto nei token, quindi uno stamp emesso da un nodo vale su tutti gli altri e dopo un riavvio
+ * - contatori di questo processo ({@link #current}), usati solo come chiave delle cache locali (principal cache,
+ *   stamp letti dal database). Le modifiche fatte su altri nodi arrivano dall'outbox di configurazione;
+ *   dopo un buco nell'outbox la versione globale invalida tutte le versioni costruite in precedenza.
+ */
+@Component
+public class RoleVersionRegistry implements ConfigChangeListener {
+
+    // user_id della versione di tenant in role_version
+    private static final long TENANT_WIDE = 0L;
+
+    private final RoleVersionRepository roleVersionRepository;
+    private final ConfigChangeOutbox configChangeOutbox;
+
+    private final Map<UserTenantKey, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> tenantVersions = new ConcurrentHashMap<>();
+    // Sommata a tutte le versioni: incrementarla equivale a incrementarle tutte
+    private final AtomicLong globalVersion = new AtomicLong();
+    // Stamp letti dal database, validi finché i contatori locali non cambiano
+    private final Cache<StampKey, String> stamps;
+
+    public RoleVersionRegistry(RoleVersionRepository roleVersionRepository,
+                               ConfigChangeOutbox configChangeOutbox,
+                               @Value("${security.role-stamp-cache.max-size:10000}") long maxSize) {
+        this.roleVersionRepository = roleVersionRepository;
+        this.configChangeOutbox = configChangeOutbox;
+        this.stamps = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    public long current(Long userId, Long tenantId) {
+        AtomicLong version = versions.get(new UserTenantKey(userId, tenantId));
+        return (version != null ? version.get() : 0L) + globalVersion.get();
+    }
+
+    public long currentTenant(Long tenantId) {
+        AtomicLong version = tenantVersions.get(tenantId);
+        return (version != null ? version.get() : 0L) + globalVersion.get();
+    }
+
+    /**
+     * Stamp compatto (versioneUtente.versioneTenant, persistite) scritto nei token e confrontato per decidere
+     * se i ruoli nei claims sono ancora validi. Letto dal database solo quando i contatori locali cambiano.
+     */
+    public String stamp(Long userId, Long tenantId) {
+        return stamps.get(stampKey(userId, tenantId), key -> load(userId, tenantId));
+    }
+
+    /**
+     * Rilegge lo stamp dal database. Serve quando un token porta uno stamp diverso da quello in cache:
+     * la modifica può essere stata fatta su un altro nodo e non ancora arrivata dall'outbox.
+     */
+    public String reload(Long userId, Long tenantId) {
+        String stamp = load(userId, tenantId);
+        stamps.put(stampKey(userId, tenantId), stamp);
+        return stamp;
+    }
+
+    /**
+     * Incrementa la versione persistita nella transazione corrente e registra la modifica nell'outbox per gli
+     * altri nodi; il contatore locale cambia subito e, se c'è una transazione attiva, di nuovo dopo il commit:
+     * così una rilettura concorrente fatta prima del commit non resta in cache come valida.
+     */
+    public void bump(Long userId, Long tenantId) {
+        roleVersionRepository.increment(tenantId, userId);
+        configChangeOutbox.append(tenantId, ConfigChangeType.TENANT_USER, userId);
+        bumpLocal(userId, tenantId);
+    }
+
+    /**
+     * Come {@link #bump}, per la versione di tenant; agli altri nodi arriva con la modifica ROLE che il chiamante
+     * registra nell'outbox.
+     */
+    public void bumpTenant(Long tenantId) {
+        roleVersionRepository.increment(tenantId, TENANT_WIDE);
+        bumpTenantLocal(tenantId);
+    }
+
+    @Override
+    public void onConfigChange(ConfigChange change) {
+        if (change.local()) {
+            return;
+        }
+        if (change.type() == ConfigChangeType.TENANT_USER && change.entityId() != null) {
+            bumpLocal(change.entityId(), change.tenantId());
+        } else if (change.type() == ConfigChangeType.ROLE) {
+            bumpTenantLocal(change.tenantId());
+        }
+    }
+
+    @Override
+    public void onReset() {
+        globalVersion.incrementAndGet();
+    }
+
+    private void bumpLocal(Long userId, Long tenantId) {
+        UserTenantKey key = new UserTenantKey(userId, tenantId);
+        incrementNowAndAfterCommit(() -> versions.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet());
+    }
+
+    private void bumpTenantLocal(Long tenantId) {
+        incrementNowAndAfterCommit(() -> tenantVersions.computeIfAbsent(tenantId, k -> new AtomicLong()).incrementAndGet());
+    }
+
+    private String load(Long userId, Long tenantId) {
+        long userVersion = 0L;
+        long tenantVersion = 0L;
+        for (RoleVersionRepository.VersionView row : roleVersionRepository.findUserAndTenantVersions(tenantId, userId)) {
+            if (row.getUserId() == TENANT_WIDE) {
+                tenantVersion = row.getVersion();
+            } else {
+                userVersion = row.getVersion();
+            }
+        }
+        return userVersion + "." + tenantVersion;
+    }
+
+    private StampKey stampKey(Long userId, Long tenantId) {
+        return new StampKey(userId, tenantId, current(userId, tenantId), currentTenant(tenantId));
+    }
+
+    private void incrementNowAndAfterCommit(Runnable increment) {
+        increment.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment.run();
+                }
+            });
+        }
+    }
+
+    private record UserTenantKey(Long userId, Long tenantId) {
+    }
+
+    private record StampKey(Long userId, Long tenantId, long userVersion, long tenantVersion) {
+    }
+}
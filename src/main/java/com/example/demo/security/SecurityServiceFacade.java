@@ -4,10 +4,12 @@ import com.example.demo.entity.*;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.ItemTypeConfigurationRepository;
 import com.example.demo.service.*;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -28,6 +30,7 @@ public class SecurityServiceFacade {
     private final FieldConfigurationLookup fieldConfigurationLookup;
     private final ItemTypeSetLookup itemTypeSetLookup;
     private final com.example.demo.repository.ItemTypeConfigurationRepository itemTypeConfigurationRepository;
+    private final PermissionMatrixService permissionMatrixService;
 
     // General
     public boolean hasAccessToGlobals(Object principal, Tenant tenant) {
@@ -72,16 +75,7 @@ public class SecurityServiceFacade {
         }
 
         // Verifica che l’utente sia ADMIN in tutti i progetti dove il campo è usato
-        for (Project project : usedInProjects) {
-            if (!project.getTenant().equals(tenant)) {
-                throw new SecurityException("Tenant security exception");
-            }
-            if (!projectSecurityService.hasProjectRole(user, tenant, project.getId(), "ADMIN")) {
-                return false;
-            }
-        }
-
-        return true;
+        return isProjectAdminInAll(user, tenant, usedInProjects);
     }
 
 
@@ -219,16 +213,7 @@ public class SecurityServiceFacade {
         }
 
         // Verifica che l’utente sia ADMIN in tutti i progetti dove il itemType è usato
-        for (Project project : usedInProjects) {
-            if (!project.getTenant().equals(tenant)) {
-                throw new SecurityException("Tenant security exception");
-            }
-            if (!projectSecurityService.hasProjectRole(user, tenant, project.getId(), "ADMIN")) {
-                return false;
-            }
-        }
-
-        return true;
+        return isProjectAdminInAll(user, tenant, usedInProjects);
     }
 
 
@@ -264,16 +249,7 @@ public class SecurityServiceFacade {
         }
 
         // Verifica che l’utente sia ADMIN in tutti i progetti dove il itemType è usato
-        for (Project project : usedInProjects) {
-            if (!project.getTenant().equals(tenant)) {
-                throw new SecurityException("Tenant security exception");
-            }
-            if (!projectSecurityService.hasProjectRole(user, tenant, project.getId(), "ADMIN")) {
-                return false;
-            }
-        }
-
-        return true;
+        return isProjectAdminInAll(user, tenant, usedInProjects);
     }
 
 
@@ -367,6 +343,35 @@ public class SecurityServiceFacade {
         return false;
     }
 
+    // Item operations
+    public boolean canAccessProjectItems(Object principal, Tenant tenant, Long projectId) {
+        User user = extractUser(principal);
+        return isTenantAdmin(user, tenant)
+                || isProjectAdmin(user, tenant, projectId)
+                || projectSecurityService.hasProjectRole(user, tenant, projectId, "USER");
+    }
+
+    /**
+     * Oltre all'accesso al progetto serve la CreatorPermission della configurazione (gli admin ne sono esenti).
+     */
+    public boolean canCreateItem(Object principal, Tenant tenant, Long projectId, Long itemTypeConfigurationId) {
+        User user = extractUser(principal);
+        if (isTenantAdmin(user, tenant) || isProjectAdmin(user, tenant, projectId)) {
+            return true;
+        }
+        return projectSecurityService.hasProjectRole(user, tenant, projectId, "USER")
+                && itemTypeConfigurationId != null
+                && permissionMatrixService.canCreate(user.getId(), tenant.getId(), projectId, itemTypeConfigurationId);
+    }
+
+    /**
+     * Import in blocco: riservato agli admin, le righe non passano dalle CreatorPermission.
+     */
+    public boolean canImportItems(Object principal, Tenant tenant, Long projectId) {
+        User user = extractUser(principal);
+        return isTenantAdmin(user, tenant) || isProjectAdmin(user, tenant, projectId);
+    }
+
 /*
     // Item Type Configuration operations
     public boolean canCreateItemTypeConfiguration(Object principal, Tenant tenant, Long projectId) {
@@ -456,6 +461,17 @@ public class SecurityServiceFacade {
         return isTenantAdmin(user, tenant) || hasAnyProjectAdmin(user, tenant);
     }
 
+    private boolean isProjectAdminInAll(User user, Tenant tenant, Set<Project> projects) {
+        Set<Long> projectIds = new HashSet<>();
+        for (Project project : projects) {
+            if (!project.getTenant().equals(tenant)) {
+                throw new SecurityException("Tenant security exception");
+            }
+            projectIds.add(project.getId());
+        }
+        return projectSecurityService.hasProjectRoleInAll(user, tenant, projectIds, "ADMIN");
+    }
+
     private boolean isProjectAdmin(User user, Tenant tenant, Long projectId) {
         if (projectId == null) {
             return false;
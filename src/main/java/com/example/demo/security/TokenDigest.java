@@ -0,0 +1,27 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digest SHA-256 compatto di un JWT, usato come chiave delle strutture in-memory
+ * (cache dei token verificati, indice di revoca) al posto del token completo.
+ */
+public final class TokenDigest {
+
+    private TokenDigest() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static String of(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+}
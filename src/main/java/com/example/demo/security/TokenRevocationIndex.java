@@ -0,0 +1,165 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.TokenBlacklistRepository;
+import com.example.demo.repository.TokenBlacklistRepository.RevokedTokenView;
+import com.example.demo.repository.TokenRevocationRepository;
+import com.example.demo.repository.TokenRevocationRepository.RevocationView;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Indice in-memory dei token revocati, indicizzato per digest del token.
+ *
+ * - caricato all'avvio dalle righe di InvalidatedToken non ancora scadute
+ * - aggiornato in modo sincrono da TokenBlacklistService.invalidateToken
+ * - allineato con le revoche fatte dagli altri nodi leggendo token_revocation per id crescente
+ * - potato man mano che i token scadono (coda ordinata per scadenza)
+ *
+ * Il controllo per richiesta nel JwtAuthenticationFilter non tocca più il database.
+ *
+ * Gli id di token_revocation sono auto increment, quindi un id mancante sotto l'ultimo letto può essere una
+ * transazione non ancora committata: resta tra gli id da rileggere per late-window, poi si considera annullata.
+ * Le revoche si possono applicare in qualsiasi ordine, quindi i buchi non bloccano la lettura delle righe successive.
+ */
+@Slf4j
+@Component
+public class TokenRevocationIndex {
+
+    private static final int MAX_MISSING = 10_000;
+
+    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final TokenRevocationRepository tokenRevocationRepository;
+    private final int batchSize;
+    private final Duration lateWindow;
+
+    private final Map<String, Instant> expirationByDigest = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<ExpiringDigest> expirationQueue = new ConcurrentSkipListSet<>(
+            Comparator.comparing(ExpiringDigest::expiration).thenComparing(ExpiringDigest::digest));
+
+    private long lastId;
+    // Id mancanti sotto lastId e momento in cui sono stati visti mancare la prima volta
+    private final Map<Long, Instant> missing = new TreeMap<>();
+
+    public TokenRevocationIndex(TokenBlacklistRepository tokenBlacklistRepository,
+                                TokenRevocationRepository tokenRevocationRepository,
+                                @Value("${security.revocation.poll-batch-size:1000}") int batchSize,
+                                @Value("${security.revocation.late-window:PT10M}") Duration lateWindow) {
+        this.tokenBlacklistRepository = tokenBlacklistRepository;
+        this.tokenRevocationRepository = tokenRevocationRepository;
+        this.batchSize = batchSize;
+        this.lateWindow = lateWindow;
+    }
+
+    @PostConstruct
+    public synchronized void reload() {
+        // Prima l'ultimo id, poi le revoche attive: una revoca committata nel mezzo viene letta due volte, non persa
+        lastId = tokenRevocationRepository.findMaxId();
+        List<RevokedTokenView> active = tokenBlacklistRepository.findActive(Instant.now());
+        active.forEach(this::add);
+        log.info("Indice di revoca caricato: {} token revocati attivi", active.size());
+    }
+
+    public boolean isRevoked(String token) {
+        return expirationByDigest.containsKey(TokenDigest.of(token));
+    }
+
+    public void revoke(String token, Instant expiration) {
+        add(TokenDigest.of(token), expiration);
+    }
+
+    public int size() {
+        return expirationByDigest.size();
+    }
+
+    /**
+     * Allinea l'indice con le revoche registrate dagli altri nodi: righe successive all'ultimo id letto
+     * e righe comparse negli id rimasti mancanti.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.poll-interval-ms:2000}")
+    public synchronized void pollRevocations() {
+        List<RevocationView> late;
+        List<RevocationView> revocations;
+        try {
+            late = missing.isEmpty() ? List.of() : tokenRevocationRepository.findByIds(new ArrayList<>(missing.keySet()));
+            revocations = tokenRevocationRepository.findAfter(lastId, PageRequest.of(0, batchSize));
+        } catch (RuntimeException e) {
+            // lastId resta invariato: il prossimo giro riprende dallo stesso punto
+            log.warn("Allineamento indice di revoca fallito: {}", e.getMessage());
+            return;
+        }
+
+        late.forEach(revocation -> {
+            missing.remove(revocation.getId());
+            add(revocation);
+        });
+        Instant now = Instant.now();
+        Instant expiredBefore = now.minus(lateWindow);
+        missing.values().removeIf(seenAt -> !seenAt.isAfter(expiredBefore));
+
+        for (RevocationView revocation : revocations) {
+            // Con lastId = 0 (tabella vuota all'avvio) l'auto increment può partire da qualsiasi valore
+            if (lastId > 0) {
+                markMissing(lastId + 1, revocation.getId() - 1, now);
+            }
+            lastId = revocation.getId();
+            add(revocation);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${security.revocation.prune-interval-ms:60000}")
+    public void pruneExpired() {
+        Instant now = Instant.now();
+        ExpiringDigest head;
+        while ((head = expirationQueue.pollFirst()) != null) {
+            if (head.expiration().isAfter(now)) {
+                expirationQueue.add(head);
+                break;
+            }
+            expirationByDigest.remove(head.digest(), head.expiration());
+        }
+    }
+
+    private void markMissing(long fromId, long toId, Instant now) {
+        for (long id = fromId; id <= toId && missing.size() < MAX_MISSING; id++) {
+            missing.put(id, now);
+        }
+        if (toId - fromId + 1 > MAX_MISSING) {
+            // Buchi così grandi sono insert annullate, non transazioni in corso
+            log.warn("Indice di revoca: troppi id mancanti, seguiti solo i primi {}", MAX_MISSING);
+        }
+    }
+
+    private void add(RevocationView revocation) {
+        add(TokenDigest.of(revocation.getToken()), revocation.getExpirationTime());
+    }
+
+    private void add(RevokedTokenView revokedToken) {
+        add(TokenDigest.of(revokedToken.getToken()), revokedToken.getExpirationTime());
+    }
+
+    private void add(String digest, Instant expiration) {
+        if (expiration == null || !expiration.isAfter(Instant.now())) {
+            return;
+        }
+        if (expirationByDigest.putIfAbsent(digest, expiration) == null) {
+            expirationQueue.add(new ExpiringDigest(expiration, digest));
+        }
+    }
+
+    private record ExpiringDigest(Instant expiration, String digest) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.security;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Risultato immutabile della verifica (firma + parsing) di un JWT.
+ * Viene prodotto una sola volta per token da {@link JwtTokenUtil#verify(String)}
+ * e riutilizzato da tutta la pipeline di autenticazione della richiesta.
+ */
+public record VerifiedToken(
+        String username,
+        Long userId,
+        Long tenantId,
+        List<TokenRole> roles,
+        Map<Long, Set<String>> projectGrantRoles,
+        String roleStamp,
+        Instant issuedAt,
+        Instant expiration
+) {
+
+    // Attributo di richiesta in cui il JwtAuthenticationFilter pubblica il token verificato
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    public VerifiedToken {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+        projectGrantRoles = projectGrantRoles == null ? Map.of() : Map.copyOf(projectGrantRoles);
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiration != null && !expiration.isAfter(now);
+    }
+
+    /**
+     * Ruolo TENANT o PROJECT così come scritto nel claim "roles".
+     * projectId è null per i ruoli TENANT.
+     */
+    public record TokenRole(String name, String scope, Long projectId) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cache limitata dei token già verificati, indicizzata per digest SHA-256 del token.
+ * Ogni entry scade alla scadenza del JWT (al massimo dopo max-ttl), così le chiamate
+ * ripetute della stessa sessione SPA non rifanno né HMAC né parsing JSON.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.max-size:10000}") long maxSize,
+            @Value("${jwt.verified-cache.max-ttl:PT10M}") Duration maxTtl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl.toNanos()))
+                .build();
+    }
+
+    public VerifiedToken get(String token) {
+        return cache.getIfPresent(TokenDigest.of(token));
+    }
+
+    public void put(String token, VerifiedToken verifiedToken) {
+        if (verifiedToken.isExpired(Instant.now())) {
+            return;
+        }
+        cache.put(TokenDigest.of(token), verifiedToken);
+    }
+
+    public void evict(String token) {
+        cache.invalidate(TokenDigest.of(token));
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            if (value.expiration() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiration = Duration.between(Instant.now(), value.expiration()).toNanos();
+            return Math.max(0, Math.min(untilExpiration, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
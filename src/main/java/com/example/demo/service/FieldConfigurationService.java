@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.FieldType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
@@ -28,6 +30,7 @@ public class FieldConfigurationService {
     private final FieldConfigurationLookup fieldConfigurationLookup;
     private final FieldLookup fieldLookup;
     private final FieldSetLookup fieldSetLookup;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     private final DtoMapperFacade dtoMapper;
 
@@ -138,6 +141,7 @@ public class FieldConfigurationService {
         }
 
         FieldConfiguration saved = fieldConfigurationRepository.save(config);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD, saved.getField().getId());
         return dtoMapper.toFieldConfigurationViewDtos(List.of(saved)).getFirst();
     }
 
@@ -151,7 +155,9 @@ public class FieldConfigurationService {
             throw new ApiException("Field Configuration is used in a Field Set and cannot be deleted");
         }
 
+        Long fieldId = fieldConfiguration.getField().getId();
         fieldConfigurationRepository.deleteByIdAndTenant(id, tenant);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD, fieldId);
     }
 
     public boolean isFieldInAnyFieldConfiguration(Tenant tenant, Long fieldId) {
@@ -1,11 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.FieldCreateDto;
 import com.example.demo.dto.FieldViewDto;
 import com.example.demo.entity.Field;
 import com.example.demo.entity.FieldConfiguration;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.dto.FieldDetailDto;
@@ -26,6 +28,7 @@ public class FieldService {
     private final FieldConfigurationLookup fieldConfigurationLookup;
     private final FieldSetLookup fieldSetLookup;
     private final FieldLookup fieldLookup;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     private final DtoMapperFacade dtoMapper;
 
@@ -89,6 +92,7 @@ public class FieldService {
 
         field.setName(dto.name());
         Field updated = fieldRepository.save(field);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD, id);
         return dtoMapper.toFieldViewDto(updated);
     }
 
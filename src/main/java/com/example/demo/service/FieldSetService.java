@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
@@ -34,11 +36,13 @@ public class FieldSetService {
     private final FieldSetCloneHelper fieldSetCloneHelper;
     private final FieldSetUpdateHelper fieldSetUpdateHelper;
     private final FieldSetPermissionManager fieldSetPermissionManager;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     private static final String FIELDSET_NOT_FOUND = "FieldSet not found";
 
     public FieldSetViewDto createGlobalFieldSet(FieldSetCreateDto dto, Tenant tenant) {
         FieldSet fieldSet = fieldSetCloneHelper.createFieldSet(dto, tenant, ScopeType.TENANT, null);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSet.getId());
         return dtoMapper.toFieldSetViewDto(fieldSet);
     }
 
@@ -76,7 +80,8 @@ public class FieldSetService {
         fieldSetUpdateHelper.applyFieldSetEntries(tenant, fieldSet, context.entryDtos());
 
         FieldSet saved = fieldSetRepository.save(fieldSet);
-        
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, id);
+
         if (!context.trulyNewFieldIds().isEmpty()) {
             fieldSetPermissionManager.handlePermissionsForNewFields(tenant, saved, context.trulyNewFieldIds());
         }
@@ -110,6 +115,7 @@ public class FieldSetService {
         }
 
         fieldSetRepository.deleteByIdAndTenant(id, tenant);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, id);
     }
 
     @Transactional
@@ -131,6 +137,7 @@ public class FieldSetService {
             }
             entry.setOrderIndex(dto.orderIndex());
         }
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSetId);
 
         // Persisti il cambiamento. Se il repository è un CrudRepository, non serve il save esplicito.
     }
@@ -145,6 +152,7 @@ public class FieldSetService {
         if (entry.getFieldSet().getTenant().equals(tenant)) {
             // Rimuovi solo l'entry (non toccare la FieldConfiguration)
             fieldSetEntryRepository.delete(entry);
+            configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, entry.getFieldSet().getId());
         }
     }
 
@@ -171,6 +179,7 @@ public class FieldSetService {
         entry.setOrderIndex(dto.orderIndex());
 
         FieldSetEntry saved = fieldSetEntryRepository.save(entry);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSetId);
 
         return dtoMapper.toFieldSetEntryViewDto(saved);
     }
@@ -192,6 +201,7 @@ public class FieldSetService {
         Project project = projectRepository.findByIdAndTenant(projectId, tenant)
                 .orElseThrow(() -> new ApiException("Project not found"));
         FieldSet fieldSet = fieldSetCloneHelper.createFieldSet(dto, tenant, ScopeType.PROJECT, project);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSet.getId());
         return dtoMapper.toFieldSetViewDto(fieldSet);
     }
 
@@ -226,6 +236,7 @@ public class FieldSetService {
                 addedFieldConfigIds,
                 preservedPermissionIds
         );
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSetId);
     }
 
     @Transactional
@@ -241,6 +252,7 @@ public class FieldSetService {
                 removedFieldConfigIds,
                 addedFieldConfigIds
         );
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.FIELD_SET, fieldSetId);
     }
 
 }
@@ -22,7 +22,7 @@ public class GrantCleanupService {
             return;
         }
         
-        Grant grant = grantRepository.findByIdWithCollections(grantId)
+        Grant grant = grantRepository.findById(grantId)
                 .orElseGet(() -> entityManager.find(Grant.class, grantId));
         
         if (grant == null) {
@@ -0,0 +1,98 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.GrantRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Service per lookup dei membri delle Grant come soli id (utenti, gruppi e relative negazioni).
+ * Legge direttamente le join table, senza caricare le entity User e Group:
+ * è il modello da usare per valutazioni, report e analisi d'impatto.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class GrantMembershipLookup {
+
+    // Dimensione dei blocchi di grant id nella clausola IN
+    private static final int BATCH_SIZE = 1000;
+
+    private final GrantRepository grantRepository;
+
+    /**
+     * Membri di una singola grant (vuoti se la grant non ha membri o non esiste).
+     */
+    public GrantMembership getMembership(Long grantId) {
+        return getMemberships(List.of(grantId)).getOrDefault(grantId, GrantMembership.empty(grantId));
+    }
+
+    /**
+     * Membri delle grant indicate, una query per blocco di grant.
+     * Ogni grant richiesta è presente nella mappa, anche se senza membri.
+     */
+    public Map<Long, GrantMembership> getMemberships(Collection<Long> grantIds) {
+        List<Long> ids = grantIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, GrantMembership> result = new HashMap<>();
+        ids.forEach(id -> result.put(id, GrantMembership.empty(id)));
+
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            for (GrantRepository.GrantMembershipRowView row : grantRepository.findMembershipRowsByGrantIdIn(batch)) {
+                GrantMembership membership = result.get(row.getGrantId());
+                switch (row.getKind()) {
+                    case "USER" -> membership.userIds().add(row.getMemberId());
+                    case "GROUP" -> membership.groupIds().add(row.getMemberId());
+                    case "NEGATED_USER" -> membership.negatedUserIds().add(row.getMemberId());
+                    case "NEGATED_GROUP" -> membership.negatedGroupIds().add(row.getMemberId());
+                    default -> throw new IllegalStateException("Tipo di membro grant sconosciuto: " + row.getKind());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Membri di una Grant espressi come id.
+     */
+    public record GrantMembership(Long grantId,
+                                  Set<Long> userIds,
+                                  Set<Long> groupIds,
+                                  Set<Long> negatedUserIds,
+                                  Set<Long> negatedGroupIds) {
+
+        static GrantMembership empty(Long grantId) {
+            return new GrantMembership(grantId, new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>());
+        }
+
+        public boolean isEmpty() {
+            return userIds.isEmpty() && groupIds.isEmpty() && negatedUserIds.isEmpty() && negatedGroupIds.isEmpty();
+        }
+
+        /** Utenti citati dalla grant (inclusi e negati), per risolverne i nomi in un'unica query. */
+        public Set<Long> allUserIds() {
+            Set<Long> ids = new LinkedHashSet<>(userIds);
+            ids.addAll(negatedUserIds);
+            return ids;
+        }
+
+        /** Gruppi citati dalla grant (inclusi e negati). */
+        public Set<Long> allGroupIds() {
+            Set<Long> ids = new LinkedHashSet<>(groupIds);
+            ids.addAll(negatedGroupIds);
+            return ids;
+        }
+    }
+}
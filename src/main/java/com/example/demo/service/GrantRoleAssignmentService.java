@@ -1,8 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.*;
+import com.example.demo.security.RoleVersionRegistry;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,6 +23,9 @@ public class GrantRoleAssignmentService {
     private final GrantRepository grantRepository;
     private final RoleRepository roleRepository;
     private final ProjectRepository projectRepository;
+    private final RoleVersionRegistry roleVersionRegistry;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     /**
      * Crea un GrantRoleAssignment PROJECT-level
@@ -50,7 +57,14 @@ public class GrantRoleAssignmentService {
             GrantRoleAssignment existingAssignment = existing.get();
             // Se il ruolo è diverso, aggiorna; altrimenti errore
             if (!existingAssignment.getRole().getId().equals(roleId)) {
+                // Cambiano i titolari sia del ruolo precedente sia di quello nuovo
+                Long previousRoleId = existingAssignment.getRole().getId();
                 existingAssignment.setRole(role);
+                roleVersionRegistry.bumpTenant(tenant.getId());
+                permissionMatrixService.roleHoldersChanged(tenant.getId(), previousRoleId);
+                permissionMatrixService.roleHoldersChanged(tenant.getId(), roleId);
+                configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, previousRoleId);
+                configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, roleId);
                 return grantRoleAssignmentRepository.save(existingAssignment);
             } else {
                 throw new ApiException("GrantRoleAssignment already exists for this Grant, Role and Project");
@@ -65,6 +79,9 @@ public class GrantRoleAssignmentService {
                 .project(project)
                 .build();
 
+        roleVersionRegistry.bumpTenant(tenant.getId());
+        permissionMatrixService.roleHoldersChanged(tenant.getId(), roleId);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, roleId);
         return grantRoleAssignmentRepository.save(assignment);
     }
 
@@ -92,6 +109,9 @@ public class GrantRoleAssignmentService {
             // Verifica che il ruolo corrisponda
             if (gra.getRole().getId().equals(roleId)) {
                 grantRoleAssignmentRepository.delete(gra);
+                roleVersionRegistry.bumpTenant(tenant.getId());
+                permissionMatrixService.roleHoldersChanged(tenant.getId(), roleId);
+                configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, roleId);
             } else {
                 throw new ApiException("GrantRoleAssignment not found with specified Role");
             }
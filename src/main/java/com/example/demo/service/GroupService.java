@@ -1,15 +1,18 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.GroupCreateDto;
 import com.example.demo.dto.GroupUpdateDto;
 import com.example.demo.dto.GroupViewDto;
 import com.example.demo.entity.Group;
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.User;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.GroupRepository;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,6 +29,8 @@ public class GroupService {
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
     private final DtoMapperFacade dtoMapper;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     @Transactional(readOnly = true)
     public List<GroupViewDto> getAllForTenant(Tenant tenant) {
@@ -91,6 +96,8 @@ public class GroupService {
         }
 
         Group saved = groupRepository.save(group);
+        permissionMatrixService.groupChanged(tenant.getId(), id);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.GROUP, id);
         return dtoMapper.toGroupViewDto(saved);
     }
 
@@ -99,6 +106,8 @@ public class GroupService {
                 .orElseThrow(() -> new ApiException("Group not found"));
 
         groupRepository.delete(group);
+        permissionMatrixService.groupChanged(tenant.getId(), id);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.GROUP, id);
     }
 }
 
@@ -3,7 +3,6 @@ package com.example.demo.service;
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
 import com.example.demo.entity.Status;
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.Transition;
@@ -11,9 +10,13 @@ import com.example.demo.entity.Workflow;
 import com.example.demo.entity.WorkflowStatus;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.ItemTypeConfigurationRepository;
-import com.example.demo.repository.ItemTypeSetRepository;
 import com.example.demo.repository.TransitionRepository;
 import com.example.demo.repository.WorkflowStatusRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.impactjob.ImpactProgressListener;
 import com.example.demo.service.migration.analysis.CreatorPermissionAnalysisStrategy;
 import com.example.demo.service.migration.analysis.ExecutorPermissionAnalysisStrategy;
 import com.example.demo.service.migration.analysis.FieldOwnerPermissionAnalysisStrategy;
@@ -43,7 +46,7 @@ public class ItemTypeConfigurationMigrationAnalysisService {
     private final FieldLookup fieldLookup;
     private final WorkflowLookup workflowLookup;
     private final FieldSetLookup fieldSetLookup;
-    private final ItemTypeSetRepository itemTypeSetRepository;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
     private final FieldOwnerPermissionAnalysisStrategy fieldOwnerPermissionAnalysisStrategy;
     private final StatusOwnerPermissionAnalysisStrategy statusOwnerPermissionAnalysisStrategy;
     private final FieldStatusPermissionAnalysisStrategy fieldStatusPermissionAnalysisStrategy;
@@ -57,6 +60,17 @@ public class ItemTypeConfigurationMigrationAnalysisService {
             Long newFieldSetId,
             Long newWorkflowId
     ) {
+        return analyzeMigrationImpact(tenant, itemTypeConfigurationId, newFieldSetId, newWorkflowId, ImpactProgressListener.NONE);
+    }
+
+    public ItemTypeConfigurationMigrationImpactDto analyzeMigrationImpact(
+            Tenant tenant,
+            Long itemTypeConfigurationId,
+            Long newFieldSetId,
+            Long newWorkflowId,
+            ImpactProgressListener progress
+    ) {
+        progress.phase("CONFIGURATIONS");
         ItemTypeConfiguration oldConfig = itemTypeConfigurationRepository.findById(itemTypeConfigurationId)
                 .orElseThrow(() -> new ApiException("ItemTypeConfiguration not found: " + itemTypeConfigurationId));
 
@@ -95,14 +109,11 @@ public class ItemTypeConfigurationMigrationAnalysisService {
                 ? extractWorkflowInfo(newWorkflow)
                 : oldWorkflowInfo;
 
-        Long itemTypeSetId = getItemTypeSetIdForConfiguration(oldConfig);
-        ItemTypeSet owningItemTypeSet = itemTypeSetId != null
-                ? itemTypeSetRepository.findById(itemTypeSetId).orElse(null)
-                : null;
-
-        String itemTypeSetName = owningItemTypeSet != null
-                ? owningItemTypeSet.getName()
-                : getItemTypeSetNameForConfiguration(oldConfig);
+        progress.phase("SNAPSHOT");
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        ItemTypeSetNode owningItemTypeSet = findOwningItemTypeSet(snapshot, oldConfig.getId());
+        Long itemTypeSetId = owningItemTypeSet != null ? owningItemTypeSet.id() : null;
+        String itemTypeSetName = owningItemTypeSet != null ? owningItemTypeSet.name() : null;
 
         MigrationAnalysisContext context = new MigrationAnalysisContext(
                 oldConfig,
@@ -118,26 +129,39 @@ public class ItemTypeConfigurationMigrationAnalysisService {
                 workflowChanged,
                 itemTypeSetId,
                 owningItemTypeSet,
-                itemTypeSetName
+                itemTypeSetName,
+                snapshot
         );
 
+        progress.phase("FIELD_OWNER_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> fieldOwnerPermissions =
                 fieldOwnerPermissionAnalysisStrategy.analyze(context);
+        progress.count("fieldOwnerPermissions", fieldOwnerPermissions.size());
 
+        progress.phase("STATUS_OWNER_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> statusOwnerPermissions =
                 statusOwnerPermissionAnalysisStrategy.analyze(context);
+        progress.count("statusOwnerPermissions", statusOwnerPermissions.size());
 
+        progress.phase("FIELD_STATUS_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> fieldStatusPermissions =
                 fieldStatusPermissionAnalysisStrategy.analyze(context);
+        progress.count("fieldStatusPermissions", fieldStatusPermissions.size());
 
+        progress.phase("EXECUTOR_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> executorPermissions =
                 executorPermissionAnalysisStrategy.analyze(context);
+        progress.count("executorPermissions", executorPermissions.size());
 
+        progress.phase("WORKER_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> workerPermissions =
                 workerPermissionAnalysisStrategy.analyze(context);
+        progress.count("workerPermissions", workerPermissions.size());
 
+        progress.phase("CREATOR_PERMISSIONS");
         List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> creatorPermissions =
                 creatorPermissionAnalysisStrategy.analyze(context);
+        progress.count("creatorPermissions", creatorPermissions.size());
 
         int totalPreservable = countPreservable(fieldOwnerPermissions, statusOwnerPermissions, fieldStatusPermissions, executorPermissions, workerPermissions, creatorPermissions);
         int totalRemovable = countRemovable(fieldOwnerPermissions, statusOwnerPermissions, fieldStatusPermissions, executorPermissions, workerPermissions, creatorPermissions);
@@ -279,19 +303,11 @@ public class ItemTypeConfigurationMigrationAnalysisService {
                 .count();
     }
 
-    private String getItemTypeSetNameForConfiguration(ItemTypeConfiguration config) {
-        ItemTypeSet itemTypeSet = itemTypeSetRepository.findByItemTypeConfigurations_IdAndTenant(config.getId(), config.getTenant())
-                .stream()
-                .findFirst()
-                .orElse(null);
-        return itemTypeSet != null ? itemTypeSet.getName() : null;
-    }
-
-    private Long getItemTypeSetIdForConfiguration(ItemTypeConfiguration config) {
-        ItemTypeSet itemTypeSet = itemTypeSetRepository.findByItemTypeConfigurations_IdAndTenant(config.getId(), config.getTenant())
-                .stream()
-                .findFirst()
-                .orElse(null);
-        return itemTypeSet != null ? itemTypeSet.getId() : null;
+    private ItemTypeSetNode findOwningItemTypeSet(TenantConfigSnapshot snapshot, Long configurationId) {
+        ConfigurationNode configuration = snapshot.configuration(configurationId);
+        if (configuration == null || configuration.itemTypeSetIds().length == 0) {
+            return null;
+        }
+        return snapshot.itemTypeSet(configuration.itemTypeSetIds()[0]);
     }
 }
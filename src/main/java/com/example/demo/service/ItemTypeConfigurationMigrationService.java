@@ -1,27 +1,30 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
 import com.example.demo.dto.ItemTypeConfigurationMigrationRequest;
+import com.example.demo.dto.ItemTypeConfigurationMigrationResultDto;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.CreatorPermissionRepository;
-import com.example.demo.repository.ExecutorPermissionRepository;
-import com.example.demo.repository.FieldOwnerPermissionRepository;
-import com.example.demo.repository.FieldStatusPermissionRepository;
 import com.example.demo.repository.ItemTypeConfigurationRepository;
-import com.example.demo.repository.ItemTypeSetRepository;
-import com.example.demo.repository.StatusOwnerPermissionRepository;
-import com.example.demo.repository.WorkerPermissionRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.repository.PermissionBulkDeleteRepository;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.configsnapshot.ImpactResultCache.ImpactKind;
+import com.example.demo.service.impactjob.ImpactProgressListener;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 @Slf4j
@@ -31,17 +34,11 @@ import java.util.Set;
 public class ItemTypeConfigurationMigrationService {
 
     private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
-    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
-    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
-    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
-    private final ExecutorPermissionRepository executorPermissionRepository;
-    private final WorkerPermissionRepository workerPermissionRepository;
-    private final CreatorPermissionRepository creatorPermissionRepository;
-    private final ItemTypePermissionService itemTypePermissionService;
     private final ItemTypeConfigurationMigrationAnalysisService migrationAnalysisService;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
-    private final ItemTypeSetRepository itemTypeSetRepository;
+    private final PermissionBulkDeleteRepository permissionBulkDeleteRepository;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final ImpactResultCache impactResultCache;
 
     @Transactional(readOnly = true)
     public ItemTypeConfigurationMigrationImpactDto analyzeMigrationImpact(
@@ -50,10 +47,31 @@ public class ItemTypeConfigurationMigrationService {
             Long newFieldSetId,
             Long newWorkflowId
     ) {
-        return migrationAnalysisService.analyzeMigrationImpact(tenant, itemTypeConfigurationId, newFieldSetId, newWorkflowId);
+        return analyzeMigrationImpact(tenant, itemTypeConfigurationId, newFieldSetId, newWorkflowId, ImpactProgressListener.NONE);
     }
 
-    public void applyMigration(
+    @Transactional(readOnly = true)
+    public ItemTypeConfigurationMigrationImpactDto analyzeMigrationImpact(
+            Tenant tenant,
+            Long itemTypeConfigurationId,
+            Long newFieldSetId,
+            Long newWorkflowId,
+            ImpactProgressListener progress
+    ) {
+        return impactResultCache.get(tenant.getId(), ImpactKind.CONFIGURATION_MIGRATION, itemTypeConfigurationId, version -> {
+            ItemTypeConfigurationMigrationImpactDto impact = migrationAnalysisService.analyzeMigrationImpact(
+                    tenant, itemTypeConfigurationId, newFieldSetId, newWorkflowId, progress);
+            impact.setConfigVersion(version);
+            return impact;
+        }, newFieldSetId, newWorkflowId);
+    }
+
+    /**
+     * Applica la migrazione: gli insiemi di permission da preservare e da rimuovere sono calcolati in un solo
+     * passaggio sull'impatto, poi la rimozione procede per tipo con DELETE in blocco (assegnazioni globali e di
+     * progetto, ruoli, permission) e le Grant dirette sono recuperate tutte insieme alla fine.
+     */
+    public ItemTypeConfigurationMigrationResultDto applyMigration(
             Tenant tenant,
             Long itemTypeConfigurationId,
             ItemTypeConfigurationMigrationRequest request
@@ -69,228 +87,125 @@ public class ItemTypeConfigurationMigrationService {
             throw new ApiException("ItemTypeConfiguration does not belong to tenant");
         }
 
-        ItemTypeConfigurationMigrationImpactDto impact = migrationAnalysisService.analyzeMigrationImpact(
+        long start = System.nanoTime();
+        // Stesso report dell'analisi mostrata all'utente, se la configurazione non è cambiata nel frattempo
+        ItemTypeConfigurationMigrationImpactDto impact = analyzeMigrationImpact(
                 tenant,
                 itemTypeConfigurationId,
                 request.newFieldSetId(),
                 request.newWorkflowId()
         );
+        long analyzed = System.nanoTime();
+
+        // Permission da rimuovere per tipo; le altre restano (con le loro assegnazioni)
+        MigrationPlan plan = new MigrationPlan(request);
+        plan.add("FieldOwnerPermission", impact.getFieldOwnerPermissions());
+        plan.add("StatusOwnerPermission", impact.getStatusOwnerPermissions());
+        plan.add("FieldStatusPermission", impact.getFieldStatusPermissions());
+        plan.add("ExecutorPermission", impact.getExecutorPermissions());
+        plan.add("WorkerPermission", impact.getWorkerPermissions());
+        plan.add("CreatorPermission", impact.getCreatorPermissions());
+        long planned = System.nanoTime();
+
+        // Prima le assegnazioni (globali e di tutti i progetti), che referenziano le Grant
+        Set<Long> grantIds = new HashSet<>();
+        int removedAssignments = 0;
+        for (Map.Entry<String, Set<Long>> entry : plan.toRemove.entrySet()) {
+            List<Long> assignmentIds = new ArrayList<>();
+            for (PermissionBulkDeleteRepository.AssignmentRef ref
+                    : permissionBulkDeleteRepository.findAssignments(tenant.getId(), entry.getKey(), entry.getValue())) {
+                assignmentIds.add(ref.assignmentId());
+                if (ref.grantId() != null) {
+                    grantIds.add(ref.grantId());
+                }
+            }
+            removedAssignments += permissionBulkDeleteRepository.deleteAssignments(assignmentIds);
+        }
+        long assignmentsDeleted = System.nanoTime();
 
-        Set<Long> permissionsToPreserve;
-        if (Boolean.TRUE.equals(request.removeAll())) {
-            permissionsToPreserve = new HashSet<>();
-        } else if (Boolean.TRUE.equals(request.preserveAllPreservable())) {
-            permissionsToPreserve = getAllPreservablePermissionIds(impact);
-        } else if (request.preservePermissionIds() == null) {
-            permissionsToPreserve = getAllPreservablePermissionIds(impact);
-        } else {
-            permissionsToPreserve = request.preservePermissionIds();
+        int removedPermissions = 0;
+        for (Map.Entry<String, Set<Long>> entry : plan.toRemove.entrySet()) {
+            removedPermissions += permissionBulkDeleteRepository.deletePermissions(entry.getKey(), entry.getValue());
         }
+        long permissionsDeleted = System.nanoTime();
 
-        // Ottieni l'ItemTypeSet per questa configurazione per rimuovere le assegnazioni di progetto
-        ItemTypeSet itemTypeSet = itemTypeSetRepository.findByItemTypeConfigurations_IdAndTenant(
-                itemTypeConfigurationId, tenant).stream()
-                .findFirst()
-                .orElse(null);
+        int removedGrants = permissionBulkDeleteRepository.deleteGrants(grantIds);
+        long grantsDeleted = System.nanoTime();
+
+        if (removedAssignments > 0) {
+            permissionMatrixService.membershipChanged(tenant.getId());
+            configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, null);
+        }
 
-        // Rimuovi le permission non preservate (incluse le assegnazioni)
         // NOTA: NON aggiorniamo qui il workflow/fieldset della configurazione,
         // perché questo viene fatto in updateItemTypeSet che chiama anche il cleanup automatico
         // per rimuovere le permission obsolete che non sono nell'impact report
-        migrateFieldOwnerPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
-        migrateStatusOwnerPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
-        migrateFieldStatusPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
-        migrateExecutorPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
-        migrateWorkerPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
-        migrateCreatorPermissions(config, impact, permissionsToPreserve, tenant, itemTypeSet);
 
-        // NON aggiorniamo qui workflow/fieldset - questo viene fatto in updateItemTypeSet
-        // che chiama anche il cleanup automatico per rimuovere le permission obsolete
-        // itemTypeConfigurationRepository.save(config);
-        // createNewPermissions(config, impact, permissionsToPreserve);
-    }
-
-    private void migrateFieldOwnerPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        impact.getFieldOwnerPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("FieldOwnerPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "FieldOwnerPermission", tenant);
-                // Poi rimuovi la permission
-                fieldOwnerPermissionRepository.deleteById(permImpact.getPermissionId());
-            }
-        });
-    }
-
-    private void migrateStatusOwnerPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        impact.getStatusOwnerPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("StatusOwnerPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "StatusOwnerPermission", tenant);
-                // Poi rimuovi la permission
-                statusOwnerPermissionRepository.deleteById(permImpact.getPermissionId());
-            }
-        });
-    }
+        ItemTypeConfigurationMigrationResultDto.Timings timings = new ItemTypeConfigurationMigrationResultDto.Timings(
+                toMillis(analyzed - start),
+                toMillis(planned - analyzed),
+                toMillis(assignmentsDeleted - planned),
+                toMillis(permissionsDeleted - assignmentsDeleted),
+                toMillis(grantsDeleted - permissionsDeleted),
+                toMillis(grantsDeleted - start)
+        );
+        log.debug("Migrazione permission della configurazione {}: {} preservate, {} rimosse, {} assegnazioni, {} grant ({})",
+                itemTypeConfigurationId, plan.preserved, removedPermissions, removedAssignments, removedGrants, timings);
 
-    private void migrateFieldStatusPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        impact.getFieldStatusPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("FieldStatusPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "FieldStatusPermission", tenant);
-                // Poi rimuovi la permission
-                fieldStatusPermissionRepository.deleteById(permImpact.getPermissionId());
-            }
-        });
+        return new ItemTypeConfigurationMigrationResultDto(
+                itemTypeConfigurationId,
+                plan.preserved,
+                removedPermissions,
+                removedAssignments,
+                removedGrants,
+                timings
+        );
     }
 
-    private void migrateExecutorPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        impact.getExecutorPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("ExecutorPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "ExecutorPermission", tenant);
-                // Poi rimuovi la permission
-                executorPermissionRepository.deleteById(permImpact.getPermissionId());
-            }
-        });
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
     }
 
-    private void migrateWorkerPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        if (impact.getWorkerPermissions() == null) {
-            return;
+    /**
+     * Decide, permission per permission, cosa preservare: removeAll non preserva nulla, preservePermissionIds
+     * esplicito preserva gli id indicati, altrimenti (preserveAllPreservable o nessuna scelta) tutto ciò che
+     * l'analisi segnala come preservabile.
+     */
+    private static final class MigrationPlan {
+
+        private final boolean removeAll;
+        private final Set<Long> explicitlyPreserved;
+        private final Map<String, Set<Long>> toRemove = new LinkedHashMap<>();
+        private int preserved;
+
+        private MigrationPlan(ItemTypeConfigurationMigrationRequest request) {
+            this.removeAll = Boolean.TRUE.equals(request.removeAll());
+            this.explicitlyPreserved = Boolean.TRUE.equals(request.preserveAllPreservable())
+                    ? null
+                    : request.preservePermissionIds();
         }
-        impact.getWorkerPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("WorkerPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "WorkerPermission", tenant);
-                // Poi rimuovi la permission
-                workerPermissionRepository.deleteById(permImpact.getPermissionId());
-            }
-        });
-    }
 
-    private void migrateCreatorPermissions(
-            ItemTypeConfiguration config,
-            ItemTypeConfigurationMigrationImpactDto impact,
-            Set<Long> permissionsToPreserve,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        if (impact.getCreatorPermissions() == null) {
-            return;
-        }
-        impact.getCreatorPermissions().forEach(permImpact -> {
-            if (!permissionsToPreserve.contains(permImpact.getPermissionId())) {
-                // Rimuovi prima le assegnazioni (ruoli e grant)
-                permissionAssignmentService.deleteAssignment("CreatorPermission", permImpact.getPermissionId(), tenant);
-                deleteProjectAssignments(itemTypeSet, permImpact.getPermissionId(), "CreatorPermission", tenant);
-                // Poi rimuovi la permission
-                creatorPermissionRepository.deleteById(permImpact.getPermissionId());
+        private void add(String permissionType, List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> impacts) {
+            if (impacts == null) {
+                return;
+            }
+            for (ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact permImpact : impacts) {
+                if (preserve(permImpact)) {
+                    preserved++;
+                } else {
+                    toRemove.computeIfAbsent(permissionType, type -> new LinkedHashSet<>()).add(permImpact.getPermissionId());
+                }
             }
-        });
-    }
-
-    private void deleteProjectAssignments(
-            ItemTypeSet itemTypeSet,
-            Long permissionId,
-            String permissionType,
-            Tenant tenant
-    ) {
-        if (itemTypeSet == null) {
-            return;
-        }
-
-        if (itemTypeSet.getProject() != null) {
-            projectPermissionAssignmentService.deleteProjectAssignment(
-                    permissionType,
-                    permissionId,
-                    itemTypeSet.getProject().getId(),
-                    tenant
-            );
-            return;
-        }
-
-        if (itemTypeSet.getProjectsAssociation() == null) {
-            return;
-        }
-
-        for (com.example.demo.entity.Project project : itemTypeSet.getProjectsAssociation()) {
-            projectPermissionAssignmentService.deleteProjectAssignment(
-                    permissionType,
-                    permissionId,
-                    project.getId(),
-                    tenant
-            );
-        }
-    }
-
-
-    private Set<Long> getAllPreservablePermissionIds(ItemTypeConfigurationMigrationImpactDto impact) {
-        Set<Long> preservable = new HashSet<>();
-
-        impact.getFieldOwnerPermissions().stream()
-                .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                .forEach(p -> preservable.add(p.getPermissionId()));
-
-        impact.getStatusOwnerPermissions().stream()
-                .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                .forEach(p -> preservable.add(p.getPermissionId()));
-
-        impact.getFieldStatusPermissions().stream()
-                .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                .forEach(p -> preservable.add(p.getPermissionId()));
-
-        impact.getExecutorPermissions().stream()
-                .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                .forEach(p -> preservable.add(p.getPermissionId()));
-
-        if (impact.getWorkerPermissions() != null) {
-            impact.getWorkerPermissions().stream()
-                    .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                    .forEach(p -> preservable.add(p.getPermissionId()));
         }
 
-        if (impact.getCreatorPermissions() != null) {
-            impact.getCreatorPermissions().stream()
-                    .filter(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact::isCanBePreserved)
-                    .forEach(p -> preservable.add(p.getPermissionId()));
+        private boolean preserve(ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact permImpact) {
+            if (removeAll) {
+                return false;
+            }
+            if (explicitlyPreserved != null) {
+                return explicitlyPreserved.contains(permImpact.getPermissionId());
+            }
+            return permImpact.isCanBePreserved();
         }
-
-        return preservable;
     }
 }
-
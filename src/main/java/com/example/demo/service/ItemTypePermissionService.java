@@ -3,13 +3,24 @@ package com.example.demo.service;
 import com.example.demo.entity.*;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.*;
+import com.example.demo.repository.PermissionBulkInsertRepository.FieldStatusRow;
+import com.example.demo.repository.PermissionBulkInsertRepository.TargetRow;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -24,7 +35,8 @@ public class ItemTypePermissionService {
     private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
     private final WorkflowStatusRepository workflowStatusRepository;
     private final TransitionRepository transitionRepository;
-    private final FieldLookup fieldLookup;
+    private final FieldSetEntryRepository fieldSetEntryRepository;
+    private final PermissionBulkInsertRepository permissionBulkInsertRepository;
 
     /**
      * Crea automaticamente tutte le permissions per un ItemTypeConfiguration
@@ -32,176 +44,121 @@ public class ItemTypePermissionService {
     public void createPermissionsForItemTypeConfiguration(ItemTypeConfiguration itemTypeConfiguration) {
         ItemTypeConfiguration config = itemTypeConfigurationRepository.findById(itemTypeConfiguration.getId())
                 .orElseThrow(() -> new ApiException("ItemTypeConfiguration not found with id: " + itemTypeConfiguration.getId()));
-        
-        // 1. Workers - uno per ItemType
-        createWorkersPermission(config);
 
-        // 2. StatusOwner - uno per ogni WorkflowStatus
-        createStatusOwnerPermissions(config);
-
-        // 3. FieldOwners - uno per ogni FieldConfiguration
-        createFieldOwnerPermissions(config);
-
-        // 4. Creators - uno per ItemType
-        createCreatorPermission(config);
-
-        // 5. Executors - uno per ogni Transition del Workflow
-        createExecutorPermissions(config);
-
-        // 6. Editors e Viewers - uno per ogni coppia (FieldConfiguration, WorkflowStatus)
-        createFieldStatusPermissions(config);
+        createPermissionsForItemTypeConfigurations(List.of(config));
     }
 
-    private void createWorkersPermission(ItemTypeConfiguration itemTypeConfiguration) {
-        // Crea una WorkerPermission per ogni ItemTypeConfiguration
-        if (!workerPermissionRepository.findAllByItemTypeConfiguration(itemTypeConfiguration).isEmpty()) {
-            return; // Già esistente
-        }
-        
-        WorkerPermission workerPermission = new WorkerPermission();
-        workerPermission.setItemTypeConfiguration(itemTypeConfiguration);
-        // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-        
-        workerPermissionRepository.save(workerPermission);
-    }
-
-    private void createStatusOwnerPermissions(ItemTypeConfiguration itemTypeConfiguration) {
-        // Crea una permission per ogni WorkflowStatus del workflow
-        if (itemTypeConfiguration.getWorkflow() == null) {
+    /**
+     * Crea tutte le permissions mancanti per più ItemTypeConfiguration (es. un intero ItemTypeSet).
+     * Stati, transizioni, field e permission esistenti vengono letti con una query per tipo; le righe
+     * mancanti sono inserite in blocco, quindi il costo dipende dal numero di blocchi e non di permission:
+     * 1. Workers - uno per ItemType
+     * 2. StatusOwner - uno per ogni WorkflowStatus
+     * 3. FieldOwners - uno per ogni Field del FieldSet
+     * 4. Creators - uno per ItemType
+     * 5. Executors - uno per ogni Transition del Workflow
+     * 6. Editors e Viewers - uno per ogni coppia (Field, WorkflowStatus)
+     */
+    public void createPermissionsForItemTypeConfigurations(Collection<ItemTypeConfiguration> configurations) {
+        if (configurations == null || configurations.isEmpty()) {
             return;
         }
-        
-        // Carica ESPLICITAMENTE tutti i WorkflowStatus per questo workflow dal database
-        // Questo bypassa il problema del lazy loading
-        var workflowStatuses = workflowStatusRepository.findAllByWorkflowId(
-                itemTypeConfiguration.getWorkflow().getId());
-        
-        for (WorkflowStatus workflowStatus : workflowStatuses) {
-            if (!statusOwnerPermissionRepository.existsByItemTypeConfigurationIdAndWorkflowStatusId(
-                    itemTypeConfiguration.getId(), workflowStatus.getId())) {
-                
-                StatusOwnerPermission permission = new StatusOwnerPermission();
-                permission.setItemTypeConfiguration(itemTypeConfiguration);
-                permission.setWorkflowStatus(workflowStatus);
-                // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-                
-                statusOwnerPermissionRepository.save(permission);
-            }
+        long start = System.nanoTime();
+        Long tenantId = configurations.iterator().next().getTenant().getId();
+        Set<Long> configIds = configurations.stream().map(ItemTypeConfiguration::getId).collect(Collectors.toSet());
+
+        Set<Long> workflowIds = configurations.stream()
+                .map(ItemTypeConfiguration::getWorkflow).filter(Objects::nonNull)
+                .map(Workflow::getId).collect(Collectors.toSet());
+        Set<Long> fieldSetIds = configurations.stream()
+                .map(ItemTypeConfiguration::getFieldSet).filter(Objects::nonNull)
+                .map(FieldSet::getId).collect(Collectors.toSet());
+
+        Map<Long, List<Long>> statusesByWorkflow = new HashMap<>();
+        Map<Long, List<Long>> transitionsByWorkflow = new HashMap<>();
+        if (!workflowIds.isEmpty()) {
+            workflowStatusRepository.findIdRowsByWorkflowIdIn(workflowIds).forEach(row -> statusesByWorkflow
+                    .computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId()));
+            transitionRepository.findIdRowsByWorkflowIdInAndTenantId(workflowIds, tenantId).forEach(row -> transitionsByWorkflow
+                    .computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId()));
         }
-    }
-
-    private void createFieldOwnerPermissions(ItemTypeConfiguration itemTypeConfiguration) {
-        // Crea una permission per ogni Field del FieldSet (non FieldConfiguration!)
-        if (itemTypeConfiguration.getFieldSet() == null || itemTypeConfiguration.getFieldSet().getFieldSetEntries().isEmpty()) {
-            return;
+        // Field unici per FieldSet (più FieldConfiguration possono condividere lo stesso Field)
+        Map<Long, Set<Long>> fieldsByFieldSet = new HashMap<>();
+        if (!fieldSetIds.isEmpty()) {
+            fieldSetEntryRepository.findFieldIdRowsByFieldSetIdIn(fieldSetIds).forEach(row -> fieldsByFieldSet
+                    .computeIfAbsent(row.getFieldSetId(), id -> new LinkedHashSet<>()).add(row.getFieldId()));
         }
-        
-        // Raccogli i Field unici (per evitare duplicati se ci sono più FieldConfiguration per lo stesso Field)
-        Set<Long> fieldIds = itemTypeConfiguration.getFieldSet().getFieldSetEntries().stream()
-                .map(entry -> entry.getFieldConfiguration().getField().getId())
-                .collect(java.util.stream.Collectors.toSet());
-        
-        for (Long fieldId : fieldIds) {
-            if (!fieldOwnerPermissionRepository.existsByItemTypeConfigurationIdAndFieldId(
-                    itemTypeConfiguration.getId(), fieldId)) {
-                
-                Field field = fieldLookup.getById(fieldId, itemTypeConfiguration.getTenant());
 
-                FieldOwnerPermission permission = new FieldOwnerPermission();
-                permission.setItemTypeConfiguration(itemTypeConfiguration);
-                permission.setField(field);
-                // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-                
-                fieldOwnerPermissionRepository.save(permission);
+        // Permission già presenti, come chiavi naturali
+        Set<Long> existingWorkers = workerPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(WorkerPermissionRepository.KeyView::getItemTypeConfigurationId).collect(Collectors.toSet());
+        Set<Long> existingCreators = creatorPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(CreatorPermissionRepository.KeyView::getItemTypeConfigurationId).collect(Collectors.toSet());
+        Set<TargetRow> existingStatusOwners = statusOwnerPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(key -> new TargetRow(key.getItemTypeConfigurationId(), key.getTargetId())).collect(Collectors.toSet());
+        Set<TargetRow> existingExecutors = executorPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(key -> new TargetRow(key.getItemTypeConfigurationId(), key.getTargetId())).collect(Collectors.toSet());
+        Set<TargetRow> existingFieldOwners = fieldOwnerPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(key -> new TargetRow(key.getItemTypeConfigurationId(), key.getTargetId())).collect(Collectors.toSet());
+        Set<FieldStatusRow> existingFieldStatuses = fieldStatusPermissionRepository.findKeysByItemTypeConfigurationIdIn(configIds).stream()
+                .map(key -> new FieldStatusRow(key.getItemTypeConfigurationId(), key.getFieldId(),
+                        key.getWorkflowStatusId(), key.getPermissionType()))
+                .collect(Collectors.toSet());
+
+        List<Long> workers = new ArrayList<>();
+        List<Long> creators = new ArrayList<>();
+        List<TargetRow> statusOwners = new ArrayList<>();
+        List<TargetRow> executors = new ArrayList<>();
+        List<TargetRow> fieldOwners = new ArrayList<>();
+        List<FieldStatusRow> fieldStatuses = new ArrayList<>();
+
+        for (Long configId : configIds) {
+            if (!existingWorkers.contains(configId)) {
+                workers.add(configId);
+            }
+            if (!existingCreators.contains(configId)) {
+                creators.add(configId);
             }
         }
-    }
-
-    private void createCreatorPermission(ItemTypeConfiguration itemTypeConfiguration) {
-        if (!creatorPermissionRepository.existsByItemTypeConfigurationId(itemTypeConfiguration.getId())) {
-            CreatorPermission permission = new CreatorPermission();
-            permission.setItemTypeConfiguration(itemTypeConfiguration);
-            // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-            
-            creatorPermissionRepository.save(permission);
-        }
-    }
-
-    private void createExecutorPermissions(ItemTypeConfiguration itemTypeConfiguration) {
-        // Crea una permission per ogni Transition del Workflow
-        if (itemTypeConfiguration.getWorkflow() == null) {
-            return;
-        }
-        
-        // Carica ESPLICITAMENTE tutte le Transitions per questo workflow dal repository, filtrate per Tenant (sicurezza)
-        var transitions = transitionRepository.findByWorkflowAndTenant(itemTypeConfiguration.getWorkflow(), itemTypeConfiguration.getTenant());
-        
-        for (Transition transition : transitions) {
-            if (!executorPermissionRepository.existsByItemTypeConfigurationIdAndTransitionId(
-                    itemTypeConfiguration.getId(), transition.getId())) {
-                
-                ExecutorPermission permission = new ExecutorPermission();
-                permission.setItemTypeConfiguration(itemTypeConfiguration);
-                permission.setTransition(transition);
-                // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-                
-                executorPermissionRepository.save(permission);
+        for (ItemTypeConfiguration config : configurations) {
+            Long configId = config.getId();
+            List<Long> statusIds = config.getWorkflow() != null
+                    ? statusesByWorkflow.getOrDefault(config.getWorkflow().getId(), List.of())
+                    : List.of();
+            List<Long> transitionIds = config.getWorkflow() != null
+                    ? transitionsByWorkflow.getOrDefault(config.getWorkflow().getId(), List.of())
+                    : List.of();
+            Set<Long> fieldIds = config.getFieldSet() != null
+                    ? fieldsByFieldSet.getOrDefault(config.getFieldSet().getId(), Set.of())
+                    : Set.of();
+
+            addMissing(statusOwners, existingStatusOwners, statusIds.stream().map(id -> new TargetRow(configId, id)).toList());
+            addMissing(executors, existingExecutors, transitionIds.stream().map(id -> new TargetRow(configId, id)).toList());
+            addMissing(fieldOwners, existingFieldOwners, fieldIds.stream().map(id -> new TargetRow(configId, id)).toList());
+            for (Long fieldId : fieldIds) {
+                for (Long statusId : statusIds) {
+                    addMissing(fieldStatuses, existingFieldStatuses, List.of(
+                            new FieldStatusRow(configId, fieldId, statusId, FieldStatusPermission.PermissionType.EDITORS),
+                            new FieldStatusRow(configId, fieldId, statusId, FieldStatusPermission.PermissionType.VIEWERS)));
+                }
             }
         }
-    }
 
-    private void createFieldStatusPermissions(ItemTypeConfiguration itemTypeConfiguration) {
-        // Crea una permission per ogni coppia (Field, WorkflowStatus) - non FieldConfiguration!
-        if (itemTypeConfiguration.getFieldSet() == null || itemTypeConfiguration.getFieldSet().getFieldSetEntries().isEmpty()) {
-            return;
-        }
-        
-        if (itemTypeConfiguration.getWorkflow() == null) {
-            return;
-        }
-        
-        // Carica ESPLICITAMENTE i WorkflowStatus per questo workflow
-        var workflowStatuses = workflowStatusRepository.findAllByWorkflowId(
-                itemTypeConfiguration.getWorkflow().getId());
-        
-        // Raccogli i Field unici (per evitare duplicati se ci sono più FieldConfiguration per lo stesso Field)
-        Set<Long> fieldIds = itemTypeConfiguration.getFieldSet().getFieldSetEntries().stream()
-                .map(entry -> entry.getFieldConfiguration().getField().getId())
-                .collect(java.util.stream.Collectors.toSet());
-        
-        for (Long fieldId : fieldIds) {
-            Field field = fieldLookup.getById(fieldId, itemTypeConfiguration.getTenant());
-            
-            for (WorkflowStatus workflowStatus : workflowStatuses) {
-                // Editor permission
-                if (!fieldStatusPermissionRepository.existsByItemTypeConfigurationIdAndFieldIdAndWorkflowStatusIdAndPermissionType(
-                        itemTypeConfiguration.getId(), fieldId, workflowStatus.getId(), 
-                        FieldStatusPermission.PermissionType.EDITORS)) {
-                    
-                    FieldStatusPermission editorPerm = new FieldStatusPermission();
-                    editorPerm.setItemTypeConfiguration(itemTypeConfiguration);
-                    editorPerm.setField(field);
-                    editorPerm.setWorkflowStatus(workflowStatus);
-                    editorPerm.setPermissionType(FieldStatusPermission.PermissionType.EDITORS);
-                    // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-                    
-                    fieldStatusPermissionRepository.save(editorPerm);
-                }
+        int created = permissionBulkInsertRepository.insertWorkerPermissions(workers)
+                + permissionBulkInsertRepository.insertCreatorPermissions(creators)
+                + permissionBulkInsertRepository.insertStatusOwnerPermissions(statusOwners)
+                + permissionBulkInsertRepository.insertExecutorPermissions(executors)
+                + permissionBulkInsertRepository.insertFieldOwnerPermissions(fieldOwners)
+                + permissionBulkInsertRepository.insertFieldStatusPermissions(fieldStatuses);
+        log.debug("Provisioning permission: {} righe create per {} configurazioni in {} ms",
+                created, configIds.size(), (System.nanoTime() - start) / 1_000_000);
+    }
 
-                // Viewer permission
-                if (!fieldStatusPermissionRepository.existsByItemTypeConfigurationIdAndFieldIdAndWorkflowStatusIdAndPermissionType(
-                        itemTypeConfiguration.getId(), fieldId, workflowStatus.getId(), 
-                        FieldStatusPermission.PermissionType.VIEWERS)) {
-                    
-                    FieldStatusPermission viewerPerm = new FieldStatusPermission();
-                    viewerPerm.setItemTypeConfiguration(itemTypeConfiguration);
-                    viewerPerm.setField(field);
-                    viewerPerm.setWorkflowStatus(workflowStatus);
-                    viewerPerm.setPermissionType(FieldStatusPermission.PermissionType.VIEWERS);
-                    // RIMOSSO: setAssignedRoles - i ruoli sono ora gestiti tramite PermissionAssignment
-                    
-                    fieldStatusPermissionRepository.save(viewerPerm);
-                }
+    // Aggiunge le righe non ancora presenti (né a database né già pianificate)
+    private static <T> void addMissing(List<T> target, Set<T> existing, List<T> candidates) {
+        for (T candidate : candidates) {
+            if (existing.add(candidate)) {
+                target.add(candidate);
             }
         }
     }
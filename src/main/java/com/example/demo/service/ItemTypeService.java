@@ -1,11 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.ItemTypeCreateDto;
 import com.example.demo.dto.ItemTypeDetailDto;
 import com.example.demo.dto.ItemTypeViewDto;
 import com.example.demo.entity.ItemType;
 import com.example.demo.entity.ItemTypeConfiguration;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.ItemTypeRepository;
@@ -30,6 +32,8 @@ public class ItemTypeService {
     
     private final ItemTypeConfigurationLookup itemTypeConfigurationLookup;
 
+    private final ConfigChangeOutbox configChangeOutbox;
+
 
     @Transactional(readOnly = true)
     public List<ItemTypeViewDto> getAllForTenant(Tenant tenant) {
@@ -87,7 +91,9 @@ public class ItemTypeService {
 
         dtoMapper.updateItemTypeFromDto(dto, itemType);
 
-        return dtoMapper.toItemTypeDTO(itemTypeRepository.save(itemType));
+        ItemType saved = itemTypeRepository.save(itemType);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ITEM_TYPE, itemTypeId);
+        return dtoMapper.toItemTypeDTO(saved);
     }
 
     public void deleteItemType(Tenant tenant, Long itemTypeId) {
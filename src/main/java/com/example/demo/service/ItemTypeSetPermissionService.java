@@ -1,6 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.ItemTypeSetPermissionPageDto;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.PermissionReportSection;
 // RIMOSSO: ItemTypeSetRoleType - ItemTypeSetRole eliminata
 import com.example.demo.exception.ApiException;
 // RIMOSSO: ProjectItemTypeSetRoleRole eliminata
@@ -13,10 +16,12 @@ import com.example.demo.service.permission.scope.PermissionScopeRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -38,10 +43,35 @@ public class ItemTypeSetPermissionService {
     /**
      * Ottiene tutte le permissions per un ItemTypeSet, raggruppate per tipo.
      * Se projectId è specificato, include anche le grant di progetto.
+     * Le sezioni vengono lette in parallelo, ognuna nella propria transazione read-only,
+     * quindi il metodo non deve girare dentro una transazione esterna.
      */
-    public Map<String, List<Map<String, Object>>> getPermissionsByItemTypeSet(Long itemTypeSetId, Tenant tenant, Long projectId) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, List<ItemTypeSetPermissionRowDto>> getPermissionsByItemTypeSet(Long itemTypeSetId, Tenant tenant, Long projectId) {
         return reportingModule.getPermissionsByItemTypeSet(itemTypeSetId, tenant, projectId);
     }
+
+    /**
+     * Pagina del report permessi, filtrabile per sezione e per ItemTypeConfiguration.
+     */
+    @Transactional(readOnly = true)
+    public ItemTypeSetPermissionPageDto getPermissionPage(Long itemTypeSetId, Tenant tenant, Long projectId,
+                                                          PermissionReportSection section, Long itemTypeConfigurationId,
+                                                          String cursor, int size) {
+        return reportingModule.getPermissionPage(itemTypeSetId, tenant, projectId, section, itemTypeConfigurationId,
+                cursor, size);
+    }
+
+    /**
+     * Report permessi a blocchi per lo streaming: ogni blocco usa una propria transazione read-only,
+     * quindi il metodo non deve girare dentro una transazione esterna.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void streamPermissions(Long itemTypeSetId, Tenant tenant, Long projectId,
+                                  PermissionReportSection section, Long itemTypeConfigurationId,
+                                  Consumer<List<ItemTypeSetPermissionRowDto>> chunkSink) {
+        reportingModule.streamPermissions(itemTypeSetId, tenant, projectId, section, itemTypeConfigurationId, chunkSink);
+    }
     
     /**
      * Assegna un ruolo a una permission
@@ -1,11 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.ItemTypeConfigurationCreateDto;
 import com.example.demo.dto.ItemTypeConfigurationRemovalImpactDto;
 import com.example.demo.dto.ItemTypeSetCreateDto;
 import com.example.demo.dto.ItemTypeSetUpdateDto;
 import com.example.demo.dto.ItemTypeSetViewDto;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
@@ -58,6 +60,7 @@ public class ItemTypeSetService {
     // Servizi per PermissionAssignment (nuova struttura)
     private final PermissionAssignmentService permissionAssignmentService;
     private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final ConfigChangeOutbox configChangeOutbox;
     
     // Repository per Permission (necessari per eliminare PermissionAssignment)
     private final WorkerPermissionRepository workerPermissionRepository;
@@ -149,7 +152,8 @@ public class ItemTypeSetService {
         ItemTypeSet saved = itemTypeSetRepository.save(set);
         
         permissionOrchestrator.ensureItemTypeSetPermissions(saved.getId(), tenant);
-        
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ITEM_TYPE_SET, saved.getId());
+
         return dtoMapper.toItemTypeSetViewDto(saved);
     }
 
@@ -177,6 +181,7 @@ public class ItemTypeSetService {
         if (set.isDefaultItemTypeSet()) {
             throw new ApiException("Default Item Type Set cannot be edited");
         }
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ITEM_TYPE_SET, id);
 
         List<ItemTypeConfigurationCreateDto> dtoConfigurations = dto.itemTypeConfigurations() != null
                 ? new ArrayList<>(dto.itemTypeConfigurations())
@@ -597,6 +602,7 @@ public class ItemTypeSetService {
         // TODO: Se necessario, aggiungere logica per eliminare PermissionAssignment quando si elimina ItemTypeSet
 
         itemTypeSetRepository.deleteByIdAndTenant(id, tenant);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ITEM_TYPE_SET, id);
     }
 
     /**
@@ -628,6 +634,7 @@ public class ItemTypeSetService {
                 removedItemTypeConfigurationIds,
                 preservedPermissionIds
         );
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ITEM_TYPE_SET, itemTypeSetId);
     }
 
 }
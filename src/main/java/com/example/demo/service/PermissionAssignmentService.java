@@ -1,9 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.*;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -38,6 +41,8 @@ public class PermissionAssignmentService {
     private final CreatorPermissionRepository creatorPermissionRepository;
     private final ExecutorPermissionRepository executorPermissionRepository;
     private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
     
     /**
      * Crea o aggiorna un PermissionAssignment per una Permission.
@@ -105,6 +110,8 @@ public class PermissionAssignmentService {
             }
         }
         
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedType, permissionId, null);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         return permissionAssignmentRepository.save(assignment);
     }
     
@@ -171,6 +178,8 @@ public class PermissionAssignmentService {
                 
                 // Elimina PermissionAssignment
                 permissionAssignmentRepository.delete(assignment);
+                permissionMatrixService.assignmentChanged(tenant.getId(), normalizedType, permissionId, null);
+                configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
                 
                 // Ora puoi eliminare il Grant in sicurezza (se esiste)
                 if (grantId != null) {
@@ -227,6 +236,8 @@ public class PermissionAssignmentService {
         }
         
         assignment.getRoles().add(role);
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedType, permissionId, null);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         return permissionAssignmentRepository.save(assignment);
     }
     
@@ -256,6 +267,8 @@ public class PermissionAssignmentService {
                 .orElseThrow(() -> new ApiException("Role not found: " + roleId));
         
         assignment.getRoles().remove(role);
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedType, permissionId, null);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         
         // Se non ci sono più ruoli e grant, elimina PermissionAssignment
         if (assignment.getRoles().isEmpty() && assignment.getGrant() == null) {
@@ -316,14 +329,15 @@ public class PermissionAssignmentService {
 
         assignment.setGrant(grant);
         
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedType, permissionId, null);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         return permissionAssignmentRepository.save(assignment);
     }
 
     private Grant resolveGrant(PermissionAssignment assignment) {
         if (assignment.getGrant() != null) {
-            Long grantId = assignment.getGrant().getId();
-            return grantRepository.findByIdWithCollections(grantId)
-                    .orElseGet(assignment::getGrant);
+            // Grant già gestita: le collezioni LAZY vengono caricate solo quando vengono sostituite
+            return assignment.getGrant();
         }
         Grant grant = new Grant();
         grant.setRole(null); // Grant diretto, non associato a Role
@@ -1,9 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.*;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -38,6 +41,8 @@ public class ProjectPermissionAssignmentService {
     private final CreatorPermissionRepository creatorPermissionRepository;
     private final ExecutorPermissionRepository executorPermissionRepository;
     private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
     
     /**
      * Crea o aggiorna un PermissionAssignment per una Permission e un progetto.
@@ -118,6 +123,8 @@ public class ProjectPermissionAssignmentService {
         // Assicura che itemTypeSet sia aggiornato
         assignment.setItemTypeSet(itemTypeSet);
         
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedPermissionType, permissionId, projectId);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         return permissionAssignmentRepository.save(assignment);
     }
     
@@ -227,6 +234,8 @@ public class ProjectPermissionAssignmentService {
                 permissionAssignmentRepository.save(assignment);
                 
                 permissionAssignmentRepository.delete(assignment);
+                permissionMatrixService.assignmentChanged(tenant.getId(), normalizedPermissionType, permissionId, projectId);
+                configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
                 
                 if (grantId != null) {
                     grantCleanupService.deleteGrantCompletely(grantId);
@@ -310,6 +319,8 @@ public class ProjectPermissionAssignmentService {
         // Assicura che itemTypeSet sia aggiornato
         assignment.setItemTypeSet(itemTypeSet);
         
+        permissionMatrixService.assignmentChanged(tenant.getId(), normalizedPermissionType, permissionId, projectId);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PERMISSION_ASSIGNMENT, permissionId);
         return permissionAssignmentRepository.save(assignment);
     }
 
@@ -365,9 +376,8 @@ public class ProjectPermissionAssignmentService {
     
     private Grant resolveGrant(PermissionAssignment assignment) {
         if (assignment.getGrant() != null) {
-            Long grantId = assignment.getGrant().getId();
-            return grantRepository.findByIdWithCollections(grantId)
-                    .orElseGet(assignment::getGrant);
+            // Grant già gestita: le collezioni LAZY vengono caricate solo quando vengono sostituite
+            return assignment.getGrant();
         }
         Grant grant = new Grant();
         grant.setRole(null); // Grant diretto, non associato a Role
@@ -451,6 +461,9 @@ public class ProjectPermissionAssignmentService {
             
             // Elimina PermissionAssignment
             permissionAssignmentRepository.delete(assignment);
+            permissionMatrixService.assignmentChanged(tenantId, assignment.getPermissionType(),
+                    assignment.getPermissionId(), assignment.getProject().getId());
+            configChangeOutbox.append(tenantId, ConfigChangeType.PERMISSION_ASSIGNMENT, assignment.getPermissionId());
         }
     }
     
@@ -1,12 +1,15 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.initializer.ProjectInitializer;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.*;
+import com.example.demo.security.RoleVersionRegistry;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -35,6 +38,8 @@ public class ProjectService {
 
     private final DtoMapperFacade dtoMapper;
     private final List<ProjectInitializer> projectInitializers;
+    private final RoleVersionRegistry roleVersionRegistry;
+    private final ConfigChangeOutbox configChangeOutbox;
 
 
     @Transactional(readOnly = true)
@@ -74,6 +79,8 @@ public class ProjectService {
                 .scope(ScopeType.PROJECT)
                 .build();
         userRoleRepository.save(projectAdminRole);
+        roleVersionRegistry.bump(user.getId(), tenant.getId());
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PROJECT, project.getId());
 
         return dtoMapper.toProjectViewDto(project);
     }
@@ -143,7 +150,9 @@ public class ProjectService {
         // Imposta tenant se non lo vuoi toccare via DTO
         project.setTenant(tenant);
 
-        return dtoMapper.toProjectViewDto(projectRepository.save(project));
+        Project saved = projectRepository.save(project);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PROJECT, projectId);
+        return dtoMapper.toProjectViewDto(saved);
     }
 
 
@@ -178,6 +187,7 @@ public class ProjectService {
 
         project.setItemTypeSet(itemTypeSet);
         projectRepository.save(project);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.PROJECT, projectId);
     }
 
     /**
@@ -215,6 +225,7 @@ public class ProjectService {
                 .build();
         
         userRoleRepository.save(projectAdminRole);
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
     
     /**
@@ -235,6 +246,7 @@ public class ProjectService {
         
         // Rimuovi il ruolo PROJECT_ADMIN per questo progetto
         userRoleRepository.deleteByUserIdAndProjectIdAndRoleName(userId, projectId, "ADMIN");
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
     
     /**
@@ -347,6 +359,7 @@ public class ProjectService {
                 .build();
         
         userRoleRepository.save(projectRole);
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
 
     /**
@@ -384,6 +397,7 @@ public class ProjectService {
             role.setRoleName(newRoleName);
             userRoleRepository.save(role);
         }
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
 
     /**
@@ -413,6 +427,7 @@ public class ProjectService {
         
         // Rimuovi tutti i ruoli PROJECT dell'utente per questo progetto
         userRoleRepository.deleteByUserIdAndProjectId(userId, projectId);
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
 
     /**
@@ -1,13 +1,16 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.RoleCreateDto;
 import com.example.demo.dto.RoleUpdateDto;
 import com.example.demo.dto.RoleViewDto;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.Tenant;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.RoleRepository;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +25,8 @@ public class RoleService {
 
     private final RoleRepository roleRepository;
     private final DtoMapperFacade dtoMapper;
+    private final PermissionMatrixService permissionMatrixService;
+    private final ConfigChangeOutbox configChangeOutbox;
 
     /**
      * Crea un nuovo ruolo custom per il tenant specificato.
@@ -67,6 +72,7 @@ public class RoleService {
         role.setDescription(updateDto.description());
 
         Role savedRole = roleRepository.save(role);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, roleId);
         return dtoMapper.toRoleViewDto(savedRole);
     }
 
@@ -84,6 +90,8 @@ public class RoleService {
         }
 
         roleRepository.delete(role);
+        permissionMatrixService.roleHoldersChanged(tenant.getId(), roleId);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.ROLE, roleId);
     }
 
     /**
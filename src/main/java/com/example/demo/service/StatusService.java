@@ -1,14 +1,17 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.StatusCreateDto;
 import com.example.demo.dto.StatusDetailDto;
 import com.example.demo.dto.StatusViewDto;
 import com.example.demo.entity.Status;
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.Workflow;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.StatusRepository;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +27,8 @@ public class StatusService {
 
     private final WorkflowStatusLookup workflowStatusLookup;
     private final StatusLookup statusLookup;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final CompiledWorkflowService compiledWorkflowService;
 
     private final DtoMapperFacade dtoMapper;
 
@@ -64,6 +69,8 @@ public class StatusService {
 
         status.setName(dto.name());
         Status saved =  statusRepository.save(status);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.STATUS, id);
+        compiledWorkflowService.statusChanged(tenant.getId());
 
         return dtoMapper.toStatusViewDto(saved);
     }
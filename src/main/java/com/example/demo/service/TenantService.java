@@ -9,6 +9,7 @@ import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.*;
 import com.example.demo.security.CustomUserDetails;
 import com.example.demo.security.JwtTokenUtil;
+import com.example.demo.tenant.TenantCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,9 +27,12 @@ public class TenantService {
     private final UserRoleRepository userRoleRepository;
     private final DtoMapperFacade dtoMapper;
     private final List<TenantInitializer> tenantInitializers;
+    private final TenantCache tenantCache;
 
     public Tenant createTenant(Tenant tenant) {
-        return tenantRepository.save(tenant);
+        Tenant saved = tenantRepository.save(tenant);
+        tenantCache.invalidate(saved.getId());
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -68,6 +72,7 @@ public class TenantService {
         
         // Save tenant first
         tenant = tenantRepository.save(tenant);
+        tenantCache.invalidate(tenant.getId());
 
         // Initialize tenant with default data (Fields, Statuses, Workflows, etc.)
         for (TenantInitializer initializer : tenantInitializers) {
@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.TenantUserDto;
+import com.example.demo.dto.UserAccessProfileDto;
 import com.example.demo.dto.UserAccessStatusDto;
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.User;
@@ -8,8 +9,12 @@ import com.example.demo.entity.UserRole;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
+import com.example.demo.repository.GroupRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.repository.UserRoleRepository;
+import com.example.demo.security.RoleVersionRegistry;
+import com.example.demo.service.permission.matrix.PermissionMatrix;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,7 +33,10 @@ public class TenantUserManagementService {
 
     private final UserRepository userRepository;
     private final UserRoleRepository userRoleRepository;
+    private final GroupRepository groupRepository;
     private final DtoMapperFacade dtoMapper;
+    private final RoleVersionRegistry roleVersionRegistry;
+    private final PermissionMatrixService permissionMatrixService;
 
     /**
      * Assegna un ruolo (ADMIN o USER) a un utente in una tenant
@@ -64,6 +72,7 @@ public class TenantUserManagementService {
                 .build();
 
         userRoleRepository.save(newUserRole);
+        roleVersionRegistry.bump(userToGrant.getId(), tenant.getId());
     }
     
     /**
@@ -144,6 +153,7 @@ public class TenantUserManagementService {
                     .build();
             userRoleRepository.save(newUserRole);
         }
+        roleVersionRegistry.bump(userId, tenant.getId());
     }
     
 
@@ -179,6 +189,7 @@ public class TenantUserManagementService {
 
         // Rimuovi tutti i UserRole dell'utente per questa tenant (scope TENANT)
         userRoleRepository.deleteByUserIdAndTenantIdAndScope(userToRevoke.getId(), tenant.getId());
+        roleVersionRegistry.bump(userToRevoke.getId(), tenant.getId());
     }
 
     /**
@@ -209,6 +220,51 @@ public class TenantUserManagementService {
         );
     }
 
+    /**
+     * Profilo completo di accesso di un utente: ruoli della tenant (letti dal database, quindi
+     * aggiornati subito dopo una revoca) e permission effettive dalla PermissionMatrix.
+     * Un utente senza ruoli, gruppi né permission nella tenant risulta non trovato, come un id inesistente.
+     */
+    @Transactional(readOnly = true)
+    public UserAccessProfileDto getUserAccessProfile(Long userId, Tenant tenant) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ApiException("User with id '" + userId + "' not found"));
+        // Profilo letto una volta dalla matrice: serve sia per l'appartenenza alla tenant che per la risposta
+        List<PermissionMatrix.AccessEntry> accessProfile =
+                permissionMatrixService.accessProfile(user.getId(), tenant.getId());
+        if (accessProfile.isEmpty()
+                && !userRoleRepository.hasAnyRoleInTenant(user.getId(), tenant.getId())
+                && !groupRepository.isMemberOfTenantGroup(user.getId(), tenant.getId())) {
+            throw new ApiException("User with id '" + userId + "' not found");
+        }
+
+        List<String> tenantRoles = userRoleRepository.findTenantRolesByUserAndTenant(user.getId(), tenant.getId())
+                .stream()
+                .map(UserRole::getRoleName)
+                .distinct()
+                .collect(Collectors.toList());
+
+        List<UserAccessProfileDto.PermissionAccess> permissions = accessProfile.stream()
+                .map(entry -> new UserAccessProfileDto.PermissionAccess(
+                        entry.permissionType(),
+                        entry.permissionId(),
+                        entry.projectId(),
+                        entry.direct(),
+                        entry.viaGroupIds(),
+                        entry.viaRoleIds()
+                ))
+                .collect(Collectors.toList());
+
+        return new UserAccessProfileDto(
+                user.getId(),
+                user.getUsername(),
+                user.getFullName(),
+                !tenantRoles.isEmpty(),
+                tenantRoles,
+                permissions
+        );
+    }
+
     /**
      * Ottiene tutti gli utenti con accesso alla tenant
      */
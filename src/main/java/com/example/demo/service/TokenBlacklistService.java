@@ -1,8 +1,11 @@
 package com.example.demo.service;
 
 import com.example.demo.entity.InvalidatedToken;
+import com.example.demo.entity.TokenRevocation;
 import com.example.demo.repository.TokenBlacklistRepository;
+import com.example.demo.repository.TokenRevocationRepository;
 import com.example.demo.security.JwtTokenUtil;
+import com.example.demo.security.TokenRevocationIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -17,26 +20,34 @@ public class TokenBlacklistService {
 
     private final TokenBlacklistRepository tokenBlacklistRepository;
 
+    private final TokenRevocationRepository tokenRevocationRepository;
+
     private final JwtTokenUtil jwtTokenUtil;
 
+    private final TokenRevocationIndex tokenRevocationIndex;
+
     // Aggiunge un token alla blacklist
     public void invalidateToken(String token) {
+        Instant expiration = jwtTokenUtil.extractExpiration(token).toInstant();
         if (!tokenBlacklistRepository.existsByToken(token)) {
-            Instant expiration = jwtTokenUtil.extractExpiration(token).toInstant();
             InvalidatedToken invalidatedToken = new InvalidatedToken(token, expiration, null);
             tokenBlacklistRepository.save(invalidatedToken);
+            tokenRevocationRepository.save(new TokenRevocation(token, expiration));
         }
+        // Aggiornamento sincrono dell'indice locale; gli altri nodi lo ricevono col polling su token_revocation
+        tokenRevocationIndex.revoke(token, expiration);
     }
 
     // Verifica se un token è invalidato
-    @Transactional(readOnly = true)
     public boolean isTokenInvalidated(String token) {
-        return tokenBlacklistRepository.existsByToken(token);
+        return tokenRevocationIndex.isRevoked(token);
     }
 
-    // Pulizia automatica dei token scaduti (eseguito ogni giorno)
-    @Scheduled(cron = "0 0 0 * * ?") // Mezzanotte ogni giorno
+    // Pulizia dei token scaduti: l'indice in-memory si pota da solo, qui si libera la tabella
+    @Scheduled(fixedDelayString = "${security.revocation.db-cleanup-interval-ms:3600000}")
     public void cleanupExpiredTokens() {
-        tokenBlacklistRepository.deleteAllExpiredSince(Instant.now());
+        Instant now = Instant.now();
+        tokenBlacklistRepository.deleteAllExpiredSince(now);
+        tokenRevocationRepository.deleteExpired(now);
     }
-}
\ No newline at end of file
+}
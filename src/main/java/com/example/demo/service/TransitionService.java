@@ -1,14 +1,17 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.TransitionCreateDto;
 import com.example.demo.dto.TransitionViewDto;
 import com.example.demo.entity.Status;
 import com.example.demo.entity.Tenant;
 import com.example.demo.entity.Transition;
 import com.example.demo.entity.WorkflowStatus;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.TransitionRepository;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +28,8 @@ public class TransitionService {
     private final StatusLookup statusLookup;
     private final WorkflowStatusLookup workflowStatusLookup;
     private final WorkflowService workflowService;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final CompiledWorkflowService compiledWorkflowService;
 
     private final DtoMapperFacade dtoMapper;
 
@@ -76,6 +81,9 @@ public class TransitionService {
         workflowService.removeExecutorPermissionsForTransition(tenant, id);
         
         // Poi elimina la Transition
+        Long workflowId = transition.getWorkflow().getId();
         transitionRepository.deleteById(id);
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.WORKFLOW, workflowId);
+        compiledWorkflowService.workflowChanged(tenant.getId(), workflowId);
     }
 }
@@ -5,11 +5,11 @@ import com.example.demo.dto.LoginResponse;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.entity.User;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.TokenBlacklistRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.CustomUserDetails;
 import com.example.demo.security.CustomUserDetailsService;
 import com.example.demo.security.JwtTokenUtil;
+import com.example.demo.security.PrincipalCache;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -30,7 +30,9 @@ public class UserService {
     private final JwtTokenUtil jwtTokenUtil;
     private final AuthenticationManager authenticationManager;
     private final CustomUserDetailsService customUserDetailsService;
-    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final TokenBlacklistService tokenBlacklistService;
+    // Ogni modifica a un utente (password, rimozione, ...) deve rimuovere le sue entry dalla cache dei principal
+    private final PrincipalCache principalCache;
 
     @Transactional
     public void registerUser(RegisterRequest request) {
@@ -42,6 +44,7 @@ public class UserService {
         user.setUsername(request.username());
         user.setPassword(passwordEncoder.encode(request.password()));
         userRepository.save(user);
+        principalCache.invalidateUser(user.getUsername());
     }
 
     @Transactional
@@ -69,11 +72,10 @@ public class UserService {
         String authHeader = request.getHeader("Authorization");
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
-            // Add token to blacklist logic here if needed
-            // For now, just validate the token exists
             if (token.isEmpty()) {
                 throw new ApiException("Invalid token");
             }
+            tokenBlacklistService.invalidateToken(token);
         }
     }
 
@@ -86,7 +88,9 @@ public class UserService {
         User user = new User();
         user.setUsername(username);
         user.setPassword(passwordEncoder.encode(password));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.invalidateUser(saved.getUsername());
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -3,6 +3,9 @@ package com.example.demo.service;
 import com.example.demo.dto.StatusRemovalImpactDto;
 import com.example.demo.dto.TransitionRemovalImpactDto;
 import com.example.demo.entity.Tenant;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.configsnapshot.ImpactResultCache.ImpactKind;
+import com.example.demo.service.impactjob.ImpactProgressListener;
 import com.example.demo.service.workflowimpact.StatusImpactAnalyzer;
 import com.example.demo.service.workflowimpact.StatusImpactResponseMapper;
 import com.example.demo.service.workflowimpact.TransitionImpactAnalyzer;
@@ -24,15 +27,21 @@ public class WorkflowImpactAnalysisService {
     private final TransitionImpactAnalyzer transitionImpactAnalyzer;
     private final StatusImpactResponseMapper statusImpactResponseMapper;
     private final TransitionImpactResponseMapper transitionImpactResponseMapper;
+    private final ImpactResultCache impactResultCache;
 
     public StatusRemovalImpactDto analyzeStatusRemovalImpact(
             Tenant tenant,
             Long workflowId,
             Set<Long> removedStatusIds
     ) {
-        StatusImpactAnalysisResult analysisResult =
-                statusImpactAnalyzer.analyzeStatusRemovalImpact(tenant, workflowId, removedStatusIds);
-        return statusImpactResponseMapper.toDto(analysisResult);
+        // Senza transizioni esplicite vengono rimosse tutte quelle degli stati: chiave distinta dalla variante con transizioni
+        return impactResultCache.get(tenant.getId(), ImpactKind.STATUS_REMOVAL, workflowId, version -> {
+            StatusImpactAnalysisResult analysisResult =
+                    statusImpactAnalyzer.analyzeStatusRemovalImpact(tenant, workflowId, removedStatusIds);
+            StatusRemovalImpactDto dto = statusImpactResponseMapper.toDto(analysisResult);
+            dto.setConfigVersion(version);
+            return dto;
+        }, removedStatusIds, null);
     }
 
     public StatusRemovalImpactDto analyzeStatusRemovalImpact(
@@ -41,9 +50,25 @@ public class WorkflowImpactAnalysisService {
             Set<Long> removedStatusIds,
             Set<Long> actuallyRemovedTransitionIds
     ) {
-        StatusImpactAnalysisResult analysisResult =
-                statusImpactAnalyzer.analyzeStatusRemovalImpact(tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds);
-        return statusImpactResponseMapper.toDto(analysisResult);
+        return analyzeStatusRemovalImpact(
+                tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds, ImpactProgressListener.NONE);
+    }
+
+    public StatusRemovalImpactDto analyzeStatusRemovalImpact(
+            Tenant tenant,
+            Long workflowId,
+            Set<Long> removedStatusIds,
+            Set<Long> actuallyRemovedTransitionIds,
+            ImpactProgressListener progress
+    ) {
+        return impactResultCache.get(tenant.getId(), ImpactKind.STATUS_REMOVAL, workflowId, version -> {
+            StatusImpactAnalysisResult analysisResult = statusImpactAnalyzer.analyzeStatusRemovalImpact(
+                    tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds, progress);
+            progress.phase("REPORT");
+            StatusRemovalImpactDto dto = statusImpactResponseMapper.toDto(analysisResult);
+            dto.setConfigVersion(version);
+            return dto;
+        }, removedStatusIds, actuallyRemovedTransitionIds);
     }
 
     public TransitionRemovalImpactDto analyzeTransitionRemovalImpact(
@@ -51,9 +76,13 @@ public class WorkflowImpactAnalysisService {
             Long workflowId,
             Set<Long> removedTransitionIds
     ) {
-        TransitionImpactAnalysisResult analysisResult =
-                transitionImpactAnalyzer.analyzeTransitionRemovalImpact(tenant, workflowId, removedTransitionIds);
-        return transitionImpactResponseMapper.toDto(analysisResult);
+        return impactResultCache.get(tenant.getId(), ImpactKind.TRANSITION_REMOVAL, workflowId, version -> {
+            TransitionImpactAnalysisResult analysisResult =
+                    transitionImpactAnalyzer.analyzeTransitionRemovalImpact(tenant, workflowId, removedTransitionIds);
+            TransitionRemovalImpactDto dto = transitionImpactResponseMapper.toDto(analysisResult);
+            dto.setConfigVersion(version);
+            return dto;
+        }, removedTransitionIds);
     }
 }
 
@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.exception.ApiException;
 import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.repository.*;
@@ -13,6 +15,7 @@ import com.example.demo.service.workflow.WorkflowStatusUpdateResult;
 import com.example.demo.service.workflow.WorkflowStatusUpdater;
 import com.example.demo.service.workflow.WorkflowTransitionSyncResult;
 import com.example.demo.service.workflow.WorkflowTransitionSynchronizer;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -44,13 +47,17 @@ public class WorkflowService {
     private final WorkflowNodeRepository workflowNodeRepository;
     private final WorkflowPermissionCleanupService workflowPermissionCleanupService;
     private final WorkflowRemovalService workflowRemovalService;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final CompiledWorkflowService compiledWorkflowService;
     
     // Servizio per analisi impatti workflow
     private final WorkflowImpactAnalysisService workflowImpactAnalysisService;
 
     @Transactional
     public WorkflowViewDto createGlobal(WorkflowCreateDto dto, Tenant tenant) {
-        return workflowCreationService.createGlobal(dto, tenant);
+        WorkflowViewDto created = workflowCreationService.createGlobal(dto, tenant);
+        recordWorkflowChange(tenant, created.getId());
+        return created;
     }
 
     /**
@@ -59,7 +66,9 @@ public class WorkflowService {
      */
     @Transactional
     public WorkflowViewDto createForProject(WorkflowCreateDto dto, Tenant tenant, Long projectId) {
-        return workflowCreationService.createForProject(dto, tenant, projectId);
+        WorkflowViewDto created = workflowCreationService.createForProject(dto, tenant, projectId);
+        recordWorkflowChange(tenant, created.getId());
+        return created;
     }
 
     @Transactional
@@ -150,6 +159,7 @@ public class WorkflowService {
         workflowEdgeManager.synchronizeEdges(workflow, dto, tenant, transitionSyncResult);
 
         workflow = workflowRepository.save(workflow);
+        recordWorkflowChange(tenant, workflow.getId());
         return dtoMapper.toWorkflowViewDto(workflow);
     }
 
@@ -159,6 +169,7 @@ public class WorkflowService {
             throw new ApiException("Workflow is used in an ItemType and cannot be deleted");
         }
         workflowRepository.delete(workflow);
+        recordWorkflowChange(tenant, workflowId);
     }
 
     @Transactional(readOnly = true)
@@ -195,6 +206,7 @@ public class WorkflowService {
             Set<Long> removedTransitionIds
     ) {
         workflowPermissionCleanupService.removeOrphanedExecutorPermissions(tenant, workflowId, removedTransitionIds);
+        recordWorkflowChange(tenant, workflowId);
     }
 
     /**
@@ -209,6 +221,7 @@ public class WorkflowService {
      */
     public void removeTransition(Tenant tenant, Long transitionId) {
         workflowRemovalService.removeTransition(tenant, transitionId);
+        recordWorkflowChange(tenant, null);
     }
 
     /**
@@ -216,6 +229,7 @@ public class WorkflowService {
      */
     @Transactional
     public WorkflowViewDto confirmTransitionRemoval(Long workflowId, WorkflowUpdateDto dto, Tenant tenant) {
+        recordWorkflowChange(tenant, workflowId);
         return workflowRemovalService.confirmTransitionRemoval(workflowId, dto, tenant);
     }
     
@@ -253,6 +267,7 @@ public class WorkflowService {
             Set<Long> removedStatusIds
     ) {
         workflowPermissionCleanupService.removeOrphanedStatusOwnerPermissions(tenant, workflowId, removedStatusIds);
+        recordWorkflowChange(tenant, workflowId);
     }
 
     /**
@@ -267,6 +282,7 @@ public class WorkflowService {
      */
     public void removeStatus(Tenant tenant, Long workflowStatusId) {
         workflowRemovalService.removeStatus(tenant, workflowStatusId);
+        recordWorkflowChange(tenant, null);
     }
 
     /**
@@ -274,6 +290,7 @@ public class WorkflowService {
      */
     @Transactional
     public WorkflowViewDto confirmStatusRemoval(Long workflowId, WorkflowUpdateDto dto, Tenant tenant) {
+        recordWorkflowChange(tenant, workflowId);
         return workflowRemovalService.confirmStatusRemoval(workflowId, dto, tenant);
     }
     
@@ -298,5 +315,12 @@ public class WorkflowService {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
     }
-}
 
+    /**
+     * Registra la modifica nell'outbox e scarta il workflow compilato (workflowId null: tutti quelli della tenant)
+     */
+    private void recordWorkflowChange(Tenant tenant, Long workflowId) {
+        configChangeOutbox.append(tenant.getId(), ConfigChangeType.WORKFLOW, workflowId);
+        compiledWorkflowService.workflowChanged(tenant.getId(), workflowId);
+    }
+}
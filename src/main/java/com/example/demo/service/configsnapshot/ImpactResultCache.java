@@ -0,0 +1,118 @@
+package com.example.demo.service.configsnapshot;
+
+import com.example.demo.configchange.ConfigChangeOutbox;
+import com.example.demo.configchange.ConfigVersionRegistry;
+import com.example.demo.exception.ApiException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Risultati delle analisi d'impatto, indicizzati per (tenant, tipo di analisi, id del target, versione della
+ * configurazione, parametri normalizzati).
+ *
+ * Analisi, export (JSON/CSV) e conferma della stessa modifica arrivano con lo stesso payload: la prima chiamata
+ * calcola il report, le successive lo riusano finché la versione della tenant ({@link ConfigVersionRegistry})
+ * non cambia o non scade il TTL. I report in cache sono condivisi tra le richieste e non vanno modificati.
+ *
+ * Il report porta la versione con cui è stato calcolato: una conferma che la rimanda
+ * ({@link #CONFIG_VERSION_HEADER}) viene rifiutata se nel frattempo la configurazione è cambiata.
+ * La versione del report è l'ultima sequenza dell'outbox della tenant ({@link ConfigVersionRegistry#sequence}),
+ * così analisi e conferma possono arrivare a nodi diversi o a cavallo di un riavvio; il contatore locale
+ * resta solo nella chiave della cache.
+ */
+@Component
+public class ImpactResultCache {
+
+    public static final String CONFIG_VERSION_HEADER = "X-Config-Version";
+
+    private final ConfigVersionRegistry configVersionRegistry;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final Cache<ImpactKey, Object> results;
+
+    public ImpactResultCache(ConfigVersionRegistry configVersionRegistry,
+                             ConfigChangeOutbox configChangeOutbox,
+                             @Value("${impact.cache.ttl:PT2M}") Duration ttl,
+                             @Value("${impact.cache.max-entries:256}") long maxEntries) {
+        this.configVersionRegistry = configVersionRegistry;
+        this.configChangeOutbox = configChangeOutbox;
+        this.results = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Report dell'analisi per i parametri indicati, calcolato se non è in cache. La funzione riceve la versione
+     * condivisa della configurazione da scrivere nel report.
+     * I parametri di tipo Collection sono confrontati come insiemi ordinati (l'ordine del payload non conta).
+     *
+     * Una transazione con modifiche già registrate nell'outbox vede una configurazione non ancora committata:
+     * il report viene calcolato ma non memorizzato.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long tenantId, ImpactKind kind, Long targetId, LongFunction<T> analysis, Object... parameters) {
+        long version = configVersionRegistry.current(tenantId);
+        if (configChangeOutbox.hasPendingChanges()) {
+            return analysis.apply(configVersionRegistry.sequence(tenantId));
+        }
+
+        ImpactKey key = new ImpactKey(tenantId, kind, targetId, version, normalize(parameters));
+        T cached = (T) results.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        // Letta prima del calcolo: una modifica committata nel frattempo rende il report non più confermabile
+        T result = analysis.apply(configVersionRegistry.sequence(tenantId));
+        // Una modifica committata durante il calcolo incrementa la versione: il report non è più valido
+        if (configVersionRegistry.current(tenantId) == version) {
+            results.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Rifiuta una conferma basata su un report calcolato con una versione diversa da quella corrente,
+     * letta dall'outbox (uguale su tutti i nodi). Senza versione (client che non la rimandano) la conferma
+     * procede come prima.
+     */
+    public void requireCurrentVersion(Long tenantId, Long analyzedVersion) {
+        if (analyzedVersion != null && analyzedVersion != configVersionRegistry.sequence(tenantId)) {
+            throw new ApiException("STALE_IMPACT_ANALYSIS: la configurazione è cambiata dopo l'analisi d'impatto, ripetere l'analisi");
+        }
+    }
+
+    private static List<Object> normalize(Object[] parameters) {
+        List<Object> normalized = new ArrayList<>(parameters.length);
+        for (Object parameter : parameters) {
+            if (parameter instanceof Collection<?> ids) {
+                normalized.add(ids.stream()
+                        .map(Long.class::cast)
+                        .sorted()
+                        .distinct()
+                        .toList());
+            } else {
+                normalized.add(parameter);
+            }
+        }
+        return normalized;
+    }
+
+    public enum ImpactKind {
+        TRANSITION_REMOVAL,
+        STATUS_REMOVAL,
+        FIELD_SET_REMOVAL,
+        ITEM_TYPE_CONFIGURATION_REMOVAL,
+        CONFIGURATION_MIGRATION
+    }
+
+    private record ImpactKey(Long tenantId, ImpactKind kind, Long targetId, long version, List<Object> parameters) {
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.demo.service.configsnapshot;
+
+import com.example.demo.entity.FieldStatusPermission;
+import com.example.demo.enums.FieldType;
+import com.example.demo.enums.ItemTypeCategory;
+import com.example.demo.enums.StatusCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grafo immutabile della configurazione di una tenant, letto una volta da {@link TenantConfigSnapshotBuilder}
+ * e condiviso dalle analisi d'impatto (rimozione di stati/transizioni, di configurazioni da un ItemTypeSet,
+ * di field da un FieldSet, migrazione di una configurazione).
+ *
+ * Ogni tipo di nodo è indicizzato per id in array ordinati (ricerca binaria, nessun boxing delle chiavi);
+ * le relazioni sono liste di adiacenza long[] ordinate. Le permission portano già le loro assegnazioni,
+ * globale e per progetto, con i nomi di ruoli e grant: un'analisi non esegue query.
+ *
+ * La versione è quella di {@link com.example.demo.configchange.ConfigVersionRegistry} al momento della lettura.
+ */
+public final class TenantConfigSnapshot {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final Long tenantId;
+    private final long version;
+    private final IdTable<ItemTypeSetNode> itemTypeSets;
+    private final IdTable<ConfigurationNode> configurations;
+    private final IdTable<WorkflowNode> workflows;
+    private final IdTable<WorkflowStatusNode> workflowStatuses;
+    private final IdTable<TransitionNode> transitions;
+    private final IdTable<FieldSetNode> fieldSets;
+    private final IdTable<FieldNode> fields;
+    private final IdTable<FieldConfigurationNode> fieldConfigurations;
+    private final IdTable<Long> projectItemTypeSets;
+    private final Map<PermissionKind, IdTable<PermissionRow>> permissions;
+
+    TenantConfigSnapshot(Long tenantId,
+                         long version,
+                         IdTable<ItemTypeSetNode> itemTypeSets,
+                         IdTable<ConfigurationNode> configurations,
+                         IdTable<WorkflowNode> workflows,
+                         IdTable<WorkflowStatusNode> workflowStatuses,
+                         IdTable<TransitionNode> transitions,
+                         IdTable<FieldSetNode> fieldSets,
+                         IdTable<FieldNode> fields,
+                         IdTable<FieldConfigurationNode> fieldConfigurations,
+                         IdTable<Long> projectItemTypeSets,
+                         Map<PermissionKind, IdTable<PermissionRow>> permissions) {
+        this.tenantId = tenantId;
+        this.version = version;
+        this.itemTypeSets = itemTypeSets;
+        this.configurations = configurations;
+        this.workflows = workflows;
+        this.workflowStatuses = workflowStatuses;
+        this.transitions = transitions;
+        this.fieldSets = fieldSets;
+        this.fields = fields;
+        this.fieldConfigurations = fieldConfigurations;
+        this.projectItemTypeSets = projectItemTypeSets;
+        this.permissions = new EnumMap<>(permissions);
+    }
+
+    public Long tenantId() {
+        return tenantId;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public ItemTypeSetNode itemTypeSet(Long id) {
+        return itemTypeSets.get(id);
+    }
+
+    public ConfigurationNode configuration(Long id) {
+        return configurations.get(id);
+    }
+
+    public WorkflowNode workflow(Long id) {
+        return workflows.get(id);
+    }
+
+    public WorkflowStatusNode workflowStatus(Long id) {
+        return workflowStatuses.get(id);
+    }
+
+    public TransitionNode transition(Long id) {
+        return transitions.get(id);
+    }
+
+    public FieldSetNode fieldSet(Long id) {
+        return fieldSets.get(id);
+    }
+
+    public FieldNode field(Long id) {
+        return fields.get(id);
+    }
+
+    public FieldConfigurationNode fieldConfiguration(Long id) {
+        return fieldConfigurations.get(id);
+    }
+
+    /**
+     * ItemTypeSet applicato al progetto (null se il progetto non appartiene alla tenant).
+     */
+    public Long itemTypeSetIdOfProject(Long projectId) {
+        return projectItemTypeSets.get(projectId);
+    }
+
+    public PermissionRow permission(PermissionKind kind, Long id) {
+        return permissions.get(kind).get(id);
+    }
+
+    /**
+     * Permission di un tipo per una configurazione, in ordine di id.
+     */
+    public List<PermissionRow> permissions(Long configurationId, PermissionKind kind) {
+        ConfigurationNode configuration = configurations.get(configurationId);
+        return configuration != null ? configuration.permissions(kind) : List.of();
+    }
+
+    /**
+     * ItemTypeSet che contengono almeno una configurazione con il workflow indicato.
+     */
+    public long[] itemTypeSetIdsUsingWorkflow(Long workflowId) {
+        WorkflowNode workflow = workflows.get(workflowId);
+        return workflow != null ? itemTypeSetIdsOf(workflow.configurationIds()) : NO_IDS;
+    }
+
+    /**
+     * ItemTypeSet che contengono almeno una configurazione con il FieldSet indicato.
+     */
+    public long[] itemTypeSetIdsUsingFieldSet(Long fieldSetId) {
+        FieldSetNode fieldSet = fieldSets.get(fieldSetId);
+        return fieldSet != null ? itemTypeSetIdsOf(fieldSet.configurationIds()) : NO_IDS;
+    }
+
+    /**
+     * Nome dello Status di un WorkflowStatus (null se il WorkflowStatus non esiste).
+     */
+    public String statusName(Long workflowStatusId) {
+        WorkflowStatusNode workflowStatus = workflowStatusId != null ? workflowStatuses.get(workflowStatusId) : null;
+        return workflowStatus != null ? workflowStatus.statusName() : null;
+    }
+
+    public int permissionCount() {
+        return permissions.values().stream().mapToInt(IdTable::size).sum();
+    }
+
+    private long[] itemTypeSetIdsOf(long[] configurationIds) {
+        List<long[]> lists = new ArrayList<>(configurationIds.length);
+        for (long configurationId : configurationIds) {
+            ConfigurationNode configuration = configurations.get(configurationId);
+            if (configuration != null) {
+                lists.add(configuration.itemTypeSetIds());
+            }
+        }
+        return LongArrays.union(lists);
+    }
+
+    /**
+     * Tipo di permission di ItemTypeConfiguration, con il permissionType salvato in permission_assignment.
+     */
+    public enum PermissionKind {
+        WORKER("WorkerPermission"),
+        CREATOR("CreatorPermission"),
+        STATUS_OWNER("StatusOwnerPermission"),
+        EXECUTOR("ExecutorPermission"),
+        FIELD_OWNER("FieldOwnerPermission"),
+        FIELD_STATUS("FieldStatusPermission");
+
+        private final String assignmentType;
+
+        PermissionKind(String assignmentType) {
+            this.assignmentType = assignmentType;
+        }
+
+        public String assignmentType() {
+            return assignmentType;
+        }
+
+        public static PermissionKind fromAssignmentType(String assignmentType) {
+            for (PermissionKind kind : values()) {
+                if (kind.assignmentType.equals(assignmentType)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    public record ProjectRef(Long id, String name) {
+    }
+
+    /**
+     * PermissionAssignment compatta: nomi dei ruoli e grant diretta (con il nome del suo ruolo, se presente).
+     */
+    public record Assignment(List<String> roleNames, Long grantId, String grantRoleName) {
+
+        public boolean hasRoles() {
+            return !roleNames.isEmpty();
+        }
+
+        public boolean hasGrant() {
+            return grantId != null;
+        }
+    }
+
+    /**
+     * Permission di una configurazione. targetId è il WorkflowStatus (STATUS_OWNER), la Transition (EXECUTOR)
+     * o il Field (FIELD_OWNER, FIELD_STATUS); workflowStatusId e fieldStatusType valgono solo per FIELD_STATUS.
+     * assignment è l'assegnazione globale (null se assente), projectAssignments quelle di progetto per projectId.
+     */
+    public record PermissionRow(
+            PermissionKind kind,
+            Long id,
+            Long configurationId,
+            Long targetId,
+            Long workflowStatusId,
+            FieldStatusPermission.PermissionType fieldStatusType,
+            Assignment assignment,
+            Map<Long, Assignment> projectAssignments
+    ) {
+        public Assignment projectAssignment(Long projectId) {
+            return projectAssignments.get(projectId);
+        }
+    }
+
+    /**
+     * ownerProject è il progetto proprietario (ItemTypeSet di progetto), associatedProjects i progetti
+     * a cui l'ItemTypeSet è applicato.
+     */
+    public record ItemTypeSetNode(
+            Long id,
+            String name,
+            ProjectRef ownerProject,
+            List<ProjectRef> associatedProjects,
+            long[] configurationIds
+    ) {
+        /**
+         * Progetti su cui valgono le assegnazioni di progetto: il proprietario se c'è, altrimenti le associazioni.
+         */
+        public List<ProjectRef> scopedProjects() {
+            return ownerProject != null ? List.of(ownerProject) : associatedProjects;
+        }
+
+        /**
+         * Proprietario e associazioni, senza duplicati.
+         */
+        public List<ProjectRef> allProjects() {
+            if (ownerProject == null) {
+                return associatedProjects;
+            }
+            List<ProjectRef> projects = new ArrayList<>(associatedProjects.size() + 1);
+            projects.add(ownerProject);
+            associatedProjects.stream().filter(p -> !p.id().equals(ownerProject.id())).forEach(projects::add);
+            return projects;
+        }
+
+        public boolean containsConfiguration(Long configurationId) {
+            return Arrays.binarySearch(configurationIds, configurationId) >= 0;
+        }
+    }
+
+    public record ConfigurationNode(
+            Long id,
+            Long itemTypeId,
+            String itemTypeName,
+            ItemTypeCategory category,
+            Long workflowId,
+            Long fieldSetId,
+            long[] itemTypeSetIds,
+            Map<PermissionKind, List<PermissionRow>> permissionsByKind
+    ) {
+        public List<PermissionRow> permissions(PermissionKind kind) {
+            return permissionsByKind.getOrDefault(kind, List.of());
+        }
+    }
+
+    public record WorkflowNode(Long id, long[] workflowStatusIds, long[] transitionIds, long[] configurationIds) {
+    }
+
+    /**
+     * transitionIds: transizioni in entrata e in uscita.
+     */
+    public record WorkflowStatusNode(
+            Long id,
+            Long workflowId,
+            Long statusId,
+            String statusName,
+            StatusCategory statusCategory,
+            long[] transitionIds
+    ) {
+    }
+
+    public record TransitionNode(Long id, Long workflowId, String name, Long fromWorkflowStatusId, Long toWorkflowStatusId) {
+    }
+
+    /**
+     * fieldConfigurationIds: FieldConfiguration con cui ogni field compare nel FieldSet, nelle posizioni di fieldIds.
+     */
+    public record FieldSetNode(Long id, long[] fieldIds, long[] fieldConfigurationIds, long[] configurationIds) {
+
+        public boolean containsField(Long fieldId) {
+            return Arrays.binarySearch(fieldIds, fieldId) >= 0;
+        }
+
+        public Long fieldConfigurationId(Long fieldId) {
+            int index = Arrays.binarySearch(fieldIds, fieldId);
+            return index >= 0 ? fieldConfigurationIds[index] : null;
+        }
+    }
+
+    /**
+     * optionIds: FieldOption abilitate, ordinate.
+     */
+    public record FieldConfigurationNode(Long id, Long fieldId, FieldType fieldType, long[] optionIds) {
+
+        public boolean containsOption(long optionId) {
+            return Arrays.binarySearch(optionIds, optionId) >= 0;
+        }
+    }
+
+    /**
+     * firstFieldConfigurationId/Name: FieldConfiguration del field con id più basso (null se non ne ha).
+     */
+    public record FieldNode(Long id, String name, Long firstFieldConfigurationId, String firstFieldConfigurationName) {
+    }
+
+    /**
+     * Nodi indicizzati per id: array di id ordinati e array dei nodi nelle stesse posizioni.
+     */
+    static final class IdTable<T> {
+
+        private final long[] ids;
+        private final Object[] values;
+
+        IdTable(Map<Long, T> byId) {
+            this.ids = byId.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+            this.values = new Object[ids.length];
+            for (int i = 0; i < ids.length; i++) {
+                values[i] = byId.get(ids[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(Long id) {
+            if (id == null) {
+                return null;
+            }
+            int index = Arrays.binarySearch(ids, id);
+            return index >= 0 ? (T) values[index] : null;
+        }
+
+        int size() {
+            return ids.length;
+        }
+    }
+
+    static final class LongArrays {
+
+        private LongArrays() {
+        }
+
+        static long[] sortedDistinct(List<Long> values) {
+            if (values == null || values.isEmpty()) {
+                return NO_IDS;
+            }
+            return values.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+        }
+
+        static long[] union(List<long[]> arrays) {
+            if (arrays.isEmpty()) {
+                return NO_IDS;
+            }
+            if (arrays.size() == 1) {
+                return arrays.getFirst();
+            }
+            return arrays.stream().flatMapToLong(Arrays::stream).sorted().distinct().toArray();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.example.demo.service.configsnapshot;
+
+import com.example.demo.entity.FieldStatusPermission;
+import com.example.demo.repository.CreatorPermissionRepository;
+import com.example.demo.repository.ExecutorPermissionRepository;
+import com.example.demo.repository.FieldConfigurationRepository;
+import com.example.demo.repository.FieldOwnerPermissionRepository;
+import com.example.demo.repository.FieldRepository;
+import com.example.demo.repository.FieldSetEntryRepository;
+import com.example.demo.repository.FieldStatusPermissionRepository;
+import com.example.demo.repository.ItemTypeConfigurationRepository;
+import com.example.demo.repository.ItemTypeSetRepository;
+import com.example.demo.repository.PermissionAssignmentRepository;
+import com.example.demo.repository.ProjectRepository;
+import com.example.demo.repository.StatusOwnerPermissionRepository;
+import com.example.demo.repository.TransitionRepository;
+import com.example.demo.repository.WorkerPermissionRepository;
+import com.example.demo.repository.WorkflowStatusRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.Assignment;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.IdTable;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.LongArrays;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Costruisce il {@link TenantConfigSnapshot} di una tenant con un numero fisso di query di proiezione
+ * (una per tipo di nodo o relazione, sei per le permission, due per le assegnazioni), indipendente
+ * dal numero di ItemTypeSet, configurazioni e permission.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantConfigSnapshotBuilder {
+
+    private final ItemTypeSetRepository itemTypeSetRepository;
+    private final ProjectRepository projectRepository;
+    private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
+    private final WorkflowStatusRepository workflowStatusRepository;
+    private final TransitionRepository transitionRepository;
+    private final FieldSetEntryRepository fieldSetEntryRepository;
+    private final FieldConfigurationRepository fieldConfigurationRepository;
+    private final FieldRepository fieldRepository;
+    private final WorkerPermissionRepository workerPermissionRepository;
+    private final CreatorPermissionRepository creatorPermissionRepository;
+    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
+    private final ExecutorPermissionRepository executorPermissionRepository;
+    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
+    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
+    private final PermissionAssignmentRepository permissionAssignmentRepository;
+
+    /**
+     * Legge la configurazione già committata, in una transazione propria: lo snapshot può essere
+     * condiviso con altre richieste anche se il chiamante è dentro una transazione con un'altra vista.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public TenantConfigSnapshot buildCommitted(Long tenantId, long version) {
+        return build(tenantId, version);
+    }
+
+    /**
+     * Legge la configurazione nella transazione del chiamante, comprese le sue modifiche non committate.
+     * Lo snapshot risultante non va condiviso.
+     */
+    @Transactional(readOnly = true)
+    public TenantConfigSnapshot buildCurrent(Long tenantId, long version) {
+        return build(tenantId, version);
+    }
+
+    private TenantConfigSnapshot build(Long tenantId, long version) {
+        long start = System.nanoTime();
+
+        // Progetti a cui è applicato ciascun ItemTypeSet, e ItemTypeSet di ciascun progetto
+        Map<Long, List<ProjectRef>> projectsByItemTypeSet = new HashMap<>();
+        Map<Long, Long> itemTypeSetByProject = new HashMap<>();
+        for (ProjectRepository.ItemTypeSetLinkView row : projectRepository.findItemTypeSetLinksByTenantId(tenantId)) {
+            projectsByItemTypeSet.computeIfAbsent(row.getItemTypeSetId(), id -> new ArrayList<>())
+                    .add(new ProjectRef(row.getProjectId(), row.getProjectName()));
+            itemTypeSetByProject.put(row.getProjectId(), row.getItemTypeSetId());
+        }
+
+        // Relazioni ItemTypeSet <-> configurazione
+        Map<Long, List<Long>> configurationsByItemTypeSet = new HashMap<>();
+        Map<Long, List<Long>> itemTypeSetsByConfiguration = new HashMap<>();
+        for (ItemTypeSetRepository.ConfigurationLinkView row : itemTypeSetRepository.findConfigurationLinksByTenantId(tenantId)) {
+            configurationsByItemTypeSet.computeIfAbsent(row.getItemTypeSetId(), id -> new ArrayList<>())
+                    .add(row.getItemTypeConfigurationId());
+            itemTypeSetsByConfiguration.computeIfAbsent(row.getItemTypeConfigurationId(), id -> new ArrayList<>())
+                    .add(row.getItemTypeSetId());
+        }
+
+        Map<Long, ItemTypeSetNode> itemTypeSets = new HashMap<>();
+        for (ItemTypeSetRepository.SnapshotRowView row : itemTypeSetRepository.findSnapshotRowsByTenantId(tenantId)) {
+            List<ProjectRef> associated = projectsByItemTypeSet.getOrDefault(row.getId(), List.of()).stream()
+                    .sorted(Comparator.comparing(ProjectRef::id))
+                    .toList();
+            ProjectRef owner = row.getProjectId() != null ? new ProjectRef(row.getProjectId(), row.getProjectName()) : null;
+            itemTypeSets.put(row.getId(), new ItemTypeSetNode(row.getId(), row.getName(), owner, associated,
+                    LongArrays.sortedDistinct(configurationsByItemTypeSet.get(row.getId()))));
+        }
+
+        // Assegnazioni: ruoli per assegnazione, poi (tipo, permission) -> globale e per progetto
+        Map<Long, List<String>> roleNamesByAssignment = new HashMap<>();
+        permissionAssignmentRepository.findRoleNameRowsByTenantId(tenantId).forEach(row -> roleNamesByAssignment
+                .computeIfAbsent(row.getAssignmentId(), id -> new ArrayList<>()).add(row.getRoleName()));
+        Map<PermissionKind, Map<Long, Assignment>> globalAssignments = new EnumMap<>(PermissionKind.class);
+        Map<PermissionKind, Map<Long, Map<Long, Assignment>>> projectAssignments = new EnumMap<>(PermissionKind.class);
+        for (PermissionAssignmentRepository.SnapshotRowView row : permissionAssignmentRepository.findSnapshotRowsByTenantId(tenantId)) {
+            PermissionKind kind = PermissionKind.fromAssignmentType(row.getPermissionType());
+            if (kind == null) {
+                continue;
+            }
+            List<String> roleNames = roleNamesByAssignment.get(row.getAssignmentId());
+            Assignment assignment = new Assignment(
+                    roleNames != null ? List.copyOf(roleNames) : List.of(), row.getGrantId(), row.getGrantRoleName());
+            if (row.getProjectId() == null) {
+                globalAssignments.computeIfAbsent(kind, k -> new HashMap<>()).put(row.getPermissionId(), assignment);
+            } else {
+                projectAssignments.computeIfAbsent(kind, k -> new HashMap<>())
+                        .computeIfAbsent(row.getPermissionId(), id -> new HashMap<>())
+                        .put(row.getProjectId(), assignment);
+            }
+        }
+
+        // Permission delle sei tabelle
+        PermissionCollector permissions = new PermissionCollector(globalAssignments, projectAssignments);
+        workerPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.WORKER, key.getPermissionId(), key.getItemTypeConfigurationId(), null, null, null));
+        creatorPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.CREATOR, key.getPermissionId(), key.getItemTypeConfigurationId(), null, null, null));
+        statusOwnerPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.STATUS_OWNER, key.getPermissionId(), key.getItemTypeConfigurationId(), key.getTargetId(), null, null));
+        executorPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.EXECUTOR, key.getPermissionId(), key.getItemTypeConfigurationId(), key.getTargetId(), null, null));
+        fieldOwnerPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.FIELD_OWNER, key.getPermissionId(), key.getItemTypeConfigurationId(), key.getTargetId(), null, null));
+        fieldStatusPermissionRepository.findKeysByTenantId(tenantId).forEach(key -> permissions.add(
+                PermissionKind.FIELD_STATUS, key.getPermissionId(), key.getItemTypeConfigurationId(), key.getFieldId(),
+                key.getWorkflowStatusId(), key.getPermissionType()));
+
+        // Configurazioni, con le relazioni verso workflow e FieldSet
+        Map<Long, ConfigurationNode> configurations = new HashMap<>();
+        Map<Long, List<Long>> configurationsByWorkflow = new HashMap<>();
+        Map<Long, List<Long>> configurationsByFieldSet = new HashMap<>();
+        for (ItemTypeConfigurationRepository.SnapshotRowView row : itemTypeConfigurationRepository.findSnapshotRowsByTenantId(tenantId)) {
+            configurations.put(row.getId(), new ConfigurationNode(row.getId(), row.getItemTypeId(), row.getItemTypeName(),
+                    row.getCategory(), row.getWorkflowId(), row.getFieldSetId(),
+                    LongArrays.sortedDistinct(itemTypeSetsByConfiguration.get(row.getId())),
+                    permissions.byConfiguration(row.getId())));
+            if (row.getWorkflowId() != null) {
+                configurationsByWorkflow.computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId());
+            }
+            if (row.getFieldSetId() != null) {
+                configurationsByFieldSet.computeIfAbsent(row.getFieldSetId(), id -> new ArrayList<>()).add(row.getId());
+            }
+        }
+
+        // Workflow: stati e transizioni
+        Map<Long, TransitionNode> transitions = new HashMap<>();
+        Map<Long, List<Long>> transitionsByWorkflow = new HashMap<>();
+        Map<Long, List<Long>> transitionsByWorkflowStatus = new HashMap<>();
+        for (TransitionRepository.SnapshotRowView row : transitionRepository.findSnapshotRowsByTenantId(tenantId)) {
+            transitions.put(row.getId(), new TransitionNode(row.getId(), row.getWorkflowId(), row.getName(),
+                    row.getFromWorkflowStatusId(), row.getToWorkflowStatusId()));
+            transitionsByWorkflow.computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId());
+            if (row.getFromWorkflowStatusId() != null) {
+                transitionsByWorkflowStatus.computeIfAbsent(row.getFromWorkflowStatusId(), id -> new ArrayList<>()).add(row.getId());
+            }
+            if (row.getToWorkflowStatusId() != null) {
+                transitionsByWorkflowStatus.computeIfAbsent(row.getToWorkflowStatusId(), id -> new ArrayList<>()).add(row.getId());
+            }
+        }
+        Map<Long, WorkflowStatusNode> workflowStatuses = new HashMap<>();
+        Map<Long, List<Long>> statusesByWorkflow = new HashMap<>();
+        for (WorkflowStatusRepository.SnapshotRowView row : workflowStatusRepository.findSnapshotRowsByTenantId(tenantId)) {
+            workflowStatuses.put(row.getId(), new WorkflowStatusNode(row.getId(), row.getWorkflowId(), row.getStatusId(),
+                    row.getStatusName(), row.getStatusCategory(),
+                    LongArrays.sortedDistinct(transitionsByWorkflowStatus.get(row.getId()))));
+            statusesByWorkflow.computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId());
+        }
+        Set<Long> workflowIds = new HashSet<>(statusesByWorkflow.keySet());
+        workflowIds.addAll(transitionsByWorkflow.keySet());
+        workflowIds.addAll(configurationsByWorkflow.keySet());
+        Map<Long, WorkflowNode> workflows = new HashMap<>();
+        for (Long workflowId : workflowIds) {
+            workflows.put(workflowId, new WorkflowNode(workflowId,
+                    LongArrays.sortedDistinct(statusesByWorkflow.get(workflowId)),
+                    LongArrays.sortedDistinct(transitionsByWorkflow.get(workflowId)),
+                    LongArrays.sortedDistinct(configurationsByWorkflow.get(workflowId))));
+        }
+
+        // FieldSet e field
+        // Field del FieldSet in ordine di id, ognuno con la sua FieldConfiguration (la prima se ne ha più d'una)
+        Map<Long, TreeMap<Long, Long>> fieldsByFieldSet = new HashMap<>();
+        fieldSetEntryRepository.findFieldConfigurationRowsByTenantId(tenantId).forEach(row -> fieldsByFieldSet
+                .computeIfAbsent(row.getFieldSetId(), id -> new TreeMap<>())
+                .merge(row.getFieldId(), row.getFieldConfigurationId(), Math::min));
+        Set<Long> fieldSetIds = new HashSet<>(fieldsByFieldSet.keySet());
+        fieldSetIds.addAll(configurationsByFieldSet.keySet());
+        Map<Long, FieldSetNode> fieldSets = new HashMap<>();
+        for (Long fieldSetId : fieldSetIds) {
+            TreeMap<Long, Long> fieldConfigurationByField = fieldsByFieldSet.getOrDefault(fieldSetId, new TreeMap<>());
+            fieldSets.put(fieldSetId, new FieldSetNode(fieldSetId,
+                    fieldConfigurationByField.keySet().stream().mapToLong(Long::longValue).toArray(),
+                    fieldConfigurationByField.values().stream().mapToLong(Long::longValue).toArray(),
+                    LongArrays.sortedDistinct(configurationsByFieldSet.get(fieldSetId))));
+        }
+        Map<Long, List<Long>> optionsByFieldConfiguration = new HashMap<>();
+        fieldConfigurationRepository.findOptionRowsByTenantId(tenantId).forEach(row -> optionsByFieldConfiguration
+                .computeIfAbsent(row.getFieldConfigurationId(), id -> new ArrayList<>()).add(row.getOptionId()));
+        Map<Long, FieldConfigurationNode> fieldConfigurations = new HashMap<>();
+        for (FieldConfigurationRepository.SnapshotRowView row : fieldConfigurationRepository.findSnapshotRowsByTenantId(tenantId)) {
+            fieldConfigurations.put(row.getId(), new FieldConfigurationNode(row.getId(), row.getFieldId(),
+                    row.getFieldType(), LongArrays.sortedDistinct(optionsByFieldConfiguration.get(row.getId()))));
+        }
+        Map<Long, FieldNode> fields = new HashMap<>();
+        for (FieldRepository.SnapshotRowView row : fieldRepository.findSnapshotRowsByTenantId(tenantId)) {
+            fields.putIfAbsent(row.getId(), new FieldNode(row.getId(), row.getName(),
+                    row.getFieldConfigurationId(), row.getFieldConfigurationName()));
+        }
+
+        TenantConfigSnapshot snapshot = new TenantConfigSnapshot(tenantId, version,
+                new IdTable<>(itemTypeSets), new IdTable<>(configurations), new IdTable<>(workflows),
+                new IdTable<>(workflowStatuses), new IdTable<>(transitions), new IdTable<>(fieldSets),
+                new IdTable<>(fields), new IdTable<>(fieldConfigurations), new IdTable<>(itemTypeSetByProject),
+                permissions.tables());
+        log.debug("Snapshot configurazione tenant {} (versione {}): {} configurazioni, {} permission in {} ms",
+                tenantId, version, configurations.size(), snapshot.permissionCount(), (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+
+    /**
+     * Raccoglie le permission con le loro assegnazioni, indicizzate per tipo e per configurazione.
+     */
+    private static final class PermissionCollector {
+
+        private final Map<PermissionKind, Map<Long, Assignment>> globalAssignments;
+        private final Map<PermissionKind, Map<Long, Map<Long, Assignment>>> projectAssignments;
+        private final Map<PermissionKind, Map<Long, PermissionRow>> byId = new EnumMap<>(PermissionKind.class);
+        private final Map<Long, Map<PermissionKind, List<PermissionRow>>> byConfiguration = new HashMap<>();
+
+        PermissionCollector(Map<PermissionKind, Map<Long, Assignment>> globalAssignments,
+                            Map<PermissionKind, Map<Long, Map<Long, Assignment>>> projectAssignments) {
+            this.globalAssignments = globalAssignments;
+            this.projectAssignments = projectAssignments;
+            for (PermissionKind kind : PermissionKind.values()) {
+                byId.put(kind, new HashMap<>());
+            }
+        }
+
+        void add(PermissionKind kind, Long id, Long configurationId, Long targetId, Long workflowStatusId,
+                 FieldStatusPermission.PermissionType fieldStatusType) {
+            Assignment global = globalAssignments.getOrDefault(kind, Map.of()).get(id);
+            Map<Long, Assignment> byProject = projectAssignments.getOrDefault(kind, Map.of()).get(id);
+            PermissionRow row = new PermissionRow(kind, id, configurationId, targetId, workflowStatusId, fieldStatusType,
+                    global, byProject != null ? Map.copyOf(byProject) : Map.of());
+            byId.get(kind).put(id, row);
+            byConfiguration.computeIfAbsent(configurationId, cid -> new EnumMap<>(PermissionKind.class))
+                    .computeIfAbsent(kind, k -> new ArrayList<>()).add(row);
+        }
+
+        Map<PermissionKind, List<PermissionRow>> byConfiguration(Long configurationId) {
+            Map<PermissionKind, List<PermissionRow>> rows = byConfiguration.get(configurationId);
+            if (rows == null) {
+                return Map.of();
+            }
+            Map<PermissionKind, List<PermissionRow>> sorted = new EnumMap<>(PermissionKind.class);
+            rows.forEach((kind, list) -> sorted.put(kind, list.stream()
+                    .sorted(Comparator.comparing(PermissionRow::id)).toList()));
+            return sorted;
+        }
+
+        Map<PermissionKind, IdTable<PermissionRow>> tables() {
+            Map<PermissionKind, IdTable<PermissionRow>> tables = new EnumMap<>(PermissionKind.class);
+            byId.forEach((kind, rows) -> tables.put(kind, new IdTable<>(rows)));
+            return tables;
+        }
+    }
+}
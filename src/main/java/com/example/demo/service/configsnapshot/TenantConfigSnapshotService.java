@@ -0,0 +1,67 @@
+package com.example.demo.service.configsnapshot;
+
+import com.example.demo.configchange.ConfigChangeOutbox;
+import com.example.demo.configchange.ConfigVersionRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Punto di accesso al {@link TenantConfigSnapshot} di una tenant.
+ *
+ * Lo snapshot viene costruito alla prima richiesta e riusato finché la versione della tenant
+ * ({@link ConfigVersionRegistry}) non cambia: il flusso analisi -> export -> conferma della stessa
+ * modifica legge la configurazione una sola volta. Una transazione che ha già registrato modifiche
+ * nell'outbox riceve invece uno snapshot costruito nella sua vista, non condiviso.
+ */
+@Service
+public class TenantConfigSnapshotService {
+
+    private final TenantConfigSnapshotBuilder builder;
+    private final ConfigVersionRegistry configVersionRegistry;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final Cache<Long, TenantConfigSnapshot> snapshots;
+    private final Map<Long, Object> buildLocks = new ConcurrentHashMap<>();
+
+    public TenantConfigSnapshotService(TenantConfigSnapshotBuilder builder,
+                                       ConfigVersionRegistry configVersionRegistry,
+                                       ConfigChangeOutbox configChangeOutbox,
+                                       @Value("${config.snapshot.max-tenants:64}") long maxTenants) {
+        this.builder = builder;
+        this.configVersionRegistry = configVersionRegistry;
+        this.configChangeOutbox = configChangeOutbox;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxTenants)
+                .build();
+    }
+
+    public TenantConfigSnapshot get(Long tenantId) {
+        if (configChangeOutbox.hasPendingChanges()) {
+            return builder.buildCurrent(tenantId, configVersionRegistry.current(tenantId));
+        }
+
+        // La versione va letta prima di costruire: una modifica committata durante la lettura
+        // la incrementa e lo snapshot non viene più considerato valido
+        long version = configVersionRegistry.current(tenantId);
+        TenantConfigSnapshot cached = snapshots.getIfPresent(tenantId);
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+        synchronized (buildLocks.computeIfAbsent(tenantId, id -> new Object())) {
+            version = configVersionRegistry.current(tenantId);
+            cached = snapshots.getIfPresent(tenantId);
+            if (cached != null && cached.version() == version) {
+                return cached;
+            }
+            TenantConfigSnapshot snapshot = builder.buildCommitted(tenantId, version);
+            if (configVersionRegistry.current(tenantId) == version) {
+                snapshots.put(tenantId, snapshot);
+            }
+            return snapshot;
+        }
+    }
+}
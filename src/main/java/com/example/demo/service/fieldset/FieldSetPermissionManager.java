@@ -3,6 +3,8 @@ package com.example.demo.service.fieldset;
 import com.example.demo.dto.FieldSetRemovalImpactDto;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.Tenant;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.configsnapshot.ImpactResultCache.ImpactKind;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -15,6 +17,7 @@ public class FieldSetPermissionManager {
     private final FieldSetPermissionProvisioningModule provisioningModule;
     private final FieldSetPermissionReportingModule reportingModule;
     private final FieldSetPermissionCleanupModule cleanupModule;
+    private final ImpactResultCache impactResultCache;
 
     public void handlePermissionsForNewFields(Tenant tenant, FieldSet fieldSet, Set<Long> newFieldIds) {
         provisioningModule.handlePermissionsForNewFields(tenant, fieldSet, newFieldIds);
@@ -26,7 +29,12 @@ public class FieldSetPermissionManager {
             Set<Long> removedFieldConfigIds,
             Set<Long> addedFieldConfigIds
     ) {
-        return reportingModule.analyzeRemovalImpact(tenant, fieldSetId, removedFieldConfigIds, addedFieldConfigIds);
+        return impactResultCache.get(tenant.getId(), ImpactKind.FIELD_SET_REMOVAL, fieldSetId, version -> {
+            FieldSetRemovalImpactDto impact =
+                    reportingModule.analyzeRemovalImpact(tenant, fieldSetId, removedFieldConfigIds, addedFieldConfigIds);
+            impact.setConfigVersion(version);
+            return impact;
+        }, removedFieldConfigIds, addedFieldConfigIds);
     }
 
     public boolean hasAssignments(FieldSetRemovalImpactDto impact) {
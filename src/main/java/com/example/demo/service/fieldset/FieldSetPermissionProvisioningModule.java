@@ -1,25 +1,31 @@
 package com.example.demo.service.fieldset;
 
-import com.example.demo.entity.Field;
-import com.example.demo.entity.FieldOwnerPermission;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.FieldStatusPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
 import com.example.demo.entity.ItemTypeSet;
 import com.example.demo.entity.Tenant;
-import com.example.demo.entity.WorkflowStatus;
+import com.example.demo.entity.Workflow;
 import com.example.demo.repository.FieldOwnerPermissionRepository;
 import com.example.demo.repository.FieldStatusPermissionRepository;
-import com.example.demo.service.FieldLookup;
+import com.example.demo.repository.PermissionBulkInsertRepository;
+import com.example.demo.repository.PermissionBulkInsertRepository.FieldStatusRow;
+import com.example.demo.repository.PermissionBulkInsertRepository.TargetRow;
+import com.example.demo.repository.WorkflowStatusRepository;
 import com.example.demo.service.ItemTypeSetLookup;
 import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.WorkflowStatusLookup;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
@@ -27,97 +33,85 @@ class FieldSetPermissionProvisioningModule {
 
     private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
     private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
+    private final WorkflowStatusRepository workflowStatusRepository;
+    private final PermissionBulkInsertRepository permissionBulkInsertRepository;
     private final PermissionAssignmentService permissionAssignmentService;
     private final ItemTypeSetLookup itemTypeSetLookup;
-    private final FieldLookup fieldLookup;
-    private final WorkflowStatusLookup workflowStatusLookup;
 
+    /**
+     * Crea le FieldOwner/FieldStatus permission dei nuovi field per tutte le configurazioni che usano il FieldSet.
+     * Le permission mancanti sono calcolate in anticipo e inserite in blocco; per quelle già presenti
+     * (field rimosso e riaggiunto) viene azzerata l'assegnazione.
+     */
     @Transactional
     public void handlePermissionsForNewFields(Tenant tenant, FieldSet fieldSet, Set<Long> newFieldIds) {
         if (newFieldIds == null || newFieldIds.isEmpty()) {
             return;
         }
 
-        List<ItemTypeSet> affectedItemTypeSets = itemTypeSetLookup.findByFieldSetId(fieldSet.getId(), tenant);
-
-        for (ItemTypeSet itemTypeSet : affectedItemTypeSets) {
+        Map<Long, ItemTypeConfiguration> configurations = new LinkedHashMap<>();
+        for (ItemTypeSet itemTypeSet : itemTypeSetLookup.findByFieldSetId(fieldSet.getId(), tenant)) {
             for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
                 if (config.getFieldSet().getId().equals(fieldSet.getId())) {
-                    createPermissionsForNewFields(config, newFieldIds);
+                    configurations.putIfAbsent(config.getId(), config);
                 }
             }
         }
-    }
-
-    private void createPermissionsForNewFields(ItemTypeConfiguration config, Set<Long> newFieldIds) {
-        for (Long fieldId : newFieldIds) {
-            createFieldOwnerPermission(config, fieldId);
-            createFieldStatusPermissions(config, fieldId);
+        if (configurations.isEmpty()) {
+            return;
         }
-    }
-
-    private void createFieldOwnerPermission(ItemTypeConfiguration config, Long fieldId) {
-        FieldOwnerPermission existingPermission = fieldOwnerPermissionRepository
-                .findByItemTypeConfigurationAndFieldId(config, fieldId);
 
-        if (existingPermission == null) {
-            Field field = fieldLookup.getById(fieldId, config.getTenant());
-
-            FieldOwnerPermission permission = new FieldOwnerPermission();
-            permission.setItemTypeConfiguration(config);
-            permission.setField(field);
-            fieldOwnerPermissionRepository.save(permission);
-        } else {
-            permissionAssignmentService.deleteAssignment(
-                    "FieldOwnerPermission",
-                    existingPermission.getId(),
-                    config.getTenant()
-            );
+        Set<Long> workflowIds = configurations.values().stream()
+                .map(ItemTypeConfiguration::getWorkflow).filter(Objects::nonNull)
+                .map(Workflow::getId).collect(Collectors.toSet());
+        Map<Long, List<Long>> statusesByWorkflow = new HashMap<>();
+        if (!workflowIds.isEmpty()) {
+            workflowStatusRepository.findIdRowsByWorkflowIdIn(workflowIds).forEach(row -> statusesByWorkflow
+                    .computeIfAbsent(row.getWorkflowId(), id -> new ArrayList<>()).add(row.getId()));
         }
-    }
 
-    private void createFieldStatusPermissions(ItemTypeConfiguration config, Long fieldId) {
-        Field field = fieldLookup.getById(fieldId, config.getTenant());
-        List<WorkflowStatus> workflowStatuses = workflowStatusLookup.findAllByWorkflow(config.getWorkflow());
+        Map<TargetRow, Long> existingFieldOwners = fieldOwnerPermissionRepository
+                .findKeysByItemTypeConfigurationIdIn(configurations.keySet()).stream()
+                .filter(key -> newFieldIds.contains(key.getTargetId()))
+                .collect(Collectors.toMap(key -> new TargetRow(key.getItemTypeConfigurationId(), key.getTargetId()),
+                        FieldOwnerPermissionRepository.KeyView::getPermissionId, (a, b) -> a));
+        Map<FieldStatusRow, Long> existingFieldStatuses = fieldStatusPermissionRepository
+                .findKeysByItemTypeConfigurationIdIn(configurations.keySet()).stream()
+                .filter(key -> newFieldIds.contains(key.getFieldId()))
+                .collect(Collectors.toMap(key -> new FieldStatusRow(key.getItemTypeConfigurationId(), key.getFieldId(),
+                                key.getWorkflowStatusId(), key.getPermissionType()),
+                        FieldStatusPermissionRepository.KeyView::getPermissionId, (a, b) -> a));
+
+        List<TargetRow> fieldOwners = new ArrayList<>();
+        List<FieldStatusRow> fieldStatuses = new ArrayList<>();
+        for (ItemTypeConfiguration config : configurations.values()) {
+            List<Long> statusIds = config.getWorkflow() != null
+                    ? statusesByWorkflow.getOrDefault(config.getWorkflow().getId(), List.of())
+                    : List.of();
+            for (Long fieldId : newFieldIds) {
+                TargetRow fieldOwner = new TargetRow(config.getId(), fieldId);
+                Long existingFieldOwner = existingFieldOwners.get(fieldOwner);
+                if (existingFieldOwner == null) {
+                    fieldOwners.add(fieldOwner);
+                } else {
+                    permissionAssignmentService.deleteAssignment("FieldOwnerPermission", existingFieldOwner, tenant);
+                }
 
-        for (WorkflowStatus workflowStatus : workflowStatuses) {
-            createFieldStatusPermission(config, field, workflowStatus, FieldStatusPermission.PermissionType.EDITORS);
-            createFieldStatusPermission(config, field, workflowStatus, FieldStatusPermission.PermissionType.VIEWERS);
+                for (Long statusId : statusIds) {
+                    for (FieldStatusPermission.PermissionType type : FieldStatusPermission.PermissionType.values()) {
+                        FieldStatusRow fieldStatus = new FieldStatusRow(config.getId(), fieldId, statusId, type);
+                        Long existingFieldStatus = existingFieldStatuses.get(fieldStatus);
+                        if (existingFieldStatus == null) {
+                            fieldStatuses.add(fieldStatus);
+                        } else {
+                            permissionAssignmentService.deleteAssignment("FieldStatusPermission", existingFieldStatus, tenant);
+                        }
+                    }
+                }
+            }
         }
-    }
 
-    private void createFieldStatusPermission(
-            ItemTypeConfiguration config,
-            Field field,
-            WorkflowStatus workflowStatus,
-            FieldStatusPermission.PermissionType permissionType
-    ) {
-        FieldStatusPermission existingPermission = fieldStatusPermissionRepository
-                .findByItemTypeConfigurationAndFieldAndWorkflowStatusAndPermissionType(
-                        config, field, workflowStatus, permissionType);
-
-        if (existingPermission == null) {
-            FieldStatusPermission permission = new FieldStatusPermission();
-            permission.setItemTypeConfiguration(config);
-            permission.setField(field);
-            permission.setWorkflowStatus(workflowStatus);
-            permission.setPermissionType(permissionType);
-            fieldStatusPermissionRepository.save(permission);
-        } else {
-            permissionAssignmentService.deleteAssignment(
-                    "FieldStatusPermission",
-                    existingPermission.getId(),
-                    config.getTenant()
-            );
-        }
+        permissionBulkInsertRepository.insertFieldOwnerPermissions(fieldOwners);
+        permissionBulkInsertRepository.insertFieldStatusPermissions(fieldStatuses);
     }
 }
-
-
-
-
-
-
-
-
-
@@ -2,39 +2,32 @@ package com.example.demo.service.fieldset;
 
 import com.example.demo.dto.FieldSetRemovalImpactDto;
 import com.example.demo.dto.FieldSetRemovalImpactDto.PermissionImpact;
-import com.example.demo.entity.Field;
 import com.example.demo.entity.FieldConfiguration;
-import com.example.demo.entity.FieldOwnerPermission;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.FieldSetEntry;
 import com.example.demo.entity.FieldStatusPermission;
-import com.example.demo.entity.Grant;
-import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.Status;
 import com.example.demo.entity.Tenant;
-import com.example.demo.entity.WorkflowStatus;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.FieldOwnerPermissionRepository;
 import com.example.demo.repository.FieldSetRepository;
-import com.example.demo.repository.FieldStatusPermissionRepository;
-import com.example.demo.service.FieldConfigurationLookup;
-import com.example.demo.service.ItemTypeSetLookup;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.Assignment;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -42,14 +35,9 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 class FieldSetPermissionReportingModule {
 
-    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
-    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
     private final FieldSetRepository fieldSetRepository;
-    private final ItemTypeSetLookup itemTypeSetLookup;
-    private final FieldConfigurationLookup fieldConfigurationLookup;
     private final FieldSetUpdateHelper fieldSetUpdateHelper;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
 
     @Transactional(readOnly = true)
     public FieldSetRemovalImpactDto analyzeRemovalImpact(
@@ -85,10 +73,14 @@ class FieldSetPermissionReportingModule {
                     .build();
         }
 
-        List<ItemTypeSet> allItemTypeSetsUsingFieldSet = itemTypeSetLookup.findByFieldSetId(fieldSetId, tenant);
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        List<ItemTypeSetNode> allItemTypeSetsUsingFieldSet = Arrays.stream(snapshot.itemTypeSetIdsUsingFieldSet(fieldSetId))
+                .mapToObj(snapshot::itemTypeSet)
+                .collect(Collectors.toList());
 
         List<FieldSetRemovalImpactDto.PermissionImpact> fieldOwnerPermissions =
                 analyzeFieldOwnerPermissionImpacts(
+                        snapshot,
                         allItemTypeSetsUsingFieldSet,
                         removalContext.removedFieldIds(),
                         removalContext.remainingFieldIds(),
@@ -97,18 +89,18 @@ class FieldSetPermissionReportingModule {
 
         List<FieldSetRemovalImpactDto.PermissionImpact> fieldStatusPermissions =
                 analyzeFieldStatusPermissionImpacts(
+                        snapshot,
                         allItemTypeSetsUsingFieldSet,
                         removalContext.removedFieldIds(),
-                        removalContext.remainingFieldIds(),
-                        tenant
+                        removalContext.remainingFieldIds()
                 );
 
         Set<Long> itemTypeSetIdsWithImpact = new HashSet<>();
         fieldOwnerPermissions.forEach(p -> itemTypeSetIdsWithImpact.add(p.getItemTypeSetId()));
         fieldStatusPermissions.forEach(p -> itemTypeSetIdsWithImpact.add(p.getItemTypeSetId()));
 
-        List<ItemTypeSet> affectedItemTypeSets = allItemTypeSetsUsingFieldSet.stream()
-                .filter(its -> itemTypeSetIdsWithImpact.contains(its.getId()))
+        List<ItemTypeSetNode> affectedItemTypeSets = allItemTypeSetsUsingFieldSet.stream()
+                .filter(its -> itemTypeSetIdsWithImpact.contains(its.id()))
                 .collect(Collectors.toList());
 
         int totalGrantAssignments =
@@ -157,67 +149,55 @@ class FieldSetPermissionReportingModule {
     }
 
     private List<FieldSetRemovalImpactDto.PermissionImpact> analyzeFieldOwnerPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            List<ItemTypeSetNode> itemTypeSets,
             Set<Long> removedFieldIds,
             Set<Long> remainingFieldIds,
             FieldSet fieldSet
     ) {
         List<FieldSetRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<FieldOwnerPermission> allPermissions = fieldOwnerPermissionRepository
-                        .findAllByItemTypeConfiguration(config);
+        for (ItemTypeSetNode itemTypeSet : itemTypeSets) {
+            ProjectRef project = itemTypeSet.ownerProject();
 
-                for (FieldOwnerPermission permission : allPermissions) {
-                    Long fieldId = permission.getField().getId();
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                for (PermissionRow permission : snapshot.permissions(configurationId, PermissionKind.FIELD_OWNER)) {
+                    Long fieldId = permission.targetId();
 
                     boolean isRemoved = removedFieldIds.contains(fieldId);
                     boolean isOrphaned = !remainingFieldIds.contains(fieldId);
 
                     if (isRemoved || isOrphaned) {
-                        Field field = permission.getField();
-                        AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                                "FieldOwnerPermission",
-                                permission.getId(),
-                                itemTypeSet
-                        );
+                        FieldNode field = snapshot.field(fieldId);
+                        AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                         if (assignmentDetails.hasAssignments()) {
+                            // Fallback: prima FieldConfiguration del field
                             FieldConfiguration targetConfig = findTargetConfiguration(fieldSet, fieldId);
-                            FieldConfiguration fallbackConfig = null;
-                            try {
-                                fallbackConfig = fieldConfigurationLookup.getAllByField(fieldId, itemTypeSet.getTenant())
-                                        .stream()
-                                        .findFirst()
-                                        .orElse(null);
-                            } catch (Exception ignored) {
-                                // Gestione fallback sotto
-                            }
 
                             Long fieldConfigurationId = targetConfig != null
                                     ? targetConfig.getId()
-                                    : (fallbackConfig != null ? fallbackConfig.getId() : null);
+                                    : field.firstFieldConfigurationId();
                             String fieldConfigurationName = targetConfig != null
                                     ? targetConfig.getName()
-                                    : (fallbackConfig != null ? fallbackConfig.getName() : field.getName());
+                                    : (field.firstFieldConfigurationName() != null ? field.firstFieldConfigurationName() : field.name());
 
                             boolean canBePreserved = remainingFieldIds.contains(fieldId);
                             boolean defaultPreserve = canBePreserved && assignmentDetails.hasAssignments();
 
                             impacts.add(FieldSetRemovalImpactDto.PermissionImpact.builder()
-                                    .permissionId(permission.getId())
+                                    .permissionId(permission.id())
                                     .permissionType("FIELD_OWNERS")
-                                    .itemTypeSetId(itemTypeSet.getId())
-                                    .itemTypeSetName(itemTypeSet.getName())
-                                    .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                                    .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
+                                    .itemTypeSetId(itemTypeSet.id())
+                                    .itemTypeSetName(itemTypeSet.name())
+                                    .projectId(project != null ? project.id() : null)
+                                    .projectName(project != null ? project.name() : null)
                                     .fieldConfigurationId(fieldConfigurationId)
                                     .fieldConfigurationName(fieldConfigurationName)
                                     .fieldId(fieldId)
-                                    .fieldName(field.getName())
+                                    .fieldName(field.name())
                                     .matchingFieldId(canBePreserved ? fieldId : null)
-                                    .matchingFieldName(canBePreserved ? field.getName() : null)
+                                    .matchingFieldName(canBePreserved ? field.name() : null)
                                     .assignedRoles(assignmentDetails.assignedRoles())
                                     .assignedGrants(assignmentDetails.assignedGrants())
                                     .projectAssignedRoles(assignmentDetails.projectRoles())
@@ -247,84 +227,59 @@ class FieldSetPermissionReportingModule {
     }
 
     private List<FieldSetRemovalImpactDto.PermissionImpact> analyzeFieldStatusPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            List<ItemTypeSetNode> itemTypeSets,
             Set<Long> removedFieldIds,
-            Set<Long> remainingFieldIds,
-            Tenant tenant
+            Set<Long> remainingFieldIds
     ) {
         List<FieldSetRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<FieldStatusPermission> allPermissions = fieldStatusPermissionRepository
-                        .findAllByItemTypeConfiguration(config);
-
-                for (FieldStatusPermission permission : allPermissions) {
-                    Long fieldId = permission.getField().getId();
+        for (ItemTypeSetNode itemTypeSet : itemTypeSets) {
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                for (PermissionRow permission : snapshot.permissions(configurationId, PermissionKind.FIELD_STATUS)) {
+                    Long fieldId = permission.targetId();
 
                     boolean isRemoved = removedFieldIds.contains(fieldId);
                     boolean isOrphaned = !remainingFieldIds.contains(fieldId);
 
                     if (isRemoved || isOrphaned) {
-                        Field field = permission.getField();
-                        WorkflowStatus workflowStatus = permission.getWorkflowStatus();
-                        AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                                "FieldStatusPermission",
-                                permission.getId(),
-                                itemTypeSet
-                        );
+                        FieldNode field = snapshot.field(fieldId);
+                        WorkflowStatusNode workflowStatus = snapshot.workflowStatus(permission.workflowStatusId());
+                        AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                         if (assignmentDetails.hasAssignments()) {
-                            FieldConfiguration exampleConfig = null;
-                            try {
-                                exampleConfig = fieldConfigurationLookup.getAllByField(fieldId, tenant)
-                                        .stream()
-                                        .findFirst()
-                                        .orElse(null);
-                            } catch (Exception ignored) {
-                                // Gestione fallback sotto
-                            }
-
-                            Status status = workflowStatus.getStatus();
                             boolean fieldRemains = remainingFieldIds.contains(fieldId);
                             boolean statusRemains = true;
                             boolean canBePreserved = fieldRemains && statusRemains;
                             boolean defaultPreserve = canBePreserved && assignmentDetails.hasAssignments();
 
-                            String permissionType = permission.getPermissionType() == FieldStatusPermission.PermissionType.EDITORS
+                            String permissionType = permission.fieldStatusType() == FieldStatusPermission.PermissionType.EDITORS
                                     ? "FIELD_EDITORS"
                                     : "FIELD_VIEWERS";
 
-                            Long primaryProjectId = null;
-                            String primaryProjectName = null;
-                            if (itemTypeSet.getProject() != null) {
-                                primaryProjectId = itemTypeSet.getProject().getId();
-                                primaryProjectName = itemTypeSet.getProject().getName();
-                            } else if (!itemTypeSet.getProjectsAssociation().isEmpty()) {
-                                Project firstProject = itemTypeSet.getProjectsAssociation().iterator().next();
-                                primaryProjectId = firstProject.getId();
-                                primaryProjectName = firstProject.getName();
-                            }
+                            ProjectRef primaryProject = itemTypeSet.ownerProject() != null
+                                    ? itemTypeSet.ownerProject()
+                                    : itemTypeSet.associatedProjects().stream().findFirst().orElse(null);
 
                             impacts.add(FieldSetRemovalImpactDto.PermissionImpact.builder()
-                                    .permissionId(permission.getId())
+                                    .permissionId(permission.id())
                                     .permissionType(permissionType)
-                                    .itemTypeSetId(itemTypeSet.getId())
-                                    .itemTypeSetName(itemTypeSet.getName())
-                                    .projectId(primaryProjectId)
-                                    .projectName(primaryProjectName)
-                                    .fieldConfigurationId(exampleConfig != null ? exampleConfig.getId() : null)
-                                    .fieldConfigurationName(exampleConfig != null ? exampleConfig.getName() : field.getName())
-                                    .workflowStatusId(workflowStatus.getId())
-                                    .workflowStatusName(workflowStatus.getStatus().getName())
+                                    .itemTypeSetId(itemTypeSet.id())
+                                    .itemTypeSetName(itemTypeSet.name())
+                                    .projectId(primaryProject != null ? primaryProject.id() : null)
+                                    .projectName(primaryProject != null ? primaryProject.name() : null)
+                                    .fieldConfigurationId(field.firstFieldConfigurationId())
+                                    .fieldConfigurationName(field.firstFieldConfigurationName() != null ? field.firstFieldConfigurationName() : field.name())
+                                    .workflowStatusId(workflowStatus.id())
+                                    .workflowStatusName(workflowStatus.statusName())
                                     .fieldId(fieldId)
-                                    .fieldName(field.getName())
-                                    .statusId(status != null ? status.getId() : null)
-                                    .statusName(status != null ? status.getName() : null)
+                                    .fieldName(field.name())
+                                    .statusId(workflowStatus.statusId())
+                                    .statusName(workflowStatus.statusName())
                                     .matchingFieldId(canBePreserved && fieldRemains ? fieldId : null)
-                                    .matchingFieldName(canBePreserved && fieldRemains ? field.getName() : null)
-                                    .matchingStatusId(canBePreserved && statusRemains ? (status != null ? status.getId() : null) : null)
-                                    .matchingStatusName(canBePreserved && statusRemains ? (status != null ? status.getName() : null) : null)
+                                    .matchingFieldName(canBePreserved && fieldRemains ? field.name() : null)
+                                    .matchingStatusId(canBePreserved && statusRemains ? workflowStatus.statusId() : null)
+                                    .matchingStatusName(canBePreserved && statusRemains ? workflowStatus.statusName() : null)
                                     .assignedRoles(assignmentDetails.assignedRoles())
                                     .assignedGrants(assignmentDetails.assignedGrants())
                                     .projectAssignedRoles(assignmentDetails.projectRoles())
@@ -345,13 +300,13 @@ class FieldSetPermissionReportingModule {
     }
 
     private List<FieldSetRemovalImpactDto.ItemTypeSetImpact> mapItemTypeSetImpactsWithAggregates(
-            List<ItemTypeSet> itemTypeSets,
+            List<ItemTypeSetNode> itemTypeSets,
             List<FieldSetRemovalImpactDto.PermissionImpact> fieldOwnerPermissions,
             List<FieldSetRemovalImpactDto.PermissionImpact> fieldStatusPermissions
     ) {
         return itemTypeSets.stream()
                 .map(its -> {
-                    Long itemTypeSetId = its.getId();
+                    Long itemTypeSetId = its.id();
 
                     List<FieldSetRemovalImpactDto.PermissionImpact> itsPermissions = new ArrayList<>();
                     itsPermissions.addAll(fieldOwnerPermissions.stream()
@@ -391,12 +346,10 @@ class FieldSetPermissionReportingModule {
                     int totalProjectGrants = projectGrantsCount.values().stream().mapToInt(Integer::intValue).sum();
                     List<FieldSetRemovalImpactDto.ProjectImpact> projectImpacts = projectGrantsCount.entrySet().stream()
                             .map(e -> {
-                                String projectName = its.getProject() != null && its.getProject().getId().equals(e.getKey())
-                                        ? its.getProject().getName()
-                                        : its.getProjectsAssociation().stream()
-                                        .filter(p -> p.getId().equals(e.getKey()))
+                                String projectName = its.allProjects().stream()
+                                        .filter(p -> p.id().equals(e.getKey()))
                                         .findFirst()
-                                        .map(Project::getName)
+                                        .map(ProjectRef::name)
                                         .orElse("Progetto " + e.getKey());
                                 return FieldSetRemovalImpactDto.ProjectImpact.builder()
                                         .projectId(e.getKey())
@@ -408,9 +361,9 @@ class FieldSetPermissionReportingModule {
 
                     return FieldSetRemovalImpactDto.ItemTypeSetImpact.builder()
                             .itemTypeSetId(itemTypeSetId)
-                            .itemTypeSetName(its.getName())
-                            .projectId(its.getProject() != null ? its.getProject().getId() : null)
-                            .projectName(its.getProject() != null ? its.getProject().getName() : null)
+                            .itemTypeSetName(its.name())
+                            .projectId(its.ownerProject() != null ? its.ownerProject().id() : null)
+                            .projectName(its.ownerProject() != null ? its.ownerProject().name() : null)
                             .totalPermissions(totalPermissions)
                             .totalRoleAssignments(totalRoleAssignments)
                             .totalGlobalGrants(totalGlobalGrants)
@@ -452,30 +405,18 @@ class FieldSetPermissionReportingModule {
                 .sum();
     }
 
-    private AssignmentDetails resolveAssignmentDetails(
-            String permissionType,
-            Long permissionId,
-            ItemTypeSet itemTypeSet
-    ) {
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment(
-                permissionType,
-                permissionId,
-                itemTypeSet.getTenant()
-        );
+    private AssignmentDetails resolveAssignmentDetails(PermissionRow permission, ItemTypeSetNode itemTypeSet) {
+        Assignment assignment = permission.assignment();
 
-        List<String> assignedRoles = assignmentOpt.map(a -> a.getRoles().stream()
-                .map(Role::getName)
-                .collect(Collectors.toList()))
-                .orElseGet(ArrayList::new);
+        List<String> assignedRoles = assignment != null ? new ArrayList<>(assignment.roleNames()) : new ArrayList<>();
 
         List<String> assignedGrants = new ArrayList<>();
         Long globalGrantId = null;
         String globalGrantName = null;
-        if (assignmentOpt.isPresent() && assignmentOpt.get().getGrant() != null) {
-            Grant grant = assignmentOpt.get().getGrant();
-            globalGrantId = grant.getId();
-            globalGrantName = grant.getRole() != null
-                    ? grant.getRole().getName()
+        if (assignment != null && assignment.hasGrant()) {
+            globalGrantId = assignment.grantId();
+            globalGrantName = assignment.grantRoleName() != null
+                    ? assignment.grantRoleName()
                     : "Grant globale";
             assignedGrants.add(globalGrantName);
         }
@@ -483,44 +424,24 @@ class FieldSetPermissionReportingModule {
         List<FieldSetRemovalImpactDto.ProjectGrantInfo> projectGrants = new ArrayList<>();
         List<FieldSetRemovalImpactDto.ProjectRoleInfo> projectRoles = new ArrayList<>();
 
-        Set<Project> projectsToCheck = new HashSet<>();
-        if (itemTypeSet.getProject() != null) {
-            projectsToCheck.add(itemTypeSet.getProject());
-        }
-        if (itemTypeSet.getProjectsAssociation() != null) {
-            projectsToCheck.addAll(itemTypeSet.getProjectsAssociation());
-        }
-
-        for (Project project : projectsToCheck) {
-            Optional<PermissionAssignment> projectAssignmentOpt =
-                    projectPermissionAssignmentService.getProjectAssignment(
-                            permissionType,
-                            permissionId,
-                            project.getId(),
-                            itemTypeSet.getTenant()
-                    );
-
-            if (projectAssignmentOpt.isEmpty()) {
+        for (ProjectRef project : itemTypeSet.allProjects()) {
+            Assignment projectAssignment = permission.projectAssignment(project.id());
+            if (projectAssignment == null) {
                 continue;
             }
 
-            PermissionAssignment projectAssignment = projectAssignmentOpt.get();
-            if (projectAssignment.getGrant() != null) {
+            if (projectAssignment.hasGrant()) {
                 projectGrants.add(FieldSetRemovalImpactDto.ProjectGrantInfo.builder()
-                        .projectId(project.getId())
-                        .projectName(project.getName())
+                        .projectId(project.id())
+                        .projectName(project.name())
                         .build());
             }
 
-            Set<Role> projectRolesSet = projectAssignment.getRoles();
-            if (projectRolesSet != null && !projectRolesSet.isEmpty()) {
-                List<String> roleNames = projectRolesSet.stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList());
+            if (projectAssignment.hasRoles()) {
                 projectRoles.add(FieldSetRemovalImpactDto.ProjectRoleInfo.builder()
-                        .projectId(project.getId())
-                        .projectName(project.getName())
-                        .roles(roleNames)
+                        .projectId(project.id())
+                        .projectName(project.name())
+                        .roles(new ArrayList<>(projectAssignment.roleNames()))
                         .build());
             }
         }
@@ -0,0 +1,430 @@
+package com.example.demo.service.impactjob;
+
+import com.example.demo.configchange.ConfigChangeOutbox;
+import com.example.demo.dto.ImpactJobDto;
+import com.example.demo.entity.ImpactAnalysisJob;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.enums.ImpactJobStatus;
+import com.example.demo.enums.ImpactJobType;
+import com.example.demo.exception.ApiException;
+import com.example.demo.repository.ImpactAnalysisJobRepository;
+import com.example.demo.service.ItemTypeConfigurationMigrationService;
+import com.example.demo.service.WorkflowImpactAnalysisService;
+import com.example.demo.tenant.TenantContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Analisi d'impatto lunghe (rimozione di stati, migrazione di una configurazione) eseguite come job:
+ * la richiesta restituisce subito l'id del job, il client legge avanzamento e report quando è pronto.
+ *
+ * I job girano su virtual thread; ogni tenant ha al massimo max-running-per-tenant analisi in esecuzione
+ * contemporanea (le altre restano QUEUED) e max-active-per-tenant job non conclusi su questo nodo.
+ * Lo stato è tenuto in memoria dal nodo che esegue il job e scritto su impact_analysis_job a ogni fase:
+ * qualsiasi nodo può rispondere su stato e report, e inoltrare l'annullamento al nodo proprietario.
+ */
+@Slf4j
+@Service
+public class ImpactJobService {
+
+    private final WorkflowImpactAnalysisService workflowImpactAnalysisService;
+    private final ItemTypeConfigurationMigrationService migrationService;
+    private final ImpactAnalysisJobRepository jobRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final String nodeId;
+    private final int maxRunningPerTenant;
+    private final int maxActivePerTenant;
+    private final Duration retention;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, RunningJob> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, TenantSlots> tenantSlots = new ConcurrentHashMap<>();
+
+    public ImpactJobService(WorkflowImpactAnalysisService workflowImpactAnalysisService,
+                            ItemTypeConfigurationMigrationService migrationService,
+                            ImpactAnalysisJobRepository jobRepository,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            ConfigChangeOutbox configChangeOutbox,
+                            @Value("${impact.jobs.max-running-per-tenant:2}") int maxRunningPerTenant,
+                            @Value("${impact.jobs.max-active-per-tenant:8}") int maxActivePerTenant,
+                            @Value("${impact.jobs.retention:PT1H}") Duration retention) {
+        this.workflowImpactAnalysisService = workflowImpactAnalysisService;
+        this.migrationService = migrationService;
+        this.jobRepository = jobRepository;
+        this.objectMapper = objectMapper;
+        // Le fasi sono registrate mentre l'analisi è dentro la sua transazione (di sola lettura)
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = configChangeOutbox.nodeId();
+        this.maxRunningPerTenant = maxRunningPerTenant;
+        this.maxActivePerTenant = maxActivePerTenant;
+        this.retention = retention;
+    }
+
+    public ImpactJobDto submitStatusRemoval(Tenant tenant,
+                                            User user,
+                                            Long workflowId,
+                                            Set<Long> removedStatusIds,
+                                            Set<Long> actuallyRemovedTransitionIds) {
+        return submit(tenant, user, ImpactJobType.STATUS_REMOVAL, workflowId,
+                progress -> workflowImpactAnalysisService.analyzeStatusRemovalImpact(
+                        tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds, progress));
+    }
+
+    public ImpactJobDto submitMigration(Tenant tenant,
+                                        User user,
+                                        Long itemTypeConfigurationId,
+                                        Long newFieldSetId,
+                                        Long newWorkflowId) {
+        return submit(tenant, user, ImpactJobType.CONFIGURATION_MIGRATION, itemTypeConfigurationId,
+                progress -> migrationService.analyzeMigrationImpact(
+                        tenant, itemTypeConfigurationId, newFieldSetId, newWorkflowId, progress));
+    }
+
+    public ImpactJobDto getJob(Tenant tenant, User user, String jobId) {
+        RunningJob job = jobs.get(jobId);
+        if (job != null) {
+            job.checkOwner(tenant, user);
+            return job.toDto();
+        }
+        return toDto(findStored(tenant, user, jobId));
+    }
+
+    /**
+     * Report del job concluso, già serializzato in JSON (lo stesso letto dagli altri nodi).
+     */
+    public String getResultJson(Tenant tenant, User user, String jobId) {
+        RunningJob job = jobs.get(jobId);
+        ImpactJobStatus status;
+        String resultJson;
+        if (job != null) {
+            job.checkOwner(tenant, user);
+            status = job.status;
+            resultJson = job.resultJson;
+        } else {
+            ImpactAnalysisJob stored = findStored(tenant, user, jobId);
+            status = stored.getStatus();
+            resultJson = stored.getResultJson();
+        }
+        if (status != ImpactJobStatus.COMPLETED || resultJson == null) {
+            throw new ApiException("IMPACT_JOB_NOT_COMPLETED: job " + jobId + " in stato " + status);
+        }
+        return resultJson;
+    }
+
+    /**
+     * Annulla un job non concluso. Se il job gira su un altro nodo l'annullamento viene registrato
+     * e applicato dal nodo proprietario all'inizio della fase successiva.
+     */
+    public ImpactJobDto cancel(Tenant tenant, User user, String jobId) {
+        RunningJob job = jobs.get(jobId);
+        if (job != null) {
+            job.checkOwner(tenant, user);
+            job.cancelRequested = true;
+            if (job.claimed.compareAndSet(false, true)) {
+                // Il task non è ancora partito: non partirà più, il job si chiude qui
+                job.future.cancel(false);
+                job.finish(ImpactJobStatus.CANCELLED, null);
+                storeQuietly(job);
+                tenantSlots.get(job.tenantId).active.decrementAndGet();
+            } else {
+                job.future.cancel(true);
+            }
+            return job.toDto();
+        }
+        ImpactAnalysisJob stored = findStored(tenant, user, jobId);
+        if (!stored.getStatus().isFinal()) {
+            jobRepository.requestCancel(jobId);
+        }
+        return toDto(stored);
+    }
+
+    @Scheduled(fixedDelayString = "${impact.jobs.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        Instant before = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.status.isFinal() && job.completedAt.isBefore(before));
+        try {
+            int deleted = jobRepository.deleteUpdatedBefore(before);
+            if (deleted > 0) {
+                log.debug("Job di analisi d'impatto: eliminati {} job scaduti", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pulizia job di analisi d'impatto fallita: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ImpactJobDto submit(Tenant tenant,
+                                User user,
+                                ImpactJobType type,
+                                Long targetId,
+                                Function<ImpactProgressListener, Object> analysis) {
+        TenantSlots slots = tenantSlots.computeIfAbsent(tenant.getId(), id -> new TenantSlots(maxRunningPerTenant));
+        if (slots.active.incrementAndGet() > maxActivePerTenant) {
+            slots.active.decrementAndGet();
+            throw new ApiException("IMPACT_JOB_LIMIT: troppe analisi in corso per la tenant, riprovare più tardi");
+        }
+
+        RunningJob job = new RunningJob(UUID.randomUUID().toString(), tenant.getId(), user.getId(), type, targetId);
+        try {
+            ImpactAnalysisJob entity = new ImpactAnalysisJob();
+            entity.setId(job.id);
+            entity.setTenantId(job.tenantId);
+            entity.setUserId(job.userId);
+            entity.setType(type);
+            entity.setTargetId(targetId);
+            entity.setOriginNode(nodeId);
+            entity.setCreatedAt(job.createdAt);
+            copyState(job, entity);
+            jobRepository.save(entity);
+
+            job.future = executor.submit(() -> run(job, slots, analysis));
+            jobs.put(job.id, job);
+        } catch (RuntimeException e) {
+            jobs.remove(job.id);
+            slots.active.decrementAndGet();
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    private void run(RunningJob job, TenantSlots slots, Function<ImpactProgressListener, Object> analysis) {
+        if (!job.claimed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            slots.running.acquire();
+            try {
+                TenantContext.setCurrentTenantId(job.tenantId);
+                job.checkCancelled();
+                job.status = ImpactJobStatus.RUNNING;
+                job.startedAt = Instant.now();
+                store(job, entity -> { });
+
+                Object result = analysis.apply(job);
+                job.resultJson = objectMapper.writeValueAsString(result);
+                job.finish(ImpactJobStatus.COMPLETED, null);
+                store(job, entity -> entity.setResultJson(job.resultJson));
+            } finally {
+                TenantContext.clear();
+                slots.running.release();
+            }
+        } catch (InterruptedException | CancellationException e) {
+            job.finish(ImpactJobStatus.CANCELLED, null);
+            storeQuietly(job);
+        } catch (JsonProcessingException e) {
+            log.error("Serializzazione del report del job {} fallita", job.id, e);
+            job.finish(ImpactJobStatus.FAILED, "Error serializing impact report: " + e.getMessage());
+            storeQuietly(job);
+        } catch (RuntimeException e) {
+            if (job.cancelRequested) {
+                // Interruzione arrivata durante una query: l'errore è l'effetto dell'annullamento
+                job.finish(ImpactJobStatus.CANCELLED, null);
+                storeQuietly(job);
+                return;
+            }
+            if (!(e instanceof ApiException)) {
+                log.error("Job di analisi d'impatto {} fallito", job.id, e);
+            }
+            job.finish(ImpactJobStatus.FAILED, e.getMessage());
+            storeQuietly(job);
+        } finally {
+            slots.active.decrementAndGet();
+        }
+    }
+
+    /**
+     * Aggiorna la riga del job (caricata e salvata nella stessa transazione, senza toccare cancel_requested).
+     */
+    private void store(RunningJob job, Consumer<ImpactAnalysisJob> changes) {
+        transaction.executeWithoutResult(status -> jobRepository.findById(job.id).ifPresent(entity -> {
+            copyState(job, entity);
+            changes.accept(entity);
+        }));
+    }
+
+    private void storeQuietly(RunningJob job) {
+        try {
+            store(job, entity -> { });
+        } catch (RuntimeException e) {
+            log.warn("Aggiornamento del job {} fallito: {}", job.id, e.getMessage());
+        }
+    }
+
+    private void copyState(RunningJob job, ImpactAnalysisJob entity) {
+        entity.setStatus(job.status);
+        entity.setPhase(job.phase);
+        entity.setCountsJson(writeCounts(job.countsSnapshot()));
+        entity.setError(job.error != null && job.error.length() > 1000 ? job.error.substring(0, 1000) : job.error);
+        entity.setStartedAt(job.startedAt);
+        entity.setCompletedAt(job.completedAt);
+        entity.setUpdatedAt(Instant.now());
+    }
+
+    private ImpactAnalysisJob findStored(Tenant tenant, User user, String jobId) {
+        ImpactAnalysisJob stored = jobRepository.findByIdAndTenantId(jobId, tenant.getId())
+                .orElseThrow(() -> new ApiException("Impact job not found: " + jobId));
+        if (!stored.getUserId().equals(user.getId())) {
+            throw new ApiException("Impact job not found: " + jobId);
+        }
+        return stored;
+    }
+
+    private ImpactJobDto toDto(ImpactAnalysisJob stored) {
+        return new ImpactJobDto(
+                stored.getId(),
+                stored.getType(),
+                stored.getTargetId(),
+                stored.getStatus(),
+                stored.getPhase(),
+                readCounts(stored.getCountsJson()),
+                stored.getError(),
+                stored.getCreatedAt(),
+                stored.getStartedAt(),
+                stored.getCompletedAt()
+        );
+    }
+
+    private String writeCounts(Map<String, Long> counts) {
+        try {
+            return objectMapper.writeValueAsString(counts);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Error serializing job progress: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Long> readCounts(String countsJson) {
+        if (countsJson == null || countsJson.isBlank()) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(countsJson, new TypeReference<LinkedHashMap<String, Long>>() { });
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Error reading job progress: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class TenantSlots {
+
+        private final Semaphore running;
+        // Job non conclusi (in coda o in esecuzione) su questo nodo
+        private final AtomicInteger active = new AtomicInteger();
+
+        private TenantSlots(int maxRunning) {
+            this.running = new Semaphore(maxRunning, true);
+        }
+    }
+
+    /**
+     * Stato in memoria di un job eseguito da questo nodo; è anche il listener di avanzamento dell'analisi.
+     */
+    private final class RunningJob implements ImpactProgressListener {
+
+        private final String id;
+        private final Long tenantId;
+        private final Long userId;
+        private final ImpactJobType type;
+        private final Long targetId;
+        private final Instant createdAt = Instant.now();
+        private final Map<String, Long> counts = Collections.synchronizedMap(new LinkedHashMap<>());
+        // Preso da chi arriva prima tra l'esecuzione e l'annullamento di un job ancora in coda
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private volatile ImpactJobStatus status = ImpactJobStatus.QUEUED;
+        private volatile String phase;
+        private volatile String error;
+        private volatile String resultJson;
+        private volatile Instant startedAt;
+        private volatile Instant completedAt;
+        private volatile boolean cancelRequested;
+        private volatile Future<?> future;
+
+        private RunningJob(String id, Long tenantId, Long userId, ImpactJobType type, Long targetId) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.userId = userId;
+            this.type = type;
+            this.targetId = targetId;
+        }
+
+        @Override
+        public void phase(String phase) {
+            checkCancelled();
+            this.phase = phase;
+            store(this, entity -> { });
+        }
+
+        @Override
+        public void count(String name, long value) {
+            counts.put(name, value);
+        }
+
+        /**
+         * Interrompe il job se è stato annullato su questo nodo o, tramite la riga del job, su un altro.
+         */
+        private void checkCancelled() {
+            if (cancelRequested || Thread.currentThread().isInterrupted()
+                    || jobRepository.findCancelRequested(id).orElse(false)) {
+                cancelRequested = true;
+                throw new CancellationException("Impact job cancelled: " + id);
+            }
+        }
+
+        private void finish(ImpactJobStatus finalStatus, String failure) {
+            error = failure;
+            completedAt = Instant.now();
+            status = finalStatus;
+        }
+
+        private void checkOwner(Tenant tenant, User user) {
+            if (!tenantId.equals(tenant.getId()) || !userId.equals(user.getId())) {
+                throw new ApiException("Impact job not found: " + id);
+            }
+        }
+
+        private Map<String, Long> countsSnapshot() {
+            synchronized (counts) {
+                return new LinkedHashMap<>(counts);
+            }
+        }
+
+        private ImpactJobDto toDto() {
+            return new ImpactJobDto(id, type, targetId, status, phase, countsSnapshot(), error,
+                    createdAt, startedAt, completedAt);
+        }
+    }
+}
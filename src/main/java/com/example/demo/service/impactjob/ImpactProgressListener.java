@@ -0,0 +1,24 @@
+package com.example.demo.service.impactjob;
+
+/**
+ * Avanzamento di un'analisi d'impatto: fase corrente e conteggi (ItemTypeSet coinvolti, permission trovate, ...).
+ *
+ * Le analisi lanciate in modalità job ricevono il listener del job; le chiamate sincrone usano {@link #NONE}.
+ * {@link #phase(String)} è anche il punto in cui un job annullato si interrompe.
+ */
+public interface ImpactProgressListener {
+
+    ImpactProgressListener NONE = new ImpactProgressListener() {
+        @Override
+        public void phase(String phase) {
+        }
+
+        @Override
+        public void count(String name, long value) {
+        }
+    };
+
+    void phase(String phase);
+
+    void count(String name, long value);
+}
@@ -0,0 +1,461 @@
+package com.example.demo.service.item;
+
+import com.example.demo.dto.ItemBulkJobCreateDto;
+import com.example.demo.dto.ItemBulkJobDto;
+import com.example.demo.entity.ItemBulkJob;
+import com.example.demo.entity.ItemBulkJobFailure;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.enums.ItemBulkJobStatus;
+import com.example.demo.enums.ItemBulkJobType;
+import com.example.demo.exception.ApiException;
+import com.example.demo.repository.ItemBulkInsertRepository;
+import com.example.demo.repository.ItemBulkInsertRepository.FailureRow;
+import com.example.demo.repository.ItemBulkJobFailureRepository;
+import com.example.demo.repository.ItemBulkJobRepository;
+import com.example.demo.repository.ItemRepository;
+import com.example.demo.repository.ItemRepository.StateView;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.item.ItemFieldValueService.FieldWrite;
+import com.example.demo.tenant.TenantContext;
+import com.example.demo.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transizioni e modifiche in blocco sugli item di un progetto, eseguite come job in background.
+ *
+ * I job girano su un pool di thread fisso (items.bulk-jobs.threads) con coda limitata: il numero di connessioni
+ * e di CPU usate dai job non cresce con le richieste, e il traffico interattivo della tenant non resta senza risorse.
+ * Ogni tenant ha al massimo max-active-per-tenant job non conclusi su questo nodo.
+ *
+ * Gli item vengono letti a blocchi di chunk-size (keyset sull'id, o sulla lista di id) e raggruppati per
+ * (configurazione, stato di partenza): workflow ed ExecutorPermission si verificano una volta per gruppo con
+ * ItemTransitionEngine, poi ogni gruppo valido è un SELECT ... FOR UPDATE degli item ancora nello stato di partenza
+ * e un solo UPDATE di quegli item. Le modifiche
+ * (EDIT) verificano allo stesso modo i permessi EDITORS nello stato del gruppo, e i valori dei field di ogni gruppo
+ * si scrivono con una DELETE e INSERT multi-riga per tipo di valore. Ogni blocco
+ * è una transazione con gli item non modificati e i contatori del job: un annullamento o un errore lascia
+ * applicati i blocchi già committati.
+ */
+@Slf4j
+@Service
+public class ItemBulkJobService {
+
+    private static final int MESSAGE_MAX_LENGTH = 500;
+    private static final int ERROR_MAX_LENGTH = 1000;
+    private static final int FAILURE_PAGE_SIZE = 1000;
+
+    private final ItemBulkJobRepository jobRepository;
+    private final ItemBulkJobFailureRepository failureRepository;
+    private final ItemRepository itemRepository;
+    private final ItemBulkInsertRepository itemBulkInsertRepository;
+    private final ItemTransitionEngine itemTransitionEngine;
+    private final ItemFieldValueService itemFieldValueService;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final int maxIds;
+    private final int maxFailures;
+    private final int maxActivePerTenant;
+    private final Duration retention;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, JobRun> jobs = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> activePerTenant = new ConcurrentHashMap<>();
+
+    public ItemBulkJobService(ItemBulkJobRepository jobRepository,
+                              ItemBulkJobFailureRepository failureRepository,
+                              ItemRepository itemRepository,
+                              ItemBulkInsertRepository itemBulkInsertRepository,
+                              ItemTransitionEngine itemTransitionEngine,
+                              ItemFieldValueService itemFieldValueService,
+                              TenantConfigSnapshotService tenantConfigSnapshotService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${items.bulk-jobs.threads:2}") int threads,
+                              @Value("${items.bulk-jobs.queue-capacity:64}") int queueCapacity,
+                              @Value("${items.bulk-jobs.max-active-per-tenant:4}") int maxActivePerTenant,
+                              @Value("${items.bulk-jobs.chunk-size:1000}") int chunkSize,
+                              @Value("${items.bulk-jobs.max-ids:100000}") int maxIds,
+                              @Value("${items.bulk-jobs.max-failures:10000}") int maxFailures,
+                              @Value("${items.bulk-jobs.retention:P7D}") Duration retention) {
+        this.jobRepository = jobRepository;
+        this.failureRepository = failureRepository;
+        this.itemRepository = itemRepository;
+        this.itemBulkInsertRepository = itemBulkInsertRepository;
+        this.itemTransitionEngine = itemTransitionEngine;
+        this.itemFieldValueService = itemFieldValueService;
+        this.tenantConfigSnapshotService = tenantConfigSnapshotService;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxIds = maxIds;
+        this.maxFailures = Math.max(0, maxFailures);
+        this.maxActivePerTenant = maxActivePerTenant;
+        this.retention = retention;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                Thread.ofPlatform().name("item-bulk-job-", 0).daemon(true).factory());
+    }
+
+    public ItemBulkJobDto submit(Tenant tenant, User user, Long projectId, ItemBulkJobCreateDto dto) {
+        validate(dto);
+        if (tenantConfigSnapshotService.get(tenant.getId()).itemTypeSetIdOfProject(projectId) == null) {
+            throw new ApiException("Project not found");
+        }
+        AtomicInteger active = activePerTenant.computeIfAbsent(tenant.getId(), id -> new AtomicInteger());
+        if (active.incrementAndGet() > maxActivePerTenant) {
+            active.decrementAndGet();
+            throw new ApiException("ITEM_BULK_JOB_LIMIT: troppi job in blocco in corso per la tenant, riprovare più tardi");
+        }
+
+        JobRun job = new JobRun(UUID.randomUUID().toString(), tenant.getId(), projectId, user.getId(), dto);
+        Instant now = Instant.now();
+        ItemBulkJob entity = new ItemBulkJob();
+        entity.setId(job.id);
+        entity.setTenantId(job.tenantId);
+        entity.setProjectId(projectId);
+        entity.setUserId(job.userId);
+        entity.setType(dto.type());
+        entity.setStatus(ItemBulkJobStatus.QUEUED);
+        entity.setRequestJson(writeRequest(dto));
+        entity.setCreatedAt(now);
+        entity.setUpdatedAt(now);
+        try {
+            jobRepository.save(entity);
+            jobs.put(job.id, job);
+            executor.execute(job.task);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            jobRepository.finish(job.id, ItemBulkJobStatus.FAILED, "Job queue is full", Instant.now());
+            throw new ApiException("ITEM_BULK_JOB_LIMIT: coda dei job in blocco piena, riprovare più tardi");
+        } catch (RuntimeException e) {
+            jobs.remove(job.id);
+            active.decrementAndGet();
+            throw e;
+        }
+        return toDto(entity);
+    }
+
+    public ItemBulkJobDto getJob(Tenant tenant, User user, Long projectId, String jobId) {
+        return toDto(findStored(tenant, user, projectId, jobId));
+    }
+
+    /**
+     * Annulla un job non concluso: un job in coda non parte più, uno in esecuzione si ferma alla fine
+     * del blocco corrente. Se il job gira su un altro nodo l'annullamento passa dalla riga del job.
+     */
+    public ItemBulkJobDto cancel(Tenant tenant, User user, Long projectId, String jobId) {
+        ItemBulkJob stored = findStored(tenant, user, projectId, jobId);
+        if (stored.getStatus().isFinal()) {
+            return toDto(stored);
+        }
+        jobRepository.requestCancel(jobId);
+        JobRun job = jobs.get(jobId);
+        if (job != null) {
+            job.cancelRequested = true;
+            if (job.task.cancel(false)) {
+                // Il task non è ancora partito: non partirà più, il job si chiude qui
+                close(job);
+                jobRepository.finish(jobId, ItemBulkJobStatus.CANCELLED, null, Instant.now());
+            }
+        }
+        return toDto(findStored(tenant, user, projectId, jobId));
+    }
+
+    /**
+     * Scrive gli item non modificati dal job (id e motivo), nell'ordine in cui il job li ha trovati.
+     */
+    public void writeFailures(String jobId, CsvWriter csv) throws IOException {
+        csv.row("Item ID", "Message");
+        long afterId = 0L;
+        while (true) {
+            List<ItemBulkJobFailure> page = failureRepository.findPage(jobId, afterId, PageRequest.of(0, FAILURE_PAGE_SIZE));
+            for (ItemBulkJobFailure failure : page) {
+                csv.row(failure.getItemId(), failure.getMessage());
+            }
+            if (page.size() < FAILURE_PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${items.bulk-jobs.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        Instant before = Instant.now().minus(retention);
+        try {
+            failureRepository.deleteOfJobsUpdatedBefore(before);
+            int deleted = jobRepository.deleteUpdatedBefore(before);
+            if (deleted > 0) {
+                log.debug("Job in blocco sugli item: eliminati {} job scaduti", deleted);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Pulizia job in blocco sugli item fallita: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void validate(ItemBulkJobCreateDto dto) {
+        if (dto.type() == ItemBulkJobType.TRANSITION && dto.transitionId() == null) {
+            throw new ApiException("transitionId is required for TRANSITION jobs");
+        }
+        if (dto.type() == ItemBulkJobType.EDIT && (dto.fields() == null || dto.fields().isEmpty())) {
+            throw new ApiException("fields are required for EDIT jobs");
+        }
+        if (dto.itemIds() != null && dto.itemIds().size() > maxIds) {
+            throw new ApiException("Too many item ids: at most " + maxIds + " per job, use a filter instead");
+        }
+    }
+
+    private void run(JobRun job) {
+        ItemBulkJobStatus status = ItemBulkJobStatus.COMPLETED;
+        String error = null;
+        try {
+            TenantContext.setCurrentTenantId(job.tenantId);
+            job.checkCancelled();
+            jobRepository.markStarted(job.id, ItemBulkJobStatus.RUNNING, Instant.now());
+            if (job.request.itemIds() != null && !job.request.itemIds().isEmpty()) {
+                processIds(job);
+            } else {
+                processFilter(job);
+            }
+        } catch (CancellationException e) {
+            status = ItemBulkJobStatus.CANCELLED;
+        } catch (ApiException e) {
+            status = ItemBulkJobStatus.FAILED;
+            error = e.getMessage();
+        } catch (RuntimeException e) {
+            log.error("Job in blocco sugli item {} fallito", job.id, e);
+            status = ItemBulkJobStatus.FAILED;
+            error = "Bulk job failed: " + e.getMessage();
+        } finally {
+            TenantContext.clear();
+            close(job);
+        }
+        try {
+            String stored = error != null && error.length() > ERROR_MAX_LENGTH ? error.substring(0, ERROR_MAX_LENGTH) : error;
+            jobRepository.finish(job.id, status, stored, Instant.now());
+        } catch (RuntimeException e) {
+            log.warn("Aggiornamento del job in blocco {} fallito: {}", job.id, e.getMessage());
+        }
+    }
+
+    /**
+     * Item del progetto che rispettano il filtro, a blocchi in ordine di id. Con il filtro per stato la lettura
+     * usa idx_item_project_status_id; quello per configurazione viene applicato sulle righe lette.
+     */
+    private void processFilter(JobRun job) {
+        Long workflowStatusId = job.request.workflowStatusId();
+        Long itemTypeConfigurationId = job.request.itemTypeConfigurationId();
+        long afterId = 0L;
+        while (true) {
+            job.checkCancelled();
+            PageRequest page = PageRequest.of(0, chunkSize);
+            List<StateView> rows = workflowStatusId == null
+                    ? itemRepository.findStatePageByProjectId(job.projectId, afterId, page)
+                    : itemRepository.findStatePageByProjectIdAndWorkflowStatusId(job.projectId, workflowStatusId, afterId, page);
+            if (rows.isEmpty()) {
+                return;
+            }
+            afterId = rows.get(rows.size() - 1).getId();
+            List<StateView> selected = itemTypeConfigurationId == null
+                    ? rows
+                    : rows.stream().filter(row -> itemTypeConfigurationId.equals(row.getItemTypeConfigurationId())).toList();
+            applyChunk(job, selected, List.of());
+            if (rows.size() < chunkSize) {
+                return;
+            }
+        }
+    }
+
+    private void processIds(JobRun job) {
+        List<Long> ids = job.request.itemIds().stream().filter(id -> id != null).distinct().sorted().toList();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            job.checkCancelled();
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<StateView> rows = itemRepository.findStates(chunk, job.projectId, job.tenantId);
+            Set<Long> found = new HashSet<>(rows.size() * 2);
+            rows.forEach(row -> found.add(row.getId()));
+            List<Long> missing = chunk.stream().filter(id -> !found.contains(id)).toList();
+            applyChunk(job, rows, missing);
+        }
+    }
+
+    private void applyChunk(JobRun job, List<StateView> rows, List<Long> missingIds) {
+        if (rows.isEmpty() && missingIds.isEmpty()) {
+            return;
+        }
+        List<FailureRow> failures = new ArrayList<>();
+        missingIds.forEach(id -> failures.add(new FailureRow(id, "Item not found in project")));
+
+        // Workflow, permessi e valori dei field dipendono solo da configurazione e stato: una verifica per gruppo
+        Map<Long, String> fields = job.request.fields() != null ? job.request.fields() : Map.of();
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(job.tenantId);
+        Map<GroupKey, List<Long>> groups = new LinkedHashMap<>();
+        for (StateView row : rows) {
+            groups.computeIfAbsent(new GroupKey(row.getItemTypeConfigurationId(), row.getWorkflowStatusId()),
+                    key -> new ArrayList<>()).add(row.getId());
+        }
+        List<GroupMove> moves = new ArrayList<>(groups.size());
+        groups.forEach((key, ids) -> {
+            try {
+                Long to = key.workflowStatusId();
+                if (job.request.type() == ItemBulkJobType.TRANSITION) {
+                    to = itemTransitionEngine.check(job.tenantId, job.userId, job.projectId,
+                            key.itemTypeConfigurationId(), key.workflowStatusId(), job.request.transitionId(),
+                            fields.keySet());
+                } else {
+                    itemTransitionEngine.checkFieldEdit(job.tenantId, job.userId, job.projectId,
+                            key.itemTypeConfigurationId(), key.workflowStatusId(), fields.keySet());
+                }
+                List<FieldWrite> writes = fields.isEmpty() ? List.of()
+                        : itemFieldValueService.prepare(snapshot, snapshot.configuration(key.itemTypeConfigurationId()), fields);
+                moves.add(new GroupMove(key.workflowStatusId(), to, ids, writes));
+            } catch (ApiException e) {
+                String message = truncate(e.getMessage());
+                ids.forEach(id -> failures.add(new FailureRow(id, message)));
+            }
+        });
+
+        Instant now = Instant.now();
+        int updated = transaction.execute(status -> {
+            int moved = 0;
+            for (GroupMove move : moves) {
+                // Solo gli item ancora nello stato letto, bloccati: l'UPDATE cambia questi e i field si scrivono
+                // solo su questi. Un item portato nello stato di arrivo da un'altra richiesta resta fuori
+                List<Long> applied = itemRepository.lockIdsInWorkflowStatus(move.itemIds(),
+                        move.fromWorkflowStatusId());
+                if (applied.size() < move.itemIds().size()) {
+                    Set<Long> locked = new HashSet<>(applied);
+                    move.itemIds().stream().filter(id -> !locked.contains(id))
+                            .forEach(id -> failures.add(new FailureRow(id, "Item was modified by another request")));
+                }
+                if (applied.isEmpty()) {
+                    continue;
+                }
+                moved += job.request.type() == ItemBulkJobType.TRANSITION
+                        ? itemRepository.updateWorkflowStatusInBulk(applied, move.fromWorkflowStatusId(),
+                                move.toWorkflowStatusId(), now)
+                        : itemRepository.touchInBulk(applied, move.fromWorkflowStatusId(), now);
+                itemFieldValueService.write(job.projectId, applied, move.writes());
+            }
+            int room = (int) Math.max(0, Math.min(failures.size(), maxFailures - job.storedFailures));
+            itemBulkInsertRepository.insertBulkJobFailures(job.id, failures.subList(0, room));
+            jobRepository.addProgress(job.id, rows.size() + missingIds.size(), moved, failures.size(), now);
+            job.storedFailures += room;
+            return moved;
+        });
+        log.trace("Job in blocco {}: {} item aggiornati, {} non modificati", job.id, updated, failures.size());
+    }
+
+    private void close(JobRun job) {
+        if (jobs.remove(job.id) != null) {
+            activePerTenant.get(job.tenantId).decrementAndGet();
+        }
+    }
+
+    private ItemBulkJob findStored(Tenant tenant, User user, Long projectId, String jobId) {
+        ItemBulkJob stored = jobRepository.findByIdAndTenantIdAndProjectId(jobId, tenant.getId(), projectId)
+                .orElseThrow(() -> new ApiException("Bulk job not found: " + jobId));
+        if (!stored.getUserId().equals(user.getId())) {
+            throw new ApiException("Bulk job not found: " + jobId);
+        }
+        return stored;
+    }
+
+    private String writeRequest(ItemBulkJobCreateDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException e) {
+            throw new ApiException("Error serializing bulk job request: " + e.getMessage(), e);
+        }
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MESSAGE_MAX_LENGTH ? message.substring(0, MESSAGE_MAX_LENGTH) : message;
+    }
+
+    private static ItemBulkJobDto toDto(ItemBulkJob stored) {
+        return new ItemBulkJobDto(stored.getId(), stored.getProjectId(), stored.getType(), stored.getStatus(),
+                stored.getItemsProcessed(), stored.getItemsUpdated(), stored.getItemsFailed(), stored.getError(),
+                stored.getCreatedAt(), stored.getStartedAt(), stored.getCompletedAt());
+    }
+
+    private record GroupKey(Long itemTypeConfigurationId, Long workflowStatusId) {
+    }
+
+    private record GroupMove(Long fromWorkflowStatusId, Long toWorkflowStatusId, List<Long> itemIds,
+                             List<FieldWrite> writes) {
+    }
+
+    /**
+     * Job eseguito (o in coda) su questo nodo.
+     */
+    private final class JobRun {
+
+        private final String id;
+        private final Long tenantId;
+        private final Long projectId;
+        private final Long userId;
+        private final ItemBulkJobCreateDto request;
+        private final FutureTask<Void> task;
+        // Usato solo dal thread del job
+        private long storedFailures;
+        private volatile boolean cancelRequested;
+
+        private JobRun(String id, Long tenantId, Long projectId, Long userId, ItemBulkJobCreateDto request) {
+            this.id = id;
+            this.tenantId = tenantId;
+            this.projectId = projectId;
+            this.userId = userId;
+            this.request = request;
+            this.task = new FutureTask<>(() -> run(this), null);
+        }
+
+        /**
+         * Interrompe il job se è stato annullato su questo nodo o, tramite la riga del job, su un altro.
+         */
+        private void checkCancelled() {
+            if (cancelRequested || jobRepository.findCancelRequested(id).orElse(false)) {
+                cancelRequested = true;
+                throw new CancellationException("Bulk job cancelled: " + id);
+            }
+        }
+    }
+}
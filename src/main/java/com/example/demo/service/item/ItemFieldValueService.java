@@ -0,0 +1,320 @@
+package com.example.demo.service.item;
+
+import com.example.demo.entity.ItemFieldNumberValue;
+import com.example.demo.enums.FieldType;
+import com.example.demo.exception.ApiException;
+import com.example.demo.fieldtype.FieldTypeDescriptor;
+import com.example.demo.fieldtype.FieldTypeRegistry;
+import com.example.demo.fieldtype.FieldValueKind;
+import com.example.demo.repository.ItemBulkInsertRepository;
+import com.example.demo.repository.ItemBulkInsertRepository.FieldValueRow;
+import com.example.demo.repository.ItemFieldValueRepository;
+import com.example.demo.repository.ItemFieldValueRepository.ValueRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Valori dei field degli item.
+ *
+ * Il tipo di un field è quello della FieldConfiguration con cui compare nel FieldSet della configurazione
+ * dell'item, letto dallo snapshot; il tipo sceglie la tabella (vedi {@link FieldValueKind}). I valori arrivano
+ * come stringhe: numeri in notazione decimale, date ISO (yyyy-MM-dd, salvate come mezzanotte UTC), istanti ISO,
+ * id di opzioni, utenti o gruppi separati da virgola. Una stringa vuota o null cancella il valore.
+ * Le opzioni devono essere opzioni abilitate della FieldConfiguration; gli id di utenti e gruppi non vengono
+ * verificati.
+ */
+@Service
+@RequiredArgsConstructor
+public class ItemFieldValueService {
+
+    private static final int MAX_STRING_LENGTH = 255;
+
+    private final ItemFieldValueRepository itemFieldValueRepository;
+    private final ItemBulkInsertRepository itemBulkInsertRepository;
+    private final FieldTypeRegistry fieldTypeRegistry;
+
+    /**
+     * Valori degli item indicati, per item e poi per field; fieldIds null carica tutti i field.
+     * Una query per tipo di valore. I field a scelta multipla hanno come valore la lista degli id.
+     */
+    public Map<Long, Map<Long, Object>> load(Collection<Long> itemIds, Collection<Long> fieldIds) {
+        Map<Long, Map<Long, Object>> values = new LinkedHashMap<>();
+        if (itemIds.isEmpty() || (fieldIds != null && fieldIds.isEmpty())) {
+            return values;
+        }
+        for (FieldValueKind kind : FieldValueKind.values()) {
+            for (ValueRow row : itemFieldValueRepository.findValues(kind, itemIds, fieldIds)) {
+                Map<Long, Object> itemValues = values.computeIfAbsent(row.itemId(), id -> new TreeMap<>());
+                if (kind == FieldValueKind.ID) {
+                    @SuppressWarnings("unchecked")
+                    List<Long> ids = (List<Long>) itemValues.computeIfAbsent(row.fieldId(), id -> new ArrayList<Long>());
+                    ids.add((Long) row.value());
+                } else {
+                    itemValues.put(row.fieldId(), row.value());
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Converte e valida i valori per gli item di una configurazione. I field devono far parte del suo FieldSet;
+     * i permessi sono verificati da {@link ItemTransitionEngine}.
+     */
+    public List<FieldWrite> prepare(TenantConfigSnapshot snapshot, ConfigurationNode configuration,
+                                    Map<Long, String> values) {
+        FieldSetNode fieldSet = configuration.fieldSetId() != null ? snapshot.fieldSet(configuration.fieldSetId()) : null;
+        List<FieldWrite> writes = new ArrayList<>(values.size());
+        for (Map.Entry<Long, String> entry : values.entrySet()) {
+            Long fieldId = entry.getKey();
+            Long fieldConfigurationId = fieldSet != null ? fieldSet.fieldConfigurationId(fieldId) : null;
+            FieldConfigurationNode fieldConfiguration = fieldConfigurationId != null
+                    ? snapshot.fieldConfiguration(fieldConfigurationId) : null;
+            if (fieldConfiguration == null || fieldConfiguration.fieldType() == null) {
+                throw new ApiException("Field " + fieldId + " is not part of the item's FieldSet");
+            }
+            writes.add(new FieldWrite(fieldId, FieldValueKind.of(fieldConfiguration.fieldType()),
+                    parse(fieldConfiguration, entry.getValue())));
+        }
+        return writes;
+    }
+
+    /**
+     * Sostituisce i valori dei field indicati su tutti gli item, con DELETE e INSERT multi-riga.
+     * La DELETE passa da tutte le tabelle: se il tipo della FieldConfiguration è cambiato, i valori del tipo
+     * precedente non restano accanto ai nuovi. Va chiamato nella transazione che ha aggiornato gli item.
+     */
+    public void write(Long projectId, Collection<Long> itemIds, List<FieldWrite> writes) {
+        if (itemIds.isEmpty() || writes.isEmpty()) {
+            return;
+        }
+        List<Long> fieldIds = writes.stream().map(FieldWrite::fieldId).toList();
+        Map<FieldValueKind, List<FieldValueRow>> rowsByKind = new EnumMap<>(FieldValueKind.class);
+        for (Long itemId : itemIds) {
+            addRows(rowsByKind, itemId, writes);
+        }
+        for (FieldValueKind kind : FieldValueKind.values()) {
+            itemFieldValueRepository.deleteValues(kind, itemIds, fieldIds);
+        }
+        rowsByKind.forEach((kind, rows) -> itemBulkInsertRepository.insertFieldValues(kind, projectId, rows));
+    }
+
+    /**
+     * Valori di item appena inseriti (writes.get(i) per itemIds.get(i)): solo INSERT multi-riga, una per tipo
+     * di valore, nella transazione che ha inserito gli item.
+     */
+    public void insert(Long projectId, List<Long> itemIds, List<List<FieldWrite>> writes) {
+        Map<FieldValueKind, List<FieldValueRow>> rowsByKind = new EnumMap<>(FieldValueKind.class);
+        for (int i = 0; i < itemIds.size(); i++) {
+            addRows(rowsByKind, itemIds.get(i), writes.get(i));
+        }
+        rowsByKind.forEach((kind, rows) -> itemBulkInsertRepository.insertFieldValues(kind, projectId, rows));
+    }
+
+    /**
+     * Filtro e ordinamento della lista item su un field del progetto. Il field deve avere lo stesso tipo di valore
+     * in tutte le configurazioni dell'ItemTypeSet che lo usano. I field a id (opzioni, utenti, gruppi) si filtrano
+     * solo per uguaglianza e non si ordinano; i testi lunghi non si filtrano.
+     */
+    public FieldQuery query(TenantConfigSnapshot snapshot, Long projectId, Long fieldId,
+                            String value, String from, String to, boolean descending) {
+        FieldConfigurationNode fieldConfiguration = projectFieldConfiguration(snapshot, projectId, fieldId);
+        FieldValueKind kind = FieldValueKind.of(fieldConfiguration.fieldType());
+        if (!kind.isFilterable()) {
+            throw new ApiException("Field " + fieldId + " cannot be used to filter or sort items");
+        }
+        boolean range = !isBlank(from) || !isBlank(to);
+        if (!kind.isSortable() && (range || isBlank(value))) {
+            throw new ApiException("Field " + fieldId + " can only be filtered by value");
+        }
+        return new FieldQuery(fieldId, kind,
+                scalar(fieldConfiguration, value), scalar(fieldConfiguration, from), scalar(fieldConfiguration, to),
+                descending);
+    }
+
+    public List<ValueRow> findPage(Long projectId, FieldQuery query, Long workflowStatusId,
+                                   String afterValue, Long afterItemId, int limit) {
+        Object after = afterItemId != null ? cursorValue(query.kind(), afterValue) : null;
+        return itemFieldValueRepository.findPage(query.kind(), projectId, query.fieldId(),
+                query.equalTo(), query.from(), query.to(), workflowStatusId,
+                after, afterItemId, query.descending(), limit);
+    }
+
+    /**
+     * Forma testuale del valore per il cursore della pagina; {@link #findPage} la riconverte.
+     */
+    public static String cursorText(Object value) {
+        return value instanceof BigDecimal number ? number.toPlainString() : String.valueOf(value);
+    }
+
+    private FieldConfigurationNode projectFieldConfiguration(TenantConfigSnapshot snapshot, Long projectId, Long fieldId) {
+        Long itemTypeSetId = snapshot.itemTypeSetIdOfProject(projectId);
+        ItemTypeSetNode itemTypeSet = itemTypeSetId != null ? snapshot.itemTypeSet(itemTypeSetId) : null;
+        if (itemTypeSet == null) {
+            throw new ApiException("Project not found");
+        }
+        FieldConfigurationNode found = null;
+        for (long configurationId : itemTypeSet.configurationIds()) {
+            ConfigurationNode configuration = snapshot.configuration(configurationId);
+            FieldSetNode fieldSet = configuration != null && configuration.fieldSetId() != null
+                    ? snapshot.fieldSet(configuration.fieldSetId()) : null;
+            Long fieldConfigurationId = fieldSet != null ? fieldSet.fieldConfigurationId(fieldId) : null;
+            FieldConfigurationNode fieldConfiguration = fieldConfigurationId != null
+                    ? snapshot.fieldConfiguration(fieldConfigurationId) : null;
+            if (fieldConfiguration == null || fieldConfiguration.fieldType() == null) {
+                continue;
+            }
+            if (found != null && FieldValueKind.of(found.fieldType()) != FieldValueKind.of(fieldConfiguration.fieldType())) {
+                throw new ApiException("Field " + fieldId + " has different types in the project's item types");
+            }
+            found = fieldConfiguration;
+        }
+        if (found == null) {
+            throw new ApiException("Field " + fieldId + " is not used in the project");
+        }
+        return found;
+    }
+
+    private List<Object> parse(FieldConfigurationNode fieldConfiguration, String raw) {
+        if (isBlank(raw)) {
+            return List.of();
+        }
+        FieldType fieldType = fieldConfiguration.fieldType();
+        if (FieldValueKind.of(fieldType) != FieldValueKind.ID) {
+            return List.of(scalar(fieldConfiguration, raw));
+        }
+
+        Set<Long> ids = new LinkedHashSet<>();
+        for (String part : raw.split(",")) {
+            if (!part.isBlank()) {
+                ids.add(parseId(fieldConfiguration.fieldId(), part));
+            }
+        }
+        FieldTypeDescriptor descriptor = fieldTypeRegistry.getDescriptor(fieldType);
+        if (descriptor != null && !descriptor.isSupportsMultiple() && ids.size() > 1) {
+            throw new ApiException("Field " + fieldConfiguration.fieldId() + " accepts a single value");
+        }
+        if (descriptor != null && descriptor.isSupportsOptions()) {
+            for (Long id : ids) {
+                if (!fieldConfiguration.containsOption(id)) {
+                    throw new ApiException("Option " + id + " is not an enabled option of field "
+                            + fieldConfiguration.fieldId());
+                }
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Valore singolo nel tipo Java della colonna (BigDecimal, String, Instant, Long), null se la stringa è vuota.
+     */
+    private static Object scalar(FieldConfigurationNode fieldConfiguration, String raw) {
+        if (isBlank(raw)) {
+            return null;
+        }
+        Long fieldId = fieldConfiguration.fieldId();
+        String text = raw.trim();
+        return switch (FieldValueKind.of(fieldConfiguration.fieldType())) {
+            case NUMBER -> {
+                BigDecimal number;
+                try {
+                    number = new BigDecimal(text);
+                } catch (NumberFormatException e) {
+                    throw new ApiException("Invalid number for field " + fieldId + ": " + text);
+                }
+                // Fuori da DECIMAL(30, 8) MySQL rifiuterebbe o arrotonderebbe il valore; gli zeri finali non contano
+                BigDecimal digits = number.stripTrailingZeros();
+                if (digits.precision() - digits.scale() > ItemFieldNumberValue.PRECISION - ItemFieldNumberValue.SCALE
+                        || digits.scale() > ItemFieldNumberValue.SCALE) {
+                    throw new ApiException("Number for field " + fieldId + " must have at most "
+                            + (ItemFieldNumberValue.PRECISION - ItemFieldNumberValue.SCALE) + " integer digits and "
+                            + ItemFieldNumberValue.SCALE + " decimals: " + text);
+                }
+                yield number;
+            }
+            case STRING -> {
+                if (text.length() > MAX_STRING_LENGTH) {
+                    throw new ApiException("Value of field " + fieldId + " exceeds " + MAX_STRING_LENGTH + " characters");
+                }
+                yield text;
+            }
+            case TEMPORAL -> {
+                try {
+                    yield fieldConfiguration.fieldType() == FieldType.DATE
+                            ? LocalDate.parse(text).atStartOfDay(ZoneOffset.UTC).toInstant()
+                            : Instant.parse(text);
+                } catch (DateTimeParseException e) {
+                    throw new ApiException("Invalid date for field " + fieldId + ": " + text);
+                }
+            }
+            case ID -> parseId(fieldId, text);
+            case TEXT -> raw;
+        };
+    }
+
+    private static Long parseId(Long fieldId, String text) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            throw new ApiException("Invalid id for field " + fieldId + ": " + text.trim());
+        }
+    }
+
+    private static Object cursorValue(FieldValueKind kind, String text) {
+        try {
+            return switch (kind) {
+                case NUMBER -> new BigDecimal(text);
+                case TEMPORAL -> Instant.parse(text);
+                case ID -> Long.parseLong(text);
+                case STRING, TEXT -> text;
+            };
+        } catch (RuntimeException e) {
+            throw new ApiException("Invalid cursor");
+        }
+    }
+
+    private static void addRows(Map<FieldValueKind, List<FieldValueRow>> rowsByKind, Long itemId,
+                                List<FieldWrite> writes) {
+        for (FieldWrite write : writes) {
+            List<FieldValueRow> rows = rowsByKind.computeIfAbsent(write.kind(), k -> new ArrayList<>());
+            write.values().forEach(value -> rows.add(new FieldValueRow(itemId, write.fieldId(), value)));
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Nuovi valori di un field: vuota per cancellarlo, più id per i field a scelta multipla.
+     */
+    public record FieldWrite(Long fieldId, FieldValueKind kind, List<Object> values) {
+    }
+
+    /**
+     * Filtro su un field già risolto: estremi convertiti nel tipo del valore, null se non indicati.
+     */
+    public record FieldQuery(Long fieldId, FieldValueKind kind, Object equalTo, Object from, Object to,
+                             boolean descending) {
+    }
+}
@@ -0,0 +1,624 @@
+package com.example.demo.service.item;
+
+import com.example.demo.dto.ItemImportDto;
+import com.example.demo.entity.ItemImport;
+import com.example.demo.entity.ItemImportError;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.enums.ItemImportFormat;
+import com.example.demo.enums.ItemImportStatus;
+import com.example.demo.exception.ApiException;
+import com.example.demo.repository.ItemBulkInsertRepository;
+import com.example.demo.repository.ItemBulkInsertRepository.ErrorRow;
+import com.example.demo.repository.ItemBulkInsertRepository.ItemRow;
+import com.example.demo.repository.ItemImportErrorRepository;
+import com.example.demo.repository.ItemImportRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.item.ItemFieldValueService.FieldWrite;
+import com.example.demo.service.workflow.compiled.CompiledWorkflow;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
+import com.example.demo.util.CsvReader;
+import com.example.demo.util.CsvWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Import in blocco di item in un progetto da file CSV (con intestazione) o NDJSON.
+ *
+ * Il file viene letto dallo stream della richiesta un record alla volta, senza mai tenerlo in memoria.
+ * Tipi e stati sono risolti una volta per import sullo snapshot della configurazione e sui workflow compilati:
+ * ogni riga costa solo lookup in memoria. Le righe valide vengono scritte con INSERT multi-riga
+ * (ItemBulkInsertRepository) e committate a blocchi di chunk-size righe insieme agli errori e ai contatori
+ * dell'import: un'interruzione lascia nel progetto i blocchi già committati, e lo stato dell'import li riporta.
+ *
+ * Colonne (CSV) o proprietà (NDJSON): title (obbligatoria), description, itemType (nome, senza distinzione
+ * di maiuscole) oppure itemTypeConfigurationId, status (nome; vuoto per lo stato iniziale).
+ * Le colonne con il nome di un field delle configurazioni del progetto (senza distinzione di maiuscole) oppure
+ * field:ID (per esempio field:42) sono i valori dei field, validati come nelle modifiche dell'item (FieldSet della configurazione,
+ * tipo, EDITORS nello stato) e scritti nella transazione del blocco; vuote per nessun valore. Le altre sono ignorate.
+ */
+@Slf4j
+@Service
+public class ItemImportService {
+
+    private static final int TITLE_MAX_LENGTH = 255;
+    private static final int MESSAGE_MAX_LENGTH = 500;
+    private static final int ERROR_MAX_LENGTH = 1000;
+    private static final int ERROR_PAGE_SIZE = 1000;
+    private static final int READ_BUFFER_SIZE = 65536;
+    // Colonne dell'item (chiavi già normalizzate): tutte le altre possono essere field
+    private static final Set<String> ITEM_COLUMNS = Set.of("title", "description", "itemtype",
+            "itemtypeconfigurationid", "status");
+    private static final String FIELD_ID_PREFIX = "field:";
+
+    private final ItemImportRepository itemImportRepository;
+    private final ItemImportErrorRepository itemImportErrorRepository;
+    private final ItemBulkInsertRepository itemBulkInsertRepository;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
+    private final CompiledWorkflowService compiledWorkflowService;
+    private final ItemFieldValueService itemFieldValueService;
+    private final ItemTransitionEngine itemTransitionEngine;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ItemImportService(ItemImportRepository itemImportRepository,
+                             ItemImportErrorRepository itemImportErrorRepository,
+                             ItemBulkInsertRepository itemBulkInsertRepository,
+                             TenantConfigSnapshotService tenantConfigSnapshotService,
+                             CompiledWorkflowService compiledWorkflowService,
+                             ItemFieldValueService itemFieldValueService,
+                             ItemTransitionEngine itemTransitionEngine,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${items.import.chunk-size:5000}") int chunkSize,
+                             @Value("${items.import.max-errors:10000}") int maxErrors) {
+        this.itemImportRepository = itemImportRepository;
+        this.itemImportErrorRepository = itemImportErrorRepository;
+        this.itemBulkInsertRepository = itemBulkInsertRepository;
+        this.tenantConfigSnapshotService = tenantConfigSnapshotService;
+        this.compiledWorkflowService = compiledWorkflowService;
+        this.itemFieldValueService = itemFieldValueService;
+        this.itemTransitionEngine = itemTransitionEngine;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    public ItemImportDto create(Tenant tenant, User user, Long projectId, ItemImportFormat format) {
+        if (tenantConfigSnapshotService.get(tenant.getId()).itemTypeSetIdOfProject(projectId) == null) {
+            throw new ApiException("Project not found");
+        }
+        Instant now = Instant.now();
+        ItemImport entity = new ItemImport();
+        entity.setTenantId(tenant.getId());
+        entity.setProjectId(projectId);
+        entity.setUserId(user.getId());
+        entity.setFormat(format != null ? format : ItemImportFormat.CSV);
+        entity.setStatus(ItemImportStatus.CREATED);
+        entity.setCreatedAt(now);
+        entity.setUpdatedAt(now);
+        return toDto(itemImportRepository.save(entity));
+    }
+
+    public ItemImportDto getImport(Tenant tenant, Long projectId, Long importId) {
+        return toDto(find(tenant, projectId, importId));
+    }
+
+    /**
+     * Importa il contenuto del file (una sola volta per import) e restituisce lo stato finale.
+     * Le righe non valide finiscono nel file errori; un file illeggibile o interrotto chiude l'import in FAILED.
+     */
+    public ItemImportDto upload(Tenant tenant, User user, Long projectId, Long importId,
+                                InputStream content, boolean gzip) {
+        ItemImport stored = find(tenant, projectId, importId);
+        Instant startedAt = Instant.now();
+        if (itemImportRepository.markRunning(importId, ItemImportStatus.CREATED, ItemImportStatus.RUNNING, startedAt) == 0) {
+            throw new ApiException("ITEM_IMPORT_ALREADY_STARTED: import " + importId + " in stato " + stored.getStatus());
+        }
+
+        ImportRun run = new ImportRun(stored, user.getId());
+        ItemImportStatus status = ItemImportStatus.COMPLETED;
+        String failure = null;
+        try {
+            InputStream in = gzip ? new GZIPInputStream(content, READ_BUFFER_SIZE) : content;
+            RowResolver resolver = new RowResolver(tenant.getId(), projectId, user.getId());
+            RowSource source = stored.getFormat() == ItemImportFormat.NDJSON
+                    ? new NdjsonRowSource(in, objectMapper)
+                    : new CsvRowSource(in);
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                run.add(row, resolver);
+                if (run.pending() >= chunkSize) {
+                    run.flush();
+                }
+            }
+            run.flush();
+        } catch (IOException e) {
+            status = ItemImportStatus.FAILED;
+            failure = "Error reading import content at row " + (run.rowsRead + run.pending() + 1) + ": " + e.getMessage();
+        } catch (ApiException e) {
+            status = ItemImportStatus.FAILED;
+            failure = e.getMessage();
+        } catch (RuntimeException e) {
+            log.error("Import item {} fallito", importId, e);
+            status = ItemImportStatus.FAILED;
+            failure = "Import failed: " + e.getMessage();
+        }
+
+        Instant completedAt = Instant.now();
+        String error = truncate(failure, ERROR_MAX_LENGTH);
+        itemImportRepository.finish(importId, status, error, completedAt);
+        // Stato costruito in memoria: con open-in-view l'entity letta sopra non rifletterebbe gli UPDATE
+        return new ItemImportDto(stored.getId(), stored.getProjectId(), stored.getFormat(), status,
+                run.rowsRead, run.rowsImported, run.rowsFailed, error,
+                stored.getCreatedAt(), startedAt, completedAt);
+    }
+
+    /**
+     * Scrive le righe scartate dall'import (numero di riga e motivo), in ordine di riga.
+     */
+    public void writeErrors(Long importId, CsvWriter csv) throws IOException {
+        csv.row("Row", "Message");
+        long afterId = 0L;
+        while (true) {
+            List<ItemImportError> page = itemImportErrorRepository.findPage(importId, afterId,
+                    PageRequest.of(0, ERROR_PAGE_SIZE));
+            for (ItemImportError error : page) {
+                csv.row(error.getRowNumber(), error.getMessage());
+            }
+            if (page.size() < ERROR_PAGE_SIZE) {
+                return;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private ItemImport find(Tenant tenant, Long projectId, Long importId) {
+        return itemImportRepository.findByIdAndTenantIdAndProjectId(importId, tenant.getId(), projectId)
+                .orElseThrow(() -> new ApiException("Item import not found: " + importId));
+    }
+
+    private static ItemImportDto toDto(ItemImport stored) {
+        return new ItemImportDto(stored.getId(), stored.getProjectId(), stored.getFormat(), stored.getStatus(),
+                stored.getRowsRead(), stored.getRowsImported(), stored.getRowsFailed(), stored.getError(),
+                stored.getCreatedAt(), stored.getStartedAt(), stored.getCompletedAt());
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Righe lette dal file in attesa di commit e totali di quelle già committate.
+     */
+    private final class ImportRun {
+
+        private final ItemImport stored;
+        private final Long userId;
+        private final List<ItemRow> items = new ArrayList<>();
+        // Valori dei field di ogni item, nello stesso ordine di items
+        private final List<List<FieldWrite>> fieldWrites = new ArrayList<>();
+        private boolean pendingFields;
+        private final List<ErrorRow> errors = new ArrayList<>();
+        private int pendingFailed;
+        private long storedErrors;
+        private long rowsRead;
+        private long rowsImported;
+        private long rowsFailed;
+
+        private ImportRun(ItemImport stored, Long userId) {
+            this.stored = stored;
+            this.userId = userId;
+        }
+
+        private void add(ImportRow row, RowResolver resolver) {
+            long rowNumber = rowsRead + pending() + 1;
+            try {
+                ResolvedRow resolved = resolver.resolve(row);
+                items.add(resolved.item());
+                fieldWrites.add(resolved.fields());
+                pendingFields |= !resolved.fields().isEmpty();
+            } catch (InvalidRowException e) {
+                pendingFailed++;
+                // Oltre max-errors le righe scartate vengono solo contate
+                if (storedErrors < maxErrors) {
+                    storedErrors++;
+                    errors.add(new ErrorRow(rowNumber, truncate(e.getMessage(), MESSAGE_MAX_LENGTH)));
+                }
+            }
+        }
+
+        private int pending() {
+            return items.size() + pendingFailed;
+        }
+
+        /**
+         * Committa il blocco: item, valori dei field, errori e contatori dell'import nella stessa transazione.
+         */
+        private void flush() {
+            if (pending() == 0) {
+                return;
+            }
+            int read = pending();
+            int imported = items.size();
+            int failed = pendingFailed;
+            Instant now = Instant.now();
+            transaction.executeWithoutResult(status -> {
+                List<Long> itemIds = itemBulkInsertRepository.insertItems(stored.getTenantId(), stored.getProjectId(),
+                        userId, now, items);
+                if (pendingFields) {
+                    if (itemIds.size() != items.size()) {
+                        throw new IllegalStateException("Expected " + items.size() + " generated item ids, got "
+                                + itemIds.size());
+                    }
+                    itemFieldValueService.insert(stored.getProjectId(), itemIds, fieldWrites);
+                }
+                itemBulkInsertRepository.insertImportErrors(stored.getId(), errors);
+                itemImportRepository.addProgress(stored.getId(), read, imported, failed, now);
+            });
+            rowsRead += read;
+            rowsImported += imported;
+            rowsFailed += failed;
+            items.clear();
+            fieldWrites.clear();
+            pendingFields = false;
+            errors.clear();
+            pendingFailed = 0;
+        }
+    }
+
+    /**
+     * Risoluzione delle righe sulla configurazione del progetto all'avvio dell'import: ItemTypeSet del progetto,
+     * configurazioni per nome del tipo, field per nome o id e, per ogni configurazione usata, stati del workflow
+     * per nome.
+     */
+    private final class RowResolver {
+
+        private final Long tenantId;
+        private final Long projectId;
+        private final Long userId;
+        private final TenantConfigSnapshot snapshot;
+        private final ItemTypeSetNode itemTypeSet;
+        private final Map<String, ConfigurationNode> configurationsByItemType = new HashMap<>();
+        private final Map<String, Long> fieldIdsByColumn = new HashMap<>();
+        private final Map<Long, ResolvedConfiguration> resolved = new HashMap<>();
+
+        private RowResolver(Long tenantId, Long projectId, Long userId) {
+            this.tenantId = tenantId;
+            this.projectId = projectId;
+            this.userId = userId;
+            this.snapshot = tenantConfigSnapshotService.get(tenantId);
+            Long itemTypeSetId = snapshot.itemTypeSetIdOfProject(projectId);
+            this.itemTypeSet = itemTypeSetId != null ? snapshot.itemTypeSet(itemTypeSetId) : null;
+            if (itemTypeSet == null) {
+                throw new ApiException("Project not found");
+            }
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                ConfigurationNode configuration = snapshot.configuration(configurationId);
+                if (configuration != null && configuration.itemTypeName() != null) {
+                    configurationsByItemType.putIfAbsent(key(configuration.itemTypeName()), configuration);
+                }
+                FieldSetNode fieldSet = configuration != null && configuration.fieldSetId() != null
+                        ? snapshot.fieldSet(configuration.fieldSetId()) : null;
+                if (fieldSet != null) {
+                    for (long fieldId : fieldSet.fieldIds()) {
+                        FieldNode field = snapshot.field(fieldId);
+                        fieldIdsByColumn.putIfAbsent(FIELD_ID_PREFIX + fieldId, fieldId);
+                        if (field != null && field.name() != null) {
+                            fieldIdsByColumn.putIfAbsent(key(field.name()), fieldId);
+                        }
+                    }
+                }
+            }
+        }
+
+        private ResolvedRow resolve(ImportRow row) throws InvalidRowException {
+            if (row.error() != null) {
+                throw new InvalidRowException(row.error());
+            }
+            String title = row.title() != null ? row.title().trim() : "";
+            if (title.isEmpty()) {
+                throw new InvalidRowException("Missing title");
+            }
+            if (title.length() > TITLE_MAX_LENGTH) {
+                throw new InvalidRowException("Title longer than " + TITLE_MAX_LENGTH + " characters");
+            }
+            ResolvedConfiguration configuration = configuration(row);
+
+            Long workflowStatusId;
+            if (isBlank(row.status())) {
+                workflowStatusId = configuration.initialWorkflowStatusId();
+            } else {
+                workflowStatusId = configuration.workflowStatusIdsByName().get(key(row.status()));
+                if (workflowStatusId == null) {
+                    throw new InvalidRowException("Status '" + row.status().trim()
+                            + "' is not part of the workflow of item type " + configuration.itemTypeName());
+                }
+            }
+            String description = isBlank(row.description()) ? null : row.description();
+            return new ResolvedRow(new ItemRow(configuration.id(), workflowStatusId, title, description),
+                    fields(row, configuration, workflowStatusId));
+        }
+
+        /**
+         * Valori non vuoti delle colonne dei field, convertiti e validati per la configurazione e lo stato dell'item.
+         */
+        private List<FieldWrite> fields(ImportRow row, ResolvedConfiguration configuration, Long workflowStatusId)
+                throws InvalidRowException {
+            Map<Long, String> values = new LinkedHashMap<>();
+            row.fields().forEach((column, value) -> {
+                Long fieldId = fieldIdsByColumn.get(column);
+                if (fieldId != null && !isBlank(value)) {
+                    values.putIfAbsent(fieldId, value);
+                }
+            });
+            if (values.isEmpty()) {
+                return List.of();
+            }
+            try {
+                itemTransitionEngine.checkFieldEdit(tenantId, userId, projectId, configuration.id(),
+                        workflowStatusId, values.keySet());
+                return itemFieldValueService.prepare(snapshot, snapshot.configuration(configuration.id()), values);
+            } catch (ApiException e) {
+                throw new InvalidRowException(e.getMessage());
+            }
+        }
+
+        private ResolvedConfiguration configuration(ImportRow row) throws InvalidRowException {
+            ConfigurationNode node;
+            if (!isBlank(row.itemTypeConfigurationId())) {
+                long configurationId;
+                try {
+                    configurationId = Long.parseLong(row.itemTypeConfigurationId().trim());
+                } catch (NumberFormatException e) {
+                    throw new InvalidRowException("Invalid itemTypeConfigurationId: " + row.itemTypeConfigurationId());
+                }
+                node = itemTypeSet.containsConfiguration(configurationId) ? snapshot.configuration(configurationId) : null;
+                if (node == null) {
+                    throw new InvalidRowException("Item type configuration " + configurationId
+                            + " is not part of the project's ItemTypeSet");
+                }
+            } else if (!isBlank(row.itemType())) {
+                node = configurationsByItemType.get(key(row.itemType()));
+                if (node == null) {
+                    throw new InvalidRowException("Item type '" + row.itemType().trim()
+                            + "' is not part of the project's ItemTypeSet");
+                }
+            } else {
+                throw new InvalidRowException("Missing item type");
+            }
+
+            ConfigurationNode found = node;
+            ResolvedConfiguration configuration = resolved.computeIfAbsent(found.id(), id -> compile(found));
+            if (configuration.error() != null) {
+                throw new InvalidRowException(configuration.error());
+            }
+            return configuration;
+        }
+
+        private ResolvedConfiguration compile(ConfigurationNode node) {
+            if (node.workflowId() == null) {
+                return ResolvedConfiguration.invalid(node, "Item type configuration has no workflow: " + node.id());
+            }
+            CompiledWorkflow workflow = compiledWorkflowService.get(tenantId, node.workflowId());
+            int initial = workflow.initialOrdinal();
+            if (initial < 0) {
+                return ResolvedConfiguration.invalid(node, "Workflow has no initial status: " + node.workflowId());
+            }
+            Map<String, Long> byName = new HashMap<>();
+            for (int ordinal = 0; ordinal < workflow.statusCount(); ordinal++) {
+                if (workflow.statusName(ordinal) != null) {
+                    byName.putIfAbsent(key(workflow.statusName(ordinal)), workflow.workflowStatusId(ordinal));
+                }
+            }
+            return new ResolvedConfiguration(node.id(), node.itemTypeName(), workflow.workflowStatusId(initial), byName, null);
+        }
+    }
+
+    /**
+     * Riga valida: item da inserire e valori dei suoi field.
+     */
+    private record ResolvedRow(ItemRow item, List<FieldWrite> fields) {
+    }
+
+    private record ResolvedConfiguration(Long id,
+                                         String itemTypeName,
+                                         Long initialWorkflowStatusId,
+                                         Map<String, Long> workflowStatusIdsByName,
+                                         String error) {
+        static ResolvedConfiguration invalid(ConfigurationNode node, String error) {
+            return new ResolvedConfiguration(node.id(), node.itemTypeName(), null, Map.of(), error);
+        }
+    }
+
+    /**
+     * Valori grezzi di una riga del file; fields sono le altre colonne (chiave normalizzata, valore).
+     * error è valorizzato se la riga non è leggibile (JSON non valido, numero di colonne diverso dall'intestazione).
+     */
+    private record ImportRow(String title, String description, String itemType, String itemTypeConfigurationId,
+                             String status, Map<String, String> fields, String error) {
+        static ImportRow invalid(String error) {
+            return new ImportRow(null, null, null, null, null, Map.of(), error);
+        }
+    }
+
+    private interface RowSource {
+        /**
+         * Prossima riga del file, null a fine file.
+         */
+        ImportRow next() throws IOException;
+    }
+
+    private static final class CsvRowSource implements RowSource {
+
+        private final CsvReader reader;
+        private final int width;
+        private final int title;
+        private final int description;
+        private final int itemType;
+        private final int itemTypeConfigurationId;
+        private final int status;
+        // Indice e chiave delle colonne che non sono dell'item
+        private final Map<Integer, String> otherColumns = new LinkedHashMap<>();
+
+        private CsvRowSource(InputStream in) throws IOException {
+            this.reader = CsvReader.open(in);
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new ApiException("Import file is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                String column = key(header.get(i));
+                if (columns.putIfAbsent(column, i) == null && !ITEM_COLUMNS.contains(column)) {
+                    otherColumns.put(i, column);
+                }
+            }
+            this.width = header.size();
+            this.title = columns.getOrDefault("title", -1);
+            this.description = columns.getOrDefault("description", -1);
+            this.itemType = columns.getOrDefault("itemtype", -1);
+            this.itemTypeConfigurationId = columns.getOrDefault("itemtypeconfigurationid", -1);
+            this.status = columns.getOrDefault("status", -1);
+            if (title < 0) {
+                throw new ApiException("CSV header must contain a title column");
+            }
+            if (itemType < 0 && itemTypeConfigurationId < 0) {
+                throw new ApiException("CSV header must contain an itemType or itemTypeConfigurationId column");
+            }
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            List<String> fields = reader.next();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != width) {
+                return ImportRow.invalid("Expected " + width + " columns, found " + fields.size());
+            }
+            Map<String, String> others = new HashMap<>();
+            otherColumns.forEach((index, column) -> others.put(column, fields.get(index)));
+            return new ImportRow(field(fields, title), field(fields, description), field(fields, itemType),
+                    field(fields, itemTypeConfigurationId), field(fields, status), others, null);
+        }
+
+        private static String field(List<String> fields, int index) {
+            return index >= 0 ? fields.get(index) : null;
+        }
+    }
+
+    private static final class NdjsonRowSource implements RowSource {
+
+        private final BufferedReader reader;
+        private final ObjectMapper objectMapper;
+        private boolean first = true;
+
+        private NdjsonRowSource(InputStream in, ObjectMapper objectMapper) {
+            this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                if (first) {
+                    first = false;
+                    if (line.startsWith("\uFEFF")) {
+                        line = line.substring(1);
+                    }
+                }
+            } while (line.isBlank());
+
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                return ImportRow.invalid("Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (node == null || !node.isObject()) {
+                return ImportRow.invalid("Row is not a JSON object");
+            }
+            Map<String, String> others = new HashMap<>();
+            for (Map.Entry<String, JsonNode> property : node.properties()) {
+                String column = key(property.getKey());
+                if (!ITEM_COLUMNS.contains(column)) {
+                    others.putIfAbsent(column, value(property.getValue()));
+                }
+            }
+            return new ImportRow(text(node, "title"), text(node, "description"), text(node, "itemType"),
+                    text(node, "itemTypeConfigurationId"), text(node, "status"), others, null);
+        }
+
+        private static String text(JsonNode node, String name) {
+            return value(node.get(name));
+        }
+
+        /**
+         * Testo del valore; gli array (field a scelta multipla) diventano id separati da virgola.
+         */
+        private static String value(JsonNode value) {
+            if (value == null || value.isNull()) {
+                return null;
+            }
+            if (value.isArray()) {
+                List<String> parts = new ArrayList<>(value.size());
+                value.forEach(element -> parts.add(element.asText()));
+                return String.join(",", parts);
+            }
+            return value.asText();
+        }
+    }
+
+    /**
+     * Riga scartata; senza stack trace, il motivo finisce nel file errori.
+     */
+    private static final class InvalidRowException extends Exception {
+        private InvalidRowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
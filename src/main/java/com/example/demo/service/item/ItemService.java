@@ -0,0 +1,406 @@
+package com.example.demo.service.item;
+
+import com.example.demo.dto.AvailableTransitionDto;
+import com.example.demo.dto.ItemCreateDto;
+import com.example.demo.dto.ItemDetailDto;
+import com.example.demo.dto.ItemFieldsUpdateDto;
+import com.example.demo.dto.ItemListDto;
+import com.example.demo.dto.ItemPageDto;
+import com.example.demo.dto.ItemTransitionDto;
+import com.example.demo.entity.Item;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.exception.ApiException;
+import com.example.demo.repository.ItemFieldValueRepository.ValueRow;
+import com.example.demo.repository.ItemRepository;
+import com.example.demo.repository.ItemTypeConfigurationRepository;
+import com.example.demo.repository.ProjectRepository;
+import com.example.demo.repository.TenantRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.WorkflowStatusRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.item.ItemFieldValueService.FieldQuery;
+import com.example.demo.service.item.ItemFieldValueService.FieldWrite;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
+import com.example.demo.service.workflow.compiled.CompiledWorkflow;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Item dei progetti.
+ *
+ * Le liste sono paginate keyset sull'id (mai OFFSET): ogni pagina legge al più size + 1 righe dall'indice
+ * (progetto[, stato], id), qualunque sia la posizione nella lista e il numero di item del progetto.
+ * Le righe sono proiezioni delle sole colonne di item; tipo, stato e appartenenza del progetto alla tenant
+ * vengono dallo snapshot della configurazione, senza join né entity.
+ *
+ * Filtrata o ordinata su un field, la lista scorre l'indice (progetto, field, valore, item) della tabella dei valori
+ * con cursore (valore, id): contiene solo gli item che hanno un valore per quel field. I valori dei field
+ * richiesti nella lista si caricano per l'intera pagina, una query per tipo di valore.
+ *
+ * Dettaglio e liste restituiscono solo i field che l'utente può vedere (VIEWERS, o EDITORS: chi modifica un field
+ * lo vede) nello stato attuale di ogni item; gli admin della tenant e del progetto li vedono tutti, con la stessa
+ * regola delle modifiche (ItemTransitionEngine);
+ * filtrare o ordinare per un field che non può vedere in nessuno stato è un errore, e gli item in cui non lo vede
+ * non compaiono nella lista.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ItemService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final ItemRepository itemRepository;
+    private final TenantRepository tenantRepository;
+    private final ProjectRepository projectRepository;
+    private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
+    private final WorkflowStatusRepository workflowStatusRepository;
+    private final UserRepository userRepository;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
+    private final CompiledWorkflowService compiledWorkflowService;
+    private final ItemTransitionEngine itemTransitionEngine;
+    private final ItemFieldValueService itemFieldValueService;
+    private final PermissionMatrixService permissionMatrixService;
+
+    /**
+     * Crea l'item nello stato iniziale del workflow della sua configurazione, che deve far parte
+     * dell'ItemTypeSet del progetto.
+     */
+    public ItemDetailDto create(Tenant tenant, User user, Long projectId, ItemCreateDto dto) {
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        ConfigurationNode configuration = projectConfiguration(snapshot, projectId, dto.itemTypeConfigurationId());
+        if (configuration.workflowId() == null) {
+            throw new ApiException("Item type configuration has no workflow: " + configuration.id());
+        }
+        CompiledWorkflow workflow = compiledWorkflowService.get(tenant.getId(), configuration.workflowId());
+        int initial = workflow.initialOrdinal();
+        if (initial < 0) {
+            throw new ApiException("Workflow has no initial status: " + configuration.workflowId());
+        }
+
+        Instant now = Instant.now();
+        Item item = new Item();
+        item.setTenant(tenantRepository.getReferenceById(tenant.getId()));
+        item.setProject(projectRepository.getReferenceById(projectId));
+        item.setItemTypeConfiguration(itemTypeConfigurationRepository.getReferenceById(configuration.id()));
+        item.setWorkflowStatus(workflowStatusRepository.getReferenceById(workflow.workflowStatusId(initial)));
+        item.setTitle(dto.title());
+        item.setDescription(dto.description());
+        item.setCreatedBy(userRepository.getReferenceById(user.getId()));
+        item.setCreatedAt(now);
+        item.setUpdatedAt(now);
+        Item saved = itemRepository.save(item);
+
+        return new ItemDetailDto(saved.getId(), projectId, saved.getTitle(), saved.getDescription(),
+                configuration.id(), configuration.itemTypeName(),
+                workflow.workflowStatusId(initial), workflow.statusName(initial), workflow.category(initial),
+                user.getId(), now, now, Map.of(), saved.getVersion());
+    }
+
+    @Transactional(readOnly = true)
+    public ItemDetailDto getDetail(Tenant tenant, User user, Long projectId, Long itemId) {
+        ItemRepository.DetailView row = itemRepository.findDetail(itemId, projectId, tenant.getId())
+                .orElseThrow(() -> new ApiException("Item not found: " + itemId));
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        ConfigurationNode configuration = snapshot.configuration(row.getItemTypeConfigurationId());
+        WorkflowStatusNode workflowStatus = snapshot.workflowStatus(row.getWorkflowStatusId());
+        return new ItemDetailDto(row.getId(), row.getProjectId(), row.getTitle(), row.getDescription(),
+                row.getItemTypeConfigurationId(), configuration != null ? configuration.itemTypeName() : null,
+                row.getWorkflowStatusId(),
+                workflowStatus != null ? workflowStatus.statusName() : null,
+                workflowStatus != null ? workflowStatus.statusCategory() : null,
+                row.getCreatedById(), row.getCreatedAt(), row.getUpdatedAt(),
+                visibleFields(viewer(tenant.getId(), user.getId(), row.getProjectId()),
+                        row.getItemTypeConfigurationId(), row.getWorkflowStatusId(),
+                        itemFieldValueService.load(List.of(row.getId()), null).getOrDefault(row.getId(), Map.of())),
+                row.getVersion());
+    }
+
+    /**
+     * Pagina degli item del progetto (tutti o di un solo WorkflowStatus) in ordine di id, oppure, se fieldId
+     * è indicato, degli item con un valore per quel field in ordine di valore (uguale a value o compreso
+     * tra from e to, se indicati). fieldIds sono i field di cui restituire i valori in ogni riga.
+     * cursor è il nextCursor della pagina precedente, null per la prima.
+     */
+    @Transactional(readOnly = true)
+    public ItemPageDto getPage(Tenant tenant, User user, Long projectId, Long workflowStatusId, String cursor, int size,
+                               List<Long> fieldIds, Long fieldId, String value, String from, String to,
+                               boolean descending) {
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        if (snapshot.itemTypeSetIdOfProject(projectId) == null) {
+            throw new ApiException("Project not found");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Viewer viewer = viewer(tenant.getId(), user.getId(), projectId);
+        if (fieldId != null) {
+            FieldQuery query = itemFieldValueService.query(snapshot, projectId, fieldId, value, from, to, descending);
+            checkQueryable(snapshot, viewer, fieldId, workflowStatusId);
+            return getPageByField(snapshot, viewer, workflowStatusId, cursor, limit, fieldIds, query);
+        }
+        long afterId = parseId(decodeCursor(cursor), cursor);
+
+        // Una riga in più dice se esiste la pagina successiva senza contare
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<ItemRepository.ListRowView> rows = workflowStatusId == null
+                ? itemRepository.findPageByProjectId(projectId, afterId, page)
+                : itemRepository.findPageByProjectIdAndWorkflowStatusId(projectId, workflowStatusId, afterId, page);
+
+        List<ItemRepository.ListRowView> pageRows = rows.subList(0, Math.min(rows.size(), limit));
+        String nextCursor = rows.size() > limit ? encodeCursor(Long.toString(rows.get(limit - 1).getId())) : null;
+        return new ItemPageDto(toListDtos(pageRows, snapshot, viewer, fieldIds), nextCursor);
+    }
+
+    private ItemPageDto getPageByField(TenantConfigSnapshot snapshot, Viewer viewer, Long workflowStatusId,
+                                       String cursor, int limit, List<Long> fieldIds, FieldQuery query) {
+        Long projectId = viewer.projectId();
+        // Cursore "id:valore" dell'ultima riga della pagina precedente
+        String afterValue = null;
+        Long afterItemId = null;
+        String decoded = decodeCursor(cursor);
+        if (decoded != null) {
+            int separator = decoded.indexOf(':');
+            if (separator < 0) {
+                throw new ApiException("Invalid cursor: " + cursor);
+            }
+            afterItemId = parseId(decoded.substring(0, separator), cursor);
+            afterValue = decoded.substring(separator + 1);
+        }
+
+        List<ValueRow> values = itemFieldValueService.findPage(projectId, query, workflowStatusId,
+                afterValue, afterItemId, limit + 1);
+        List<ValueRow> pageValues = values.subList(0, Math.min(values.size(), limit));
+        List<Long> ids = pageValues.stream().map(ValueRow::itemId).toList();
+        Map<Long, ItemRepository.ListRowView> rowsById = ids.isEmpty() ? Map.of()
+                : itemRepository.findListRows(ids, projectId).stream()
+                        .collect(Collectors.toMap(ItemRepository.ListRowView::getId, Function.identity()));
+        // Gli item in cui l'utente non vede il field non compaiono, ma il cursore resta quello dell'ultimo valore letto
+        List<ItemRepository.ListRowView> pageRows = ids.stream().map(rowsById::get).filter(Objects::nonNull)
+                .filter(row -> viewer.canView(permissionMatrixService, row.getItemTypeConfigurationId(),
+                        query.fieldId(), row.getWorkflowStatusId()))
+                .toList();
+
+        String nextCursor = null;
+        if (values.size() > limit) {
+            ValueRow last = values.get(limit - 1);
+            nextCursor = encodeCursor(last.itemId() + ":" + ItemFieldValueService.cursorText(last.value()));
+        }
+        return new ItemPageDto(toListDtos(pageRows, snapshot, viewer, fieldIds), nextCursor);
+    }
+
+    /**
+     * Transizioni che l'utente può eseguire sull'item nel suo stato attuale.
+     */
+    @Transactional(readOnly = true)
+    public List<AvailableTransitionDto> getAvailableTransitions(Tenant tenant, User user, Long projectId, Long itemId) {
+        ItemRepository.StateView state = findState(tenant, projectId, itemId);
+        return itemTransitionEngine.available(tenant.getId(), user.getId(), projectId,
+                state.getItemTypeConfigurationId(), state.getWorkflowStatusId());
+    }
+
+    /**
+     * Esegue la transizione dallo stato attuale dell'item. Il cambio di stato è condizionato allo stato
+     * (e alla versione, se indicata) letti per la verifica: una modifica concorrente fa fallire la richiesta.
+     */
+    public ItemDetailDto transition(Tenant tenant, User user, Long projectId, Long itemId, ItemTransitionDto dto) {
+        ItemRepository.StateView state = findState(tenant, projectId, itemId);
+        if (dto.version() != null && !dto.version().equals(state.getVersion())) {
+            throw new ApiException("ITEM_CONCURRENT_MODIFICATION: item " + itemId + " was modified by another request");
+        }
+        Map<Long, String> fields = dto.fields() != null ? dto.fields() : Map.of();
+        Long toWorkflowStatusId = itemTransitionEngine.check(tenant.getId(), user.getId(), projectId,
+                state.getItemTypeConfigurationId(), state.getWorkflowStatusId(), dto.transitionId(), fields.keySet());
+        // Valori convertiti e validati prima di toccare l'item: un valore non valido non lascia metà modifica
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        List<FieldWrite> writes = fields.isEmpty() ? List.of() : itemFieldValueService.prepare(snapshot,
+                projectConfiguration(snapshot, projectId, state.getItemTypeConfigurationId()), fields);
+
+        int updated = itemRepository.updateWorkflowStatus(itemId, state.getWorkflowStatusId(), toWorkflowStatusId,
+                dto.version(), Instant.now());
+        if (updated == 0) {
+            throw new ApiException("ITEM_CONCURRENT_MODIFICATION: item " + itemId + " was modified by another request");
+        }
+        itemFieldValueService.write(projectId, List.of(itemId), writes);
+        return getDetail(tenant, user, projectId, itemId);
+    }
+
+    /**
+     * Modifica i field dell'item senza cambiarne lo stato: l'utente deve poterli modificare (EDITORS)
+     * nello stato attuale. Come per le transizioni, la nuova versione è condizionata a stato e versione letti.
+     */
+    public ItemDetailDto updateFields(Tenant tenant, User user, Long projectId, Long itemId, ItemFieldsUpdateDto dto) {
+        ItemRepository.StateView state = findState(tenant, projectId, itemId);
+        if (dto.version() != null && !dto.version().equals(state.getVersion())) {
+            throw new ApiException("ITEM_CONCURRENT_MODIFICATION: item " + itemId + " was modified by another request");
+        }
+        itemTransitionEngine.checkFieldEdit(tenant.getId(), user.getId(), projectId,
+                state.getItemTypeConfigurationId(), state.getWorkflowStatusId(), dto.fields().keySet());
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        List<FieldWrite> writes = itemFieldValueService.prepare(snapshot,
+                projectConfiguration(snapshot, projectId, state.getItemTypeConfigurationId()), dto.fields());
+
+        int updated = itemRepository.touch(itemId, state.getWorkflowStatusId(), dto.version(), Instant.now());
+        if (updated == 0) {
+            throw new ApiException("ITEM_CONCURRENT_MODIFICATION: item " + itemId + " was modified by another request");
+        }
+        itemFieldValueService.write(projectId, List.of(itemId), writes);
+        return getDetail(tenant, user, projectId, itemId);
+    }
+
+    /**
+     * Configurazione dell'ItemTypeSet del progetto; errore se il progetto non è della tenant
+     * o la configurazione non fa parte del suo ItemTypeSet.
+     */
+    ConfigurationNode projectConfiguration(TenantConfigSnapshot snapshot, Long projectId, Long itemTypeConfigurationId) {
+        Long itemTypeSetId = snapshot.itemTypeSetIdOfProject(projectId);
+        if (itemTypeSetId == null) {
+            throw new ApiException("Project not found");
+        }
+        ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+        ConfigurationNode configuration = snapshot.configuration(itemTypeConfigurationId);
+        if (itemTypeSet == null || configuration == null || !itemTypeSet.containsConfiguration(itemTypeConfigurationId)) {
+            throw new ApiException("Item type configuration " + itemTypeConfigurationId
+                    + " is not part of the project's ItemTypeSet");
+        }
+        return configuration;
+    }
+
+    private ItemRepository.StateView findState(Tenant tenant, Long projectId, Long itemId) {
+        return itemRepository.findState(itemId, projectId, tenant.getId())
+                .orElseThrow(() -> new ApiException("Item not found: " + itemId));
+    }
+
+    /**
+     * Il field deve essere visibile all'utente in almeno uno stato (quello indicato, se c'è) di una configurazione
+     * del progetto che lo contiene: altrimenti filtro e ordinamento direbbero qualcosa dei valori nascosti.
+     */
+    private void checkQueryable(TenantConfigSnapshot snapshot, Viewer viewer, Long fieldId, Long workflowStatusId) {
+        ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(snapshot.itemTypeSetIdOfProject(viewer.projectId()));
+        if (itemTypeSet != null) {
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                ConfigurationNode configuration = snapshot.configuration(configurationId);
+                if (configuration == null || configuration.fieldSetId() == null || configuration.workflowId() == null) {
+                    continue;
+                }
+                FieldSetNode fieldSet = snapshot.fieldSet(configuration.fieldSetId());
+                WorkflowNode workflow = snapshot.workflow(configuration.workflowId());
+                if (fieldSet == null || workflow == null || !fieldSet.containsField(fieldId)) {
+                    continue;
+                }
+                for (long statusId : workflow.workflowStatusIds()) {
+                    if ((workflowStatusId == null || workflowStatusId == statusId)
+                            && viewer.canView(permissionMatrixService, configurationId, fieldId, statusId)) {
+                        return;
+                    }
+                }
+            }
+        }
+        throw new ApiException("FIELD_NOT_VISIBLE: field " + fieldId + " cannot be used to filter or sort items");
+    }
+
+    /**
+     * Valori dei field che l'utente può vedere nello stato attuale dell'item.
+     */
+    private Map<Long, Object> visibleFields(Viewer viewer, Long itemTypeConfigurationId, Long workflowStatusId,
+                                            Map<Long, Object> values) {
+        Map<Long, Object> visible = new TreeMap<>();
+        values.forEach((fieldId, value) -> {
+            if (viewer.canView(permissionMatrixService, itemTypeConfigurationId, fieldId, workflowStatusId)) {
+                visible.put(fieldId, value);
+            }
+        });
+        return visible;
+    }
+
+    private List<ItemListDto> toListDtos(List<ItemRepository.ListRowView> rows, TenantConfigSnapshot snapshot,
+                                         Viewer viewer, List<Long> fieldIds) {
+        Map<Long, Map<Long, Object>> fields = fieldIds == null || fieldIds.isEmpty() ? Map.of()
+                : itemFieldValueService.load(rows.stream().map(ItemRepository.ListRowView::getId).toList(), fieldIds);
+        List<ItemListDto> items = new ArrayList<>(rows.size());
+        for (ItemRepository.ListRowView row : rows) {
+            Map<Long, Object> values = fields.getOrDefault(row.getId(), Map.of());
+            items.add(toListDto(row, snapshot,
+                    visibleFields(viewer, row.getItemTypeConfigurationId(), row.getWorkflowStatusId(), values)));
+        }
+        return items;
+    }
+
+    private static ItemListDto toListDto(ItemRepository.ListRowView row, TenantConfigSnapshot snapshot,
+                                         Map<Long, Object> fields) {
+        ConfigurationNode configuration = snapshot.configuration(row.getItemTypeConfigurationId());
+        WorkflowStatusNode workflowStatus = snapshot.workflowStatus(row.getWorkflowStatusId());
+        return new ItemListDto(row.getId(), row.getTitle(),
+                row.getItemTypeConfigurationId(), configuration != null ? configuration.itemTypeName() : null,
+                row.getWorkflowStatusId(),
+                workflowStatus != null ? workflowStatus.statusName() : null,
+                workflowStatus != null ? workflowStatus.statusCategory() : null,
+                row.getUpdatedAt(), fields);
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static long parseId(String decoded, String cursor) {
+        if (decoded == null) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(decoded);
+        } catch (NumberFormatException e) {
+            throw new ApiException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encodeCursor(String position) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Viewer viewer(Long tenantId, Long userId, Long projectId) {
+        return new Viewer(tenantId, userId, projectId, itemTransitionEngine.isAdmin(tenantId, userId, projectId));
+    }
+
+    /**
+     * Utente che legge e progetto degli item, per i controlli di visibilità dei field:
+     * l'admin vede tutto, gli altri i field per cui sono VIEWERS o EDITORS.
+     */
+    private record Viewer(Long tenantId, Long userId, Long projectId, boolean admin) {
+
+        boolean canView(PermissionMatrixService permissionMatrixService, Long itemTypeConfigurationId, Long fieldId,
+                        Long workflowStatusId) {
+            return admin
+                    || permissionMatrixService.canViewField(userId, tenantId, projectId, itemTypeConfigurationId,
+                            fieldId, workflowStatusId)
+                    || permissionMatrixService.canEditField(userId, tenantId, projectId, itemTypeConfigurationId,
+                            fieldId, workflowStatusId);
+        }
+    }
+}
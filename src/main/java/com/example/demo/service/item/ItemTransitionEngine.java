@@ -0,0 +1,150 @@
+package com.example.demo.service.item;
+
+import com.example.demo.dto.AvailableTransitionDto;
+import com.example.demo.exception.ApiException;
+import com.example.demo.security.AuthorizationContext;
+import com.example.demo.security.AuthorizationContextResolver;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
+import com.example.demo.service.workflow.compiled.CompiledWorkflow;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Regole di transizione degli item, valutate solo su strutture già compilate e in cache:
+ * snapshot della configurazione (configurazione e FieldSet), workflow compilato (transizioni in uscita
+ * dallo stato) e PermissionMatrix (ExecutorPermission e FieldStatusPermission EDITORS, con ruoli e grant
+ * delle PermissionAssignment globali e di progetto). Nessuna query e nessun grafo di entity per chiamata.
+ *
+ * Regola degli admin, la stessa di canCreateItem: admin della tenant e admin del progetto sono esenti da
+ * ExecutorPermission e FieldStatusPermission (EDITORS qui, VIEWERS in ItemService), ma non dai vincoli
+ * di workflow e FieldSet.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemTransitionEngine {
+
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
+    private final CompiledWorkflowService compiledWorkflowService;
+    private final PermissionMatrixService permissionMatrixService;
+    private final AuthorizationContextResolver authorizationContextResolver;
+
+    /**
+     * Admin della tenant o del progetto: esente dai permessi di item e field. I ruoli arrivano
+     * dall'AuthorizationContext, già risolto per la richiesta.
+     */
+    boolean isAdmin(Long tenantId, Long userId, Long projectId) {
+        AuthorizationContext context = authorizationContextResolver.resolve(userId, tenantId);
+        return context.hasTenantRole("ADMIN") || context.hasProjectRole(projectId, "ADMIN");
+    }
+
+    /**
+     * Transizioni in uscita dallo stato dell'item per cui l'utente ha la ExecutorPermission
+     * (tutte, per gli admin), in ordine di id.
+     */
+    public List<AvailableTransitionDto> available(Long tenantId, Long userId, Long projectId,
+                                                  Long itemTypeConfigurationId, Long workflowStatusId) {
+        CompiledWorkflow workflow = workflow(tenantId, itemTypeConfigurationId);
+        int from = workflow.ordinal(workflowStatusId);
+        if (from < 0) {
+            return List.of();
+        }
+        long[] outgoing = workflow.outgoingTransitionIds(from);
+        boolean admin = isAdmin(tenantId, userId, projectId);
+        List<AvailableTransitionDto> available = new ArrayList<>(outgoing.length);
+        for (long transitionId : outgoing) {
+            if (!admin && !permissionMatrixService.canExecute(userId, tenantId, projectId, itemTypeConfigurationId,
+                    transitionId)) {
+                continue;
+            }
+            int index = workflow.transitionIndex(transitionId);
+            int to = workflow.transitionTo(index);
+            if (to < 0) {
+                continue;
+            }
+            available.add(new AvailableTransitionDto(transitionId, workflow.transitionName(index),
+                    workflow.workflowStatusId(to), workflow.statusName(to), workflow.category(to)));
+        }
+        return available;
+    }
+
+    /**
+     * Verifica la transizione dell'item dallo stato attuale e restituisce il WorkflowStatus di arrivo.
+     * I field modificati durante la transizione devono appartenere al FieldSet della configurazione
+     * ed essere modificabili dall'utente (EDITORS) nello stato di arrivo.
+     */
+    public Long check(Long tenantId, Long userId, Long projectId, Long itemTypeConfigurationId,
+                      Long fromWorkflowStatusId, Long transitionId, Collection<Long> changedFieldIds) {
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenantId);
+        ConfigurationNode configuration = configuration(snapshot, itemTypeConfigurationId);
+        CompiledWorkflow workflow = compiledWorkflowService.get(tenantId, configuration.workflowId());
+        if (!workflow.startsFrom(transitionId, fromWorkflowStatusId)) {
+            throw new ApiException("TRANSITION_NOT_AVAILABLE: transition " + transitionId
+                    + " does not start from the item's status");
+        }
+        int to = workflow.transitionTo(workflow.transitionIndex(transitionId));
+        if (to < 0) {
+            throw new ApiException("TRANSITION_NOT_AVAILABLE: transition " + transitionId + " has no target status");
+        }
+        boolean admin = isAdmin(tenantId, userId, projectId);
+        if (!admin && !permissionMatrixService.canExecute(userId, tenantId, projectId, itemTypeConfigurationId,
+                transitionId)) {
+            throw new ApiException("TRANSITION_NOT_ALLOWED: missing executor permission for transition " + transitionId);
+        }
+
+        Long toWorkflowStatusId = workflow.workflowStatusId(to);
+        checkFields(snapshot, configuration, admin, userId, tenantId, projectId, toWorkflowStatusId, changedFieldIds);
+        return toWorkflowStatusId;
+    }
+
+    /**
+     * Verifica che l'utente possa modificare i field dell'item nello stato in cui si trova (EDITORS),
+     * senza transizione.
+     */
+    public void checkFieldEdit(Long tenantId, Long userId, Long projectId, Long itemTypeConfigurationId,
+                               Long workflowStatusId, Collection<Long> changedFieldIds) {
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenantId);
+        ConfigurationNode configuration = configuration(snapshot, itemTypeConfigurationId);
+        checkFields(snapshot, configuration, isAdmin(tenantId, userId, projectId), userId, tenantId, projectId,
+                workflowStatusId, changedFieldIds);
+    }
+
+    private void checkFields(TenantConfigSnapshot snapshot, ConfigurationNode configuration, boolean admin,
+                             Long userId, Long tenantId, Long projectId, Long workflowStatusId, Collection<Long> changedFieldIds) {
+        if (changedFieldIds == null || changedFieldIds.isEmpty()) {
+            return;
+        }
+        FieldSetNode fieldSet = configuration.fieldSetId() != null ? snapshot.fieldSet(configuration.fieldSetId()) : null;
+        for (Long fieldId : changedFieldIds) {
+            if (fieldSet == null || !fieldSet.containsField(fieldId)) {
+                throw new ApiException("Field " + fieldId + " is not part of the item's FieldSet");
+            }
+            if (!admin && !permissionMatrixService.canEditField(userId, tenantId, projectId, configuration.id(),
+                    fieldId, workflowStatusId)) {
+                throw new ApiException("FIELD_NOT_EDITABLE: field " + fieldId + " is not editable in status "
+                        + snapshot.statusName(workflowStatusId));
+            }
+        }
+    }
+
+    private CompiledWorkflow workflow(Long tenantId, Long itemTypeConfigurationId) {
+        ConfigurationNode configuration = configuration(tenantConfigSnapshotService.get(tenantId), itemTypeConfigurationId);
+        return compiledWorkflowService.get(tenantId, configuration.workflowId());
+    }
+
+    private static ConfigurationNode configuration(TenantConfigSnapshot snapshot, Long itemTypeConfigurationId) {
+        ConfigurationNode configuration = snapshot.configuration(itemTypeConfigurationId);
+        if (configuration == null || configuration.workflowId() == null) {
+            throw new ApiException("Item type configuration has no workflow: " + itemTypeConfigurationId);
+        }
+        return configuration;
+    }
+}
@@ -1,38 +1,26 @@
 package com.example.demo.service.itemtypeset;
 
 import com.example.demo.dto.ItemTypeConfigurationRemovalImpactDto;
-import com.example.demo.entity.CreatorPermission;
-import com.example.demo.entity.ExecutorPermission;
-import com.example.demo.entity.FieldOwnerPermission;
-import com.example.demo.entity.FieldStatusPermission;
-import com.example.demo.entity.Grant;
-import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.StatusOwnerPermission;
 import com.example.demo.entity.Tenant;
-import com.example.demo.entity.Transition;
-import com.example.demo.entity.WorkerPermission;
-import com.example.demo.repository.CreatorPermissionRepository;
-import com.example.demo.repository.ExecutorPermissionRepository;
-import com.example.demo.repository.FieldOwnerPermissionRepository;
-import com.example.demo.repository.FieldStatusPermissionRepository;
 import com.example.demo.repository.ItemTypeConfigurationRepository;
-import com.example.demo.repository.ItemTypeSetRepository;
-import com.example.demo.repository.StatusOwnerPermissionRepository;
-import com.example.demo.repository.WorkerPermissionRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.Assignment;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -40,16 +28,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 class ItemTypeSetPermissionImpactModule {
 
-    private final ItemTypeSetRepository itemTypeSetRepository;
     private final ItemTypeConfigurationRepository itemTypeConfigurationRepository;
-    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
-    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
-    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
-    private final ExecutorPermissionRepository executorPermissionRepository;
-    private final WorkerPermissionRepository workerPermissionRepository;
-    private final CreatorPermissionRepository creatorPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
 
     @Transactional(readOnly = true)
     public ItemTypeConfigurationRemovalImpactDto analyzeRemovalImpact(
@@ -57,17 +37,21 @@ class ItemTypeSetPermissionImpactModule {
             Long itemTypeSetId,
             Set<Long> removedItemTypeConfigurationIds
     ) {
-        ItemTypeSet itemTypeSet = itemTypeSetRepository.findByIdAndTenant(itemTypeSetId, tenant)
-                .orElseThrow(() -> new com.example.demo.exception.ApiException("ItemTypeSet not found: " + itemTypeSetId));
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+        if (itemTypeSet == null) {
+            throw new com.example.demo.exception.ApiException("ItemTypeSet not found: " + itemTypeSetId);
+        }
 
-        List<ItemTypeConfiguration> configsToRemove = itemTypeSet.getItemTypeConfigurations().stream()
-                .filter(config -> removedItemTypeConfigurationIds.contains(config.getId()))
+        List<ConfigurationNode> configsToRemove = Arrays.stream(itemTypeSet.configurationIds())
+                .filter(removedItemTypeConfigurationIds::contains)
+                .mapToObj(snapshot::configuration)
                 .collect(Collectors.toList());
 
         if (configsToRemove.isEmpty()) {
             return ItemTypeConfigurationRemovalImpactDto.builder()
                     .itemTypeSetId(itemTypeSetId)
-                    .itemTypeSetName(itemTypeSet.getName())
+                    .itemTypeSetName(itemTypeSet.name())
                     .removedItemTypeConfigurationIds(new ArrayList<>(removedItemTypeConfigurationIds))
                     .removedItemTypeConfigurationNames(getItemTypeConfigurationNames(removedItemTypeConfigurationIds))
                     .affectedItemTypeSets(new ArrayList<>())
@@ -90,22 +74,22 @@ class ItemTypeSetPermissionImpactModule {
         }
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> fieldOwnerPermissions =
-                analyzeFieldOwnerPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeFieldOwnerPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> statusOwnerPermissions =
-                analyzeStatusOwnerPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeStatusOwnerPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> fieldStatusPermissions =
-                analyzeFieldStatusPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeFieldStatusPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> executorPermissions =
-                analyzeExecutorPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeExecutorPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> workerPermissions =
-                analyzeWorkerPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeWorkerPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> creatorPermissions =
-                analyzeCreatorPermissionImpacts(configsToRemove, itemTypeSet);
+                analyzeCreatorPermissionImpacts(snapshot, configsToRemove, itemTypeSet);
 
         int totalGrantAssignments =
                 countGlobalGrantAssignments(fieldOwnerPermissions)
@@ -137,16 +121,16 @@ class ItemTypeSetPermissionImpactModule {
 
         List<ItemTypeConfigurationRemovalImpactDto.ItemTypeSetImpact> affectedItemTypeSets = List.of(
                 ItemTypeConfigurationRemovalImpactDto.ItemTypeSetImpact.builder()
-                        .itemTypeSetId(itemTypeSet.getId())
-                        .itemTypeSetName(itemTypeSet.getName())
-                        .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                        .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
+                        .itemTypeSetId(itemTypeSet.id())
+                        .itemTypeSetName(itemTypeSet.name())
+                        .projectId(itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().id() : null)
+                        .projectName(itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().name() : null)
                         .build()
         );
 
         return ItemTypeConfigurationRemovalImpactDto.builder()
                 .itemTypeSetId(itemTypeSetId)
-                .itemTypeSetName(itemTypeSet.getName())
+                .itemTypeSetName(itemTypeSet.name())
                 .removedItemTypeConfigurationIds(new ArrayList<>(removedItemTypeConfigurationIds))
                 .removedItemTypeConfigurationNames(getItemTypeConfigurationNames(removedItemTypeConfigurationIds))
                 .affectedItemTypeSets(affectedItemTypeSets)
@@ -178,41 +162,22 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeFieldOwnerPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<FieldOwnerPermission> permissions = fieldOwnerPermissionRepository.findAllByItemTypeConfiguration(config);
-
-            for (FieldOwnerPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "FieldOwnerPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.FIELD_OWNER)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                 if (assignmentDetails.hasAssignments()) {
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
+                    FieldNode field = snapshot.field(permission.targetId());
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
                             .permissionType("FIELD_OWNERS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
                             .fieldConfigurationId(null)
-                            .fieldConfigurationName(permission.getField() != null ? permission.getField().getName() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
+                            .fieldConfigurationName(field != null ? field.name() : null)
                             .build());
                 }
             }
@@ -222,42 +187,22 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeStatusOwnerPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<StatusOwnerPermission> permissions = statusOwnerPermissionRepository.findByItemTypeConfigurationIdAndTenant(config.getId(), itemTypeSet.getTenant());
-
-            for (StatusOwnerPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "StatusOwnerPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.STATUS_OWNER)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                 if (assignmentDetails.hasAssignments()) {
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
+                    WorkflowStatusNode workflowStatus = snapshot.workflowStatus(permission.targetId());
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
                             .permissionType("STATUS_OWNERS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
-                            .workflowStatusId(permission.getWorkflowStatus() != null ? permission.getWorkflowStatus().getId() : null)
-                            .workflowStatusName(permission.getWorkflowStatus() != null && permission.getWorkflowStatus().getStatus() != null
-                                    ? permission.getWorkflowStatus().getStatus().getName() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
+                            .workflowStatusId(workflowStatus != null ? workflowStatus.id() : null)
+                            .workflowStatusName(workflowStatus != null ? workflowStatus.statusName() : null)
                             .build());
                 }
             }
@@ -267,44 +212,25 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeFieldStatusPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<FieldStatusPermission> permissions = fieldStatusPermissionRepository.findByItemTypeConfigurationIdAndTenant(config.getId(), itemTypeSet.getTenant());
-
-            for (FieldStatusPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "FieldStatusPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.FIELD_STATUS)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                 if (assignmentDetails.hasAssignments()) {
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
-                            .permissionType(permission.getPermissionType() != null ? permission.getPermissionType().toString() : null)
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
+                    FieldNode field = snapshot.field(permission.targetId());
+                    WorkflowStatusNode workflowStatus = snapshot.workflowStatus(permission.workflowStatusId());
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
+                            .permissionType(permission.fieldStatusType() != null ? permission.fieldStatusType().toString() : null)
                             .fieldConfigurationId(null)
-                            .fieldConfigurationName(permission.getField() != null ? permission.getField().getName() : null)
-                            .workflowStatusId(permission.getWorkflowStatus() != null ? permission.getWorkflowStatus().getId() : null)
-                            .workflowStatusName(permission.getWorkflowStatus() != null && permission.getWorkflowStatus().getStatus() != null
-                                    ? permission.getWorkflowStatus().getStatus().getName() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
+                            .fieldConfigurationName(field != null ? field.name() : null)
+                            .workflowStatusId(workflowStatus != null ? workflowStatus.id() : null)
+                            .workflowStatusName(workflowStatus != null ? workflowStatus.statusName() : null)
                             .build());
                 }
             }
@@ -314,46 +240,24 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeExecutorPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<ExecutorPermission> permissions = executorPermissionRepository.findAllByItemTypeConfiguration(config);
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.EXECUTOR)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
+                TransitionNode transition = snapshot.transition(permission.targetId());
 
-            for (ExecutorPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "ExecutorPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
-
-                if (assignmentDetails.hasAssignments() && permission.getTransition() != null) {
-                    Transition transition = permission.getTransition();
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
+                if (assignmentDetails.hasAssignments() && transition != null) {
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
                             .permissionType("EXECUTORS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
-                            .transitionId(transition.getId())
-                            .transitionName(transition.getName())
-                            .fromStatusName(transition.getFromStatus() != null && transition.getFromStatus().getStatus() != null
-                                    ? transition.getFromStatus().getStatus().getName() : null)
-                            .toStatusName(transition.getToStatus() != null && transition.getToStatus().getStatus() != null
-                                    ? transition.getToStatus().getStatus().getName() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
+                            .transitionId(transition.id())
+                            .transitionName(transition.name())
+                            .fromStatusName(snapshot.statusName(transition.fromWorkflowStatusId()))
+                            .toStatusName(snapshot.statusName(transition.toWorkflowStatusId()))
                             .build());
                 }
             }
@@ -363,39 +267,19 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeWorkerPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<WorkerPermission> permissions = workerPermissionRepository.findAllByItemTypeConfiguration(config);
-
-            for (WorkerPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "WorkerPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.WORKER)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                 if (assignmentDetails.hasAssignments()) {
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
                             .permissionType("WORKERS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
                             .canBePreserved(false)
                             .defaultPreserve(false)
                             .build());
@@ -407,39 +291,19 @@ class ItemTypeSetPermissionImpactModule {
     }
 
     private List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> analyzeCreatorPermissionImpacts(
-            List<ItemTypeConfiguration> configsToRemove,
-            ItemTypeSet itemTypeSet
+            TenantConfigSnapshot snapshot,
+            List<ConfigurationNode> configsToRemove,
+            ItemTypeSetNode itemTypeSet
     ) {
         List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> impacts = new ArrayList<>();
 
-        for (ItemTypeConfiguration config : configsToRemove) {
-            List<CreatorPermission> permissions = creatorPermissionRepository.findAllByItemTypeConfiguration(config);
-
-            for (CreatorPermission permission : permissions) {
-                AssignmentDetails assignmentDetails = resolveAssignmentDetails(
-                        "CreatorPermission",
-                        permission.getId(),
-                        itemTypeSet
-                );
+        for (ConfigurationNode config : configsToRemove) {
+            for (PermissionRow permission : config.permissions(PermissionKind.CREATOR)) {
+                AssignmentDetails assignmentDetails = resolveAssignmentDetails(permission, itemTypeSet);
 
                 if (assignmentDetails.hasAssignments()) {
-                    impacts.add(ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
-                            .permissionId(permission.getId())
+                    impacts.add(permissionImpact(permission, config, itemTypeSet, assignmentDetails)
                             .permissionType("CREATORS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .itemTypeConfigurationId(config.getId())
-                            .itemTypeName(config.getItemType() != null ? config.getItemType().getName() : null)
-                            .itemTypeCategory(config.getCategory() != null ? config.getCategory().toString() : null)
-                            .grantId(assignmentDetails.globalGrantId())
-                            .grantName(assignmentDetails.globalGrantName())
-                            .assignedRoles(assignmentDetails.assignedRoles())
-                            .assignedGrants(assignmentDetails.assignedGrants())
-                            .projectAssignedRoles(assignmentDetails.projectRoles())
-                            .projectGrants(assignmentDetails.projectGrants())
-                            .hasAssignments(true)
                             .canBePreserved(false)
                             .defaultPreserve(false)
                             .build());
@@ -450,6 +314,34 @@ class ItemTypeSetPermissionImpactModule {
         return impacts;
     }
 
+    /**
+     * Campi comuni a tutti i tipi di permission: ItemTypeSet, configurazione e assegnazioni.
+     */
+    private ItemTypeConfigurationRemovalImpactDto.PermissionImpact.PermissionImpactBuilder permissionImpact(
+            PermissionRow permission,
+            ConfigurationNode config,
+            ItemTypeSetNode itemTypeSet,
+            AssignmentDetails assignmentDetails
+    ) {
+        ProjectRef project = itemTypeSet.ownerProject();
+        return ItemTypeConfigurationRemovalImpactDto.PermissionImpact.builder()
+                .permissionId(permission.id())
+                .itemTypeSetId(itemTypeSet.id())
+                .itemTypeSetName(itemTypeSet.name())
+                .projectId(project != null ? project.id() : null)
+                .projectName(project != null ? project.name() : null)
+                .itemTypeConfigurationId(config.id())
+                .itemTypeName(config.itemTypeName())
+                .itemTypeCategory(config.category() != null ? config.category().toString() : null)
+                .grantId(assignmentDetails.globalGrantId())
+                .grantName(assignmentDetails.globalGrantName())
+                .assignedRoles(assignmentDetails.assignedRoles())
+                .assignedGrants(assignmentDetails.assignedGrants())
+                .projectAssignedRoles(assignmentDetails.projectRoles())
+                .projectGrants(assignmentDetails.projectGrants())
+                .hasAssignments(true);
+    }
+
     private int countGlobalGrantAssignments(List<ItemTypeConfigurationRemovalImpactDto.PermissionImpact> permissions) {
         return permissions.stream()
                 .mapToInt(p -> p.getAssignedGrants() != null ? p.getAssignedGrants().size() : 0)
@@ -481,30 +373,18 @@ class ItemTypeSetPermissionImpactModule {
                 .sum();
     }
 
-    private AssignmentDetails resolveAssignmentDetails(
-            String permissionType,
-            Long permissionId,
-            ItemTypeSet itemTypeSet
-    ) {
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment(
-                permissionType,
-                permissionId,
-                itemTypeSet.getTenant()
-        );
+    private AssignmentDetails resolveAssignmentDetails(PermissionRow permission, ItemTypeSetNode itemTypeSet) {
+        Assignment assignment = permission.assignment();
 
-        List<String> assignedRoles = assignmentOpt.map(a -> a.getRoles().stream()
-                .map(Role::getName)
-                .collect(Collectors.toList()))
-                .orElseGet(ArrayList::new);
+        List<String> assignedRoles = assignment != null ? new ArrayList<>(assignment.roleNames()) : new ArrayList<>();
 
         List<String> assignedGrants = new ArrayList<>();
         Long globalGrantId = null;
         String globalGrantName = null;
-        if (assignmentOpt.isPresent() && assignmentOpt.get().getGrant() != null) {
-            Grant grant = assignmentOpt.get().getGrant();
-            globalGrantId = grant.getId();
-            globalGrantName = grant.getRole() != null
-                    ? grant.getRole().getName()
+        if (assignment != null && assignment.hasGrant()) {
+            globalGrantId = assignment.grantId();
+            globalGrantName = assignment.grantRoleName() != null
+                    ? assignment.grantRoleName()
                     : "Grant globale";
             assignedGrants.add(globalGrantName);
         }
@@ -512,44 +392,24 @@ class ItemTypeSetPermissionImpactModule {
         List<ItemTypeConfigurationRemovalImpactDto.ProjectGrantInfo> projectGrants = new ArrayList<>();
         List<ItemTypeConfigurationRemovalImpactDto.ProjectRoleInfo> projectRoles = new ArrayList<>();
 
-        Set<Project> projectsToCheck = new HashSet<>();
-        if (itemTypeSet.getProject() != null) {
-            projectsToCheck.add(itemTypeSet.getProject());
-        }
-        if (itemTypeSet.getProjectsAssociation() != null) {
-            projectsToCheck.addAll(itemTypeSet.getProjectsAssociation());
-        }
-
-        for (Project project : projectsToCheck) {
-            Optional<PermissionAssignment> projectAssignmentOpt =
-                    projectPermissionAssignmentService.getProjectAssignment(
-                            permissionType,
-                            permissionId,
-                            project.getId(),
-                            itemTypeSet.getTenant()
-                    );
-
-            if (projectAssignmentOpt.isEmpty()) {
+        for (ProjectRef project : itemTypeSet.allProjects()) {
+            Assignment projectAssignment = permission.projectAssignment(project.id());
+            if (projectAssignment == null) {
                 continue;
             }
 
-            PermissionAssignment projectAssignment = projectAssignmentOpt.get();
-            if (projectAssignment.getGrant() != null) {
+            if (projectAssignment.hasGrant()) {
                 projectGrants.add(ItemTypeConfigurationRemovalImpactDto.ProjectGrantInfo.builder()
-                        .projectId(project.getId())
-                        .projectName(project.getName())
+                        .projectId(project.id())
+                        .projectName(project.name())
                         .build());
             }
 
-            Set<Role> projectRolesSet = projectAssignment.getRoles();
-            if (projectRolesSet != null && !projectRolesSet.isEmpty()) {
-                List<String> roleNames = projectRolesSet.stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList());
+            if (projectAssignment.hasRoles()) {
                 projectRoles.add(ItemTypeConfigurationRemovalImpactDto.ProjectRoleInfo.builder()
-                        .projectId(project.getId())
-                        .projectName(project.getName())
-                        .roles(roleNames)
+                        .projectId(project.id())
+                        .projectName(project.name())
+                        .roles(new ArrayList<>(projectAssignment.roleNames()))
                         .build());
             }
         }
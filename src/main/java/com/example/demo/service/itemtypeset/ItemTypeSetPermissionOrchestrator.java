@@ -4,6 +4,8 @@ import com.example.demo.dto.ItemTypeConfigurationRemovalImpactDto;
 import com.example.demo.entity.ItemTypeConfiguration;
 import com.example.demo.entity.ItemTypeSet;
 import com.example.demo.entity.Tenant;
+import com.example.demo.service.configsnapshot.ImpactResultCache;
+import com.example.demo.service.configsnapshot.ImpactResultCache.ImpactKind;
 import com.example.demo.service.permission.itemtypeset.ItemTypeSetPermissionProvisioningModule;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -17,13 +19,19 @@ public class ItemTypeSetPermissionOrchestrator {
     private final ItemTypeSetPermissionImpactModule impactModule;
     private final ItemTypeSetPermissionCleanupModule cleanupModule;
     private final ItemTypeSetPermissionProvisioningModule provisioningModule;
+    private final ImpactResultCache impactResultCache;
 
     public ItemTypeConfigurationRemovalImpactDto analyzeRemovalImpact(
             Tenant tenant,
             Long itemTypeSetId,
             Set<Long> removedItemTypeConfigurationIds
     ) {
-        return impactModule.analyzeRemovalImpact(tenant, itemTypeSetId, removedItemTypeConfigurationIds);
+        return impactResultCache.get(tenant.getId(), ImpactKind.ITEM_TYPE_CONFIGURATION_REMOVAL, itemTypeSetId, version -> {
+            ItemTypeConfigurationRemovalImpactDto impact =
+                    impactModule.analyzeRemovalImpact(tenant, itemTypeSetId, removedItemTypeConfigurationIds);
+            impact.setConfigVersion(version);
+            return impact;
+        }, removedItemTypeConfigurationIds);
     }
 
     public boolean hasAssignments(ItemTypeConfigurationRemovalImpactDto impact) {
@@ -1,26 +1,19 @@
 package com.example.demo.service.migration.analysis;
 
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
-import com.example.demo.entity.ExecutorPermission;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.Tenant;
-import com.example.demo.entity.Transition;
-import com.example.demo.repository.ExecutorPermissionRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
 import com.example.demo.service.workflow.WorkflowHelper;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -29,9 +22,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ExecutorPermissionAnalysisStrategy {
 
-    private final ExecutorPermissionRepository executorPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final ProjectAssignmentCollector projectAssignmentCollector;
     private final WorkflowHelper workflowHelper;
 
     public List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> analyze(MigrationAnalysisContext context) {
@@ -40,7 +31,8 @@ public class ExecutorPermissionAnalysisStrategy {
         }
 
         ItemTypeConfiguration configuration = context.configuration();
-        List<ExecutorPermission> existingPermissions = executorPermissionRepository.findAllByItemTypeConfiguration(configuration);
+        TenantConfigSnapshot snapshot = context.snapshot();
+        List<PermissionRow> existingPermissions = snapshot.permissions(configuration.getId(), PermissionKind.EXECUTOR);
         if (existingPermissions.isEmpty()) {
             return Collections.emptyList();
         }
@@ -54,59 +46,46 @@ public class ExecutorPermissionAnalysisStrategy {
                         Function.identity()
                 ));
 
-        Tenant tenant = configuration.getTenant();
         Long itemTypeSetId = context.itemTypeSetId();
-        ItemTypeSet itemTypeSet = context.owningItemTypeSet();
+        ItemTypeSetNode itemTypeSet = context.owningItemTypeSet();
 
         // Filtra solo le permission che sono effettivamente impattate:
         // - Transition non esiste più nel nuovo workflow
         return existingPermissions.stream()
                 .filter(permission -> {
-                    Long transitionId = permission.getTransition() != null ? permission.getTransition().getId() : null;
+                    TransitionNode transition = snapshot.transition(permission.targetId());
+                    Long transitionId = transition != null ? transition.id() : null;
                     // Include solo se la transition non esiste più nel nuovo workflow
                     return transitionId == null || !newTransitionIds.contains(transitionId);
                 })
-                .map(permission -> buildImpact(permission, context, tenant, itemTypeSet, itemTypeSetId, newTransitionIds, newTransitionsMap))
+                .map(permission -> buildImpact(permission, context, itemTypeSet, itemTypeSetId, newTransitionIds, newTransitionsMap))
                 .collect(Collectors.toList());
     }
 
     private ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact buildImpact(
-            ExecutorPermission permission,
+            PermissionRow permission,
             MigrationAnalysisContext context,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet,
+            ItemTypeSetNode itemTypeSet,
             Long itemTypeSetId,
             Set<Long> newTransitionIds,
             Map<Long, ItemTypeConfigurationMigrationImpactDto.TransitionInfo> newTransitionsMap
     ) {
-        Transition transition = permission.getTransition();
-        Long transitionId = transition != null ? transition.getId() : null;
+        TenantConfigSnapshot snapshot = context.snapshot();
+        TransitionNode transition = snapshot.transition(permission.targetId());
+        Long transitionId = transition != null ? transition.id() : null;
 
         boolean canPreserve = transitionId != null && newTransitionIds.contains(transitionId);
         ItemTypeConfigurationMigrationImpactDto.TransitionInfo matchingTransition = canPreserve
                 ? newTransitionsMap.get(transitionId)
                 : null;
 
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment("ExecutorPermission", permission.getId(), tenant);
-        List<String> assignedRoles = assignmentOpt.map(a -> a.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList()))
-                .orElseGet(ArrayList::new);
-
-        Long grantId = null;
-        String grantName = null;
-        if (assignmentOpt.isPresent() && assignmentOpt.get().getGrant() != null) {
-            grantId = assignmentOpt.get().getGrant().getId();
-            grantName = assignmentOpt.get().getGrant().getRole() != null
-                    ? assignmentOpt.get().getGrant().getRole().getName()
-                    : "Grant globale";
-        }
+        ProjectAssignmentCollector.GlobalAssignmentSummary globalSummary = projectAssignmentCollector.collectGlobal(permission);
+        List<String> assignedRoles = globalSummary.assignedRoles();
+        Long grantId = globalSummary.grantId();
+        String grantName = globalSummary.grantName();
 
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants = collectProjectGrants(
-                permission,
-                tenant,
-                itemTypeSet
-        );
+        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants =
+                projectAssignmentCollector.collect(permission, itemTypeSet).projectGrants();
 
         // Verifica se ci sono assegnazioni: ruoli globali, grant globale, o assegnazioni di progetto (ruoli o grant)
         boolean hasProjectAssignments = projectGrants.stream()
@@ -114,16 +93,12 @@ public class ExecutorPermissionAnalysisStrategy {
         boolean hasAssignments = !assignedRoles.isEmpty() || grantId != null || hasProjectAssignments;
         boolean defaultPreserve = canPreserve && hasAssignments;
 
-        String transitionName = transition != null ? transition.getName() : null;
-        String fromStatusName = transition != null && transition.getFromStatus() != null && transition.getFromStatus().getStatus() != null
-                ? transition.getFromStatus().getStatus().getName()
-                : null;
-        String toStatusName = transition != null && transition.getToStatus() != null && transition.getToStatus().getStatus() != null
-                ? transition.getToStatus().getStatus().getName()
-                : null;
+        String transitionName = transition != null ? transition.name() : null;
+        String fromStatusName = transition != null ? snapshot.statusName(transition.fromWorkflowStatusId()) : null;
+        String toStatusName = transition != null ? snapshot.statusName(transition.toWorkflowStatusId()) : null;
 
         return ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact.builder()
-                .permissionId(permission.getId())
+                .permissionId(permission.id())
                 .permissionType("EXECUTORS")
                 .entityId(transitionId)
                 .entityName(transitionName != null ? transitionName : workflowHelper.formatTransitionName(fromStatusName, toStatusName))
@@ -136,8 +111,8 @@ public class ExecutorPermissionAnalysisStrategy {
                 .suggestedAction(canPreserve ? "PRESERVE" : "REMOVE")
                 .itemTypeSetId(itemTypeSetId)
                 .itemTypeSetName(context.itemTypeSetName())
-                .projectId(itemTypeSet != null && itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                .projectName(itemTypeSet != null && itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
+                .projectId(itemTypeSet != null && itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().id() : null)
+                .projectName(itemTypeSet != null && itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().name() : null)
                 .grantId(grantId)
                 .grantName(grantName)
                 .projectGrants(projectGrants)
@@ -146,72 +121,4 @@ public class ExecutorPermissionAnalysisStrategy {
                 .transitionName(transitionName)
                 .build();
     }
-
-
-    private List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> collectProjectGrants(
-            ExecutorPermission permission,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        if (itemTypeSet == null) {
-            return Collections.emptyList();
-        }
-
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> grants = new ArrayList<>();
-
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                    "ExecutorPermission",
-                    permission.getId(),
-                    itemTypeSet.getProject().getId(),
-                    tenant
-            );
-            projectAssignmentOpt.ifPresent(assignment -> addGrantIfPresent(grants, assignment, itemTypeSet.getProject().getId(), itemTypeSet.getProject().getName()));
-        } else if (itemTypeSet.getProjectsAssociation() != null) {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                        "ExecutorPermission",
-                        permission.getId(),
-                        project.getId(),
-                        tenant
-                );
-                projectAssignmentOpt.ifPresent(assignment -> addGrantIfPresent(grants, assignment, project.getId(), project.getName()));
-            }
-        }
-
-        return grants;
-    }
-
-    private void addGrantIfPresent(
-            List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> grants,
-            PermissionAssignment assignment,
-            Long projectId,
-            String projectName
-    ) {
-        // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-        List<String> projectRoles = assignment.getRoles() != null
-                ? assignment.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList())
-                : Collections.emptyList();
-        
-        Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-        // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-        // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-        String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                ? assignment.getGrant().getRole().getName()
-                : null;
-        
-        // Aggiungi solo se ci sono ruoli o grant
-        if (!projectRoles.isEmpty() || projectGrantId != null) {
-            grants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                    .projectId(projectId)
-                    .projectName(projectName)
-                    .assignedRoles(projectRoles)
-                    .grantId(projectGrantId)
-                    .grantName(projectGrantName)
-                    .build());
-        }
-    }
 }
-
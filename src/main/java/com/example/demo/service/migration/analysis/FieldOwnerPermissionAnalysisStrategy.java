@@ -1,28 +1,20 @@
 package com.example.demo.service.migration.analysis;
 
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
-import com.example.demo.entity.FieldConfiguration;
-import com.example.demo.entity.FieldOwnerPermission;
 import com.example.demo.entity.FieldSet;
-import com.example.demo.entity.FieldSetEntry;
-import com.example.demo.entity.Grant;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.Tenant;
-import com.example.demo.repository.FieldOwnerPermissionRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -31,9 +23,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class FieldOwnerPermissionAnalysisStrategy {
 
-    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final ProjectAssignmentCollector projectAssignmentCollector;
 
     public List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> analyze(MigrationAnalysisContext context) {
         if (!context.fieldSetChanged()) {
@@ -43,7 +33,7 @@ public class FieldOwnerPermissionAnalysisStrategy {
         ItemTypeConfiguration configuration = context.configuration();
         ItemTypeConfigurationMigrationImpactDto.FieldSetInfo newFieldSetInfo = context.newFieldSetInfo();
 
-        List<FieldOwnerPermission> existingPermissions = fieldOwnerPermissionRepository.findAllByItemTypeConfiguration(configuration);
+        List<PermissionRow> existingPermissions = context.snapshot().permissions(configuration.getId(), PermissionKind.FIELD_OWNER);
         if (existingPermissions.isEmpty()) {
             return Collections.emptyList();
         }
@@ -57,9 +47,8 @@ public class FieldOwnerPermissionAnalysisStrategy {
                         Function.identity()
                 ));
 
-        Tenant tenant = configuration.getTenant();
         Long itemTypeSetId = context.itemTypeSetId();
-        ItemTypeSet itemTypeSet = context.owningItemTypeSet();
+        ItemTypeSetNode itemTypeSet = context.owningItemTypeSet();
 
         // Filtra le permission che sono effettivamente impattate:
         // - Include TUTTE le permission quando il fieldset cambia (anche se il field esiste ancora,
@@ -70,47 +59,37 @@ public class FieldOwnerPermissionAnalysisStrategy {
                     // perché cambiano le FieldConfiguration anche se il field è lo stesso
                     return true;
                 })
-                .map(permission -> buildImpact(permission, context, tenant, itemTypeSet, itemTypeSetId, newFieldIds, newFieldsMap))
+                .map(permission -> buildImpact(permission, context, itemTypeSet, itemTypeSetId, newFieldIds, newFieldsMap))
                 .collect(Collectors.toList());
     }
 
     private ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact buildImpact(
-            FieldOwnerPermission permission,
+            PermissionRow permission,
             MigrationAnalysisContext context,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet,
+            ItemTypeSetNode itemTypeSet,
             Long itemTypeSetId,
             Set<Long> newFieldIds,
             Map<Long, ItemTypeConfigurationMigrationImpactDto.FieldInfo> newFieldsMap
     ) {
         ItemTypeConfiguration configuration = context.configuration();
-        Long fieldId = permission.getField().getId();
+        Long fieldId = permission.targetId();
+        FieldNode field = context.snapshot().field(fieldId);
         boolean canPreserve = newFieldIds.contains(fieldId);
 
         ItemTypeConfigurationMigrationImpactDto.FieldInfo matchingField = canPreserve
                 ? newFieldsMap.get(fieldId)
                 : null;
 
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment("FieldOwnerPermission", permission.getId(), tenant);
-        List<String> assignedRoles = assignmentOpt.map(a -> a.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList()))
-                .orElseGet(ArrayList::new);
-
-        Long grantId = null;
-        String grantName = null;
-        if (assignmentOpt.isPresent() && assignmentOpt.get().getGrant() != null) {
-            Grant grant = assignmentOpt.get().getGrant();
-            grantId = grant.getId();
-            grantName = grant.getRole() != null ? grant.getRole().getName() : "Grant globale";
-        }
+        ProjectAssignmentCollector.GlobalAssignmentSummary globalSummary = projectAssignmentCollector.collectGlobal(permission);
+        List<String> assignedRoles = globalSummary.assignedRoles();
+        Long grantId = globalSummary.grantId();
+        String grantName = globalSummary.grantName();
 
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants = collectProjectGrants(
-                permission,
-                tenant,
-                itemTypeSet,
-                context.oldFieldSet()
-        );
+        // Le assegnazioni di progetto contano solo se il field era nel FieldSet di partenza
+        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants =
+                containsField(context.snapshot(), context.oldFieldSet(), fieldId)
+                        ? projectAssignmentCollector.collect(permission, itemTypeSet).projectGrants()
+                        : Collections.emptyList();
 
         // Verifica se ci sono assegnazioni: ruoli globali, grant globale, o assegnazioni di progetto (ruoli o grant)
         boolean hasProjectAssignments = projectGrants.stream()
@@ -119,10 +98,10 @@ public class FieldOwnerPermissionAnalysisStrategy {
         boolean defaultPreserve = canPreserve && hasAssignments;
 
         return ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact.builder()
-                .permissionId(permission.getId())
+                .permissionId(permission.id())
                 .permissionType("FIELD_OWNERS")
                 .entityId(fieldId)
-                .entityName(permission.getField().getName())
+                .entityName(field != null ? field.name() : null)
                 .matchingEntityId(canPreserve && matchingField != null ? matchingField.getFieldId() : null)
                 .matchingEntityName(canPreserve && matchingField != null ? matchingField.getFieldName() : null)
                 .assignedRoles(assignedRoles)
@@ -140,104 +119,11 @@ public class FieldOwnerPermissionAnalysisStrategy {
                 .build();
     }
 
-    private List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> collectProjectGrants(
-            FieldOwnerPermission permission,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet,
-            FieldSet oldFieldSet
-    ) {
-        if (itemTypeSet == null) {
-            return Collections.emptyList();
-        }
-
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> grants = new ArrayList<>();
-
-        if (!containsField(oldFieldSet, permission)) {
-            return grants;
-        }
-
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                    "FieldOwnerPermission",
-                    permission.getId(),
-                    itemTypeSet.getProject().getId(),
-                    tenant
-            );
-            projectAssignmentOpt.ifPresent(assignment -> {
-                // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                List<String> projectRoles = assignment.getRoles() != null
-                        ? assignment.getRoles().stream()
-                                .map(Role::getName)
-                                .collect(Collectors.toList())
-                        : Collections.emptyList();
-                
-                Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-                // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-                // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                        ? assignment.getGrant().getRole().getName()
-                        : null;
-                
-                // Aggiungi solo se ci sono ruoli o grant
-                if (!projectRoles.isEmpty() || projectGrantId != null) {
-                    grants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                            .projectId(itemTypeSet.getProject().getId())
-                            .projectName(itemTypeSet.getProject().getName())
-                            .assignedRoles(projectRoles)
-                            .grantId(projectGrantId)
-                            .grantName(projectGrantName)
-                            .build());
-                }
-            });
-        } else if (itemTypeSet.getProjectsAssociation() != null) {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                        "FieldOwnerPermission",
-                        permission.getId(),
-                        project.getId(),
-                        tenant
-                );
-                projectAssignmentOpt.ifPresent(assignment -> {
-                    // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                    List<String> projectRoles = assignment.getRoles() != null
-                            ? assignment.getRoles().stream()
-                                    .map(Role::getName)
-                                    .collect(Collectors.toList())
-                            : Collections.emptyList();
-                    
-                    Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-                    // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-                    // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                    String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                            ? assignment.getGrant().getRole().getName()
-                            : null;
-                    
-                    // Aggiungi solo se ci sono ruoli o grant
-                    if (!projectRoles.isEmpty() || projectGrantId != null) {
-                        grants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                                .projectId(project.getId())
-                                .projectName(project.getName())
-                                .assignedRoles(projectRoles)
-                                .grantId(projectGrantId)
-                                .grantName(projectGrantName)
-                                .build());
-                    }
-                });
-            }
-        }
-
-        return grants;
-    }
-
-    private boolean containsField(FieldSet oldFieldSet, FieldOwnerPermission permission) {
+    private boolean containsField(TenantConfigSnapshot snapshot, FieldSet oldFieldSet, Long fieldId) {
         if (oldFieldSet == null) {
             return false;
         }
-        return oldFieldSet.getFieldSetEntries()
-                .stream()
-                .map(FieldSetEntry::getFieldConfiguration)
-                .map(FieldConfiguration::getField)
-                .anyMatch(field -> field.getId().equals(permission.getField().getId()));
+        FieldSetNode fieldSet = snapshot.fieldSet(oldFieldSet.getId());
+        return fieldSet != null && fieldSet.containsField(fieldId);
     }
 }
-
@@ -3,11 +3,13 @@ package com.example.demo.service.migration.analysis;
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
 import com.example.demo.entity.FieldSet;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
 import com.example.demo.entity.Workflow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
 
 /**
  * Shared context for permission analysis strategies executed during ItemTypeConfiguration migration impact evaluation.
+ * Permissions and their assignments are read from the tenant configuration snapshot.
  */
 public record MigrationAnalysisContext(
         ItemTypeConfiguration configuration,
@@ -22,8 +24,9 @@ public record MigrationAnalysisContext(
         boolean fieldSetChanged,
         boolean workflowChanged,
         Long itemTypeSetId,
-        ItemTypeSet owningItemTypeSet,
-        String itemTypeSetName
+        ItemTypeSetNode owningItemTypeSet,
+        String itemTypeSetName,
+        TenantConfigSnapshot snapshot
 ) {
 }
 
@@ -1,112 +1,74 @@
 package com.example.demo.service.migration.analysis;
 
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.Tenant;
-import com.example.demo.service.ProjectPermissionAssignmentService;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.Assignment;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
+/**
+ * Legge le assegnazioni (globale e di progetto) di una permission dallo snapshot della configurazione,
+ * nel formato usato dalle strategie di analisi della migrazione.
+ */
 @Component
-@RequiredArgsConstructor
 public class ProjectAssignmentCollector {
 
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    public GlobalAssignmentSummary collectGlobal(PermissionRow permission) {
+        Assignment assignment = permission.assignment();
+        if (assignment == null) {
+            return new GlobalAssignmentSummary(new ArrayList<>(), null, null);
+        }
 
-    public ProjectAssignmentSummary collect(
-            String permissionType,
-            Long permissionId,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
+        Long grantId = null;
+        String grantName = null;
+        if (assignment.hasGrant()) {
+            grantId = assignment.grantId();
+            grantName = assignment.grantRoleName() != null ? assignment.grantRoleName() : "Grant globale";
+        }
+        return new GlobalAssignmentSummary(new ArrayList<>(assignment.roleNames()), grantId, grantName);
+    }
+
+    public ProjectAssignmentSummary collect(PermissionRow permission, ItemTypeSetNode itemTypeSet) {
         List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants = new ArrayList<>();
 
         if (itemTypeSet == null) {
             return new ProjectAssignmentSummary(projectGrants);
         }
 
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                    permissionType,
-                    permissionId,
-                    itemTypeSet.getProject().getId(),
-                    tenant
-            );
-            projectAssignmentOpt.ifPresent(assignment -> {
-                // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                List<String> projectRoles = assignment.getRoles() != null
-                        ? assignment.getRoles().stream()
-                                .map(Role::getName)
-                                .collect(Collectors.toList())
-                        : Collections.emptyList();
-                
-                Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-                // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-                // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                        ? assignment.getGrant().getRole().getName()
-                        : null;
-                
-                // Aggiungi solo se ci sono ruoli o grant
-                if (!projectRoles.isEmpty() || projectGrantId != null) {
-                    projectGrants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                            .projectId(itemTypeSet.getProject().getId())
-                            .projectName(itemTypeSet.getProject().getName())
-                            .assignedRoles(projectRoles)
-                            .grantId(projectGrantId)
-                            .grantName(projectGrantName)
-                            .build());
-                }
-            });
-        } else if (itemTypeSet.getProjectsAssociation() != null) {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                        permissionType,
-                        permissionId,
-                        project.getId(),
-                        tenant
-                );
-                projectAssignmentOpt.ifPresent(assignment -> {
-                    // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                    List<String> projectRoles = assignment.getRoles() != null
-                            ? assignment.getRoles().stream()
-                                    .map(Role::getName)
-                                    .collect(Collectors.toList())
-                            : Collections.emptyList();
-                    
-                    Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
+        for (ProjectRef project : itemTypeSet.scopedProjects()) {
+            Assignment assignment = permission.projectAssignment(project.id());
+            // Aggiungi solo se ci sono ruoli o grant
+            if (assignment == null || (!assignment.hasRoles() && !assignment.hasGrant())) {
+                continue;
+            }
+            projectGrants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
+                    .projectId(project.id())
+                    .projectName(project.name())
+                    .assignedRoles(new ArrayList<>(assignment.roleNames()))
+                    .grantId(assignment.grantId())
                     // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
                     // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                    String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                            ? assignment.getGrant().getRole().getName()
-                            : null;
-                    
-                    // Aggiungi solo se ci sono ruoli o grant
-                    if (!projectRoles.isEmpty() || projectGrantId != null) {
-                        projectGrants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                                .projectId(project.getId())
-                                .projectName(project.getName())
-                                .assignedRoles(projectRoles)
-                                .grantId(projectGrantId)
-                                .grantName(projectGrantName)
-                                .build());
-                    }
-                });
-            }
+                    .grantName(assignment.hasGrant() ? assignment.grantRoleName() : null)
+                    .build());
         }
 
         return new ProjectAssignmentSummary(projectGrants);
     }
 
+    /**
+     * Ruoli e grant della PermissionAssignment globale (grantName "Grant globale" se la grant non ha ruolo).
+     */
+    public record GlobalAssignmentSummary(
+            List<String> assignedRoles,
+            Long grantId,
+            String grantName
+    ) {
+    }
+
     public record ProjectAssignmentSummary(
             List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants
     ) {
@@ -114,9 +76,13 @@ public class ProjectAssignmentCollector {
             return projectGrants.stream()
                     .anyMatch(pg -> pg.getAssignedRoles() != null && !pg.getAssignedRoles().isEmpty());
         }
+
+        /**
+         * Ruoli o grant di progetto su almeno un progetto.
+         */
+        public boolean hasProjectAssignments() {
+            return projectGrants.stream()
+                    .anyMatch(pg -> (pg.getAssignedRoles() != null && !pg.getAssignedRoles().isEmpty()) || pg.getGrantId() != null);
+        }
     }
 }
-
-
-
-
@@ -2,24 +2,17 @@ package com.example.demo.service.migration.analysis;
 
 import com.example.demo.dto.ItemTypeConfigurationMigrationImpactDto;
 import com.example.demo.entity.ItemTypeConfiguration;
-import com.example.demo.entity.ItemTypeSet;
-import com.example.demo.entity.PermissionAssignment;
-import com.example.demo.entity.Project;
-import com.example.demo.entity.Role;
-import com.example.demo.entity.Status;
-import com.example.demo.entity.StatusOwnerPermission;
-import com.example.demo.entity.Tenant;
-import com.example.demo.repository.StatusOwnerPermissionRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -28,9 +21,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StatusOwnerPermissionAnalysisStrategy {
 
-    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final ProjectAssignmentCollector projectAssignmentCollector;
 
     public List<ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact> analyze(MigrationAnalysisContext context) {
         if (!context.workflowChanged()) {
@@ -38,7 +29,8 @@ public class StatusOwnerPermissionAnalysisStrategy {
         }
 
         ItemTypeConfiguration configuration = context.configuration();
-        List<StatusOwnerPermission> existingPermissions = statusOwnerPermissionRepository.findAllByItemTypeConfiguration(configuration);
+        TenantConfigSnapshot snapshot = context.snapshot();
+        List<PermissionRow> existingPermissions = snapshot.permissions(configuration.getId(), PermissionKind.STATUS_OWNER);
         if (existingPermissions.isEmpty()) {
             return Collections.emptyList();
         }
@@ -54,59 +46,44 @@ public class StatusOwnerPermissionAnalysisStrategy {
                         (existing, replacement) -> existing
                 ));
 
-        Tenant tenant = configuration.getTenant();
         Long itemTypeSetId = context.itemTypeSetId();
-        ItemTypeSet itemTypeSet = context.owningItemTypeSet();
+        ItemTypeSetNode itemTypeSet = context.owningItemTypeSet();
 
         // Filtra solo le permission che sono effettivamente impattate:
         // - Status non esiste più nel nuovo workflow
         return existingPermissions.stream()
                 .filter(permission -> {
-                    Long statusId = permission.getWorkflowStatus() != null && permission.getWorkflowStatus().getStatus() != null
-                            ? permission.getWorkflowStatus().getStatus().getId() : null;
+                    WorkflowStatusNode workflowStatus = snapshot.workflowStatus(permission.targetId());
+                    Long statusId = workflowStatus != null ? workflowStatus.statusId() : null;
                     // Include solo se lo status non esiste più nel nuovo workflow
                     return statusId == null || !newStatusIds.contains(statusId);
                 })
-                .map(permission -> buildImpact(permission, context, tenant, itemTypeSet, itemTypeSetId, newStatusIds, newStatusesMap))
+                .map(permission -> buildImpact(permission, context, itemTypeSet, itemTypeSetId, newStatusIds, newStatusesMap))
                 .collect(Collectors.toList());
     }
 
     private ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact buildImpact(
-            StatusOwnerPermission permission,
+            PermissionRow permission,
             MigrationAnalysisContext context,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet,
+            ItemTypeSetNode itemTypeSet,
             Long itemTypeSetId,
             Set<Long> newStatusIds,
             Map<Long, ItemTypeConfigurationMigrationImpactDto.WorkflowStatusInfo> newStatusesMap
     ) {
-        Status status = permission.getWorkflowStatus().getStatus();
-        Long statusId = status.getId();
-        String statusName = status.getName();
+        WorkflowStatusNode workflowStatus = context.snapshot().workflowStatus(permission.targetId());
+        Long statusId = workflowStatus != null ? workflowStatus.statusId() : null;
+        String statusName = workflowStatus != null ? workflowStatus.statusName() : null;
 
         boolean canPreserve = newStatusIds.contains(statusId);
         ItemTypeConfigurationMigrationImpactDto.WorkflowStatusInfo matchingStatus = canPreserve ? newStatusesMap.get(statusId) : null;
 
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment("StatusOwnerPermission", permission.getId(), tenant);
-        List<String> assignedRoles = assignmentOpt.map(a -> a.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList()))
-                .orElseGet(ArrayList::new);
+        ProjectAssignmentCollector.GlobalAssignmentSummary globalSummary = projectAssignmentCollector.collectGlobal(permission);
+        List<String> assignedRoles = globalSummary.assignedRoles();
+        Long grantId = globalSummary.grantId();
+        String grantName = globalSummary.grantName();
 
-        Long grantId = null;
-        String grantName = null;
-        if (assignmentOpt.isPresent() && assignmentOpt.get().getGrant() != null) {
-            grantId = assignmentOpt.get().getGrant().getId();
-            grantName = assignmentOpt.get().getGrant().getRole() != null
-                    ? assignmentOpt.get().getGrant().getRole().getName()
-                    : "Grant globale";
-        }
-
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants = collectProjectGrants(
-                permission,
-                tenant,
-                itemTypeSet
-        );
+        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> projectGrants =
+                projectAssignmentCollector.collect(permission, itemTypeSet).projectGrants();
 
         // Verifica se ci sono assegnazioni: ruoli globali, grant globale, o assegnazioni di progetto (ruoli o grant)
         boolean hasProjectAssignments = projectGrants.stream()
@@ -115,7 +92,7 @@ public class StatusOwnerPermissionAnalysisStrategy {
         boolean defaultPreserve = canPreserve && hasAssignments;
 
         return ItemTypeConfigurationMigrationImpactDto.SelectablePermissionImpact.builder()
-                .permissionId(permission.getId())
+                .permissionId(permission.id())
                 .permissionType("STATUS_OWNERS")
                 .entityId(statusId)
                 .entityName(statusName)
@@ -128,96 +105,11 @@ public class StatusOwnerPermissionAnalysisStrategy {
                 .suggestedAction(canPreserve ? "PRESERVE" : "REMOVE")
                 .itemTypeSetId(itemTypeSetId)
                 .itemTypeSetName(context.itemTypeSetName())
-                .projectId(itemTypeSet != null && itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                .projectName(itemTypeSet != null && itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
+                .projectId(itemTypeSet != null && itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().id() : null)
+                .projectName(itemTypeSet != null && itemTypeSet.ownerProject() != null ? itemTypeSet.ownerProject().name() : null)
                 .grantId(grantId)
                 .grantName(grantName)
                 .projectGrants(projectGrants)
                 .build();
     }
-
-    private List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> collectProjectGrants(
-            StatusOwnerPermission permission,
-            Tenant tenant,
-            ItemTypeSet itemTypeSet
-    ) {
-        if (itemTypeSet == null) {
-            return Collections.emptyList();
-        }
-
-        List<ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo> grants = new ArrayList<>();
-
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                    "StatusOwnerPermission",
-                    permission.getId(),
-                    itemTypeSet.getProject().getId(),
-                    tenant
-            );
-            projectAssignmentOpt.ifPresent(assignment -> {
-                // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                List<String> projectRoles = assignment.getRoles() != null
-                        ? assignment.getRoles().stream()
-                                .map(Role::getName)
-                                .collect(Collectors.toList())
-                        : Collections.emptyList();
-                
-                Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-                // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-                // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                        ? assignment.getGrant().getRole().getName()
-                        : null;
-                
-                // Aggiungi solo se ci sono ruoli o grant
-                if (!projectRoles.isEmpty() || projectGrantId != null) {
-                    grants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                            .projectId(itemTypeSet.getProject().getId())
-                            .projectName(itemTypeSet.getProject().getName())
-                            .assignedRoles(projectRoles)
-                            .grantId(projectGrantId)
-                            .grantName(projectGrantName)
-                            .build());
-                }
-            });
-        } else if (itemTypeSet.getProjectsAssociation() != null) {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt = projectPermissionAssignmentService.getProjectAssignment(
-                        "StatusOwnerPermission",
-                        permission.getId(),
-                        project.getId(),
-                        tenant
-                );
-                projectAssignmentOpt.ifPresent(assignment -> {
-                    // Raccogli ruoli e grant dalla PermissionAssignment di progetto
-                    List<String> projectRoles = assignment.getRoles() != null
-                            ? assignment.getRoles().stream()
-                                    .map(Role::getName)
-                                    .collect(Collectors.toList())
-                            : Collections.emptyList();
-                    
-                    Long projectGrantId = assignment.getGrant() != null ? assignment.getGrant().getId() : null;
-                    // Per i grant di progetto, popoliamo grantName solo se c'è un ruolo specifico associato
-                    // Non usiamo "Grant globale" perché questi sono grant di progetto, non globali
-                    String projectGrantName = assignment.getGrant() != null && assignment.getGrant().getRole() != null
-                            ? assignment.getGrant().getRole().getName()
-                            : null;
-                    
-                    // Aggiungi solo se ci sono ruoli o grant
-                    if (!projectRoles.isEmpty() || projectGrantId != null) {
-                        grants.add(ItemTypeConfigurationMigrationImpactDto.ProjectGrantInfo.builder()
-                                .projectId(project.getId())
-                                .projectName(project.getName())
-                                .assignedRoles(projectRoles)
-                                .grantId(projectGrantId)
-                                .grantName(projectGrantName)
-                                .build());
-                    }
-                });
-            }
-        }
-
-        return grants;
-    }
 }
-
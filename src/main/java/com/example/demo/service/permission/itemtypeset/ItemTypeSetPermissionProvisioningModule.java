@@ -20,9 +20,8 @@ public class ItemTypeSetPermissionProvisioningModule {
         ItemTypeSet itemTypeSet = itemTypeSetRepository.findById(itemTypeSetId)
                 .orElseThrow(() -> new ApiException("ItemTypeSet not found"));
 
-        for (ItemTypeConfiguration configuration : itemTypeSet.getItemTypeConfigurations()) {
-            itemTypePermissionService.createPermissionsForItemTypeConfiguration(configuration);
-        }
+        // Tutte le configurazioni in un unico provisioning in blocco
+        itemTypePermissionService.createPermissionsForItemTypeConfigurations(itemTypeSet.getItemTypeConfigurations());
     }
 
     public void createPermissionsForConfiguration(ItemTypeConfiguration configuration) {
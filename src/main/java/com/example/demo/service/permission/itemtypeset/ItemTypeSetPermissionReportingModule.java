@@ -1,23 +1,62 @@
 package com.example.demo.service.permission.itemtypeset;
 
+import com.example.demo.dto.ItemTypeSetPermissionPageDto;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto.ProjectGrant;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto.Ref;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto.RoleRef;
+import com.example.demo.dto.ItemTypeSetPermissionRowDto.UserRef;
 import com.example.demo.entity.*;
+import com.example.demo.enums.PermissionReportSection;
 import com.example.demo.exception.ApiException;
 import com.example.demo.repository.*;
+import com.example.demo.service.GrantMembershipLookup;
+import com.example.demo.service.GrantMembershipLookup.GrantMembership;
 import com.example.demo.service.permission.scope.PermissionScope;
 import com.example.demo.service.permission.scope.PermissionScopeRegistry;
 import com.example.demo.service.permission.scope.PermissionScopeRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Report dei permessi di un ItemTypeSet.
+ *
+ * Le sei sezioni (Workers, Status Owners, Field Owners, Creators, Executors, Editors/Viewers) sono indipendenti:
+ * ognuna carica le proprie permission e le relative PermissionAssignment su un virtual thread, in una propria
+ * transazione read-only, così la latenza è quella della sezione più lenta e non la somma delle sei.
+ * Le sezioni in esecuzione contemporanea sono al massimo permission.report.max-parallel-sections e il chiamante
+ * non deve tenere aperta una transazione: ogni richiesta occupa al più quel numero di connessioni del pool.
+ * Per gli ItemTypeSet molto grandi sono disponibili anche una variante paginata (keyset sull'id della permission)
+ * e una variante a blocchi per lo streaming NDJSON.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class ItemTypeSetPermissionReportingModule {
 
+    // Righe per pagina al massimo nel report paginato
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Righe lette (e scritte) per blocco nello streaming
+    private static final int STREAM_CHUNK_SIZE = 500;
+
     private final ItemTypeSetRepository itemTypeSetRepository;
     private final WorkerPermissionRepository workerPermissionRepository;
     private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
@@ -26,581 +65,561 @@ public class ItemTypeSetPermissionReportingModule {
     private final ExecutorPermissionRepository executorPermissionRepository;
     private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
     private final PermissionScopeRegistry permissionScopeRegistry;
-
-    public Map<String, List<Map<String, Object>>> getPermissionsByItemTypeSet(Long itemTypeSetId,
-                                                                             Tenant tenant,
-                                                                             Long projectId) {
+    private final GrantMembershipLookup grantMembershipLookup;
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    // Sezioni lette in parallelo (quindi connessioni occupate) al massimo da una richiesta
+    @Value("${permission.report.max-parallel-sections:3}")
+    private int maxParallelSections;
+
+    public Map<String, List<ItemTypeSetPermissionRowDto>> getPermissionsByItemTypeSet(Long itemTypeSetId,
+                                                                                     Tenant tenant,
+                                                                                     Long projectId) {
         try {
-            ItemTypeSet itemTypeSet = itemTypeSetRepository.findByIdWithAllRelations(itemTypeSetId, tenant)
-                    .orElseThrow(() -> new ApiException("ItemTypeSet not found"));
-
-            Map<String, List<Map<String, Object>>> result = new LinkedHashMap<>();
-
-            // Assicurati che le configurazioni siano caricate correttamente
-            // Per ItemTypeSet di progetto, potrebbe essere necessario ricaricare le configurazioni
-            List<ItemTypeConfiguration> configurations = new ArrayList<>(itemTypeSet.getItemTypeConfigurations());
-            
-            // Se non ci sono configurazioni caricate, ricarica l'ItemTypeSet
-            if (configurations.isEmpty() && itemTypeSet.getId() != null) {
-                ItemTypeSet reloadedItemTypeSet = itemTypeSetRepository.findByIdWithItemTypeConfigurationsAndTenant(
-                        itemTypeSet.getId(), 
-                        tenant
-                ).orElse(itemTypeSet);
-                configurations = new ArrayList<>(reloadedItemTypeSet.getItemTypeConfigurations());
-                // Aggiorna anche l'ItemTypeSet originale con le configurazioni ricaricate
-                itemTypeSet.setItemTypeConfigurations(new HashSet<>(configurations));
-            }
-            
-            Set<Long> configurationIds = configurations.stream()
-                    .map(ItemTypeConfiguration::getId)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toCollection(LinkedHashSet::new));
-            
-            // Log per debug: verifica che le configurazioni siano corrette
-            if (log.isDebugEnabled()) {
-                log.debug("ItemTypeSet {} (scope: {}) has {} configurations: {}", 
-                        itemTypeSet.getId(), 
-                        itemTypeSet.getScope(), 
-                        configurationIds.size(),
-                        configurationIds);
-            }
-            
-            // Verifica che le configurazioni siano effettivamente nell'ItemTypeSet
-            // Questo è importante per gli ItemTypeSet di progetto
-            // Le configurazioni sono già state caricate con LEFT JOIN FETCH, quindi dovrebbero essere corrette
-            // Non serve una verifica aggiuntiva qui perché le permission vengono già filtrate per configurationIds
-
-            Map<Long, List<WorkerPermission>> workerPermissionsByConfigId = Collections.emptyMap();
-            Set<Long> workerPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<WorkerPermission> workerPermissions = workerPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                workerPermissionsByConfigId = workerPermissions.stream()
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                workerPermissionIds = workerPermissions.stream()
-                        .map(WorkerPermission::getId)
-                        .collect(Collectors.toSet());
-            }
-
-            Map<Long, List<StatusOwnerPermission>> statusPermissionsByConfigId = Collections.emptyMap();
-            Set<Long> statusPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<StatusOwnerPermission> statusPermissions = statusOwnerPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                statusPermissionsByConfigId = statusPermissions.stream()
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                statusPermissionIds = statusPermissions.stream()
-                        .map(StatusOwnerPermission::getId)
-                        .collect(Collectors.toSet());
-            }
+            TransactionTemplate readOnly = readOnlyTransaction();
+            ReportContext ctx = readOnly.execute(status -> resolveContext(itemTypeSetId, tenant, projectId, null));
 
-            Map<Long, List<FieldOwnerPermission>> fieldOwnerPermissionsByConfigId = Collections.emptyMap();
-            Set<Long> fieldOwnerPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<FieldOwnerPermission> fieldOwnerPermissions = fieldOwnerPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                fieldOwnerPermissionsByConfigId = fieldOwnerPermissions.stream()
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                fieldOwnerPermissionIds = fieldOwnerPermissions.stream()
-                        .map(FieldOwnerPermission::getId)
-                        .collect(Collectors.toSet());
-            }
-
-            Map<Long, List<CreatorPermission>> creatorPermissionsByConfigId = Collections.emptyMap();
-            Set<Long> creatorPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<CreatorPermission> creatorPermissions = creatorPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                creatorPermissionsByConfigId = creatorPermissions.stream()
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                creatorPermissionIds = creatorPermissions.stream()
-                        .map(CreatorPermission::getId)
-                        .collect(Collectors.toSet());
-            }
-
-            Map<Long, List<ExecutorPermission>> executorPermissionsByConfigId = Collections.emptyMap();
-            Set<Long> executorPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<ExecutorPermission> executorPermissions = executorPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                executorPermissionsByConfigId = executorPermissions.stream()
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                executorPermissionIds = executorPermissions.stream()
-                        .map(ExecutorPermission::getId)
-                        .collect(Collectors.toSet());
-            }
-
-            Map<Long, List<FieldStatusPermission>> editorsByConfigId = Collections.emptyMap();
-            Map<Long, List<FieldStatusPermission>> viewersByConfigId = Collections.emptyMap();
-            Set<Long> editorPermissionIds = Collections.emptySet();
-            Set<Long> viewerPermissionIds = Collections.emptySet();
-            if (!configurationIds.isEmpty()) {
-                List<FieldStatusPermission> fieldStatusPermissions = fieldStatusPermissionRepository
-                        .findAllByItemTypeConfigurationIdInAndTenant(configurationIds, tenant);
-                editorsByConfigId = fieldStatusPermissions.stream()
-                        .filter(perm -> perm.getPermissionType() == FieldStatusPermission.PermissionType.EDITORS)
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                viewersByConfigId = fieldStatusPermissions.stream()
-                        .filter(perm -> perm.getPermissionType() == FieldStatusPermission.PermissionType.VIEWERS)
-                        .collect(Collectors.groupingBy(perm -> perm.getItemTypeConfiguration().getId()));
-                editorPermissionIds = fieldStatusPermissions.stream()
-                        .filter(perm -> perm.getPermissionType() == FieldStatusPermission.PermissionType.EDITORS)
-                        .map(FieldStatusPermission::getId)
-                        .collect(Collectors.toSet());
-                viewerPermissionIds = fieldStatusPermissions.stream()
-                        .filter(perm -> perm.getPermissionType() == FieldStatusPermission.PermissionType.VIEWERS)
-                        .map(FieldStatusPermission::getId)
-                        .collect(Collectors.toSet());
+            Map<String, List<ItemTypeSetPermissionRowDto>> result = new LinkedHashMap<>();
+            if (ctx.configurationIds().isEmpty()) {
+                for (PermissionReportSection section : PermissionReportSection.values()) {
+                    result.put(section.getLabel(), new ArrayList<>());
+                }
+                return result;
             }
 
-            PermissionScopeRequest tenantScopeRequest = PermissionScopeRequest.forTenant(tenant);
-            Map<Long, PermissionAssignment> workerAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("WorkerPermission", workerPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> statusAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("StatusOwnerPermission", statusPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> fieldOwnerAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("FieldOwnerPermission", fieldOwnerPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> creatorAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("CreatorPermission", creatorPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> executorAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("ExecutorPermission", executorPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> editorAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("FieldStatusPermission", editorPermissionIds, tenantScopeRequest);
-            Map<Long, PermissionAssignment> viewerAssignments = permissionScopeRegistry
-                    .getHandler(PermissionScope.TENANT)
-                    .getAssignments("FieldStatusPermission", viewerPermissionIds, tenantScopeRequest);
-
-            Map<Long, PermissionAssignment> workerProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> statusProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> fieldOwnerProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> creatorProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> executorProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> editorProjectAssignments = Collections.emptyMap();
-            Map<Long, PermissionAssignment> viewerProjectAssignments = Collections.emptyMap();
-
-            if (projectId != null) {
-                PermissionScopeRequest projectScopeRequest = PermissionScopeRequest.forProject(tenant, projectId);
-                workerProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("WorkerPermission", workerPermissionIds, projectScopeRequest);
-                statusProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("StatusOwnerPermission", statusPermissionIds, projectScopeRequest);
-                fieldOwnerProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("FieldOwnerPermission", fieldOwnerPermissionIds, projectScopeRequest);
-                creatorProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("CreatorPermission", creatorPermissionIds, projectScopeRequest);
-                executorProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("ExecutorPermission", executorPermissionIds, projectScopeRequest);
-                editorProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("FieldStatusPermission", editorPermissionIds, projectScopeRequest);
-                viewerProjectAssignments = permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
-                        .getAssignments("FieldStatusPermission", viewerPermissionIds, projectScopeRequest);
+            Semaphore connections = new Semaphore(Math.max(1, maxParallelSections));
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                SectionPool sections = new SectionPool(executor, connections, readOnly);
+                Future<List<ItemTypeSetPermissionRowDto>> workers = sections.submit(() -> workerRows(ctx));
+                Future<List<ItemTypeSetPermissionRowDto>> statusOwners = sections.submit(() -> statusOwnerRows(ctx));
+                Future<List<ItemTypeSetPermissionRowDto>> fieldOwners = sections.submit(() -> fieldOwnerRows(ctx));
+                Future<List<ItemTypeSetPermissionRowDto>> creators = sections.submit(() -> creatorRows(ctx));
+                Future<List<ItemTypeSetPermissionRowDto>> executors = sections.submit(() -> executorRows(ctx));
+                Future<FieldStatusRows> fieldStatus = sections.submit(() -> fieldStatusRows(ctx));
+
+                result.put("Workers", join(workers));
+                result.put("Status Owners", join(statusOwners));
+                result.put("Field Owners", join(fieldOwners));
+                result.put("Creators", join(creators));
+                result.put("Executors", join(executors));
+                FieldStatusRows fieldStatusRows = join(fieldStatus);
+                result.put("Editors", fieldStatusRows.editors());
+                result.put("Viewers", fieldStatusRows.viewers());
             }
 
-            List<Map<String, Object>> workers = buildWorkerPermissions(configurations,
-                    workerPermissionsByConfigId,
-                    workerAssignments,
-                    workerProjectAssignments);
-            result.put("Workers", workers);
-
-            List<Map<String, Object>> statusOwners = buildStatusOwnerPermissions(configurations,
-                    statusPermissionsByConfigId,
-                    statusAssignments,
-                    statusProjectAssignments);
-            result.put("Status Owners", statusOwners);
-
-            List<Map<String, Object>> fieldOwners = buildFieldOwnerPermissions(configurations,
-                    fieldOwnerPermissionsByConfigId,
-                    fieldOwnerAssignments,
-                    fieldOwnerProjectAssignments);
-            result.put("Field Owners", fieldOwners);
-
-            List<Map<String, Object>> creators = buildCreatorPermissions(configurations,
-                    creatorPermissionsByConfigId,
-                    creatorAssignments,
-                    creatorProjectAssignments);
-            result.put("Creators", creators);
-
-            List<Map<String, Object>> executors = buildExecutorPermissions(configurations,
-                    executorPermissionsByConfigId,
-                    executorAssignments,
-                    executorProjectAssignments);
-            result.put("Executors", executors);
-
-            List<Map<String, Object>> editors = buildEditorPermissions(configurations,
-                    editorsByConfigId,
-                    editorAssignments,
-                    editorProjectAssignments,
-                    "Editors");
-            result.put("Editors", editors);
-
-            List<Map<String, Object>> viewers = buildEditorPermissions(configurations,
-                    viewersByConfigId,
-                    viewerAssignments,
-                    viewerProjectAssignments,
-                    "Viewers");
-            result.put("Viewers", viewers);
+            readOnly.executeWithoutResult(status -> attachProjectGrantDetails(result.values()));
 
             return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Error retrieving permissions: interrupted", e);
         } catch (Exception e) {
             log.error("Error retrieving permissions", e);
             throw new ApiException("Error retrieving permissions: " + e.getMessage(), e);
         }
     }
 
-    private List<Map<String, Object>> buildWorkerPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<WorkerPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments
-    ) {
-        List<Map<String, Object>> workers = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<WorkerPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (WorkerPermission perm : permissions) {
-                Map<String, Object> worker = new HashMap<>();
-                worker.put("id", perm.getId());
-                worker.put("name", "Workers");
-                worker.put("permissionType", "WorkerPermission");
-
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                worker.put("itemType", itemTypeMap);
-
-                populateAssignments(worker, tenantAssignments.get(perm.getId()), projectAssignments.get(perm.getId()));
-
-                workers.add(worker);
+    /**
+     * Pagina del report (keyset sull'id della permission, sezione per sezione), filtrabile per sezione
+     * e per ItemTypeConfiguration. Il cursor restituito identifica l'ultima riga letta.
+     */
+    public ItemTypeSetPermissionPageDto getPermissionPage(Long itemTypeSetId,
+                                                          Tenant tenant,
+                                                          Long projectId,
+                                                          PermissionReportSection section,
+                                                          Long itemTypeConfigurationId,
+                                                          String cursor,
+                                                          int size) {
+        ReportContext ctx = resolveContext(itemTypeSetId, tenant, projectId, itemTypeConfigurationId);
+        ReportCursor from = ReportCursor.decode(cursor, section);
+        List<ItemTypeSetPermissionRowDto> rows = new ArrayList<>();
+        ReportCursor next = readRows(ctx, section, from, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), rows);
+        attachProjectGrantDetails(List.of(rows));
+        return new ItemTypeSetPermissionPageDto(rows, next != null ? next.encode() : null);
+    }
+
+    /**
+     * Report completo consegnato a blocchi di STREAM_CHUNK_SIZE righe, ognuno letto nella propria transazione
+     * read-only: la memoria occupata non dipende dalla dimensione del report e nessuna connessione resta
+     * aperta mentre il client legge.
+     */
+    public void streamPermissions(Long itemTypeSetId,
+                                  Tenant tenant,
+                                  Long projectId,
+                                  PermissionReportSection section,
+                                  Long itemTypeConfigurationId,
+                                  Consumer<List<ItemTypeSetPermissionRowDto>> chunkSink) {
+        TransactionTemplate readOnly = readOnlyTransaction();
+        ReportContext ctx = readOnly.execute(status -> resolveContext(itemTypeSetId, tenant, projectId, itemTypeConfigurationId));
+        ReportCursor position = ReportCursor.start(section);
+        while (position != null) {
+            ReportCursor from = position;
+            List<ItemTypeSetPermissionRowDto> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            position = readOnly.execute(status -> {
+                ReportCursor next = readRows(ctx, section, from, STREAM_CHUNK_SIZE, chunk);
+                attachProjectGrantDetails(List.of(chunk));
+                return next;
+            });
+            if (!chunk.isEmpty()) {
+                chunkSink.accept(chunk);
             }
         }
-        return workers;
     }
 
-    private List<Map<String, Object>> buildStatusOwnerPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<StatusOwnerPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments
-    ) {
-        List<Map<String, Object>> statusOwners = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<StatusOwnerPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (StatusOwnerPermission perm : permissions) {
-                Map<String, Object> statusOwner = new HashMap<>();
-                statusOwner.put("id", perm.getId());
-                statusOwner.put("name", "Status Owners");
-                statusOwner.put("permissionType", "StatusOwnerPermission");
-
-                Map<String, Object> workflowStatusMap = new HashMap<>();
-                workflowStatusMap.put("id", perm.getWorkflowStatus().getId());
-                workflowStatusMap.put("name", perm.getWorkflowStatus().getStatus().getName());
-                statusOwner.put("workflowStatus", workflowStatusMap);
-
-                Map<String, Object> workflowMap = new HashMap<>();
-                workflowMap.put("id", config.getWorkflow().getId());
-                workflowMap.put("name", config.getWorkflow().getName());
-                statusOwner.put("workflow", workflowMap);
-
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                statusOwner.put("itemType", itemTypeMap);
-
-                populateAssignments(statusOwner, tenantAssignments.get(perm.getId()),
-                        projectAssignments.get(perm.getId()));
-
-                statusOwners.add(statusOwner);
+    /**
+     * Aggiunge a out fino a limit righe a partire da from; restituisce la posizione da cui proseguire
+     * oppure null se il report è terminato.
+     */
+    private ReportCursor readRows(ReportContext ctx, PermissionReportSection only, ReportCursor from,
+                                  int limit, List<ItemTypeSetPermissionRowDto> out) {
+        List<PermissionReportSection> sections = only != null ? List.of(only) : List.of(PermissionReportSection.values());
+        for (PermissionReportSection section : sections) {
+            if (section.ordinal() < from.section().ordinal()) {
+                continue;
+            }
+            long afterId = section == from.section() ? from.afterId() : 0L;
+            List<ItemTypeSetPermissionRowDto> page = readSectionPage(ctx, section, afterId, limit - out.size());
+            out.addAll(page);
+            if (out.size() >= limit) {
+                return new ReportCursor(section, page.get(page.size() - 1).id());
             }
         }
-        return statusOwners;
+        return null;
     }
 
-    private List<Map<String, Object>> buildFieldOwnerPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<FieldOwnerPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments
-    ) {
-        List<Map<String, Object>> fieldOwners = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<FieldOwnerPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (FieldOwnerPermission perm : permissions) {
-                Map<String, Object> fieldOwner = new HashMap<>();
-                fieldOwner.put("id", perm.getId());
-                fieldOwner.put("name", "Field Owners");
-                fieldOwner.put("permissionType", "FieldOwnerPermission");
-
-                Map<String, Object> fieldConfigMap = new HashMap<>();
-                fieldConfigMap.put("id", perm.getField().getId());
-                fieldConfigMap.put("name", perm.getField().getName());
-                fieldConfigMap.put("fieldType", null);
-                fieldOwner.put("fieldConfiguration", fieldConfigMap);
-
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                fieldOwner.put("itemType", itemTypeMap);
-
-                populateAssignments(fieldOwner, tenantAssignments.get(perm.getId()),
-                        projectAssignments.get(perm.getId()));
-
-                fieldOwners.add(fieldOwner);
-            }
+    private List<ItemTypeSetPermissionRowDto> readSectionPage(ReportContext ctx, PermissionReportSection section,
+                                                              long afterId, int limit) {
+        Set<Long> ids = ctx.configurationIds();
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
         }
-        return fieldOwners;
+        Tenant tenant = ctx.tenant();
+        PageRequest page = PageRequest.of(0, limit);
+        return switch (section) {
+            case WORKERS -> toRows(ctx, section,
+                    workerPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant, afterId, page),
+                    WorkerPermission::getId, WorkerPermission::getItemTypeConfiguration, this::workerRow);
+            case STATUS_OWNERS -> toRows(ctx, section,
+                    statusOwnerPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant, afterId, page),
+                    StatusOwnerPermission::getId, StatusOwnerPermission::getItemTypeConfiguration, this::statusOwnerRow);
+            case FIELD_OWNERS -> toRows(ctx, section,
+                    fieldOwnerPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant, afterId, page),
+                    FieldOwnerPermission::getId, FieldOwnerPermission::getItemTypeConfiguration, this::fieldOwnerRow);
+            case CREATORS -> toRows(ctx, section,
+                    creatorPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant, afterId, page),
+                    CreatorPermission::getId, CreatorPermission::getItemTypeConfiguration, this::creatorRow);
+            case EXECUTORS -> toRows(ctx, section,
+                    executorPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant, afterId, page),
+                    ExecutorPermission::getId, ExecutorPermission::getItemTypeConfiguration, this::executorRow);
+            case EDITORS, VIEWERS -> toRows(ctx, section,
+                    fieldStatusPermissionRepository.findPageByItemTypeConfigurationIdInAndTenant(ids, tenant,
+                            section == PermissionReportSection.EDITORS
+                                    ? FieldStatusPermission.PermissionType.EDITORS
+                                    : FieldStatusPermission.PermissionType.VIEWERS,
+                            afterId, page),
+                    FieldStatusPermission::getId, FieldStatusPermission::getItemTypeConfiguration, this::fieldStatusRow);
+        };
     }
 
-    private List<Map<String, Object>> buildCreatorPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<CreatorPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments
-    ) {
-        List<Map<String, Object>> creators = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<CreatorPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (CreatorPermission perm : permissions) {
-                Map<String, Object> creator = new HashMap<>();
-                creator.put("id", perm.getId());
-                creator.put("name", "Creators");
-                creator.put("permissionType", "CreatorPermission");
-
-                Map<String, Object> workflowMap = new HashMap<>();
-                workflowMap.put("id", config.getWorkflow().getId());
-                workflowMap.put("name", config.getWorkflow().getName());
-                creator.put("workflow", workflowMap);
-
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                creator.put("itemType", itemTypeMap);
-
-                populateAssignments(creator, tenantAssignments.get(perm.getId()),
-                        projectAssignments.get(perm.getId()));
-
-                creators.add(creator);
-            }
+    private <P> List<ItemTypeSetPermissionRowDto> toRows(ReportContext ctx, PermissionReportSection section,
+                                                         List<P> permissions, Function<P, Long> idOf,
+                                                         Function<P, ItemTypeConfiguration> configurationOf,
+                                                         RowMapper<P> mapper) {
+        AssignmentIndex assignments = loadAssignments(ctx, section.getPermissionType(), permissions, idOf);
+        List<ItemTypeSetPermissionRowDto> rows = new ArrayList<>(permissions.size());
+        for (P permission : permissions) {
+            ConfigRef config = ctx.configById().get(configurationOf.apply(permission).getId());
+            rows.add(mapper.map(permission, config, assignments.summarize(idOf.apply(permission))));
         }
-        return creators;
+        return rows;
     }
 
-    private List<Map<String, Object>> buildExecutorPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<ExecutorPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments
-    ) {
-        List<Map<String, Object>> executors = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<ExecutorPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (ExecutorPermission perm : permissions) {
-                Map<String, Object> executor = new HashMap<>();
-                executor.put("id", perm.getId());
-                executor.put("name", "Executors");
-                executor.put("permissionType", "ExecutorPermission");
-
-                Map<String, Object> transitionMap = new HashMap<>();
-                transitionMap.put("id", perm.getTransition().getId());
-                transitionMap.put("name", perm.getTransition().getName() != null ? perm.getTransition().getName() : "N/A");
-                executor.put("transition", transitionMap);
-
-                Map<String, Object> fromStatusMap = new HashMap<>();
-                if (perm.getTransition().getFromStatus() != null && perm.getTransition().getFromStatus().getStatus() != null) {
-                    fromStatusMap.put("id", perm.getTransition().getFromStatus().getId());
-                    fromStatusMap.put("name", perm.getTransition().getFromStatus().getStatus().getName());
-                } else {
-                    fromStatusMap.put("id", null);
-                    fromStatusMap.put("name", "N/A");
-                }
-                executor.put("fromStatus", fromStatusMap);
-
-                Map<String, Object> toStatusMap = new HashMap<>();
-                if (perm.getTransition().getToStatus() != null && perm.getTransition().getToStatus().getStatus() != null) {
-                    toStatusMap.put("id", perm.getTransition().getToStatus().getId());
-                    toStatusMap.put("name", perm.getTransition().getToStatus().getStatus().getName());
-                } else {
-                    toStatusMap.put("id", null);
-                    toStatusMap.put("name", "N/A");
-                }
-                executor.put("toStatus", toStatusMap);
+    private List<ItemTypeSetPermissionRowDto> workerRows(ReportContext ctx) {
+        return fullSection(ctx, "WorkerPermission",
+                workerPermissionRepository.findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant()),
+                WorkerPermission::getId, WorkerPermission::getItemTypeConfiguration, this::workerRow);
+    }
 
-                Map<String, Object> workflowMap = new HashMap<>();
-                workflowMap.put("id", config.getWorkflow().getId());
-                workflowMap.put("name", config.getWorkflow().getName());
-                executor.put("workflow", workflowMap);
+    private List<ItemTypeSetPermissionRowDto> statusOwnerRows(ReportContext ctx) {
+        return fullSection(ctx, "StatusOwnerPermission",
+                statusOwnerPermissionRepository.findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant()),
+                StatusOwnerPermission::getId, StatusOwnerPermission::getItemTypeConfiguration, this::statusOwnerRow);
+    }
 
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                executor.put("itemType", itemTypeMap);
+    private List<ItemTypeSetPermissionRowDto> fieldOwnerRows(ReportContext ctx) {
+        return fullSection(ctx, "FieldOwnerPermission",
+                fieldOwnerPermissionRepository.findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant()),
+                FieldOwnerPermission::getId, FieldOwnerPermission::getItemTypeConfiguration, this::fieldOwnerRow);
+    }
 
-                populateAssignments(executor, tenantAssignments.get(perm.getId()),
-                        projectAssignments.get(perm.getId()));
+    private List<ItemTypeSetPermissionRowDto> creatorRows(ReportContext ctx) {
+        return fullSection(ctx, "CreatorPermission",
+                creatorPermissionRepository.findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant()),
+                CreatorPermission::getId, CreatorPermission::getItemTypeConfiguration, this::creatorRow);
+    }
 
-                executors.add(executor);
-            }
-        }
-        return executors;
+    private List<ItemTypeSetPermissionRowDto> executorRows(ReportContext ctx) {
+        return fullSection(ctx, "ExecutorPermission",
+                executorPermissionRepository.findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant()),
+                ExecutorPermission::getId, ExecutorPermission::getItemTypeConfiguration, this::executorRow);
+    }
+
+    private FieldStatusRows fieldStatusRows(ReportContext ctx) {
+        List<FieldStatusPermission> permissions = fieldStatusPermissionRepository
+                .findAllByItemTypeConfigurationIdInAndTenant(ctx.configurationIds(), ctx.tenant());
+        // Editors e Viewers condividono il permissionType: una sola lettura delle assegnazioni per entrambi
+        AssignmentIndex assignments = loadAssignments(ctx, "FieldStatusPermission", permissions, FieldStatusPermission::getId);
+        BiFunction<FieldStatusPermission, ConfigRef, ItemTypeSetPermissionRowDto> toRow = (perm, config) ->
+                fieldStatusRow(perm, config, assignments.summarize(perm.getId()));
+
+        Map<FieldStatusPermission.PermissionType, List<FieldStatusPermission>> byType = permissions.stream()
+                .filter(perm -> perm.getPermissionType() != null)
+                .collect(Collectors.groupingBy(FieldStatusPermission::getPermissionType));
+        return new FieldStatusRows(
+                inConfigurationOrder(ctx, byType.getOrDefault(FieldStatusPermission.PermissionType.EDITORS, List.of()),
+                        FieldStatusPermission::getItemTypeConfiguration, toRow),
+                inConfigurationOrder(ctx, byType.getOrDefault(FieldStatusPermission.PermissionType.VIEWERS, List.of()),
+                        FieldStatusPermission::getItemTypeConfiguration, toRow));
     }
 
-    private List<Map<String, Object>> buildEditorPermissions(
-            List<ItemTypeConfiguration> configurations,
-            Map<Long, List<FieldStatusPermission>> permissionsByConfigId,
-            Map<Long, PermissionAssignment> tenantAssignments,
-            Map<Long, PermissionAssignment> projectAssignments,
-            String label
+    private <P> List<ItemTypeSetPermissionRowDto> fullSection(ReportContext ctx, String permissionType, List<P> permissions,
+                                                              Function<P, Long> idOf,
+                                                              Function<P, ItemTypeConfiguration> configurationOf,
+                                                              RowMapper<P> mapper) {
+        AssignmentIndex assignments = loadAssignments(ctx, permissionType, permissions, idOf);
+        return inConfigurationOrder(ctx, permissions, configurationOf, (perm, config) ->
+                mapper.map(perm, config, assignments.summarize(idOf.apply(perm))));
+    }
+
+    /**
+     * Righe nell'ordine delle configurazioni dell'ItemTypeSet (un solo passaggio sulle permission).
+     */
+    private <P> List<ItemTypeSetPermissionRowDto> inConfigurationOrder(
+            ReportContext ctx,
+            List<P> permissions,
+            Function<P, ItemTypeConfiguration> configurationOf,
+            BiFunction<P, ConfigRef, ItemTypeSetPermissionRowDto> toRow
     ) {
-        List<Map<String, Object>> result = new ArrayList<>();
-        for (ItemTypeConfiguration config : configurations) {
-            List<FieldStatusPermission> permissions = permissionsByConfigId
-                    .getOrDefault(config.getId(), Collections.emptyList());
-            for (FieldStatusPermission perm : permissions) {
-                Map<String, Object> permissionMap = new HashMap<>();
-                permissionMap.put("id", perm.getId());
-                permissionMap.put("name", label);
-                permissionMap.put("permissionType", "FieldStatusPermission");
-
-                Map<String, Object> fieldConfigMap = new HashMap<>();
-                fieldConfigMap.put("id", perm.getField().getId());
-                fieldConfigMap.put("name", perm.getField().getName());
-                permissionMap.put("fieldConfiguration", fieldConfigMap);
-
-                Map<String, Object> workflowStatusMap = new HashMap<>();
-                workflowStatusMap.put("id", perm.getWorkflowStatus().getId());
-                workflowStatusMap.put("name", perm.getWorkflowStatus().getStatus().getName());
-                permissionMap.put("workflowStatus", workflowStatusMap);
-
-                Map<String, Object> itemTypeMap = new HashMap<>();
-                itemTypeMap.put("id", config.getItemType().getId());
-                itemTypeMap.put("name", config.getItemType().getName());
-                permissionMap.put("itemType", itemTypeMap);
-
-                populateAssignments(permissionMap, tenantAssignments.get(perm.getId()),
-                        projectAssignments.get(perm.getId()));
-
-                result.add(permissionMap);
+        Map<Long, List<P>> byConfigId = new HashMap<>();
+        for (P permission : permissions) {
+            byConfigId.computeIfAbsent(configurationOf.apply(permission).getId(), id -> new ArrayList<>()).add(permission);
+        }
+        List<ItemTypeSetPermissionRowDto> rows = new ArrayList<>(permissions.size());
+        for (ConfigRef config : ctx.configurations()) {
+            for (P permission : byConfigId.getOrDefault(config.id(), List.of())) {
+                rows.add(toRow.apply(permission, config));
             }
         }
-        return result;
+        return rows;
     }
 
-    private void populateAssignments(
-            Map<String, Object> target,
-            PermissionAssignment tenantAssignment,
-            PermissionAssignment projectAssignment
-    ) {
-        Set<Role> assignedRolesSet = tenantAssignment != null && tenantAssignment.getRoles() != null
-                ? tenantAssignment.getRoles()
-                : Collections.emptySet();
-        target.put("assignedRolesCount", assignedRolesSet.size());
-
-        Grant grant = tenantAssignment != null ? tenantAssignment.getGrant() : null;
-        if (grant != null) {
-            target.put("grantId", grant.getId());
-            target.put("grantName", "Grant diretto");
+    private ItemTypeSetPermissionRowDto workerRow(WorkerPermission perm, ConfigRef config, AssignmentSummary assignments) {
+        return row(perm.getId(), "Workers", "WorkerPermission", config.itemType(),
+                null, null, null, null, null, null, assignments);
+    }
+
+    private ItemTypeSetPermissionRowDto statusOwnerRow(StatusOwnerPermission perm, ConfigRef config,
+                                                       AssignmentSummary assignments) {
+        return row(perm.getId(), "Status Owners", "StatusOwnerPermission", config.itemType(),
+                config.workflow(), statusRef(perm.getWorkflowStatus()), null, null, null, null, assignments);
+    }
+
+    private ItemTypeSetPermissionRowDto fieldOwnerRow(FieldOwnerPermission perm, ConfigRef config,
+                                                      AssignmentSummary assignments) {
+        return row(perm.getId(), "Field Owners", "FieldOwnerPermission", config.itemType(),
+                null, null, new Ref(perm.getField().getId(), perm.getField().getName()), null, null, null,
+                assignments);
+    }
+
+    private ItemTypeSetPermissionRowDto creatorRow(CreatorPermission perm, ConfigRef config, AssignmentSummary assignments) {
+        return row(perm.getId(), "Creators", "CreatorPermission", config.itemType(),
+                config.workflow(), null, null, null, null, null, assignments);
+    }
+
+    private ItemTypeSetPermissionRowDto executorRow(ExecutorPermission perm, ConfigRef config, AssignmentSummary assignments) {
+        Transition transition = perm.getTransition();
+        return row(perm.getId(), "Executors", "ExecutorPermission", config.itemType(),
+                config.workflow(), null, null,
+                new Ref(transition.getId(), transition.getName() != null ? transition.getName() : "N/A"),
+                statusRefOrNotAvailable(transition.getFromStatus()),
+                statusRefOrNotAvailable(transition.getToStatus()),
+                assignments);
+    }
+
+    private ItemTypeSetPermissionRowDto fieldStatusRow(FieldStatusPermission perm, ConfigRef config,
+                                                       AssignmentSummary assignments) {
+        return row(perm.getId(), perm.getPermissionType() == FieldStatusPermission.PermissionType.EDITORS ? "Editors" : "Viewers",
+                "FieldStatusPermission", config.itemType(), null, statusRef(perm.getWorkflowStatus()),
+                new Ref(perm.getField().getId(), perm.getField().getName()), null, null, null, assignments);
+    }
+
+    /**
+     * ItemTypeSet e configurazioni del report. Item type e workflow vengono letti qui, una volta sola:
+     * le sezioni lavorano su altri thread/transazioni e non devono toccare queste entity.
+     */
+    private ReportContext resolveContext(Long itemTypeSetId, Tenant tenant, Long projectId, Long itemTypeConfigurationId) {
+        ItemTypeSet itemTypeSet = itemTypeSetRepository.findByIdWithAllRelations(itemTypeSetId, tenant)
+                .orElseThrow(() -> new ApiException("ItemTypeSet not found"));
+
+        // Assicurati che le configurazioni siano caricate correttamente
+        // Per ItemTypeSet di progetto, potrebbe essere necessario ricaricare le configurazioni
+        List<ItemTypeConfiguration> configurations = new ArrayList<>(itemTypeSet.getItemTypeConfigurations());
+
+        // Se non ci sono configurazioni caricate, ricarica l'ItemTypeSet
+        if (configurations.isEmpty() && itemTypeSet.getId() != null) {
+            ItemTypeSet reloadedItemTypeSet = itemTypeSetRepository.findByIdWithItemTypeConfigurationsAndTenant(
+                    itemTypeSet.getId(),
+                    tenant
+            ).orElse(itemTypeSet);
+            configurations = new ArrayList<>(reloadedItemTypeSet.getItemTypeConfigurations());
+            // Aggiorna anche l'ItemTypeSet originale con le configurazioni ricaricate
+            itemTypeSet.setItemTypeConfigurations(new HashSet<>(configurations));
         }
 
-        boolean hasAssignments = !assignedRolesSet.isEmpty() || grant != null;
-
-        if (projectAssignment != null) {
-            Grant projectGrant = projectAssignment.getGrant();
-            if (projectGrant != null) {
-                target.put("projectGrantId", projectGrant.getId());
-                target.put("projectGrantName", "Grant di progetto");
-                // Includi i dettagli completi del grant per evitare chiamate separate dal frontend
-                Map<String, Object> projectGrantDetails = new HashMap<>();
-                projectGrantDetails.put("id", projectGrant.getId());
-                // Converti Set<User> e Set<Group> in liste di ID per la serializzazione JSON
-                projectGrantDetails.put("users", projectGrant.getUsers() != null 
-                    ? projectGrant.getUsers().stream()
-                        .map(user -> {
-                            Map<String, Object> userMap = new HashMap<>();
-                            userMap.put("id", user.getId());
-                            userMap.put("username", user.getUsername());
-                            userMap.put("fullName", user.getFullName());
-                            return userMap;
-                        })
-                        .collect(Collectors.toList())
-                    : Collections.emptyList());
-                projectGrantDetails.put("groups", projectGrant.getGroups() != null
-                    ? projectGrant.getGroups().stream()
-                        .map(group -> {
-                            Map<String, Object> groupMap = new HashMap<>();
-                            groupMap.put("id", group.getId());
-                            groupMap.put("name", group.getName());
-                            return groupMap;
-                        })
-                        .collect(Collectors.toList())
-                    : Collections.emptyList());
-                projectGrantDetails.put("negatedUsers", projectGrant.getNegatedUsers() != null
-                    ? projectGrant.getNegatedUsers().stream()
-                        .map(user -> {
-                            Map<String, Object> userMap = new HashMap<>();
-                            userMap.put("id", user.getId());
-                            userMap.put("username", user.getUsername());
-                            userMap.put("fullName", user.getFullName());
-                            return userMap;
-                        })
-                        .collect(Collectors.toList())
-                    : Collections.emptyList());
-                projectGrantDetails.put("negatedGroups", projectGrant.getNegatedGroups() != null
-                    ? projectGrant.getNegatedGroups().stream()
-                        .map(group -> {
-                            Map<String, Object> groupMap = new HashMap<>();
-                            groupMap.put("id", group.getId());
-                            groupMap.put("name", group.getName());
-                            return groupMap;
-                        })
-                        .collect(Collectors.toList())
-                    : Collections.emptyList());
-                target.put("projectGrant", projectGrantDetails);
-                hasAssignments = true;
-            }
+        List<ConfigRef> configRefs = configurations.stream()
+                .filter(config -> config.getId() != null)
+                .filter(config -> itemTypeConfigurationId == null || itemTypeConfigurationId.equals(config.getId()))
+                .map(ConfigRef::of)
+                .toList();
+        if (itemTypeConfigurationId != null && configRefs.isEmpty()) {
+            throw new ApiException("ItemTypeConfiguration " + itemTypeConfigurationId
+                    + " not found in ItemTypeSet " + itemTypeSetId);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("ItemTypeSet {} (scope: {}) has {} configurations: {}",
+                    itemTypeSet.getId(),
+                    itemTypeSet.getScope(),
+                    configRefs.size(),
+                    configRefs.stream().map(ConfigRef::id).toList());
+        }
+
+        Map<Long, ConfigRef> configById = new LinkedHashMap<>();
+        configRefs.forEach(config -> configById.put(config.id(), config));
+        return new ReportContext(tenant, projectId, configRefs, configById);
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
+    private <P> AssignmentIndex loadAssignments(ReportContext ctx, String permissionType,
+                                                List<P> permissions, Function<P, Long> idOf) {
+        Set<Long> permissionIds = permissions.stream().map(idOf).collect(Collectors.toSet());
+        if (permissionIds.isEmpty()) {
+            return new AssignmentIndex(Map.of(), Map.of());
+        }
+        Map<Long, PermissionAssignment> tenantAssignments = permissionScopeRegistry
+                .getHandler(PermissionScope.TENANT)
+                .getAssignments(permissionType, permissionIds, PermissionScopeRequest.forTenant(ctx.tenant()));
+        Map<Long, PermissionAssignment> projectAssignments = ctx.projectId() != null
+                ? permissionScopeRegistry.getHandler(PermissionScope.PROJECT)
+                        .getAssignments(permissionType, permissionIds,
+                                PermissionScopeRequest.forProject(ctx.tenant(), ctx.projectId()))
+                : Map.of();
+        return new AssignmentIndex(tenantAssignments, projectAssignments);
+    }
+
+    private ItemTypeSetPermissionRowDto row(Long id, String name, String permissionType, Ref itemType,
+                                            Ref workflow, Ref workflowStatus, Ref fieldConfiguration,
+                                            Ref transition, Ref fromStatus, Ref toStatus,
+                                            AssignmentSummary assignments) {
+        return new ItemTypeSetPermissionRowDto(id, name, permissionType, itemType, workflow, workflowStatus,
+                fieldConfiguration, transition, fromStatus, toStatus,
+                assignments.assignedRoles().size(), assignments.assignedRoles(),
+                assignments.grantId(), assignments.grantId() != null ? "Grant diretto" : null,
+                assignments.projectGrantId(), assignments.projectGrantId() != null ? "Grant di progetto" : null,
+                null,
+                assignments.projectRoles().isEmpty() ? null : assignments.projectRoles(),
+                !assignments.projectRoles().isEmpty(),
+                assignments.hasAssignments());
+    }
 
-            Set<Role> projectRoles = projectAssignment.getRoles() != null
-                    ? projectAssignment.getRoles()
-                    : Collections.emptySet();
-            if (!projectRoles.isEmpty()) {
-                target.put("projectAssignedRoles", mapRoles(projectRoles));
-                target.put("hasProjectRoles", true);
-                hasAssignments = true;
-            } else {
-                target.put("hasProjectRoles", false);
+    private <T> T join(Future<T> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw new ApiException("Error retrieving permissions: " + e.getCause().getMessage(), e.getCause());
         }
+    }
 
-        target.put("hasAssignments", hasAssignments);
-        target.put("assignedRoles", mapRoles(assignedRolesSet));
+    /**
+     * Aggiunge i dettagli delle grant di progetto (utenti e gruppi con i nomi) a tutte le righe del report:
+     * una query per i membri di tutte le grant, una per gli utenti e una per i gruppi.
+     */
+    private void attachProjectGrantDetails(Collection<List<ItemTypeSetPermissionRowDto>> sections) {
+        Set<Long> grantIds = sections.stream()
+                .flatMap(List::stream)
+                .map(ItemTypeSetPermissionRowDto::projectGrantId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (grantIds.isEmpty()) {
+            return;
+        }
 
-        if (!target.containsKey("hasProjectRoles")) {
-            target.put("hasProjectRoles", false);
+        Map<Long, GrantMembership> memberships = grantMembershipLookup.getMemberships(grantIds);
+
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> groupIds = new HashSet<>();
+        memberships.values().forEach(membership -> {
+            userIds.addAll(membership.allUserIds());
+            groupIds.addAll(membership.allGroupIds());
+        });
+        Map<Long, UserRef> usersById = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId,
+                        user -> new UserRef(user.getId(), user.getUsername(), user.getFullName())));
+        Map<Long, Ref> groupsById = groupRepository.findAllById(groupIds).stream()
+                .collect(Collectors.toMap(Group::getId, group -> new Ref(group.getId(), group.getName())));
+
+        Map<Long, ProjectGrant> detailsByGrantId = new HashMap<>();
+        for (GrantMembership membership : memberships.values()) {
+            detailsByGrantId.put(membership.grantId(), new ProjectGrant(
+                    membership.grantId(),
+                    resolve(membership.userIds(), usersById),
+                    resolve(membership.groupIds(), groupsById),
+                    resolve(membership.negatedUserIds(), usersById),
+                    resolve(membership.negatedGroupIds(), groupsById)));
+        }
+        for (List<ItemTypeSetPermissionRowDto> rows : sections) {
+            rows.replaceAll(row -> row.projectGrantId() != null
+                    ? row.withProjectGrant(detailsByGrantId.get(row.projectGrantId()))
+                    : row);
         }
     }
 
-    private List<Map<String, Object>> mapRoles(Set<Role> roles) {
+    private <T> List<T> resolve(Set<Long> ids, Map<Long, T> byId) {
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static Ref statusRef(WorkflowStatus workflowStatus) {
+        return new Ref(workflowStatus.getId(), workflowStatus.getStatus().getName());
+    }
+
+    private static Ref statusRefOrNotAvailable(WorkflowStatus workflowStatus) {
+        if (workflowStatus != null && workflowStatus.getStatus() != null) {
+            return statusRef(workflowStatus);
+        }
+        return new Ref(null, "N/A");
+    }
+
+    private static List<RoleRef> mapRoles(Set<Role> roles) {
         if (roles == null || roles.isEmpty()) {
             return Collections.emptyList();
         }
-        List<Map<String, Object>> roleDtos = new ArrayList<>();
-        for (Role role : roles) {
-            Map<String, Object> roleMap = new HashMap<>();
-            roleMap.put("id", role.getId());
-            roleMap.put("name", role.getName());
-            roleMap.put("description", role.getDescription());
-            roleDtos.add(roleMap);
+        return roles.stream()
+                .map(role -> new RoleRef(role.getId(), role.getName(), role.getDescription()))
+                .toList();
+    }
+
+    /**
+     * Esegue le sezioni su virtual thread, ognuna nella propria transazione read-only, con al più
+     * tante sezioni (e connessioni) contemporanee quanti sono i permessi di connections.
+     */
+    private record SectionPool(ExecutorService executor, Semaphore connections, TransactionTemplate readOnly) {
+
+        <T> Future<T> submit(Supplier<T> section) {
+            return executor.submit(() -> {
+                connections.acquire();
+                try {
+                    return readOnly.execute(status -> section.get());
+                } finally {
+                    connections.release();
+                }
+            });
         }
-        return roleDtos;
     }
-}
 
+    private record ReportContext(Tenant tenant, Long projectId, List<ConfigRef> configurations,
+                                 Map<Long, ConfigRef> configById) {
 
+        Set<Long> configurationIds() {
+            return configById.keySet();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowMapper<P> {
+        ItemTypeSetPermissionRowDto map(P permission, ConfigRef config, AssignmentSummary assignments);
+    }
+
+    /**
+     * Posizione nel report paginato: sezione corrente e id dell'ultima permission restituita.
+     */
+    private record ReportCursor(PermissionReportSection section, long afterId) {
+
+        static ReportCursor start(PermissionReportSection only) {
+            return new ReportCursor(only != null ? only : PermissionReportSection.values()[0], 0L);
+        }
+
+        static ReportCursor decode(String cursor, PermissionReportSection only) {
+            if (cursor == null || cursor.isBlank()) {
+                return start(only);
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+                ReportCursor decoded = new ReportCursor(PermissionReportSection.valueOf(parts[0]), Long.parseLong(parts[1]));
+                if (only != null && decoded.section() != only) {
+                    throw new ApiException("Cursor does not match section " + only);
+                }
+                return decoded;
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new ApiException("Invalid cursor: " + cursor);
+            }
+        }
+
+        String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((section.name() + ":" + afterId).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private record ConfigRef(Long id, Ref itemType, Ref workflow) {
+
+        static ConfigRef of(ItemTypeConfiguration config) {
+            Ref itemType = new Ref(config.getItemType().getId(), config.getItemType().getName());
+            Ref workflow = config.getWorkflow() != null
+                    ? new Ref(config.getWorkflow().getId(), config.getWorkflow().getName())
+                    : null;
+            return new ConfigRef(config.getId(), itemType, workflow);
+        }
+    }
+
+    private record FieldStatusRows(List<ItemTypeSetPermissionRowDto> editors,
+                                   List<ItemTypeSetPermissionRowDto> viewers) {}
+
+    private record AssignmentIndex(Map<Long, PermissionAssignment> tenantAssignments,
+                                   Map<Long, PermissionAssignment> projectAssignments) {
+
+        AssignmentSummary summarize(Long permissionId) {
+            PermissionAssignment tenantAssignment = tenantAssignments.get(permissionId);
+            PermissionAssignment projectAssignment = projectAssignments.get(permissionId);
+
+            List<RoleRef> assignedRoles = tenantAssignment != null ? mapRoles(tenantAssignment.getRoles()) : List.of();
+            Long grantId = tenantAssignment != null && tenantAssignment.getGrant() != null
+                    ? tenantAssignment.getGrant().getId()
+                    : null;
+            Long projectGrantId = projectAssignment != null && projectAssignment.getGrant() != null
+                    ? projectAssignment.getGrant().getId()
+                    : null;
+            List<RoleRef> projectRoles = projectAssignment != null ? mapRoles(projectAssignment.getRoles()) : List.of();
+
+            boolean hasAssignments = !assignedRoles.isEmpty() || grantId != null
+                    || projectGrantId != null || !projectRoles.isEmpty();
+            return new AssignmentSummary(assignedRoles, grantId, projectGrantId, projectRoles, hasAssignments);
+        }
+    }
+
+    private record AssignmentSummary(List<RoleRef> assignedRoles, Long grantId, Long projectGrantId,
+                                     List<RoleRef> projectRoles, boolean hasAssignments) {}
+}
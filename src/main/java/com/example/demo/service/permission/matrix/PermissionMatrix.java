@@ -0,0 +1,663 @@
+package com.example.demo.service.permission.matrix;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Matrice compilata dei permessi effettivi di una tenant.
+ *
+ * Ogni utente che compare in un grant o in un gruppo riceve un ordinale denso. Gruppi e titolari
+ * dei ruoli (GrantRoleAssignment) vengono compilati in BitSet su quegli ordinali; le PermissionAssignment
+ * restano in forma compatta (ordinali degli utenti + id di gruppi e ruoli) per non occupare un BitSet
+ * per assegnazione. Il BitSet effettivo di una permission in un progetto viene calcolato alla prima
+ * richiesta e tenuto in una cache limitata in byte: i lookup successivi sono due get su mappa più
+ * un BitSet.get, senza SQL.
+ *
+ * Regole di risoluzione:
+ * - membri di un gruppo = users meno deniedUsers
+ * - grant = users + membri dei groups, meno negatedUsers e membri dei negatedGroups
+ * - titolari di un ruolo nel progetto P = grant delle GrantRoleAssignment del ruolo con project P o null
+ * - assegnazione = grant diretto + titolari dei suoi ruoli, meno le negazioni del grant diretto
+ * - permesso effettivo nel progetto P = assegnazione globale OR assegnazione di progetto P
+ *
+ * Le singole PermissionAssignment si aggiornano in place con {@link #updateAssignment}, i membri di un gruppo
+ * con {@link #updateGroup} e i titolari di un ruolo con {@link #updateRoleHolders}: la matrice conserva i membri
+ * delle grant di ogni ruolo, quindi anche i titolari che dipendono dal gruppo modificato si ricalcolano in memoria.
+ * Una modifica a gruppi o ruoli cambia la revisione di struttura, che invalida tutti i BitSet effettivi
+ * (ricalcolati senza SQL alla richiesta successiva).
+ *
+ * Per la domanda inversa ("cosa può fare l'utente X") ogni assegnazione riceve uno slot intero e la matrice
+ * mantiene tre indici invertiti slot per utente (citato nel grant), per gruppo e per ruolo: il profilo di un
+ * utente valuta solo le assegnazioni candidate invece di tutte quelle della tenant.
+ */
+public final class PermissionMatrix {
+
+    // Chiave usata al posto di projectId = null (le ConcurrentHashMap non accettano chiavi null)
+    static final long NO_PROJECT = 0L;
+
+    static final long DEFAULT_EFFECTIVE_CACHE_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final BitSet EMPTY = new BitSet();
+    private static final int[] NO_ORDINALS = new int[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final Long tenantId;
+    private final Map<Long, Integer> userOrdinals;
+    private final AtomicInteger nextOrdinal;
+    private final Map<Long, BitSet> groupMembers;
+    private final Map<RoleScope, BitSet> roleHolders;
+    // Membri delle grant delle GrantRoleAssignment, per ricalcolare i titolari dopo una modifica a un gruppo
+    private final Map<RoleScope, List<GrantMembers>> roleGrantMembers;
+    private final Map<AssignmentKey, CompiledAssignment> assignments;
+    private final Map<PermissionKey, Long> permissionIds;
+    private final Set<PermissionRef> indexedPermissions = ConcurrentHashMap.newKeySet();
+    // Revisione per permission: i BitSet calcolati con una revisione precedente non vengono più letti
+    private final Map<PermissionRef, Integer> revisions = new ConcurrentHashMap<>();
+    // Revisione di gruppi e titolari dei ruoli: vale per tutte le permission
+    private final AtomicInteger structureRevision = new AtomicInteger();
+    private final Cache<EffectiveKey, BitSet> effective;
+
+    // Indici invertiti: slot (ordinale denso dell'assegnazione) per utente, gruppo e ruolo citati.
+    // Gli array sono ordinati e copy-on-write; uno slot non viene mai riusato.
+    private final Map<AssignmentKey, Integer> slots = new ConcurrentHashMap<>();
+    private final Map<Integer, AssignmentKey> slotKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final Map<Integer, int[]> slotsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, int[]> slotsByGroup = new ConcurrentHashMap<>();
+    private final Map<Long, int[]> slotsByRole = new ConcurrentHashMap<>();
+
+    private PermissionMatrix(Long tenantId,
+                             Map<Long, Integer> userOrdinals,
+                             Map<Long, BitSet> groupMembers,
+                             Map<RoleScope, BitSet> roleHolders,
+                             Map<RoleScope, List<GrantMembers>> roleGrantMembers,
+                             Map<AssignmentKey, CompiledAssignment> assignments,
+                             Map<PermissionKey, Long> permissionIds,
+                             long effectiveCacheMaxBytes) {
+        this.tenantId = tenantId;
+        this.userOrdinals = userOrdinals;
+        this.nextOrdinal = new AtomicInteger(userOrdinals.size());
+        this.groupMembers = groupMembers;
+        this.roleHolders = roleHolders;
+        this.roleGrantMembers = roleGrantMembers;
+        this.assignments = assignments;
+        this.permissionIds = permissionIds;
+        permissionIds.forEach((key, id) -> indexedPermissions.add(new PermissionRef(key.permissionType(), id)));
+        this.effective = Caffeine.newBuilder()
+                .maximumWeight(effectiveCacheMaxBytes)
+                .weigher((EffectiveKey key, BitSet bits) -> 64 + bits.size() / 8)
+                .build();
+        assignments.forEach((key, compiled) -> index(slotOf(key), compiled, true));
+    }
+
+    public static Builder builder(Long tenantId) {
+        return new Builder(tenantId);
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public int userCount() {
+        return userOrdinals.size();
+    }
+
+    public int assignmentCount() {
+        return assignments.size();
+    }
+
+    /**
+     * L'utente ha la permission (tipo + id) nel progetto indicato?
+     * Con projectId null vale solo l'assegnazione globale con i ruoli non legati a un progetto.
+     */
+    public boolean hasPermission(Long userId, String permissionType, Long permissionId, Long projectId) {
+        Integer ordinal = userOrdinals.get(userId);
+        if (ordinal == null || permissionId == null) {
+            return false;
+        }
+        return effectiveBits(new PermissionRef(permissionType, permissionId), projectKey(projectId)).get(ordinal);
+    }
+
+    /**
+     * Come {@link #hasPermission(Long, String, Long, Long)} ma partendo dalla chiave naturale
+     * (es. ItemTypeConfiguration + Transition per una ExecutorPermission).
+     */
+    public boolean hasPermission(Long userId, PermissionKey key, Long projectId) {
+        Long permissionId = permissionIds.get(key);
+        return permissionId != null && hasPermission(userId, key.permissionType(), permissionId, projectId);
+    }
+
+    /**
+     * La permission è presente nell'indice delle chiavi naturali? (falso per le permission create dopo la compilazione)
+     */
+    public boolean isIndexed(String permissionType, Long permissionId) {
+        return indexedPermissions.contains(new PermissionRef(permissionType, permissionId));
+    }
+
+    /**
+     * Sostituisce (o rimuove, con grant e ruoli vuoti) una singola assegnazione.
+     * Gli utenti mai visti ricevono un nuovo ordinale; gruppi e ruoli restano quelli compilati.
+     */
+    public void updateAssignment(String permissionType, Long permissionId, Long projectId,
+                                 GrantMembers grant, Collection<Long> roleIds) {
+        PermissionRef ref = new PermissionRef(permissionType, permissionId);
+        AssignmentKey key = new AssignmentKey(ref, projectKey(projectId));
+
+        CompiledAssignment compiled = compileAssignment(grant, roleIds, this::ordinalOf);
+        CompiledAssignment previous = compiled == null ? assignments.remove(key) : assignments.put(key, compiled);
+        int slot = slotOf(key);
+        if (previous != null) {
+            index(slot, previous, false);
+        }
+        if (compiled != null) {
+            index(slot, compiled, true);
+        }
+        // Prima l'assegnazione, poi la revisione: chi legge la nuova revisione vede già la nuova assegnazione
+        revisions.merge(ref, 1, Integer::sum);
+    }
+
+    /**
+     * Sostituisce membri e utenti esclusi di un gruppo (senza membri il gruppo viene rimosso) e ricalcola
+     * i titolari dei ruoli le cui grant citano il gruppo.
+     */
+    public void updateGroup(Long groupId, Collection<Long> users, Collection<Long> deniedUsers) {
+        if (users == null || users.isEmpty()) {
+            groupMembers.remove(groupId);
+        } else {
+            BitSet bits = new BitSet();
+            users.forEach(userId -> bits.set(ordinalOf(userId)));
+            if (deniedUsers != null) {
+                deniedUsers.forEach(userId -> bits.clear(ordinalOf(userId)));
+            }
+            groupMembers.put(groupId, bits);
+        }
+        roleGrantMembers.forEach((scope, grants) -> {
+            boolean citesGroup = grants.stream()
+                    .anyMatch(grant -> grant.groups().contains(groupId) || grant.negatedGroups().contains(groupId));
+            if (citesGroup) {
+                roleHolders.put(scope, holderBits(grants, this::ordinalOf, groupMembers));
+            }
+        });
+        // Prima gruppi e titolari, poi la revisione, come in updateAssignment
+        structureRevision.incrementAndGet();
+    }
+
+    /**
+     * Sostituisce le GrantRoleAssignment di un ruolo: membri delle grant per progetto (chiave null = tutta la tenant).
+     */
+    public void updateRoleHolders(Long roleId, Map<Long, List<GrantMembers>> grantsByProject) {
+        roleGrantMembers.keySet().removeIf(scope -> scope.roleId() == roleId);
+        roleHolders.keySet().removeIf(scope -> scope.roleId() == roleId);
+        grantsByProject.forEach((projectId, grants) -> {
+            RoleScope scope = new RoleScope(roleId, projectKey(projectId));
+            roleGrantMembers.put(scope, List.copyOf(grants));
+            roleHolders.put(scope, holderBits(grants, this::ordinalOf, groupMembers));
+        });
+        structureRevision.incrementAndGet();
+    }
+
+    /**
+     * Tutte le permission che l'utente possiede nella tenant, con il motivo (grant diretto, gruppi, ruoli).
+     * Un'assegnazione globale compare con projectId null se vale ovunque, e con il projectId dei progetti
+     * in cui l'utente ne è titolare solo tramite un ruolo assegnato su quel progetto.
+     */
+    public List<AccessEntry> accessProfile(Long userId) {
+        Integer ordinal = userOrdinals.get(userId);
+        if (ordinal == null) {
+            return List.of();
+        }
+
+        Set<Long> userGroups = new HashSet<>();
+        groupMembers.forEach((groupId, bits) -> {
+            if (bits.get(ordinal)) {
+                userGroups.add(groupId);
+            }
+        });
+        Map<Long, Set<Long>> roleProjects = new HashMap<>();
+        roleHolders.forEach((scope, bits) -> {
+            if (bits.get(ordinal)) {
+                roleProjects.computeIfAbsent(scope.roleId(), id -> new HashSet<>()).add(scope.projectKey());
+            }
+        });
+
+        BitSet candidates = new BitSet();
+        addSlots(candidates, slotsByUser.get(ordinal));
+        userGroups.forEach(groupId -> addSlots(candidates, slotsByGroup.get(groupId)));
+        roleProjects.keySet().forEach(roleId -> addSlots(candidates, slotsByRole.get(roleId)));
+
+        List<AccessEntry> result = new ArrayList<>();
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            AssignmentKey key = slotKeys.get(slot);
+            CompiledAssignment assignment = key != null ? assignments.get(key) : null;
+            if (assignment == null || isNegated(assignment, ordinal, userGroups)) {
+                continue;
+            }
+            boolean direct = Arrays.binarySearch(assignment.users(), ordinal) >= 0;
+            List<Long> viaGroups = Arrays.stream(assignment.groups()).filter(userGroups::contains).boxed().toList();
+
+            // Progetto -> ruoli dell'assegnazione di cui l'utente è titolare in quel progetto (o ovunque)
+            Map<Long, List<Long>> rolesByProject = new LinkedHashMap<>();
+            for (long roleId : assignment.roleIds()) {
+                for (long projectKey : roleProjects.getOrDefault(roleId, Set.of())) {
+                    rolesByProject.computeIfAbsent(projectKey, k -> new ArrayList<>()).add(roleId);
+                }
+            }
+
+            long assignmentProject = key.projectKey();
+            List<Long> everywhere = rolesByProject.getOrDefault(NO_PROJECT, List.of());
+            if (assignmentProject != NO_PROJECT) {
+                List<Long> viaRoles = new ArrayList<>(everywhere);
+                viaRoles.addAll(rolesByProject.getOrDefault(assignmentProject, List.of()));
+                if (direct || !viaGroups.isEmpty() || !viaRoles.isEmpty()) {
+                    result.add(new AccessEntry(key.ref().permissionType(), key.ref().permissionId(),
+                            assignmentProject, direct, viaGroups, viaRoles));
+                }
+                continue;
+            }
+            boolean global = direct || !viaGroups.isEmpty() || !everywhere.isEmpty();
+            if (global) {
+                result.add(new AccessEntry(key.ref().permissionType(), key.ref().permissionId(),
+                        null, direct, viaGroups, everywhere));
+                continue;
+            }
+            rolesByProject.forEach((projectKey, viaRoles) -> result.add(new AccessEntry(
+                    key.ref().permissionType(), key.ref().permissionId(), projectKey, false, List.of(), viaRoles)));
+        }
+        result.sort(Comparator.comparing(AccessEntry::permissionType)
+                .thenComparing(AccessEntry::permissionId)
+                .thenComparing(AccessEntry::projectId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public void putPermissionKey(PermissionKey key, Long permissionId) {
+        permissionIds.put(key, permissionId);
+        indexedPermissions.add(new PermissionRef(key.permissionType(), permissionId));
+    }
+
+    private BitSet effectiveBits(PermissionRef ref, long projectKey) {
+        EffectiveKey key = new EffectiveKey(ref, projectKey, revisions.getOrDefault(ref, 0), structureRevision.get());
+        BitSet bits = effective.getIfPresent(key);
+        if (bits == null) {
+            bits = effective.get(key, k -> computeEffective(ref, projectKey));
+        }
+        return bits;
+    }
+
+    private BitSet computeEffective(PermissionRef ref, long projectKey) {
+        BitSet result = new BitSet();
+        contribute(result, assignments.get(new AssignmentKey(ref, NO_PROJECT)), projectKey);
+        if (projectKey != NO_PROJECT) {
+            contribute(result, assignments.get(new AssignmentKey(ref, projectKey)), projectKey);
+        }
+        return result.isEmpty() ? EMPTY : result;
+    }
+
+    private void contribute(BitSet result, CompiledAssignment assignment, long projectKey) {
+        if (assignment == null) {
+            return;
+        }
+        BitSet bits = new BitSet();
+        for (int ordinal : assignment.users()) {
+            bits.set(ordinal);
+        }
+        for (long groupId : assignment.groups()) {
+            orIfPresent(bits, groupMembers.get(groupId));
+        }
+        for (long roleId : assignment.roleIds()) {
+            orIfPresent(bits, roleHolders.get(new RoleScope(roleId, NO_PROJECT)));
+            if (projectKey != NO_PROJECT) {
+                orIfPresent(bits, roleHolders.get(new RoleScope(roleId, projectKey)));
+            }
+        }
+        for (int ordinal : assignment.negatedUsers()) {
+            bits.clear(ordinal);
+        }
+        for (long groupId : assignment.negatedGroups()) {
+            BitSet negated = groupMembers.get(groupId);
+            if (negated != null) {
+                bits.andNot(negated);
+            }
+        }
+        result.or(bits);
+    }
+
+    private boolean isNegated(CompiledAssignment assignment, int ordinal, Set<Long> userGroups) {
+        if (Arrays.binarySearch(assignment.negatedUsers(), ordinal) >= 0) {
+            return true;
+        }
+        for (long groupId : assignment.negatedGroups()) {
+            if (userGroups.contains(groupId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotOf(AssignmentKey key) {
+        return slots.computeIfAbsent(key, k -> {
+            int slot = nextSlot.getAndIncrement();
+            slotKeys.put(slot, k);
+            return slot;
+        });
+    }
+
+    /**
+     * Aggiunge (o rimuove) lo slot dagli indici invertiti di utenti, gruppi e ruoli citati dall'assegnazione.
+     * Le negazioni non entrano negli indici: possono solo togliere permessi.
+     */
+    private void index(int slot, CompiledAssignment assignment, boolean add) {
+        for (int ordinal : assignment.users()) {
+            slotsByUser.compute(ordinal, (k, current) -> updateSlots(current, slot, add));
+        }
+        for (long groupId : assignment.groups()) {
+            slotsByGroup.compute(groupId, (k, current) -> updateSlots(current, slot, add));
+        }
+        for (long roleId : assignment.roleIds()) {
+            slotsByRole.compute(roleId, (k, current) -> updateSlots(current, slot, add));
+        }
+    }
+
+    private static int[] updateSlots(int[] current, int slot, boolean add) {
+        int[] slotsArray = current != null ? current : NO_ORDINALS;
+        int position = Arrays.binarySearch(slotsArray, slot);
+        if (add == (position >= 0)) {
+            return current;
+        }
+        if (add) {
+            int insertAt = -position - 1;
+            int[] updated = new int[slotsArray.length + 1];
+            System.arraycopy(slotsArray, 0, updated, 0, insertAt);
+            updated[insertAt] = slot;
+            System.arraycopy(slotsArray, insertAt, updated, insertAt + 1, slotsArray.length - insertAt);
+            return updated;
+        }
+        if (slotsArray.length == 1) {
+            return null;
+        }
+        int[] updated = new int[slotsArray.length - 1];
+        System.arraycopy(slotsArray, 0, updated, 0, position);
+        System.arraycopy(slotsArray, position + 1, updated, position, slotsArray.length - position - 1);
+        return updated;
+    }
+
+    private static void addSlots(BitSet target, int[] slotsArray) {
+        if (slotsArray != null) {
+            for (int slot : slotsArray) {
+                target.set(slot);
+            }
+        }
+    }
+
+    private int ordinalOf(Long userId) {
+        return userOrdinals.computeIfAbsent(userId, id -> nextOrdinal.getAndIncrement());
+    }
+
+    private static long projectKey(Long projectId) {
+        return projectId != null ? projectId : NO_PROJECT;
+    }
+
+    private static long[] toIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return NO_IDS;
+        }
+        return ids.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+
+    private static int[] toOrdinals(Collection<Long> userIds, ToIntFunction<Long> ordinals) {
+        if (userIds == null || userIds.isEmpty()) {
+            return NO_ORDINALS;
+        }
+        return userIds.stream().mapToInt(ordinals).distinct().sorted().toArray();
+    }
+
+    private static CompiledAssignment compileAssignment(GrantMembers grant, Collection<Long> roleIds,
+                                                        ToIntFunction<Long> ordinals) {
+        boolean noGrant = grant == null || grant.isEmpty();
+        if (noGrant && (roleIds == null || roleIds.isEmpty())) {
+            return null;
+        }
+        if (noGrant) {
+            return new CompiledAssignment(NO_ORDINALS, NO_IDS, NO_ORDINALS, NO_IDS, toIds(roleIds));
+        }
+        return new CompiledAssignment(
+                toOrdinals(grant.users(), ordinals),
+                toIds(grant.groups()),
+                toOrdinals(grant.negatedUsers(), ordinals),
+                toIds(grant.negatedGroups()),
+                toIds(roleIds));
+    }
+
+    private static BitSet holderBits(Collection<GrantMembers> grants, ToIntFunction<Long> ordinals,
+                                     Map<Long, BitSet> groups) {
+        BitSet bits = new BitSet();
+        grants.forEach(members -> bits.or(grantBits(members, ordinals, groups)));
+        return bits;
+    }
+
+    private static BitSet grantBits(GrantMembers members, ToIntFunction<Long> ordinals, Map<Long, BitSet> groups) {
+        BitSet bits = new BitSet();
+        members.users().forEach(userId -> bits.set(ordinals.applyAsInt(userId)));
+        members.groups().forEach(groupId -> orIfPresent(bits, groups.get(groupId)));
+        members.negatedUsers().forEach(userId -> bits.clear(ordinals.applyAsInt(userId)));
+        members.negatedGroups().forEach(groupId -> {
+            BitSet negated = groups.get(groupId);
+            if (negated != null) {
+                bits.andNot(negated);
+            }
+        });
+        return bits;
+    }
+
+    private static void orIfPresent(BitSet target, BitSet source) {
+        if (source != null) {
+            target.or(source);
+        }
+    }
+
+    /**
+     * Membri di un Grant espressi come id (utenti e gruppi, inclusi e negati).
+     */
+    public record GrantMembers(Set<Long> users, Set<Long> groups, Set<Long> negatedUsers, Set<Long> negatedGroups) {
+
+        public static GrantMembers empty() {
+            return new GrantMembers(new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>());
+        }
+
+        boolean isEmpty() {
+            return users.isEmpty() && groups.isEmpty() && negatedUsers.isEmpty() && negatedGroups.isEmpty();
+        }
+    }
+
+    /**
+     * Chiave naturale di una permission, indipendente dal suo id.
+     */
+    public record PermissionKey(String permissionType, Long itemTypeConfigurationId, Long targetId,
+                                Long secondaryTargetId, String variant) {
+
+        public static PermissionKey worker(Long itemTypeConfigurationId) {
+            return new PermissionKey("WorkerPermission", itemTypeConfigurationId, null, null, null);
+        }
+
+        public static PermissionKey creator(Long itemTypeConfigurationId) {
+            return new PermissionKey("CreatorPermission", itemTypeConfigurationId, null, null, null);
+        }
+
+        public static PermissionKey executor(Long itemTypeConfigurationId, Long transitionId) {
+            return new PermissionKey("ExecutorPermission", itemTypeConfigurationId, transitionId, null, null);
+        }
+
+        public static PermissionKey statusOwner(Long itemTypeConfigurationId, Long workflowStatusId) {
+            return new PermissionKey("StatusOwnerPermission", itemTypeConfigurationId, workflowStatusId, null, null);
+        }
+
+        public static PermissionKey fieldOwner(Long itemTypeConfigurationId, Long fieldId) {
+            return new PermissionKey("FieldOwnerPermission", itemTypeConfigurationId, fieldId, null, null);
+        }
+
+        // variant = EDITORS o VIEWERS
+        public static PermissionKey fieldStatus(Long itemTypeConfigurationId, Long fieldId, Long workflowStatusId, String variant) {
+            return new PermissionKey("FieldStatusPermission", itemTypeConfigurationId, fieldId, workflowStatusId, variant);
+        }
+    }
+
+    /**
+     * Permission posseduta da un utente: projectId null = assegnazione globale valida ovunque.
+     * direct = utente citato nel grant; viaGroupIds/viaRoleIds = gruppi e ruoli da cui deriva.
+     */
+    public record AccessEntry(String permissionType, Long permissionId, Long projectId, boolean direct,
+                              List<Long> viaGroupIds, List<Long> viaRoleIds) {
+    }
+
+    private record PermissionRef(String permissionType, Long permissionId) {
+    }
+
+    private record AssignmentKey(PermissionRef ref, long projectKey) {
+    }
+
+    private record EffectiveKey(PermissionRef ref, long projectKey, int revision, int structureRevision) {
+    }
+
+    private record RoleScope(long roleId, long projectKey) {
+    }
+
+    private record CompiledAssignment(int[] users, long[] groups, int[] negatedUsers, long[] negatedGroups,
+                                      long[] roleIds) {
+    }
+
+    /**
+     * Raccoglie le righe lette dal database (o generate nei benchmark) e compila la matrice.
+     */
+    public static final class Builder {
+
+        private final Long tenantId;
+        private final Map<Long, Set<Long>> groupUsers = new HashMap<>();
+        private final Map<Long, Set<Long>> groupDenied = new HashMap<>();
+        private final Map<Long, GrantMembers> grants = new HashMap<>();
+        private final Map<Long, AssignmentRow> assignmentRows = new HashMap<>();
+        private final Map<Long, Set<Long>> assignmentRoles = new HashMap<>();
+        private final Map<RoleScope, Set<Long>> roleGrants = new HashMap<>();
+        private final Map<PermissionKey, Long> permissionIds = new HashMap<>();
+        private long effectiveCacheMaxBytes = DEFAULT_EFFECTIVE_CACHE_MAX_BYTES;
+
+        private Builder(Long tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        public Builder groupMember(Long groupId, Long userId) {
+            groupUsers.computeIfAbsent(groupId, id -> new HashSet<>()).add(userId);
+            return this;
+        }
+
+        public Builder groupDeniedUser(Long groupId, Long userId) {
+            groupDenied.computeIfAbsent(groupId, id -> new HashSet<>()).add(userId);
+            return this;
+        }
+
+        public Builder grantUser(Long grantId, Long userId) {
+            grant(grantId).users().add(userId);
+            return this;
+        }
+
+        public Builder grantGroup(Long grantId, Long groupId) {
+            grant(grantId).groups().add(groupId);
+            return this;
+        }
+
+        public Builder grantNegatedUser(Long grantId, Long userId) {
+            grant(grantId).negatedUsers().add(userId);
+            return this;
+        }
+
+        public Builder grantNegatedGroup(Long grantId, Long groupId) {
+            grant(grantId).negatedGroups().add(groupId);
+            return this;
+        }
+
+        public Builder roleGrant(Long roleId, Long projectId, Long grantId) {
+            roleGrants.computeIfAbsent(new RoleScope(roleId, projectKey(projectId)), k -> new HashSet<>()).add(grantId);
+            return this;
+        }
+
+        public Builder assignment(Long assignmentId, String permissionType, Long permissionId, Long projectId, Long grantId) {
+            assignmentRows.put(assignmentId, new AssignmentRow(permissionType, permissionId, projectId, grantId));
+            return this;
+        }
+
+        public Builder assignmentRole(Long assignmentId, Long roleId) {
+            assignmentRoles.computeIfAbsent(assignmentId, id -> new HashSet<>()).add(roleId);
+            return this;
+        }
+
+        public Builder permissionKey(PermissionKey key, Long permissionId) {
+            permissionIds.put(key, permissionId);
+            return this;
+        }
+
+        public Builder effectiveCacheMaxBytes(long maxBytes) {
+            this.effectiveCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        public PermissionMatrix build() {
+            Map<Long, Integer> ordinals = new ConcurrentHashMap<>();
+            AtomicInteger next = new AtomicInteger();
+            ToIntFunction<Long> ordinalOf = userId -> ordinals.computeIfAbsent(userId, id -> next.getAndIncrement());
+
+            Map<Long, BitSet> groups = new ConcurrentHashMap<>();
+            groupUsers.forEach((groupId, users) -> {
+                BitSet bits = new BitSet();
+                users.forEach(userId -> bits.set(ordinalOf.applyAsInt(userId)));
+                Set<Long> denied = groupDenied.get(groupId);
+                if (denied != null) {
+                    denied.forEach(userId -> bits.clear(ordinalOf.applyAsInt(userId)));
+                }
+                groups.put(groupId, bits);
+            });
+
+            Map<RoleScope, BitSet> holders = new ConcurrentHashMap<>();
+            Map<RoleScope, List<GrantMembers>> holderGrants = new ConcurrentHashMap<>();
+            roleGrants.forEach((scope, grantIds) -> {
+                List<GrantMembers> members = grantIds.stream().map(grants::get).filter(Objects::nonNull).toList();
+                holderGrants.put(scope, members);
+                holders.put(scope, holderBits(members, ordinalOf, groups));
+            });
+
+            Map<AssignmentKey, CompiledAssignment> compiledAssignments = new ConcurrentHashMap<>();
+            assignmentRows.forEach((assignmentId, row) -> {
+                GrantMembers grant = row.grantId() != null ? grants.get(row.grantId()) : null;
+                CompiledAssignment compiled = compileAssignment(grant, assignmentRoles.get(assignmentId), ordinalOf);
+                if (compiled != null) {
+                    compiledAssignments.put(
+                            new AssignmentKey(new PermissionRef(row.permissionType(), row.permissionId()), projectKey(row.projectId())),
+                            compiled);
+                }
+            });
+
+            return new PermissionMatrix(tenantId, ordinals, groups, holders, holderGrants, compiledAssignments,
+                    new ConcurrentHashMap<>(permissionIds), effectiveCacheMaxBytes);
+        }
+
+        private GrantMembers grant(Long grantId) {
+            return grants.computeIfAbsent(grantId, id -> GrantMembers.empty());
+        }
+
+        private record AssignmentRow(String permissionType, Long permissionId, Long projectId, Long grantId) {
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.service.permission.matrix;
+
+import com.example.demo.entity.FieldStatusPermission;
+import com.example.demo.entity.PermissionAssignment;
+import com.example.demo.entity.Role;
+import com.example.demo.repository.CreatorPermissionRepository;
+import com.example.demo.repository.ExecutorPermissionRepository;
+import com.example.demo.repository.FieldOwnerPermissionRepository;
+import com.example.demo.repository.FieldStatusPermissionRepository;
+import com.example.demo.repository.GrantRoleAssignmentRepository;
+import com.example.demo.repository.GrantRoleAssignmentRepository.RoleGrantView;
+import com.example.demo.repository.GroupRepository;
+import com.example.demo.repository.PermissionAssignmentRepository;
+import com.example.demo.repository.ProjectRepository;
+import com.example.demo.repository.StatusOwnerPermissionRepository;
+import com.example.demo.repository.TenantRepository;
+import com.example.demo.repository.WorkerPermissionRepository;
+import com.example.demo.service.GrantMembershipLookup;
+import com.example.demo.service.GrantMembershipLookup.GrantMembership;
+import com.example.demo.service.permission.matrix.PermissionMatrix.GrantMembers;
+import com.example.demo.service.permission.matrix.PermissionMatrix.PermissionKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Legge dal database le righe compatte (solo id, nessuna entity con collezioni) necessarie
+ * a compilare la PermissionMatrix di una tenant (i membri delle grant arrivano da GrantMembershipLookup), e ricompila le singole assegnazioni,
+ * i gruppi e i titolari dei ruoli modificati.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionMatrixCompiler {
+
+    private final PermissionAssignmentRepository permissionAssignmentRepository;
+    private final GrantMembershipLookup grantMembershipLookup;
+    private final GroupRepository groupRepository;
+    private final GrantRoleAssignmentRepository grantRoleAssignmentRepository;
+    private final TenantRepository tenantRepository;
+    private final ProjectRepository projectRepository;
+    private final WorkerPermissionRepository workerPermissionRepository;
+    private final CreatorPermissionRepository creatorPermissionRepository;
+    private final ExecutorPermissionRepository executorPermissionRepository;
+    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
+    private final FieldOwnerPermissionRepository fieldOwnerPermissionRepository;
+    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
+
+    // Limite in byte della cache dei BitSet effettivi (permission, progetto) di ogni tenant
+    @Value("${permission.matrix.effective-cache.max-bytes:67108864}")
+    private long effectiveCacheMaxBytes;
+
+    @Transactional(readOnly = true)
+    public PermissionMatrix compile(Long tenantId) {
+        long start = System.nanoTime();
+        PermissionMatrix.Builder builder = PermissionMatrix.builder(tenantId)
+                .effectiveCacheMaxBytes(effectiveCacheMaxBytes);
+
+        groupRepository.findMembersByTenantId(tenantId)
+                .forEach(row -> builder.groupMember(row.getGroupId(), row.getUserId()));
+        groupRepository.findDeniedUsersByTenantId(tenantId)
+                .forEach(row -> builder.groupDeniedUser(row.getGroupId(), row.getUserId()));
+
+        Set<Long> grantIds = new HashSet<>();
+        permissionAssignmentRepository.findMatrixRowsByTenantId(tenantId).forEach(row -> {
+            builder.assignment(row.getAssignmentId(), row.getPermissionType(), row.getPermissionId(),
+                    row.getProjectId(), row.getGrantId());
+            if (row.getGrantId() != null) {
+                grantIds.add(row.getGrantId());
+            }
+        });
+        permissionAssignmentRepository.findMatrixRoleRowsByTenantId(tenantId)
+                .forEach(row -> builder.assignmentRole(row.getAssignmentId(), row.getRoleId()));
+        grantRoleAssignmentRepository.findRoleGrantsByTenantId(tenantId).forEach(row -> {
+            builder.roleGrant(row.getRoleId(), row.getProjectId(), row.getGrantId());
+            grantIds.add(row.getGrantId());
+        });
+
+        grantMembershipLookup.getMemberships(grantIds).values().forEach(membership -> {
+            Long grantId = membership.grantId();
+            membership.userIds().forEach(userId -> builder.grantUser(grantId, userId));
+            membership.groupIds().forEach(groupId -> builder.grantGroup(grantId, groupId));
+            membership.negatedUserIds().forEach(userId -> builder.grantNegatedUser(grantId, userId));
+            membership.negatedGroupIds().forEach(groupId -> builder.grantNegatedGroup(grantId, groupId));
+        });
+
+        loadPermissionKeys(tenantId, builder::permissionKey);
+
+        PermissionMatrix matrix = builder.build();
+        log.info("PermissionMatrix tenant {} compilata in {} ms ({} utenti, {} assegnazioni)",
+                tenantId, (System.nanoTime() - start) / 1_000_000, matrix.userCount(), matrix.assignmentCount());
+        return matrix;
+    }
+
+    /**
+     * Rilegge una singola assegnazione (con ruoli e grant) e la sostituisce nella matrice.
+     * Viene chiamato dopo il commit della modifica, quindi apre una propria transazione.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void recompileAssignment(PermissionMatrix matrix, String permissionType, Long permissionId, Long projectId) {
+        Long tenantId = matrix.getTenantId();
+        Optional<PermissionAssignment> assignment = projectId == null
+                ? permissionAssignmentRepository.findByPermissionTypeAndPermissionIdAndTenantWithCollections(
+                        permissionType, permissionId, tenantRepository.getReferenceById(tenantId))
+                : permissionAssignmentRepository.findByPermissionTypeAndPermissionIdAndTenantAndProjectWithCollections(
+                        permissionType, permissionId, tenantRepository.getReferenceById(tenantId),
+                        projectRepository.getReferenceById(projectId));
+
+        GrantMembers grant = assignment.map(PermissionAssignment::getGrant)
+                .map(g -> toMembers(grantMembershipLookup.getMembership(g.getId())))
+                .orElse(null);
+        Set<Long> roleIds = assignment
+                .map(pa -> pa.getRoles().stream().map(Role::getId).collect(Collectors.toSet()))
+                .orElse(Set.of());
+        matrix.updateAssignment(permissionType, permissionId, projectId, grant, roleIds);
+
+        // Permission creata dopo la compilazione: aggiorna l'indice delle chiavi naturali della tenant
+        if (assignment.isPresent() && !matrix.isIndexed(permissionType, permissionId)) {
+            loadPermissionKeys(tenantId, matrix::putPermissionKey);
+        }
+    }
+
+    /**
+     * Rilegge membri e utenti esclusi di un gruppo (nessuno se è stato eliminato) e li sostituisce nella matrice.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void recompileGroup(PermissionMatrix matrix, Long groupId) {
+        Long tenantId = matrix.getTenantId();
+        matrix.updateGroup(groupId, groupRepository.findMemberIds(groupId, tenantId),
+                groupRepository.findDeniedUserIds(groupId, tenantId));
+    }
+
+    /**
+     * Rilegge le GrantRoleAssignment di un ruolo (con i membri delle grant) e sostituisce i suoi titolari nella matrice.
+     */
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public void recompileRoleHolders(PermissionMatrix matrix, Long roleId) {
+        List<RoleGrantView> rows = grantRoleAssignmentRepository.findRoleGrantsByTenantIdAndRoleId(matrix.getTenantId(), roleId);
+        Map<Long, GrantMembership> memberships = grantMembershipLookup.getMemberships(
+                rows.stream().map(RoleGrantView::getGrantId).collect(Collectors.toSet()));
+
+        // Chiave null = GrantRoleAssignment valida in tutta la tenant
+        Map<Long, List<GrantMembers>> grantsByProject = new HashMap<>();
+        rows.forEach(row -> {
+            GrantMembership membership = memberships.get(row.getGrantId());
+            if (membership != null) {
+                grantsByProject.computeIfAbsent(row.getProjectId(), id -> new ArrayList<>()).add(toMembers(membership));
+            }
+        });
+        matrix.updateRoleHolders(roleId, grantsByProject);
+    }
+
+    private GrantMembers toMembers(GrantMembership membership) {
+        return new GrantMembers(membership.userIds(), membership.groupIds(),
+                membership.negatedUserIds(), membership.negatedGroupIds());
+    }
+
+    private void loadPermissionKeys(Long tenantId, BiConsumer<PermissionKey, Long> sink) {
+        workerPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.worker(row.getItemTypeConfigurationId()), row.getPermissionId()));
+        creatorPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.creator(row.getItemTypeConfigurationId()), row.getPermissionId()));
+        executorPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.executor(row.getItemTypeConfigurationId(), row.getTargetId()), row.getPermissionId()));
+        statusOwnerPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.statusOwner(row.getItemTypeConfigurationId(), row.getTargetId()), row.getPermissionId()));
+        fieldOwnerPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.fieldOwner(row.getItemTypeConfigurationId(), row.getTargetId()), row.getPermissionId()));
+        fieldStatusPermissionRepository.findKeysByTenantId(tenantId).forEach(row -> sink.accept(
+                PermissionKey.fieldStatus(row.getItemTypeConfigurationId(), row.getFieldId(),
+                        row.getWorkflowStatusId(), variant(row.getPermissionType())), row.getPermissionId()));
+    }
+
+    private static String variant(FieldStatusPermission.PermissionType type) {
+        return type != null ? type.name() : null;
+    }
+}
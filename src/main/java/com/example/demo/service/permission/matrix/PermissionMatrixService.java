@@ -0,0 +1,207 @@
+package com.example.demo.service.permission.matrix;
+
+import com.example.demo.configchange.ConfigChange;
+import com.example.demo.configchange.ConfigChangeListener;
+import com.example.demo.entity.FieldStatusPermission;
+import com.example.demo.enums.ConfigChangeType;
+import com.example.demo.service.permission.matrix.PermissionMatrix.PermissionKey;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Punto di accesso ai permessi effettivi (Worker/Creator/Executor/StatusOwner/FieldOwner/FieldStatus)
+ * calcolati dalla PermissionMatrix della tenant.
+ *
+ * La matrice viene compilata al primo accesso e tenuta in memoria:
+ * - una modifica a una PermissionAssignment (ruoli o grant) la aggiorna in place dopo il commit
+ * - una modifica ai membri di un gruppo o alle GrantRoleAssignment di un ruolo rilegge solo quel gruppo
+ *   o quel ruolo, dopo il commit
+ * - le modifiche massive ({@link #membershipChanged}) la scartano, e viene ricompilata al prossimo accesso
+ * - una modifica a un gruppo o a un ruolo fatta su un altro nodo (letta dall'outbox di configurazione)
+ *   viene applicata allo stesso modo; le altre modifiche remote scartano la matrice
+ */
+@Service
+public class PermissionMatrixService implements ConfigChangeListener {
+
+    private static final Set<ConfigChangeType> IGNORED_CHANGES = EnumSet.of(
+            ConfigChangeType.TENANT_USER, ConfigChangeType.PROJECT, ConfigChangeType.ITEM_TYPE,
+            ConfigChangeType.STATUS, ConfigChangeType.FIELD);
+
+    private final PermissionMatrixCompiler compiler;
+
+    private final Map<Long, PermissionMatrix> matrices = new ConcurrentHashMap<>();
+    private final Map<Long, Object> compileLocks = new ConcurrentHashMap<>();
+    // Incrementata ad ogni modifica: una compilazione iniziata prima non viene messa in cache
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public PermissionMatrixService(PermissionMatrixCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    public boolean hasPermission(Long userId, Long tenantId, String permissionType, Long permissionId, Long projectId) {
+        return matrix(tenantId).hasPermission(userId, permissionType, permissionId, projectId);
+    }
+
+    public boolean canWork(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.worker(itemTypeConfigurationId), projectId);
+    }
+
+    public boolean canCreate(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.creator(itemTypeConfigurationId), projectId);
+    }
+
+    public boolean canExecute(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId, Long transitionId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.executor(itemTypeConfigurationId, transitionId), projectId);
+    }
+
+    public boolean isStatusOwner(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId, Long workflowStatusId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.statusOwner(itemTypeConfigurationId, workflowStatusId), projectId);
+    }
+
+    public boolean isFieldOwner(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId, Long fieldId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.fieldOwner(itemTypeConfigurationId, fieldId), projectId);
+    }
+
+    public boolean canEditField(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId,
+                                Long fieldId, Long workflowStatusId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.fieldStatus(itemTypeConfigurationId, fieldId,
+                workflowStatusId, FieldStatusPermission.PermissionType.EDITORS.name()), projectId);
+    }
+
+    public boolean canViewField(Long userId, Long tenantId, Long projectId, Long itemTypeConfigurationId,
+                                Long fieldId, Long workflowStatusId) {
+        return matrix(tenantId).hasPermission(userId, PermissionKey.fieldStatus(itemTypeConfigurationId, fieldId,
+                workflowStatusId, FieldStatusPermission.PermissionType.VIEWERS.name()), projectId);
+    }
+
+    /**
+     * Tutte le permission effettive dell'utente nella tenant, lette dagli indici invertiti della matrice.
+     */
+    public List<PermissionMatrix.AccessEntry> accessProfile(Long userId, Long tenantId) {
+        return matrix(tenantId).accessProfile(userId);
+    }
+
+    /**
+     * Una PermissionAssignment (globale se projectId è null) è stata creata, modificata o eliminata.
+     */
+    public void assignmentChanged(Long tenantId, String permissionType, Long permissionId, Long projectId) {
+        afterCommit(() -> refresh(tenantId,
+                matrix -> compiler.recompileAssignment(matrix, permissionType, permissionId, projectId)));
+    }
+
+    /**
+     * Sono cambiati membri o utenti esclusi di un gruppo, oppure il gruppo è stato eliminato.
+     */
+    public void groupChanged(Long tenantId, Long groupId) {
+        afterCommit(() -> refresh(tenantId, matrix -> compiler.recompileGroup(matrix, groupId)));
+    }
+
+    /**
+     * Sono cambiate le GrantRoleAssignment di un ruolo (o il ruolo è stato eliminato).
+     */
+    public void roleHoldersChanged(Long tenantId, Long roleId) {
+        afterCommit(() -> refresh(tenantId, matrix -> compiler.recompileRoleHolders(matrix, roleId)));
+    }
+
+    /**
+     * Modifiche massive a gruppi, ruoli o GrantRoleAssignment della tenant: la matrice viene ricompilata.
+     */
+    public void membershipChanged(Long tenantId) {
+        afterCommit(() -> {
+            nextGeneration(tenantId);
+            matrices.remove(tenantId);
+        });
+    }
+
+    @Override
+    public void onConfigChange(ConfigChange change) {
+        // Le modifiche locali sono già state applicate dagli hook afterCommit;
+        // utenti, progetti e nomi di item type, stati e field non entrano nella matrice
+        if (change.local() || IGNORED_CHANGES.contains(change.type())) {
+            return;
+        }
+        if (change.entityId() != null && change.type() == ConfigChangeType.GROUP) {
+            refresh(change.tenantId(), matrix -> compiler.recompileGroup(matrix, change.entityId()));
+            return;
+        }
+        if (change.entityId() != null && change.type() == ConfigChangeType.ROLE) {
+            refresh(change.tenantId(), matrix -> compiler.recompileRoleHolders(matrix, change.entityId()));
+            return;
+        }
+        nextGeneration(change.tenantId());
+        matrices.remove(change.tenantId());
+    }
+
+    @Override
+    public void onReset() {
+        // compileLocks copre anche le tenant con una compilazione in corso
+        compileLocks.keySet().forEach(this::nextGeneration);
+        matrices.clear();
+    }
+
+    private PermissionMatrix matrix(Long tenantId) {
+        PermissionMatrix matrix = matrices.get(tenantId);
+        if (matrix != null) {
+            return matrix;
+        }
+        synchronized (lock(tenantId)) {
+            matrix = matrices.get(tenantId);
+            if (matrix != null) {
+                return matrix;
+            }
+            long generation = generation(tenantId);
+            PermissionMatrix compiled = compiler.compile(tenantId);
+            matrices.compute(tenantId, (id, existing) ->
+                    existing != null ? existing : generation(tenantId) == generation ? compiled : null);
+            return compiled;
+        }
+    }
+
+    /**
+     * Aggiorna in place la matrice già compilata; una compilazione in corso non viene messa in cache.
+     */
+    private void refresh(Long tenantId, Consumer<PermissionMatrix> update) {
+        nextGeneration(tenantId);
+        PermissionMatrix matrix = matrices.get(tenantId);
+        if (matrix != null) {
+            synchronized (lock(tenantId)) {
+                update.accept(matrix);
+            }
+        }
+    }
+
+    private Object lock(Long tenantId) {
+        return compileLocks.computeIfAbsent(tenantId, id -> new Object());
+    }
+
+    private long generation(Long tenantId) {
+        AtomicLong generation = generations.get(tenantId);
+        return generation != null ? generation.get() : 0L;
+    }
+
+    private void nextGeneration(Long tenantId) {
+        generations.computeIfAbsent(tenantId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
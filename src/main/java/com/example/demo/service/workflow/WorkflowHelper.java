@@ -1,9 +1,8 @@
 package com.example.demo.service.workflow;
 
-import com.example.demo.entity.Tenant;
 import com.example.demo.entity.Transition;
-import com.example.demo.repository.TransitionRepository;
-import lombok.RequiredArgsConstructor;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,27 +11,23 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class WorkflowHelper {
 
-    private final TransitionRepository transitionRepository;
-
     /**
      * Ottiene i nomi delle Transition rimosse nel formato "Nome (Da Stato -> A Stato)" o "Da Stato -> A Stato"
      */
-    public List<String> getTransitionNames(Set<Long> transitionIds, Tenant tenant) {
+    public List<String> getTransitionNames(Set<Long> transitionIds, TenantConfigSnapshot snapshot) {
         return transitionIds.stream()
                 .map(id -> {
-                    try {
-                        Transition transition = transitionRepository.findByTransitionIdAndTenant(id, tenant).orElse(null);
-                        if (transition == null) {
-                            return "Transition " + id;
-                        }
-                        return formatTransitionName(transition);
-                    } catch (Exception e) {
+                    TransitionNode transition = snapshot.transition(id);
+                    if (transition == null) {
                         return "Transition " + id;
                     }
+                    return formatTransitionName(
+                            transition.name(),
+                            snapshot.statusName(transition.fromWorkflowStatusId()),
+                            snapshot.statusName(transition.toWorkflowStatusId()));
                 })
                 .collect(Collectors.toList());
     }
@@ -41,10 +36,16 @@ public class WorkflowHelper {
      * Formatta il nome di una Transition nel formato "Nome (Da Stato -> A Stato)" o "Da Stato -> A Stato"
      */
     public String formatTransitionName(Transition transition) {
-        String fromStatusName = transition.getFromStatus().getStatus().getName();
-        String toStatusName = transition.getToStatus().getStatus().getName();
-        String transitionName = transition.getName();
+        return formatTransitionName(
+                transition.getName(),
+                transition.getFromStatus().getStatus().getName(),
+                transition.getToStatus().getStatus().getName());
+    }
 
+    /**
+     * Come {@link #formatTransitionName(Transition)}, dai nomi già risolti (es. da uno snapshot di configurazione)
+     */
+    public String formatTransitionName(String transitionName, String fromStatusName, String toStatusName) {
         // Se la transizione ha un nome, usa il formato "Nome (Da Stato -> A Stato)"
         if (transitionName != null && !transitionName.trim().isEmpty()) {
             return String.format("%s (%s -> %s)", transitionName.trim(), fromStatusName, toStatusName);
@@ -10,6 +10,7 @@ import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.metadata.WorkflowNode;
 import com.example.demo.metadata.WorkflowNodeRepository;
 import com.example.demo.repository.*;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,7 +21,6 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -40,6 +40,7 @@ public class WorkflowRemovalService {
     private final WorkflowStatusUpdater workflowStatusUpdater;
     private final WorkflowTransitionSynchronizer workflowTransitionSynchronizer;
     private final WorkflowEdgeManager workflowEdgeManager;
+    private final CompiledWorkflowService compiledWorkflowService;
 
     /**
      * Rimuove le ExecutorPermissions per una singola Transition
@@ -178,13 +179,8 @@ public class WorkflowRemovalService {
                 // PRIMA: Identifica le transizioni che verranno rimosse e elimina le permission associate
                 // Questo deve essere fatto PRIMA di rimuovere le transizioni dalle collezioni
                 // per evitare problemi di foreign key constraint durante il flush di Hibernate
-                Set<Long> removedTransitionIds = statusesToRemove.stream()
-                        .flatMap(status -> Stream.concat(
-                                status.getOutgoingTransitions().stream(),
-                                status.getIncomingTransitions().stream()))
-                        .map(Transition::getId)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toSet());
+                Set<Long> removedTransitionIds = compiledWorkflowService.get(tenant.getId(), workflowId)
+                        .transitionIdsTouching(statusesToRemove.stream().map(WorkflowStatus::getId).toList());
 
                 if (!removedTransitionIds.isEmpty()) {
                     // Elimina le permission PRIMA di rimuovere le transizioni dalle collezioni
@@ -0,0 +1,324 @@
+package com.example.demo.service.workflow.compiled;
+
+import com.example.demo.enums.StatusCategory;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Macchina a stati immutabile di un Workflow, compilata da {@link CompiledWorkflowCompiler}.
+ *
+ * Ogni WorkflowStatus ha un ordinale (posizione nell'array ordinato degli id), con Status, nome e categoria
+ * negli array paralleli. Le Transition sono indicizzate per id allo stesso modo; le transizioni in uscita e
+ * in entrata di ogni stato sono liste di adiacenza in formato CSR: le transizioni dello stato i sono
+ * edges[offsets[i]..offsets[i + 1]), già ordinate per id. Lookup, raggiungibilità e transizioni toccate da
+ * una rimozione di stati non eseguono query e non attraversano le collezioni delle entity.
+ */
+public final class CompiledWorkflow {
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final Long tenantId;
+    private final Long workflowId;
+
+    private final long[] workflowStatusIds;
+    private final Long[] statusIds;
+    private final String[] statusNames;
+    private final StatusCategory[] categories;
+    private final int initialOrdinal;
+
+    private final long[] transitionIds;
+    private final String[] transitionNames;
+    // Ordinali degli stati di partenza e di arrivo (-1 se lo stato non appartiene al workflow)
+    private final int[] transitionFrom;
+    private final int[] transitionTo;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    CompiledWorkflow(Long tenantId, Long workflowId, List<StatusRow> statuses, List<TransitionRow> transitions) {
+        this.tenantId = tenantId;
+        this.workflowId = workflowId;
+
+        List<StatusRow> sortedStatuses = statuses.stream()
+                .sorted((a, b) -> Long.compare(a.id(), b.id()))
+                .toList();
+        int statusCount = sortedStatuses.size();
+        this.workflowStatusIds = new long[statusCount];
+        this.statusIds = new Long[statusCount];
+        this.statusNames = new String[statusCount];
+        this.categories = new StatusCategory[statusCount];
+        int initial = -1;
+        for (int i = 0; i < statusCount; i++) {
+            StatusRow row = sortedStatuses.get(i);
+            workflowStatusIds[i] = row.id();
+            statusIds[i] = row.statusId();
+            statusNames[i] = row.statusName();
+            categories[i] = row.category();
+            if (row.initial() && initial < 0) {
+                initial = i;
+            }
+        }
+        this.initialOrdinal = initial;
+
+        List<TransitionRow> sortedTransitions = transitions.stream()
+                .sorted((a, b) -> Long.compare(a.id(), b.id()))
+                .toList();
+        int transitionCount = sortedTransitions.size();
+        this.transitionIds = new long[transitionCount];
+        this.transitionNames = new String[transitionCount];
+        this.transitionFrom = new int[transitionCount];
+        this.transitionTo = new int[transitionCount];
+        for (int t = 0; t < transitionCount; t++) {
+            TransitionRow row = sortedTransitions.get(t);
+            transitionIds[t] = row.id();
+            transitionNames[t] = row.name();
+            transitionFrom[t] = ordinal(row.fromWorkflowStatusId());
+            transitionTo[t] = ordinal(row.toWorkflowStatusId());
+        }
+
+        this.outOffsets = new int[statusCount + 1];
+        this.outEdges = adjacency(transitionFrom, outOffsets);
+        this.inOffsets = new int[statusCount + 1];
+        this.inEdges = adjacency(transitionTo, inOffsets);
+    }
+
+    /**
+     * Costruisce la lista CSR delle transizioni per stato: offsets viene riempito, gli indici delle transizioni
+     * sono restituiti in ordine di stato e, per ogni stato, di id.
+     */
+    private static int[] adjacency(int[] endpoint, int[] offsets) {
+        for (int ordinal : endpoint) {
+            if (ordinal >= 0) {
+                offsets[ordinal + 1]++;
+            }
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] edges = new int[offsets[offsets.length - 1]];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int t = 0; t < endpoint.length; t++) {
+            if (endpoint[t] >= 0) {
+                edges[next[endpoint[t]]++] = t;
+            }
+        }
+        return edges;
+    }
+
+    public Long tenantId() {
+        return tenantId;
+    }
+
+    public Long workflowId() {
+        return workflowId;
+    }
+
+    public int statusCount() {
+        return workflowStatusIds.length;
+    }
+
+    public int transitionCount() {
+        return transitionIds.length;
+    }
+
+    /**
+     * Ordinale del WorkflowStatus, -1 se non appartiene al workflow.
+     */
+    public int ordinal(Long workflowStatusId) {
+        if (workflowStatusId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(workflowStatusIds, workflowStatusId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Ordinale del WorkflowStatus che usa lo Status indicato, -1 se lo Status non è nel workflow.
+     */
+    public int ordinalOfStatus(Long statusId) {
+        if (statusId == null) {
+            return -1;
+        }
+        for (int i = 0; i < statusIds.length; i++) {
+            if (statusId.equals(statusIds[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public Long workflowStatusId(int ordinal) {
+        return workflowStatusIds[ordinal];
+    }
+
+    public Long statusId(int ordinal) {
+        return statusIds[ordinal];
+    }
+
+    public String statusName(int ordinal) {
+        return statusNames[ordinal];
+    }
+
+    public StatusCategory category(int ordinal) {
+        return categories[ordinal];
+    }
+
+    /**
+     * Ordinale dello stato iniziale, -1 se il workflow non ne ha.
+     */
+    public int initialOrdinal() {
+        return initialOrdinal;
+    }
+
+    public Long initialWorkflowStatusId() {
+        return initialOrdinal >= 0 ? workflowStatusIds[initialOrdinal] : null;
+    }
+
+    /**
+     * Indice della Transition, -1 se non appartiene al workflow.
+     */
+    public int transitionIndex(Long transitionId) {
+        if (transitionId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(transitionIds, transitionId);
+        return index >= 0 ? index : -1;
+    }
+
+    public Long transitionId(int index) {
+        return transitionIds[index];
+    }
+
+    public String transitionName(int index) {
+        return transitionNames[index];
+    }
+
+    public int transitionFrom(int index) {
+        return transitionFrom[index];
+    }
+
+    public int transitionTo(int index) {
+        return transitionTo[index];
+    }
+
+    /**
+     * Id delle transizioni in uscita dallo stato, in ordine di id.
+     */
+    public long[] outgoingTransitionIds(int ordinal) {
+        return transitionIdsOf(outEdges, outOffsets, ordinal);
+    }
+
+    /**
+     * Id delle transizioni in entrata nello stato, in ordine di id.
+     */
+    public long[] incomingTransitionIds(int ordinal) {
+        return transitionIdsOf(inEdges, inOffsets, ordinal);
+    }
+
+    /**
+     * Prima Transition (per id) tra i due WorkflowStatus, null se non esiste.
+     */
+    public Long findTransition(Long fromWorkflowStatusId, Long toWorkflowStatusId) {
+        int from = ordinal(fromWorkflowStatusId);
+        int to = ordinal(toWorkflowStatusId);
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        for (int e = outOffsets[from]; e < outOffsets[from + 1]; e++) {
+            if (transitionTo[outEdges[e]] == to) {
+                return transitionIds[outEdges[e]];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * true se la Transition appartiene al workflow e parte dal WorkflowStatus indicato.
+     */
+    public boolean startsFrom(Long transitionId, Long fromWorkflowStatusId) {
+        int index = transitionIndex(transitionId);
+        return index >= 0 && transitionFrom[index] >= 0 && transitionFrom[index] == ordinal(fromWorkflowStatusId);
+    }
+
+    /**
+     * Ordinali degli stati raggiungibili dallo stato indicato (incluso) seguendo le transizioni in uscita.
+     */
+    public BitSet reachableFrom(int ordinal) {
+        BitSet visited = new BitSet(workflowStatusIds.length);
+        if (ordinal < 0) {
+            return visited;
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        visited.set(ordinal);
+        queue.add(ordinal);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (int e = outOffsets[current]; e < outOffsets[current + 1]; e++) {
+                int next = transitionTo[outEdges[e]];
+                if (next >= 0 && !visited.get(next)) {
+                    visited.set(next);
+                    queue.add(next);
+                }
+            }
+        }
+        return visited;
+    }
+
+    public boolean isReachable(Long fromWorkflowStatusId, Long toWorkflowStatusId) {
+        int to = ordinal(toWorkflowStatusId);
+        return to >= 0 && reachableFrom(ordinal(fromWorkflowStatusId)).get(to);
+    }
+
+    /**
+     * Transizioni in entrata e in uscita dai WorkflowStatus indicati: quelle rimosse insieme agli stati.
+     * Gli stati che non appartengono al workflow sono ignorati.
+     */
+    public Set<Long> transitionIdsTouching(Collection<Long> workflowStatusIds) {
+        Set<Long> transitionIdsTouching = new TreeSet<>();
+        for (Long workflowStatusId : workflowStatusIds) {
+            int ordinal = ordinal(workflowStatusId);
+            if (ordinal < 0) {
+                continue;
+            }
+            for (int e = outOffsets[ordinal]; e < outOffsets[ordinal + 1]; e++) {
+                transitionIdsTouching.add(transitionIds[outEdges[e]]);
+            }
+            for (int e = inOffsets[ordinal]; e < inOffsets[ordinal + 1]; e++) {
+                transitionIdsTouching.add(transitionIds[inEdges[e]]);
+            }
+        }
+        return transitionIdsTouching;
+    }
+
+    private long[] transitionIdsOf(int[] edges, int[] offsets, int ordinal) {
+        if (ordinal < 0 || offsets[ordinal] == offsets[ordinal + 1]) {
+            return NO_IDS;
+        }
+        long[] ids = new long[offsets[ordinal + 1] - offsets[ordinal]];
+        for (int e = offsets[ordinal]; e < offsets[ordinal + 1]; e++) {
+            ids[e - offsets[ordinal]] = transitionIds[edges[e]];
+        }
+        return ids;
+    }
+
+    /**
+     * WorkflowStatus letto dal database: statusId/statusName sono null se lo Status non è associato.
+     */
+    record StatusRow(long id, Long statusId, String statusName, StatusCategory category, boolean initial) {
+    }
+
+    /**
+     * Transition letta dal database: gli estremi sono id di WorkflowStatus (null se non associati).
+     */
+    record TransitionRow(long id, String name, Long fromWorkflowStatusId, Long toWorkflowStatusId) {
+    }
+}
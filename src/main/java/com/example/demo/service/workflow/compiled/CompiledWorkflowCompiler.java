@@ -0,0 +1,46 @@
+package com.example.demo.service.workflow.compiled;
+
+import com.example.demo.exception.ApiException;
+import com.example.demo.repository.TransitionRepository;
+import com.example.demo.repository.WorkflowRepository;
+import com.example.demo.repository.WorkflowStatusRepository;
+import com.example.demo.service.workflow.compiled.CompiledWorkflow.StatusRow;
+import com.example.demo.service.workflow.compiled.CompiledWorkflow.TransitionRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Legge le righe compatte (solo id, nomi e categorie, nessuna entity con collezioni) degli stati e delle
+ * transizioni di un Workflow e le compila in un {@link CompiledWorkflow}.
+ */
+@Component
+@RequiredArgsConstructor
+public class CompiledWorkflowCompiler {
+
+    private final WorkflowRepository workflowRepository;
+    private final WorkflowStatusRepository workflowStatusRepository;
+    private final TransitionRepository transitionRepository;
+
+    @Transactional(readOnly = true)
+    public CompiledWorkflow compile(Long tenantId, Long workflowId) {
+        List<StatusRow> statuses = workflowStatusRepository.findCompiledRowsByWorkflowIdAndTenantId(workflowId, tenantId)
+                .stream()
+                .map(row -> new StatusRow(row.getId(), row.getStatusId(), row.getStatusName(),
+                        row.getStatusCategory(), Boolean.TRUE.equals(row.getInitial())))
+                .toList();
+        if (statuses.isEmpty() && !workflowRepository.existsByIdAndTenantId(workflowId, tenantId)) {
+            throw new ApiException("Workflow not found: " + workflowId);
+        }
+
+        List<TransitionRow> transitions = transitionRepository.findSnapshotRowsByWorkflowIdAndTenantId(workflowId, tenantId)
+                .stream()
+                .map(row -> new TransitionRow(row.getId(), row.getName(),
+                        row.getFromWorkflowStatusId(), row.getToWorkflowStatusId()))
+                .toList();
+
+        return new CompiledWorkflow(tenantId, workflowId, statuses, transitions);
+    }
+}
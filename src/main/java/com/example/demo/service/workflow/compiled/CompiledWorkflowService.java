@@ -0,0 +1,127 @@
+package com.example.demo.service.workflow.compiled;
+
+import com.example.demo.configchange.ConfigChange;
+import com.example.demo.configchange.ConfigChangeListener;
+import com.example.demo.configchange.ConfigChangeOutbox;
+import com.example.demo.enums.ConfigChangeType;
+import com.example.demo.exception.ApiException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Punto di accesso al {@link CompiledWorkflow} di un Workflow.
+ *
+ * Il workflow viene compilato al primo accesso e tenuto in memoria finché non cambia:
+ * - WorkflowService e TransitionService lo scartano quando modificano stati o transizioni del workflow
+ *   (subito e di nuovo dopo il commit)
+ * - una modifica a uno Status scarta i workflow della tenant, che ne riportano il nome
+ * - una modifica fatta su un altro nodo (letta dall'outbox di configurazione) li scarta allo stesso modo
+ *
+ * Una transazione con modifiche già registrate nell'outbox riceve un workflow compilato nella sua vista, non condiviso.
+ */
+@Service
+public class CompiledWorkflowService implements ConfigChangeListener {
+
+    private final CompiledWorkflowCompiler compiler;
+    private final ConfigChangeOutbox configChangeOutbox;
+    private final Cache<Long, CompiledWorkflow> workflows;
+    // Incrementata ad ogni modifica della tenant: una compilazione iniziata prima non viene messa in cache
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public CompiledWorkflowService(CompiledWorkflowCompiler compiler,
+                                   ConfigChangeOutbox configChangeOutbox,
+                                   @Value("${config.workflow.cache.max-entries:1024}") long maxEntries) {
+        this.compiler = compiler;
+        this.configChangeOutbox = configChangeOutbox;
+        this.workflows = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    public CompiledWorkflow get(Long tenantId, Long workflowId) {
+        if (configChangeOutbox.hasPendingChanges()) {
+            return compiler.compile(tenantId, workflowId);
+        }
+
+        CompiledWorkflow cached = workflows.getIfPresent(workflowId);
+        if (cached != null) {
+            if (!cached.tenantId().equals(tenantId)) {
+                throw new ApiException("Workflow not found: " + workflowId);
+            }
+            return cached;
+        }
+        long generation = generation(tenantId);
+        CompiledWorkflow compiled = compiler.compile(tenantId, workflowId);
+        workflows.asMap().compute(workflowId, (id, existing) ->
+                existing != null ? existing : generation(tenantId) == generation ? compiled : null);
+        return compiled;
+    }
+
+    /**
+     * Sono cambiati stati o transizioni del workflow; con workflowId null, di un workflow non noto della tenant.
+     */
+    public void workflowChanged(Long tenantId, Long workflowId) {
+        Runnable invalidate = () -> invalidate(tenantId, workflowId);
+        invalidate.run();
+        afterCommit(invalidate);
+    }
+
+    /**
+     * È cambiato uno Status della tenant (nome riportato dai workflow che lo usano).
+     */
+    public void statusChanged(Long tenantId) {
+        workflowChanged(tenantId, null);
+    }
+
+    @Override
+    public void onConfigChange(ConfigChange change) {
+        // Le modifiche locali sono già state applicate da workflowChanged/statusChanged
+        if (change.local()) {
+            return;
+        }
+        if (change.type() == ConfigChangeType.WORKFLOW) {
+            invalidate(change.tenantId(), change.entityId());
+        } else if (change.type() == ConfigChangeType.STATUS) {
+            invalidate(change.tenantId(), null);
+        }
+    }
+
+    @Override
+    public void onReset() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        workflows.invalidateAll();
+    }
+
+    private void invalidate(Long tenantId, Long workflowId) {
+        generations.computeIfAbsent(tenantId, id -> new AtomicLong()).incrementAndGet();
+        if (workflowId != null) {
+            workflows.invalidate(workflowId);
+        } else {
+            workflows.asMap().values().removeIf(workflow -> workflow.tenantId().equals(tenantId));
+        }
+    }
+
+    private long generation(Long tenantId) {
+        // Registrata anche in lettura: onReset deve poter invalidare le compilazioni in corso
+        return generations.computeIfAbsent(tenantId, id -> new AtomicLong()).get();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+}
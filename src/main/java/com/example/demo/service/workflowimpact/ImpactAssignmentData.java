@@ -0,0 +1,58 @@
+package com.example.demo.service.workflowimpact;
+
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.Assignment;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.workflowimpact.model.ProjectGrantData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assegnazioni di una permission rilevanti per le analisi di rimozione di stati e transizioni:
+ * ruoli e grant globali, progetti (proprietario o associati) con una grant di progetto.
+ */
+record ImpactAssignmentData(
+        List<String> assignedRoles,
+        Long grantId,
+        String grantName,
+        List<ProjectGrantData> projectGrants,
+        boolean hasAssignments
+) {
+
+    static ImpactAssignmentData of(PermissionRow permission, ItemTypeSetNode itemTypeSet) {
+        List<String> assignedRoles = List.of();
+        Long grantId = null;
+        String grantName = null;
+
+        Assignment assignment = permission.assignment();
+        if (assignment != null) {
+            assignedRoles = assignment.roleNames();
+            if (assignment.hasGrant()) {
+                grantId = assignment.grantId();
+                grantName = assignment.grantRoleName() != null ? assignment.grantRoleName() : "Grant globale";
+            }
+        }
+
+        List<ProjectGrantData> projectGrants = new ArrayList<>();
+        for (ProjectRef project : itemTypeSet.scopedProjects()) {
+            Assignment projectAssignment = permission.projectAssignment(project.id());
+            if (projectAssignment != null && projectAssignment.hasGrant()) {
+                projectGrants.add(ProjectGrantData.builder()
+                        .projectId(project.id())
+                        .projectName(project.name())
+                        .build());
+            }
+        }
+
+        boolean hasAssignments = !assignedRoles.isEmpty() || grantId != null || !projectGrants.isEmpty();
+
+        return new ImpactAssignmentData(
+                List.copyOf(assignedRoles),
+                grantId,
+                grantName,
+                List.copyOf(projectGrants),
+                hasAssignments);
+    }
+}
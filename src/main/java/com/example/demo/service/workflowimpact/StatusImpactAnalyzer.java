@@ -2,17 +2,28 @@ package com.example.demo.service.workflowimpact;
 
 import com.example.demo.entity.*;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.*;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.repository.ItemTypeSetRepository;
+import com.example.demo.repository.WorkflowRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ConfigurationNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.FieldSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.WorkflowStatusNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.impactjob.ImpactProgressListener;
 import com.example.demo.service.workflow.WorkflowHelper;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import com.example.demo.service.workflowimpact.model.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -21,14 +32,9 @@ import java.util.stream.Collectors;
 public class StatusImpactAnalyzer {
 
     private final WorkflowRepository workflowRepository;
-    private final WorkflowStatusRepository workflowStatusRepository;
-    private final TransitionRepository transitionRepository;
     private final ItemTypeSetRepository itemTypeSetRepository;
-    private final StatusOwnerPermissionRepository statusOwnerPermissionRepository;
-    private final FieldStatusPermissionRepository fieldStatusPermissionRepository;
-    private final ExecutorPermissionRepository executorPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
+    private final CompiledWorkflowService compiledWorkflowService;
     private final WorkflowHelper workflowHelper;
 
     public StatusImpactAnalysisResult analyzeStatusRemovalImpact(
@@ -38,15 +44,8 @@ public class StatusImpactAnalyzer {
     ) {
         // Metodo legacy: calcola le transizioni rimosse in base agli stati rimossi
         // (potrebbe includere transizioni solo spostate)
-        Workflow workflow = workflowRepository.findByIdAndTenant(workflowId, tenant)
-                .orElseThrow(() -> new ApiException("Workflow not found: " + workflowId));
-
-        List<Transition> workflowTransitions = transitionRepository.findByWorkflowAndTenant(workflow, tenant);
-        Map<Long, Set<Long>> transitionIdsByStatus = indexTransitionIdsByStatus(workflowTransitions);
-
-        Set<Long> removedTransitionIds = removedStatusIds.stream()
-                .flatMap(statusId -> transitionIdsByStatus.getOrDefault(statusId, Collections.emptySet()).stream())
-                .collect(Collectors.toSet());
+        Set<Long> removedTransitionIds = compiledWorkflowService.get(tenant.getId(), workflowId)
+                .transitionIdsTouching(removedStatusIds);
 
         return analyzeStatusRemovalImpact(tenant, workflowId, removedStatusIds, removedTransitionIds);
     }
@@ -56,23 +55,25 @@ public class StatusImpactAnalyzer {
             Long workflowId,
             Set<Long> removedStatusIds,
             Set<Long> actuallyRemovedTransitionIds
+    ) {
+        return analyzeStatusRemovalImpact(
+                tenant, workflowId, removedStatusIds, actuallyRemovedTransitionIds, ImpactProgressListener.NONE);
+    }
+
+    public StatusImpactAnalysisResult analyzeStatusRemovalImpact(
+            Tenant tenant,
+            Long workflowId,
+            Set<Long> removedStatusIds,
+            Set<Long> actuallyRemovedTransitionIds,
+            ImpactProgressListener progress
     ) {
         Workflow workflow = workflowRepository.findByIdAndTenant(workflowId, tenant)
                 .orElseThrow(() -> new ApiException("Workflow not found: " + workflowId));
 
-        List<ItemTypeSet> allItemTypeSetsUsingWorkflow = findItemTypeSetsUsingWorkflow(workflowId, tenant);
-
-        Map<Long, WorkflowStatus> workflowStatusById = workflow.getStatuses().stream()
-                .filter(ws -> ws.getId() != null)
-                .collect(Collectors.toMap(
-                        WorkflowStatus::getId,
-                        Function.identity(),
-                        (existing, duplicate) -> existing));
-
-        List<WorkflowStatus> removedWorkflowStatuses = removedStatusIds.stream()
-                .map(workflowStatusById::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        progress.phase("SNAPSHOT");
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
+        long[] itemTypeSetIds = snapshot.itemTypeSetIdsUsingWorkflow(workflowId);
+        progress.count("itemTypeSets", itemTypeSetIds.length);
 
         // Usa le transizioni effettivamente rimosse passate come parametro
         // invece di calcolarle in base agli stati rimossi
@@ -80,25 +81,32 @@ public class StatusImpactAnalyzer {
                 ? actuallyRemovedTransitionIds 
                 : Collections.emptySet();
 
-        Set<Long> removedStatusEntityIds = removedWorkflowStatuses.stream()
-                .map(WorkflowStatus::getStatus)
+        Set<Long> removedStatusEntityIds = removedStatusIds.stream()
+                .map(snapshot::workflowStatus)
                 .filter(Objects::nonNull)
-                .map(Status::getId)
+                .filter(ws -> workflowId.equals(ws.workflowId()))
+                .map(WorkflowStatusNode::statusId)
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
 
+        progress.phase("STATUS_OWNER_PERMISSIONS");
         List<StatusOwnerPermissionImpactData> statusOwnerPermissions =
-                analyzeStatusOwnerPermissionImpacts(allItemTypeSetsUsingWorkflow, removedStatusIds);
+                analyzeStatusOwnerPermissionImpacts(snapshot, itemTypeSetIds, removedStatusIds);
+        progress.count("statusOwnerPermissions", statusOwnerPermissions.size());
 
+        progress.phase("EXECUTOR_PERMISSIONS");
         List<ExecutorPermissionImpactData> executorPermissionImpacts =
                 removedTransitionIds.isEmpty()
                         ? Collections.emptyList()
-                        : analyzeExecutorPermissionImpacts(allItemTypeSetsUsingWorkflow, removedTransitionIds);
+                        : analyzeExecutorPermissionImpacts(snapshot, itemTypeSetIds, removedTransitionIds);
+        progress.count("executorPermissions", executorPermissionImpacts.size());
 
+        progress.phase("FIELD_STATUS_PERMISSIONS");
         List<FieldStatusPermissionImpactData> fieldStatusPermissions =
-                analyzeFieldStatusPermissionImpacts(allItemTypeSetsUsingWorkflow, removedStatusIds, removedStatusEntityIds);
+                analyzeFieldStatusPermissionImpacts(snapshot, itemTypeSetIds, removedStatusIds, removedStatusEntityIds);
+        progress.count("fieldStatusPermissions", fieldStatusPermissions.size());
 
-        Set<Long> itemTypeSetIdsWithImpact = new HashSet<>();
+        Set<Long> itemTypeSetIdsWithImpact = new TreeSet<>();
         statusOwnerPermissions.stream()
                 .map(StatusOwnerPermissionImpactData::getItemTypeSetId)
                 .filter(Objects::nonNull)
@@ -112,12 +120,13 @@ public class StatusImpactAnalyzer {
                 .filter(Objects::nonNull)
                 .forEach(itemTypeSetIdsWithImpact::add);
 
-        List<ItemTypeSet> affectedItemTypeSets = allItemTypeSetsUsingWorkflow.stream()
-                .filter(its -> itemTypeSetIdsWithImpact.contains(its.getId()))
-                .collect(Collectors.toList());
+        progress.count("affectedItemTypeSets", itemTypeSetIdsWithImpact.size());
+        List<ItemTypeSet> affectedItemTypeSets = itemTypeSetIdsWithImpact.isEmpty()
+                ? List.of()
+                : itemTypeSetRepository.findAllById(itemTypeSetIdsWithImpact);
 
-        List<String> removedStatusNames = getStatusNames(removedStatusIds, tenant);
-        List<String> removedTransitionNames = workflowHelper.getTransitionNames(removedTransitionIds, tenant);
+        List<String> removedStatusNames = getStatusNames(removedStatusIds, snapshot);
+        List<String> removedTransitionNames = workflowHelper.getTransitionNames(removedTransitionIds, snapshot);
 
         return StatusImpactAnalysisResult.builder()
                 .workflow(workflow)
@@ -133,41 +142,38 @@ public class StatusImpactAnalyzer {
     }
 
     private List<StatusOwnerPermissionImpactData> analyzeStatusOwnerPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            long[] itemTypeSetIds,
             Set<Long> removedStatusIds
     ) {
         List<StatusOwnerPermissionImpactData> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<StatusOwnerPermission> permissions = statusOwnerPermissionRepository
-                        .findByItemTypeConfigurationAndWorkflowStatusIdIn(config, removedStatusIds);
+        for (long itemTypeSetId : itemTypeSetIds) {
+            ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+            ProjectRef project = itemTypeSet.ownerProject();
 
-                for (StatusOwnerPermission perm : permissions) {
-                    WorkflowStatus workflowStatus = perm.getWorkflowStatus();
-                    if (workflowStatus == null || !removedStatusIds.contains(workflowStatus.getId())) {
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                for (PermissionRow perm : snapshot.permissions(configurationId, PermissionKind.STATUS_OWNER)) {
+                    WorkflowStatusNode workflowStatus = snapshot.workflowStatus(perm.targetId());
+                    if (workflowStatus == null || !removedStatusIds.contains(workflowStatus.id())) {
                         continue;
                     }
 
-                    AssignmentData assignmentData = loadAssignmentData(
-                            "StatusOwnerPermission",
-                            perm.getId(),
-                            itemTypeSet,
-                            itemTypeSet.getTenant());
+                    ImpactAssignmentData assignmentData = ImpactAssignmentData.of(perm, itemTypeSet);
 
                     // Quando si rimuove uno stato, le permission associate non possono essere preservate
                     // perché lo stato stesso viene rimosso
                     impacts.add(StatusOwnerPermissionImpactData.builder()
-                            .permissionId(perm.getId())
+                            .permissionId(perm.id())
                             .permissionType("STATUS_OWNER")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .workflowStatusId(workflowStatus.getId())
-                            .workflowStatusName(workflowStatus.getStatus() != null ? workflowStatus.getStatus().getName() : null)
-                            .statusName(workflowStatus.getStatus() != null ? workflowStatus.getStatus().getName() : null)
-                            .statusCategory(workflowStatus.getStatusCategory() != null ? workflowStatus.getStatusCategory().name() : null)
+                            .itemTypeSetId(itemTypeSet.id())
+                            .itemTypeSetName(itemTypeSet.name())
+                            .projectId(project != null ? project.id() : null)
+                            .projectName(project != null ? project.name() : null)
+                            .workflowStatusId(workflowStatus.id())
+                            .workflowStatusName(workflowStatus.statusName())
+                            .statusName(workflowStatus.statusName())
+                            .statusCategory(workflowStatus.statusCategory() != null ? workflowStatus.statusCategory().name() : null)
                             .grantId(assignmentData.grantId())
                             .grantName(assignmentData.grantName())
                             .assignedRoles(assignmentData.assignedRoles())
@@ -184,63 +190,62 @@ public class StatusImpactAnalyzer {
     }
 
     private List<FieldStatusPermissionImpactData> analyzeFieldStatusPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            long[] itemTypeSetIds,
             Set<Long> removedWorkflowStatusIds,
             Set<Long> removedStatusEntityIds
     ) {
         List<FieldStatusPermissionImpactData> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<FieldStatusPermission> permissions = fieldStatusPermissionRepository
-                        .findAllByItemTypeConfiguration(config);
+        for (long itemTypeSetId : itemTypeSetIds) {
+            ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+            ProjectRef project = itemTypeSet.ownerProject();
+
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                ConfigurationNode config = snapshot.configuration(configurationId);
 
-                for (FieldStatusPermission perm : permissions) {
-                    WorkflowStatus workflowStatus = perm.getWorkflowStatus();
-                    if (workflowStatus == null || workflowStatus.getStatus() == null) {
+                for (PermissionRow perm : snapshot.permissions(configurationId, PermissionKind.FIELD_STATUS)) {
+                    WorkflowStatusNode workflowStatus = snapshot.workflowStatus(perm.workflowStatusId());
+                    if (workflowStatus == null || workflowStatus.statusId() == null) {
                         continue;
                     }
 
-                    Long statusEntityId = workflowStatus.getStatus().getId();
-                    if (!removedStatusEntityIds.contains(statusEntityId)) {
+                    if (!removedStatusEntityIds.contains(workflowStatus.statusId())) {
                         continue;
                     }
 
-                    if (!removedWorkflowStatusIds.contains(workflowStatus.getId())) {
+                    if (!removedWorkflowStatusIds.contains(workflowStatus.id())) {
                         continue;
                     }
 
-                    Field field = perm.getField();
-                    FieldConfiguration fieldConfig = resolveFieldConfiguration(config, field);
-
-                    if (fieldConfig == null) {
+                    // Il field deve avere una FieldConfiguration nel FieldSet della configurazione
+                    FieldSetNode fieldSet = snapshot.fieldSet(config.fieldSetId());
+                    if (fieldSet == null || perm.targetId() == null || !fieldSet.containsField(perm.targetId())) {
                         continue;
                     }
 
-                    AssignmentData assignmentData = loadAssignmentData(
-                            "FieldStatusPermission",
-                            perm.getId(),
-                            itemTypeSet,
-                            itemTypeSet.getTenant());
+                    FieldNode field = snapshot.field(perm.targetId());
+
+                    ImpactAssignmentData assignmentData = ImpactAssignmentData.of(perm, itemTypeSet);
 
                     // Quando si rimuove uno stato, le permission associate non possono essere preservate
                     // perché lo stato stesso viene rimosso
                     boolean canBePreserved = false;
 
                     impacts.add(FieldStatusPermissionImpactData.builder()
-                            .permissionId(perm.getId())
-                            .permissionType(perm.getPermissionType() == FieldStatusPermission.PermissionType.EDITORS
+                            .permissionId(perm.id())
+                            .permissionType(perm.fieldStatusType() == FieldStatusPermission.PermissionType.EDITORS
                                     ? "FIELD_EDITORS"
                                     : "FIELD_VIEWERS")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .fieldId(field != null ? field.getId() : null)
-                            .fieldName(field != null ? field.getName() : null)
-                            .workflowStatusId(workflowStatus.getId())
-                            .workflowStatusName(workflowStatus.getStatus() != null ? workflowStatus.getStatus().getName() : null)
-                            .statusName(workflowStatus.getStatus() != null ? workflowStatus.getStatus().getName() : null)
+                            .itemTypeSetId(itemTypeSet.id())
+                            .itemTypeSetName(itemTypeSet.name())
+                            .projectId(project != null ? project.id() : null)
+                            .projectName(project != null ? project.name() : null)
+                            .fieldId(perm.targetId())
+                            .fieldName(field != null ? field.name() : null)
+                            .workflowStatusId(workflowStatus.id())
+                            .workflowStatusName(workflowStatus.statusName())
+                            .statusName(workflowStatus.statusName())
                             .grantId(assignmentData.grantId())
                             .grantName(assignmentData.grantName())
                             .assignedRoles(assignmentData.assignedRoles())
@@ -257,50 +262,44 @@ public class StatusImpactAnalyzer {
     }
 
     private List<ExecutorPermissionImpactData> analyzeExecutorPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            long[] itemTypeSetIds,
             Set<Long> removedTransitionIds
     ) {
         List<ExecutorPermissionImpactData> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<ExecutorPermission> permissions = executorPermissionRepository
-                        .findByItemTypeConfigurationAndTransitionIdIn(config, removedTransitionIds);
+        for (long itemTypeSetId : itemTypeSetIds) {
+            ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+            ProjectRef project = itemTypeSet.ownerProject();
 
-                for (ExecutorPermission perm : permissions) {
-                    Transition transition = perm.getTransition();
-                    if (transition == null || !removedTransitionIds.contains(transition.getId())) {
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                for (PermissionRow perm : snapshot.permissions(configurationId, PermissionKind.EXECUTOR)) {
+                    TransitionNode transition = snapshot.transition(perm.targetId());
+                    if (transition == null || !removedTransitionIds.contains(transition.id())) {
                         continue;
                     }
 
-                    AssignmentData assignmentData = loadAssignmentData(
-                            "ExecutorPermission",
-                            perm.getId(),
-                            itemTypeSet,
-                            itemTypeSet.getTenant());
-
-                    WorkflowStatus fromStatus = transition.getFromStatus();
-                    WorkflowStatus toStatus = transition.getToStatus();
+                    ImpactAssignmentData assignmentData = ImpactAssignmentData.of(perm, itemTypeSet);
 
                     // Quando si rimuove uno stato, le transizioni associate vengono rimosse,
                     // quindi le ExecutorPermission non possono essere preservate
                     impacts.add(ExecutorPermissionImpactData.builder()
-                            .permissionId(perm.getId())
+                            .permissionId(perm.id())
                             .permissionType("EXECUTOR")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .transitionId(transition.getId())
-                            .transitionName(transition.getName())
-                            .fromStatusName(fromStatus != null && fromStatus.getStatus() != null ? fromStatus.getStatus().getName() : null)
-                            .toStatusName(toStatus != null && toStatus.getStatus() != null ? toStatus.getStatus().getName() : null)
+                            .itemTypeSetId(itemTypeSet.id())
+                            .itemTypeSetName(itemTypeSet.name())
+                            .projectId(project != null ? project.id() : null)
+                            .projectName(project != null ? project.name() : null)
+                            .transitionId(transition.id())
+                            .transitionName(transition.name())
+                            .fromStatusName(snapshot.statusName(transition.fromWorkflowStatusId()))
+                            .toStatusName(snapshot.statusName(transition.toWorkflowStatusId()))
                             .grantId(assignmentData.grantId())
                             .grantName(assignmentData.grantName())
                             .assignedRoles(assignmentData.assignedRoles())
                             .hasAssignments(assignmentData.hasAssignments())
-                            .transitionIdMatch(transition.getId())
-                            .transitionNameMatch(transition.getName() != null ? transition.getName() : "")
+                            .transitionIdMatch(transition.id())
+                            .transitionNameMatch(transition.name() != null ? transition.name() : "")
                             .canBePreserved(false) // Non può essere preservata quando la transizione viene rimossa insieme allo stato
                             .defaultPreserve(false)
                             .projectGrants(assignmentData.projectGrants())
@@ -312,131 +311,9 @@ public class StatusImpactAnalyzer {
         return impacts;
     }
 
-    private Map<Long, Set<Long>> indexTransitionIdsByStatus(List<Transition> transitions) {
-        Map<Long, Set<Long>> transitionIdsByStatus = new HashMap<>();
-        for (Transition transition : transitions) {
-            Long transitionId = transition.getId();
-            if (transitionId == null) {
-                continue;
-            }
-
-            WorkflowStatus fromStatus = transition.getFromStatus();
-            if (fromStatus != null && fromStatus.getId() != null) {
-                transitionIdsByStatus
-                        .computeIfAbsent(fromStatus.getId(), ignore -> new HashSet<>())
-                        .add(transitionId);
-            }
-
-            WorkflowStatus toStatus = transition.getToStatus();
-            if (toStatus != null && toStatus.getId() != null) {
-                transitionIdsByStatus
-                        .computeIfAbsent(toStatus.getId(), ignore -> new HashSet<>())
-                        .add(transitionId);
-            }
-        }
-        return transitionIdsByStatus;
-    }
-
-    private FieldConfiguration resolveFieldConfiguration(ItemTypeConfiguration config, Field field) {
-        if (config.getFieldSet() == null || config.getFieldSet().getFieldSetEntries() == null) {
-            return null;
-        }
-
-        return config.getFieldSet().getFieldSetEntries().stream()
-                .map(FieldSetEntry::getFieldConfiguration)
-                .filter(Objects::nonNull)
-                .filter(fc -> fc.getField() != null && fc.getField().getId() != null)
-                .filter(fc -> field != null && fc.getField().getId().equals(field.getId()))
-                .findFirst()
-                .orElse(null);
-    }
-
-    private AssignmentData loadAssignmentData(
-            String permissionType,
-            Long permissionId,
-            ItemTypeSet itemTypeSet,
-            Tenant tenant
-    ) {
-        List<String> assignedRoles = new ArrayList<>();
-        Long grantId = null;
-        String grantName = null;
-        List<ProjectGrantData> projectGrants = new ArrayList<>();
-
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment(
-                permissionType,
-                permissionId,
-                tenant);
-
-        if (assignmentOpt.isPresent()) {
-            PermissionAssignment assignment = assignmentOpt.get();
-            assignment.getRoles().forEach(role -> assignedRoles.add(role.getName()));
-            if (assignment.getGrant() != null) {
-                Grant grant = assignment.getGrant();
-                grantId = grant.getId();
-                grantName = grant.getRole() != null ? grant.getRole().getName() : "Grant globale";
-            }
-        }
-
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt =
-                    projectPermissionAssignmentService.getProjectAssignment(
-                            permissionType,
-                            permissionId,
-                            itemTypeSet.getProject().getId(),
-                            tenant);
-            if (projectAssignmentOpt.isPresent() && projectAssignmentOpt.get().getGrant() != null) {
-                projectGrants.add(ProjectGrantData.builder()
-                        .projectId(itemTypeSet.getProject().getId())
-                        .projectName(itemTypeSet.getProject().getName())
-                        .build());
-            }
-        } else {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt =
-                        projectPermissionAssignmentService.getProjectAssignment(
-                                permissionType,
-                                permissionId,
-                                project.getId(),
-                                tenant);
-                if (projectAssignmentOpt.isPresent() && projectAssignmentOpt.get().getGrant() != null) {
-                    projectGrants.add(ProjectGrantData.builder()
-                            .projectId(project.getId())
-                            .projectName(project.getName())
-                            .build());
-                }
-            }
-        }
-
-        boolean hasAssignments = !assignedRoles.isEmpty() || grantId != null || !projectGrants.isEmpty();
-
-        return new AssignmentData(
-                List.copyOf(assignedRoles),
-                grantId,
-                grantName,
-                List.copyOf(projectGrants),
-                hasAssignments);
-    }
-
-    private List<ItemTypeSet> findItemTypeSetsUsingWorkflow(Long workflowId, Tenant tenant) {
-        return itemTypeSetRepository.findByItemTypeConfigurationsWorkflowIdAndTenant(workflowId, tenant);
-    }
-
-    private List<String> getStatusNames(Set<Long> statusIds, Tenant tenant) {
+    private List<String> getStatusNames(Set<Long> statusIds, TenantConfigSnapshot snapshot) {
         return statusIds.stream()
-                .map(id -> workflowStatusRepository.findByIdAndTenant(id, tenant)
-                        .map(ws -> ws.getStatus().getName())
-                        .orElse("Unknown"))
+                .map(id -> Optional.ofNullable(snapshot.statusName(id)).orElse("Unknown"))
                 .collect(Collectors.toList());
     }
-
-
-    private record AssignmentData(
-            List<String> assignedRoles,
-            Long grantId,
-            String grantName,
-            List<ProjectGrantData> projectGrants,
-            boolean hasAssignments
-    ) {
-    }
 }
-
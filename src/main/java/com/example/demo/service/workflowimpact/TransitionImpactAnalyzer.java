@@ -2,14 +2,17 @@ package com.example.demo.service.workflowimpact;
 
 import com.example.demo.entity.*;
 import com.example.demo.exception.ApiException;
-import com.example.demo.repository.ExecutorPermissionRepository;
 import com.example.demo.repository.ItemTypeSetRepository;
 import com.example.demo.repository.WorkflowRepository;
-import com.example.demo.service.PermissionAssignmentService;
-import com.example.demo.service.ProjectPermissionAssignmentService;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ItemTypeSetNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionKind;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.PermissionRow;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.ProjectRef;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot.TransitionNode;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
 import com.example.demo.service.workflow.WorkflowHelper;
 import com.example.demo.service.workflowimpact.model.ExecutorPermissionImpactData;
-import com.example.demo.service.workflowimpact.model.ProjectGrantData;
 import com.example.demo.service.workflowimpact.model.TransitionImpactAnalysisResult;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -25,9 +28,7 @@ public class TransitionImpactAnalyzer {
 
     private final WorkflowRepository workflowRepository;
     private final ItemTypeSetRepository itemTypeSetRepository;
-    private final ExecutorPermissionRepository executorPermissionRepository;
-    private final PermissionAssignmentService permissionAssignmentService;
-    private final ProjectPermissionAssignmentService projectPermissionAssignmentService;
+    private final TenantConfigSnapshotService tenantConfigSnapshotService;
     private final WorkflowHelper workflowHelper;
 
     public TransitionImpactAnalysisResult analyzeTransitionRemovalImpact(
@@ -42,21 +43,21 @@ public class TransitionImpactAnalyzer {
             throw new ApiException("Workflow does not belong to tenant");
         }
 
-        List<ItemTypeSet> allItemTypeSetsUsingWorkflow = findItemTypeSetsUsingWorkflow(workflowId, tenant);
+        TenantConfigSnapshot snapshot = tenantConfigSnapshotService.get(tenant.getId());
 
         List<ExecutorPermissionImpactData> executorPermissionImpacts =
-                analyzeExecutorPermissionImpacts(allItemTypeSetsUsingWorkflow, removedTransitionIds);
+                analyzeExecutorPermissionImpacts(snapshot, workflowId, removedTransitionIds);
 
         Set<Long> itemTypeSetIdsWithImpact = executorPermissionImpacts.stream()
                 .map(ExecutorPermissionImpactData::getItemTypeSetId)
                 .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(TreeSet::new));
 
-        List<ItemTypeSet> affectedItemTypeSets = allItemTypeSetsUsingWorkflow.stream()
-                .filter(its -> itemTypeSetIdsWithImpact.contains(its.getId()))
-                .collect(Collectors.toList());
+        List<ItemTypeSet> affectedItemTypeSets = itemTypeSetIdsWithImpact.isEmpty()
+                ? List.of()
+                : itemTypeSetRepository.findAllById(itemTypeSetIdsWithImpact);
 
-        List<String> removedTransitionNames = workflowHelper.getTransitionNames(removedTransitionIds, tenant);
+        List<String> removedTransitionNames = workflowHelper.getTransitionNames(removedTransitionIds, snapshot);
 
         return TransitionImpactAnalysisResult.builder()
                 .workflow(workflow)
@@ -68,48 +69,42 @@ public class TransitionImpactAnalyzer {
     }
 
     private List<ExecutorPermissionImpactData> analyzeExecutorPermissionImpacts(
-            List<ItemTypeSet> itemTypeSets,
+            TenantConfigSnapshot snapshot,
+            Long workflowId,
             Set<Long> removedTransitionIds
     ) {
         List<ExecutorPermissionImpactData> impacts = new ArrayList<>();
 
-        for (ItemTypeSet itemTypeSet : itemTypeSets) {
-            for (ItemTypeConfiguration config : itemTypeSet.getItemTypeConfigurations()) {
-                List<ExecutorPermission> permissions = executorPermissionRepository
-                        .findByItemTypeConfigurationAndTransitionIdIn(config, removedTransitionIds);
+        for (long itemTypeSetId : snapshot.itemTypeSetIdsUsingWorkflow(workflowId)) {
+            ItemTypeSetNode itemTypeSet = snapshot.itemTypeSet(itemTypeSetId);
+            ProjectRef project = itemTypeSet.ownerProject();
 
-                for (ExecutorPermission perm : permissions) {
-                    Transition transition = perm.getTransition();
-                    if (transition == null || !removedTransitionIds.contains(transition.getId())) {
+            for (long configurationId : itemTypeSet.configurationIds()) {
+                for (PermissionRow perm : snapshot.permissions(configurationId, PermissionKind.EXECUTOR)) {
+                    TransitionNode transition = snapshot.transition(perm.targetId());
+                    if (transition == null || !removedTransitionIds.contains(transition.id())) {
                         continue;
                     }
 
-                    AssignmentData assignmentData = loadAssignmentData(
-                            "ExecutorPermission",
-                            perm.getId(),
-                            itemTypeSet,
-                            itemTypeSet.getTenant());
-
-                    WorkflowStatus fromStatus = transition.getFromStatus();
-                    WorkflowStatus toStatus = transition.getToStatus();
+                    ImpactAssignmentData assignmentData = ImpactAssignmentData.of(perm, itemTypeSet);
 
                     impacts.add(ExecutorPermissionImpactData.builder()
-                            .permissionId(perm.getId())
+                            .permissionId(perm.id())
                             .permissionType("EXECUTOR")
-                            .itemTypeSetId(itemTypeSet.getId())
-                            .itemTypeSetName(itemTypeSet.getName())
-                            .projectId(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getId() : null)
-                            .projectName(itemTypeSet.getProject() != null ? itemTypeSet.getProject().getName() : null)
-                            .transitionId(transition.getId())
-                            .transitionName(transition.getName())
-                            .fromStatusName(fromStatus != null && fromStatus.getStatus() != null ? fromStatus.getStatus().getName() : null)
-                            .toStatusName(toStatus != null && toStatus.getStatus() != null ? toStatus.getStatus().getName() : null)
+                            .itemTypeSetId(itemTypeSet.id())
+                            .itemTypeSetName(itemTypeSet.name())
+                            .projectId(project != null ? project.id() : null)
+                            .projectName(project != null ? project.name() : null)
+                            .transitionId(transition.id())
+                            .transitionName(transition.name())
+                            .fromStatusName(snapshot.statusName(transition.fromWorkflowStatusId()))
+                            .toStatusName(snapshot.statusName(transition.toWorkflowStatusId()))
                             .grantId(assignmentData.grantId())
                             .grantName(assignmentData.grantName())
                             .assignedRoles(assignmentData.assignedRoles())
                             .hasAssignments(assignmentData.hasAssignments())
-                            .transitionIdMatch(transition.getId())
-                            .transitionNameMatch(transition.getName() != null ? transition.getName() : "")
+                            .transitionIdMatch(transition.id())
+                            .transitionNameMatch(transition.name() != null ? transition.name() : "")
                             .canBePreserved(assignmentData.hasAssignments())
                             .defaultPreserve(assignmentData.hasAssignments())
                             .projectGrants(assignmentData.projectGrants())
@@ -120,85 +115,4 @@ public class TransitionImpactAnalyzer {
 
         return impacts;
     }
-
-    private AssignmentData loadAssignmentData(
-            String permissionType,
-            Long permissionId,
-            ItemTypeSet itemTypeSet,
-            Tenant tenant
-    ) {
-        List<String> assignedRoles = new ArrayList<>();
-        Long grantId = null;
-        String grantName = null;
-        List<ProjectGrantData> projectGrants = new ArrayList<>();
-
-        Optional<PermissionAssignment> assignmentOpt = permissionAssignmentService.getAssignment(
-                permissionType,
-                permissionId,
-                tenant);
-
-        if (assignmentOpt.isPresent()) {
-            PermissionAssignment assignment = assignmentOpt.get();
-            assignment.getRoles().forEach(role -> assignedRoles.add(role.getName()));
-            if (assignment.getGrant() != null) {
-                Grant grant = assignment.getGrant();
-                grantId = grant.getId();
-                grantName = grant.getRole() != null ? grant.getRole().getName() : "Grant globale";
-            }
-        }
-
-        if (itemTypeSet.getProject() != null) {
-            Optional<PermissionAssignment> projectAssignmentOpt =
-                    projectPermissionAssignmentService.getProjectAssignment(
-                            permissionType,
-                            permissionId,
-                            itemTypeSet.getProject().getId(),
-                            tenant);
-            if (projectAssignmentOpt.isPresent() && projectAssignmentOpt.get().getGrant() != null) {
-                projectGrants.add(ProjectGrantData.builder()
-                        .projectId(itemTypeSet.getProject().getId())
-                        .projectName(itemTypeSet.getProject().getName())
-                        .build());
-            }
-        } else {
-            for (Project project : itemTypeSet.getProjectsAssociation()) {
-                Optional<PermissionAssignment> projectAssignmentOpt =
-                        projectPermissionAssignmentService.getProjectAssignment(
-                                permissionType,
-                                permissionId,
-                                project.getId(),
-                                tenant);
-                if (projectAssignmentOpt.isPresent() && projectAssignmentOpt.get().getGrant() != null) {
-                    projectGrants.add(ProjectGrantData.builder()
-                            .projectId(project.getId())
-                            .projectName(project.getName())
-                            .build());
-                }
-            }
-        }
-
-        boolean hasAssignments = !assignedRoles.isEmpty() || grantId != null || !projectGrants.isEmpty();
-
-        return new AssignmentData(
-                List.copyOf(assignedRoles),
-                grantId,
-                grantName,
-                List.copyOf(projectGrants),
-                hasAssignments);
-    }
-
-    private List<ItemTypeSet> findItemTypeSetsUsingWorkflow(Long workflowId, Tenant tenant) {
-        return itemTypeSetRepository.findByItemTypeConfigurationsWorkflowIdAndTenant(workflowId, tenant);
-    }
-
-
-    private record AssignmentData(
-            List<String> assignedRoles,
-            Long grantId,
-            String grantName,
-            List<ProjectGrantData> projectGrants,
-            boolean hasAssignments
-    ) {
-    }
 }
-
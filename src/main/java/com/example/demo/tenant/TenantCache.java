@@ -0,0 +1,46 @@
+package com.example.demo.tenant;
+
+import com.example.demo.repository.TenantRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cache read-through delle Tenant per id. Le tenant cambiano quasi mai:
+ * l'invalidazione è esplicita (TenantService) e non c'è scadenza temporale.
+ */
+@Component
+public class TenantCache {
+
+    private final TenantRepository tenantRepository;
+    private final Cache<Long, TenantView> cache;
+
+    public TenantCache(TenantRepository tenantRepository,
+                       @Value("${tenant.cache.max-size:1000}") long maxSize) {
+        this.tenantRepository = tenantRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public Optional<TenantView> get(Long tenantId) {
+        if (tenantId == null) {
+            return Optional.empty();
+        }
+        // Le tenant inesistenti non vengono messe in cache (il loader restituisce null)
+        return Optional.ofNullable(cache.get(tenantId, id -> tenantRepository.findById(id)
+                .map(TenantView::of)
+                .orElse(null)));
+    }
+
+    public void invalidate(Long tenantId) {
+        cache.invalidate(tenantId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
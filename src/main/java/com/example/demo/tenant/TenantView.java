@@ -0,0 +1,58 @@
+package com.example.demo.tenant;
+
+import com.example.demo.entity.License;
+import com.example.demo.entity.Tenant;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Vista immutabile e staccata da Hibernate di una Tenant (con la sua licenza),
+ * condivisibile tra thread. Ogni richiesta ottiene una propria istanza Tenant con {@link #toTenant()}.
+ */
+public record TenantView(
+        Long id,
+        String name,
+        String subdomain,
+        String licenseKey,
+        LocalDateTime createdAt,
+        LicenseView license
+) {
+
+    public static TenantView of(Tenant tenant) {
+        License license = tenant.getLicense();
+        return new TenantView(
+                tenant.getId(),
+                tenant.getName(),
+                tenant.getSubdomain(),
+                tenant.getLicenseKey(),
+                tenant.getCreatedAt(),
+                license != null
+                        ? new LicenseView(license.getId(), license.getLicenseKey(), license.getStartDate(), license.getExpirationDate())
+                        : null
+        );
+    }
+
+    /**
+     * Nuova istanza detached per la richiesta corrente: eventuali modifiche
+     * del chiamante non si propagano alla cache né agli altri thread.
+     */
+    public Tenant toTenant() {
+        Tenant tenant = new Tenant();
+        tenant.setId(id);
+        tenant.setName(name);
+        tenant.setSubdomain(subdomain);
+        tenant.setLicenseKey(licenseKey);
+        tenant.setCreatedAt(createdAt);
+        if (license != null) {
+            License detachedLicense = new License(license.licenseKey(), license.expirationDate());
+            detachedLicense.setId(license.id());
+            detachedLicense.setStartDate(license.startDate());
+            tenant.setLicense(detachedLicense);
+        }
+        return tenant;
+    }
+
+    public record LicenseView(Long id, String licenseKey, LocalDate startDate, LocalDate expirationDate) {
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lettura CSV (RFC 4180) da uno stream, un record alla volta: campi tra virgolette con virgole, virgolette
+ * raddoppiate e a capo al loro interno; righe terminate da LF o CRLF.
+ *
+ * Il testo passa da un buffer di dimensione fissa: la memoria usata dipende dal record più lungo,
+ * non dalla dimensione del file.
+ */
+public final class CsvReader {
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder field = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean first = true;
+    private long line = 1;
+
+    private CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public static CsvReader open(InputStream source) {
+        return new CsvReader(new InputStreamReader(source, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Riga del file (a partire da 1) in cui inizia il prossimo record.
+     */
+    public long line() {
+        return line;
+    }
+
+    /**
+     * Campi del prossimo record, null a fine file. Le righe vuote vengono saltate.
+     *
+     * @throws CsvFormatException se il file finisce dentro un campo tra virgolette
+     */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean afterQuote = false;
+        boolean any = false;
+        long startLine = line;
+
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) {
+                    throw new CsvFormatException("Unterminated quoted field starting at line " + startLine);
+                }
+                if (!any) {
+                    return null;
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    quoted = false;
+                    afterQuote = true;
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case '"' -> {
+                    // Virgoletta raddoppiata dentro un campo quotato, o apertura del campo
+                    if (afterQuote) {
+                        field.append('"');
+                    }
+                    quoted = true;
+                    afterQuote = false;
+                    any = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    afterQuote = false;
+                    any = true;
+                }
+                case '\r' -> {
+                    // Il LF successivo chiude il record
+                }
+                case '\n' -> {
+                    line++;
+                    if (!any && field.isEmpty()) {
+                        startLine = line;
+                        continue;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                }
+                default -> {
+                    field.append((char) c);
+                    afterQuote = false;
+                    any = true;
+                }
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+            // BOM UTF-8 all'inizio del file (export da Excel)
+            if (first) {
+                first = false;
+                if (buffer[0] == '\uFEFF') {
+                    position = 1;
+                    if (limit == 1) {
+                        return read();
+                    }
+                }
+            }
+        }
+        return buffer[position++];
+    }
+
+    public static class CsvFormatException extends IOException {
+        public CsvFormatException(String message) {
+            super(message);
+        }
+    }
+}
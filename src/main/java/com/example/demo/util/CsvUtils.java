@@ -3,7 +3,9 @@ package com.example.demo.util;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -15,6 +17,9 @@ public class CsvUtils {
     
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = 
         DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private static final MediaType CSV_CONTENT_TYPE = new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+    private static final MediaType GZIP_CONTENT_TYPE = MediaType.parseMediaType("application/gzip");
     
     /**
      * Escapa un valore per CSV secondo le regole RFC 4180
@@ -27,36 +32,49 @@ public class CsvUtils {
             return "";
         }
         // Se il valore contiene virgole, virgolette o newline, lo racchiudiamo tra virgolette
-        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
-            return "\"" + value.replace("\"", "\"\"") + "\"";
+        if (CsvWriter.firstSpecial(value) < 0) {
+            return value;
         }
-        return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
     }
     
     /**
-     * Crea una ResponseEntity per download CSV con headers appropriati
+     * Crea una ResponseEntity per download CSV che scrive le righe direttamente sulla risposta
+     * (senza Content-Length: la risposta è chunked)
      * 
-     * @param csvContent Contenuto CSV come stringa
      * @param filenamePrefix Prefisso del nome file (es: "fieldset_removal_impact")
      * @param entityId ID dell'entità (per il nome file)
-     * @return ResponseEntity con CSV pronto per download
+     * @param gzip true per comprimere il file (.csv.gz)
+     * @param content Scrittura delle righe
+     * @return ResponseEntity con il CSV in streaming
      */
-    public static ResponseEntity<byte[]> createCsvResponse(
-            String csvContent, 
-            String filenamePrefix, 
-            Long entityId) {
+    public static ResponseEntity<StreamingResponseBody> streamCsv(
+            String filenamePrefix,
+            Long entityId,
+            boolean gzip,
+            CsvContent content) {
         String timestamp = LocalDateTime.now().format(TIMESTAMP_FORMATTER);
-        String filename = String.format("%s_%d_%s.csv", filenamePrefix, entityId, timestamp);
+        String filename = String.format("%s_%d_%s.csv%s", filenamePrefix, entityId, timestamp, gzip ? ".gz" : "");
         
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.TEXT_PLAIN);
+        headers.setContentType(gzip ? GZIP_CONTENT_TYPE : CSV_CONTENT_TYPE);
         headers.setContentDispositionFormData("attachment", filename);
-        headers.setContentLength(csvContent.length());
-        
+
+        StreamingResponseBody body = out -> {
+            CsvWriter csv = CsvWriter.open(out, gzip);
+            content.write(csv);
+            csv.finish();
+        };
         return ResponseEntity.ok()
                 .headers(headers)
-                .body(csvContent.getBytes(StandardCharsets.UTF_8));
+                .body(body);
     }
-}
-
 
+    /**
+     * Righe di un export CSV
+     */
+    @FunctionalInterface
+    public interface CsvContent {
+        void write(CsvWriter csv) throws IOException;
+    }
+}
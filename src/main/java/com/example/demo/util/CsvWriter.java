@@ -0,0 +1,118 @@
+package com.example.demo.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Scrittura CSV (RFC 4180) direttamente su uno stream, con compressione gzip opzionale.
+ *
+ * Le righe passano da un buffer di dimensione fissa: la memoria usata non dipende dalla dimensione dell'export.
+ * L'escape scrive il valore a segmenti, senza creare stringhe intermedie.
+ */
+public final class CsvWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream target;
+    private final GZIPOutputStream gzip;
+    private final Writer writer;
+
+    private CsvWriter(OutputStream target, boolean compress) throws IOException {
+        this.target = target;
+        this.gzip = compress ? new GZIPOutputStream(target, BUFFER_SIZE) : null;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(compress ? gzip : target, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    public static CsvWriter open(OutputStream target, boolean gzip) throws IOException {
+        return new CsvWriter(target, gzip);
+    }
+
+    /**
+     * Scrive una riga: ogni valore è escapato, null diventa una cella vuota.
+     */
+    public CsvWriter row(Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeEscaped(values[i]);
+        }
+        return newLine();
+    }
+
+    /**
+     * Scrive un singolo valore escapato (per righe composte con {@link #text(String)}).
+     */
+    public CsvWriter field(Object value) throws IOException {
+        writeEscaped(value);
+        return this;
+    }
+
+    /**
+     * Scrive il testo così com'è, senza escape.
+     */
+    public CsvWriter text(String text) throws IOException {
+        writer.write(text);
+        return this;
+    }
+
+    public CsvWriter newLine() throws IOException {
+        writer.write('\n');
+        return this;
+    }
+
+    /**
+     * Svuota il buffer e chiude lo stream gzip; lo stream di destinazione resta aperto.
+     */
+    public void finish() throws IOException {
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        target.flush();
+    }
+
+    private void writeEscaped(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        int length = text.length();
+        int first = firstSpecial(text);
+        if (first < 0) {
+            writer.write(text, 0, length);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = first; i < length; i++) {
+            if (text.charAt(i) == '"') {
+                // Il segmento include la virgoletta, che viene poi raddoppiata
+                writer.write(text, start, i - start + 1);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(text, start, length - start);
+        writer.write('"');
+    }
+
+    /**
+     * Posizione del primo carattere che richiede le virgolette (virgola, virgolette, a capo), -1 se assente.
+     */
+    static int firstSpecial(String text) {
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.demo.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latenza di una pagina della lista item al crescere del progetto (1k, 100k, 1M item), su MySQL.
+ * Le query sono quelle generate da ItemRepository, su una tabella con le stesse colonne e gli stessi indici
+ * di item (senza foreign key, per non dover creare la configurazione):
+ * - keysetFirstPage / keysetDeepPage: prima pagina e pagina al 90% della lista, id > cursor ORDER BY id LIMIT
+ * - keysetStatusDeepPage: come sopra filtrando per WorkflowStatus (idx (project, status, id))
+ * - offsetDeepPage: riferimento, la stessa pagina profonda con LIMIT/OFFSET
+ * Le pagine keyset devono restare costanti tra le tre dimensioni; quella con OFFSET cresce con la posizione.
+ *
+ * Esecuzione: mvn test-compile, poi lanciare il main con il classpath di test e -Dbench.db.url=...
+ * (-Dbench.db.user, -Dbench.db.password). Il primo avvio popola la tabella item_keyset_bench.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemKeysetPaginationBenchmark {
+
+    private static final String TABLE = "item_keyset_bench";
+    private static final int PAGE_SIZE = 50;
+    private static final int STATUSES = 8;
+    private static final int INSERT_BATCH = 5_000;
+
+    private static final String COLUMNS =
+            "i.id, i.title, i.item_type_configuration_id, i.workflow_status_id, i.updated_at";
+
+    @Param({"1000", "100000", "1000000"})
+    private int projectItems;
+
+    private Connection connection;
+    private PreparedStatement keysetPage;
+    private PreparedStatement keysetStatusPage;
+    private PreparedStatement offsetPage;
+    private long projectId;
+    private long deepCursor;
+    private long deepStatusCursor;
+    private int deepOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("bench.db.url",
+                        "jdbc:mysql://localhost:3306/mt_project_tool_bench?rewriteBatchedStatements=true"),
+                System.getProperty("bench.db.user", "root"),
+                System.getProperty("bench.db.password", ""));
+        createTable();
+        // Un progetto per dimensione: i progetti convivono nella stessa tabella, come le tenant in produzione
+        projectId = projectItems;
+        seed();
+
+        keysetPage = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + TABLE + " i "
+                + "WHERE i.project_id = ? AND i.id > ? ORDER BY i.id LIMIT ?");
+        keysetStatusPage = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + TABLE + " i "
+                + "WHERE i.project_id = ? AND i.workflow_status_id = ? AND i.id > ? ORDER BY i.id LIMIT ?");
+        offsetPage = connection.prepareStatement("SELECT " + COLUMNS + " FROM " + TABLE + " i "
+                + "WHERE i.project_id = ? ORDER BY i.id LIMIT ? OFFSET ?");
+
+        deepOffset = (int) (projectItems * 0.9);
+        deepCursor = idAt("SELECT id FROM " + TABLE + " WHERE project_id = ? ORDER BY id LIMIT 1 OFFSET ?",
+                deepOffset);
+        deepStatusCursor = idAt("SELECT id FROM " + TABLE + " WHERE project_id = ? AND workflow_status_id = 1 "
+                + "ORDER BY id LIMIT 1 OFFSET ?", deepOffset / STATUSES);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long keysetFirstPage() throws SQLException {
+        keysetPage.setLong(1, projectId);
+        keysetPage.setLong(2, 0L);
+        keysetPage.setInt(3, PAGE_SIZE + 1);
+        return consume(keysetPage);
+    }
+
+    @Benchmark
+    public long keysetDeepPage() throws SQLException {
+        keysetPage.setLong(1, projectId);
+        keysetPage.setLong(2, deepCursor);
+        keysetPage.setInt(3, PAGE_SIZE + 1);
+        return consume(keysetPage);
+    }
+
+    @Benchmark
+    public long keysetStatusDeepPage() throws SQLException {
+        keysetStatusPage.setLong(1, projectId);
+        keysetStatusPage.setLong(2, 1L);
+        keysetStatusPage.setLong(3, deepStatusCursor);
+        keysetStatusPage.setInt(4, PAGE_SIZE + 1);
+        return consume(keysetStatusPage);
+    }
+
+    @Benchmark
+    public long offsetDeepPage() throws SQLException {
+        offsetPage.setLong(1, projectId);
+        offsetPage.setInt(2, PAGE_SIZE + 1);
+        offsetPage.setInt(3, deepOffset);
+        return consume(offsetPage);
+    }
+
+    private static long consume(PreparedStatement statement) throws SQLException {
+        long checksum = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                checksum += rs.getLong(1) + rs.getString(2).length() + rs.getLong(4);
+            }
+        }
+        return checksum;
+    }
+
+    private void createTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                    + "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+                    + "tenant_id BIGINT NOT NULL, "
+                    + "project_id BIGINT NOT NULL, "
+                    + "item_type_configuration_id BIGINT NOT NULL, "
+                    + "workflow_status_id BIGINT NOT NULL, "
+                    + "title VARCHAR(255) NOT NULL, "
+                    + "description TEXT, "
+                    + "created_by_id BIGINT, "
+                    + "created_at DATETIME(6) NOT NULL, "
+                    + "updated_at DATETIME(6) NOT NULL, "
+                    + "version BIGINT NOT NULL, "
+                    + "INDEX idx_item_project_status_id (project_id, workflow_status_id, id), "
+                    + "INDEX idx_item_project_id (project_id, id), "
+                    + "INDEX idx_item_configuration_id (item_type_configuration_id, id))");
+        }
+    }
+
+    private void seed() throws SQLException {
+        long existing;
+        try (PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM " + TABLE + " WHERE project_id = ?")) {
+            count.setLong(1, projectId);
+            try (ResultSet rs = count.executeQuery()) {
+                rs.next();
+                existing = rs.getLong(1);
+            }
+        }
+        if (existing >= projectItems) {
+            return;
+        }
+
+        SplittableRandom random = new SplittableRandom(projectId);
+        Timestamp now = Timestamp.from(Instant.now());
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + TABLE
+                + " (tenant_id, project_id, item_type_configuration_id, workflow_status_id, title, created_at, updated_at, version)"
+                + " VALUES (1, ?, ?, ?, ?, ?, ?, 0)")) {
+            for (long i = existing; i < projectItems; i++) {
+                insert.setLong(1, projectId);
+                insert.setLong(2, 1 + random.nextInt(20));
+                insert.setLong(3, 1 + random.nextInt(STATUSES));
+                insert.setString(4, "Item " + i + " del progetto " + projectId);
+                insert.setTimestamp(5, now);
+                insert.setTimestamp(6, now);
+                insert.addBatch();
+                if ((i + 1) % INSERT_BATCH == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private long idAt(String sql, int offset) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, projectId);
+            statement.setInt(2, Math.max(0, offset));
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0L;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ItemKeysetPaginationBenchmark.class.getSimpleName())
+                .jvmArgsAppend(
+                        "-Dbench.db.url=" + System.getProperty("bench.db.url",
+                                "jdbc:mysql://localhost:3306/mt_project_tool_bench?rewriteBatchedStatements=true"),
+                        "-Dbench.db.user=" + System.getProperty("bench.db.user", "root"),
+                        "-Dbench.db.password=" + System.getProperty("bench.db.password", ""))
+                .build()).run();
+    }
+}
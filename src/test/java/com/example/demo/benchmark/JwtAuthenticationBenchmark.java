@@ -0,0 +1,99 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.entity.User;
+import com.example.demo.security.CustomUserDetails;
+import com.example.demo.security.JwtTokenUtil;
+import com.example.demo.security.VerifiedToken;
+import com.example.demo.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo per richiesta della verifica JWT nel JwtAuthenticationFilter.
+ * - legacyPerRequest: i cinque parse completi del flusso precedente (chiave ricostruita ogni volta)
+ * - verifyUncached: un solo verify-and-decode con parser condiviso
+ * - verifyCached: token già presente nella VerifiedTokenCache
+ *
+ * Esecuzione: mvn test-compile, poi lanciare il main con il classpath di test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET = "unaChiaveMoltoLungaCheDovrebbeEssereAlmenoDi256Bit12345678901234567890123456789012";
+
+    private JwtTokenUtil jwtTokenUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private CustomUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(10_000, Duration.ofMinutes(10));
+        jwtTokenUtil = new JwtTokenUtil(null, verifiedTokenCache, null, null);
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtil, "accessTokenExpirationMs", 3_600_000L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "refreshTokenExpirationMs", 3_600_000L);
+        ReflectionTestUtils.invokeMethod(jwtTokenUtil, "init");
+
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("bench@example.com");
+        user.setPassword("x");
+        userDetails = new CustomUserDetails(user, List.of());
+        token = jwtTokenUtil.generateAccessTokenWithoutTenantId(userDetails);
+    }
+
+    @Benchmark
+    public void legacyPerRequest(Blackhole bh) {
+        // isTokenExpired + extractUsername + extractTenantId + validateToken (username + scadenza)
+        bh.consume(legacyClaims().getExpiration().before(new Date()));
+        bh.consume(legacyClaims().getSubject());
+        bh.consume(legacyClaims().get("tenantId"));
+        bh.consume(legacyClaims().getSubject().equals(userDetails.getUsername()));
+        bh.consume(legacyClaims().getExpiration().before(new Date()));
+    }
+
+    @Benchmark
+    public boolean verifyUncached() {
+        verifiedTokenCache.clear();
+        VerifiedToken verifiedToken = jwtTokenUtil.verify(token);
+        return jwtTokenUtil.validateToken(verifiedToken, userDetails);
+    }
+
+    @Benchmark
+    public boolean verifyCached() {
+        VerifiedToken verifiedToken = jwtTokenUtil.verify(token);
+        return jwtTokenUtil.validateToken(verifiedToken, userDetails);
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.service.permission.matrix.PermissionMatrix;
+import com.example.demo.service.permission.matrix.PermissionMatrix.GrantMembers;
+import com.example.demo.service.permission.matrix.PermissionMatrix.PermissionKey;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PermissionMatrix su una tenant sintetica: 10k utenti, 200 gruppi, 50 ruoli, 100 progetti,
+ * 100k PermissionAssignment (80% globali, 20% di progetto) con grant, ruoli e negazioni.
+ * - compile: costruzione completa della matrice a partire dalle righe
+ * - lookupWarm: canExecute su (utente, transizione, progetto) già calcolati
+ * - lookupCold: primo lookup di una permission in un progetto (calcolo del BitSet effettivo)
+ * - updateAssignment: ricompilazione incrementale di una singola assegnazione
+ * - walkObjectGraph: riferimento, valutazione navigando grant/gruppi/ruoli come fa il modello JPA
+ *
+ * Esecuzione: mvn test-compile, poi lanciare il main con il classpath di test.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PermissionMatrixBenchmark {
+
+    private static final long TENANT_ID = 1L;
+    private static final int USERS = 10_000;
+    private static final int GROUPS = 200;
+    private static final int ROLES = 50;
+    private static final int PROJECTS = 100;
+    private static final int ASSIGNMENTS = 100_000;
+    private static final int ITEM_TYPE_CONFIGURATIONS = 2_000;
+
+    private PermissionMatrix.Builder builder;
+    private PermissionMatrix matrix;
+
+    // Modello "a oggetti" equivalente per walkObjectGraph
+    private final Map<Long, Set<Long>> groupUsers = new HashMap<>();
+    private final Map<Long, Set<Long>> groupDenied = new HashMap<>();
+    private final Map<Long, GrantMembers> grants = new HashMap<>();
+    private final Map<Long, Long> assignmentGrant = new HashMap<>();
+    private final Map<Long, Set<Long>> assignmentRoles = new HashMap<>();
+    private final Map<Long, List<long[]>> roleGrants = new HashMap<>();
+
+    private long[] queryUsers;
+    private long[] queryPermissions;
+    private long[] queryProjects;
+    private int cursor;
+    private long coldProject;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        builder = PermissionMatrix.builder(TENANT_ID);
+
+        for (long groupId = 1; groupId <= GROUPS; groupId++) {
+            for (int i = 0; i < 200; i++) {
+                long userId = 1 + random.nextInt(USERS);
+                builder.groupMember(groupId, userId);
+                groupUsers.computeIfAbsent(groupId, id -> new HashSet<>()).add(userId);
+            }
+            long denied = 1 + random.nextInt(USERS);
+            builder.groupDeniedUser(groupId, denied);
+            groupDenied.computeIfAbsent(groupId, id -> new HashSet<>()).add(denied);
+        }
+
+        long grantId = 0;
+        for (long roleId = 1; roleId <= ROLES; roleId++) {
+            for (long projectId = 1; projectId <= PROJECTS; projectId += 5) {
+                grantId++;
+                addGrant(builder, random, grantId, 20);
+                builder.roleGrant(roleId, projectId, grantId);
+                roleGrants.computeIfAbsent(roleId, id -> new ArrayList<>()).add(new long[]{projectId, grantId});
+            }
+        }
+
+        for (long assignmentId = 1; assignmentId <= ASSIGNMENTS; assignmentId++) {
+            long permissionId = assignmentId;
+            Long projectId = assignmentId % 5 == 0 ? (Long) (1L + random.nextInt(PROJECTS)) : null;
+            grantId++;
+            addGrant(builder, random, grantId, 10);
+            builder.assignment(assignmentId, "ExecutorPermission", permissionId, projectId, grantId);
+            assignmentGrant.put(assignmentId, grantId);
+            long roleId = 1 + random.nextInt(ROLES);
+            builder.assignmentRole(assignmentId, roleId);
+            assignmentRoles.put(assignmentId, Set.of(roleId));
+            builder.permissionKey(PermissionKey.executor(permissionId % ITEM_TYPE_CONFIGURATIONS, permissionId), permissionId);
+        }
+
+        matrix = builder.build();
+
+        queryUsers = new long[4096];
+        queryPermissions = new long[4096];
+        queryProjects = new long[4096];
+        for (int i = 0; i < queryUsers.length; i++) {
+            queryUsers[i] = 1 + random.nextInt(USERS);
+            queryPermissions[i] = 1 + random.nextInt(ASSIGNMENTS);
+            queryProjects[i] = 1 + random.nextInt(PROJECTS);
+        }
+        // Riscalda i lookup usati da lookupWarm
+        for (int i = 0; i < queryUsers.length; i++) {
+            matrix.hasPermission(queryUsers[i], "ExecutorPermission", queryPermissions[i], queryProjects[i]);
+        }
+        coldProject = PROJECTS;
+    }
+
+    private void addGrant(PermissionMatrix.Builder builder, SplittableRandom random, long grantId, int users) {
+        GrantMembers members = GrantMembers.empty();
+        for (int i = 0; i < users; i++) {
+            long userId = 1 + random.nextInt(USERS);
+            builder.grantUser(grantId, userId);
+            members.users().add(userId);
+        }
+        long groupId = 1 + random.nextInt(GROUPS);
+        builder.grantGroup(grantId, groupId);
+        members.groups().add(groupId);
+        long negated = 1 + random.nextInt(USERS);
+        builder.grantNegatedUser(grantId, negated);
+        members.negatedUsers().add(negated);
+        grants.put(grantId, members);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public PermissionMatrix compile() {
+        return builder.build();
+    }
+
+    @Benchmark
+    public boolean lookupWarm() {
+        int i = cursor++ & (queryUsers.length - 1);
+        long permissionId = queryPermissions[i];
+        return matrix.hasPermission(queryUsers[i],
+                PermissionKey.executor(permissionId % ITEM_TYPE_CONFIGURATIONS, permissionId), queryProjects[i]);
+    }
+
+    @Benchmark
+    public boolean lookupCold() {
+        int i = cursor++ & (queryUsers.length - 1);
+        // Progetti fuori dal range dei dati: la coppia (permission, progetto) non è quasi mai già in cache
+        coldProject = PROJECTS + 1 + (coldProject % 1_000_000);
+        return matrix.hasPermission(queryUsers[i], "ExecutorPermission", queryPermissions[i], coldProject);
+    }
+
+    @Benchmark
+    public void updateAssignment() {
+        int i = cursor++ & (queryUsers.length - 1);
+        long permissionId = queryPermissions[i];
+        matrix.updateAssignment("ExecutorPermission", permissionId, null,
+                grants.get(assignmentGrant.get(permissionId)), assignmentRoles.get(permissionId));
+    }
+
+    @Benchmark
+    public List<PermissionMatrix.AccessEntry> accessProfile() {
+        int i = cursor++ & (queryUsers.length - 1);
+        return matrix.accessProfile(queryUsers[i]);
+    }
+
+    @Benchmark
+    public boolean walkObjectGraph() {
+        int i = cursor++ & (queryUsers.length - 1);
+        long userId = queryUsers[i];
+        long assignmentId = queryPermissions[i];
+        long projectId = queryProjects[i];
+
+        GrantMembers grant = grants.get(assignmentGrant.get(assignmentId));
+        if (grant.negatedUsers().contains(userId)) {
+            return false;
+        }
+        if (grantIncludes(grant, userId)) {
+            return true;
+        }
+        for (Long roleId : assignmentRoles.get(assignmentId)) {
+            for (long[] roleGrant : roleGrants.getOrDefault(roleId, List.of())) {
+                if (roleGrant[0] == projectId) {
+                    GrantMembers members = grants.get(roleGrant[1]);
+                    if (!members.negatedUsers().contains(userId) && grantIncludes(members, userId)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean grantIncludes(GrantMembers grant, long userId) {
+        if (grant.users().contains(userId)) {
+            return true;
+        }
+        for (Long groupId : grant.groups()) {
+            if (groupUsers.getOrDefault(groupId, Set.of()).contains(userId)
+                    && !groupDenied.getOrDefault(groupId, Set.of()).contains(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PermissionMatrixBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
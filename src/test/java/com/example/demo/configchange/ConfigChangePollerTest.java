@@ -0,0 +1,147 @@
+package com.example.demo.configchange;
+
+import com.example.demo.entity.ConfigChangeOutboxEntry;
+import com.example.demo.enums.ConfigChangeType;
+import com.example.demo.repository.ConfigChangeOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ConfigChangePollerTest {
+
+    @Mock
+    private ConfigChangeOutboxRepository outboxRepository;
+
+    @Mock
+    private ConfigChangeOutbox outbox;
+
+    @Mock
+    private ObjectProvider<ConfigChangeListener> listeners;
+
+    private RecordingListener listener;
+
+    @BeforeEach
+    void setUp() {
+        listener = new RecordingListener();
+        when(listeners.orderedStream()).thenAnswer(invocation -> Stream.of(listener));
+        when(outbox.nodeId()).thenReturn("node-a");
+        when(outboxRepository.findMaxSequence()).thenReturn(0L);
+    }
+
+    @Test
+    void gapFilledBeforeTimeoutIsDeliveredInOrderWithoutReset() {
+        ConfigChangePoller poller = poller(Duration.ofHours(1));
+        when(outboxRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(entry(1), entry(3)));
+
+        poller.poll();
+
+        assertEquals(List.of("change:1"), listener.events);
+        assertEquals(1L, poller.lastSequence());
+
+        when(outboxRepository.findAfter(eq(1L), any(Pageable.class))).thenReturn(List.of(entry(2), entry(3)));
+
+        poller.poll();
+
+        assertEquals(List.of("change:1", "change:2", "change:3"), listener.events);
+        assertEquals(3L, poller.lastSequence());
+        verify(outboxRepository, never()).findBySequences(anyCollection());
+    }
+
+    @Test
+    void expiredGapResetsAndMovesPastTheMissingSequence() {
+        ConfigChangePoller poller = poller(Duration.ZERO);
+        when(outboxRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(entry(1), entry(3)));
+
+        poller.poll();
+
+        assertEquals(List.of("change:1", "reset", "change:3"), listener.events);
+        assertEquals(3L, poller.lastSequence());
+    }
+
+    @Test
+    void lateRowBelowLastSequenceTriggersSecondResetAndIsDelivered() {
+        ConfigChangePoller poller = poller(Duration.ZERO);
+        when(outboxRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(entry(1), entry(3)));
+        poller.poll();
+
+        // La transazione con la sequenza 2 committa dopo il timeout
+        when(outboxRepository.findAfter(eq(3L), any(Pageable.class))).thenReturn(List.of());
+        when(outboxRepository.findBySequences(List.of(2L))).thenReturn(List.of(entry(2)));
+
+        poller.poll();
+
+        assertEquals(List.of("change:1", "reset", "change:3", "reset", "change:2"), listener.events);
+        assertEquals(3L, poller.lastSequence());
+
+        // Consegnata una volta sola: la sequenza non è più in attesa
+        poller.poll();
+
+        verify(outboxRepository, times(1)).findBySequences(anyCollection());
+        assertEquals(5, listener.events.size());
+    }
+
+    @Test
+    void skippedSequenceIsForgottenAfterLateWindow() {
+        ConfigChangePoller poller = new ConfigChangePoller(outboxRepository, outbox, listeners,
+                500, Duration.ZERO, Duration.ofDays(1), Duration.ZERO);
+        poller.initialize();
+        when(outboxRepository.findAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+        when(outboxRepository.findAfter(eq(0L), any(Pageable.class))).thenReturn(List.of(entry(1), entry(3)));
+        when(outboxRepository.findBySequences(anyCollection())).thenReturn(List.of());
+
+        poller.poll();
+        poller.poll();
+        poller.poll();
+
+        // Cercata una volta, poi scaduta
+        verify(outboxRepository, times(1)).findBySequences(anyCollection());
+        assertEquals(List.of("change:1", "reset", "change:3"), listener.events);
+    }
+
+    private ConfigChangePoller poller(Duration gapTimeout) {
+        ConfigChangePoller poller = new ConfigChangePoller(outboxRepository, outbox, listeners,
+                500, gapTimeout, Duration.ofDays(1), Duration.ofMinutes(10));
+        poller.initialize();
+        return poller;
+    }
+
+    private static ConfigChangeOutboxEntry entry(long sequence) {
+        ConfigChangeOutboxEntry entry = new ConfigChangeOutboxEntry(1L, ConfigChangeType.WORKFLOW, sequence, "node-b");
+        entry.setId(sequence);
+        return entry;
+    }
+
+    private static class RecordingListener implements ConfigChangeListener {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onConfigChange(ConfigChange change) {
+            events.add("change:" + change.sequence());
+        }
+
+        @Override
+        public void onReset() {
+            events.add("reset");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.TokenBlacklistRepository;
+import com.example.demo.repository.TokenRevocationRepository;
+import com.example.demo.repository.TokenRevocationRepository.RevocationView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TokenRevocationIndexTest {
+
+    @Mock
+    private TokenBlacklistRepository tokenBlacklistRepository;
+
+    @Mock
+    private TokenRevocationRepository tokenRevocationRepository;
+
+    @BeforeEach
+    void setUp() {
+        when(tokenBlacklistRepository.findActive(any(Instant.class))).thenReturn(List.of());
+        when(tokenRevocationRepository.findMaxId()).thenReturn(10L);
+        when(tokenRevocationRepository.findAfter(anyLong(), any(Pageable.class))).thenReturn(List.of());
+    }
+
+    @Test
+    void revocationsAreReadByIdAfterTheLastOneSeen() {
+        TokenRevocationIndex index = index(Duration.ofMinutes(10));
+        when(tokenRevocationRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(revocation(11L, "a"), revocation(12L, "b")));
+
+        index.pollRevocations();
+
+        assertTrue(index.isRevoked("a"));
+        assertTrue(index.isRevoked("b"));
+
+        index.pollRevocations();
+
+        verify(tokenRevocationRepository).findAfter(eq(12L), any(Pageable.class));
+        verify(tokenRevocationRepository, never()).findByIds(anyCollection());
+    }
+
+    @Test
+    void rowCommittedLateBelowTheLastIdIsStillRead() {
+        TokenRevocationIndex index = index(Duration.ofMinutes(10));
+        when(tokenRevocationRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(revocation(13L, "c")));
+        index.pollRevocations();
+        assertTrue(index.isRevoked("c"));
+
+        // Le transazioni con id 11 e 12 committano dopo quella con id 13
+        when(tokenRevocationRepository.findByIds(List.of(11L, 12L)))
+                .thenReturn(List.of(revocation(11L, "a"), revocation(12L, "b")));
+        index.pollRevocations();
+
+        assertTrue(index.isRevoked("a"));
+        assertTrue(index.isRevoked("b"));
+
+        // Non più mancanti: nessuna nuova rilettura
+        index.pollRevocations();
+        verify(tokenRevocationRepository, times(1)).findByIds(anyCollection());
+    }
+
+    @Test
+    void missingIdIsForgottenAfterLateWindow() {
+        TokenRevocationIndex index = index(Duration.ZERO);
+        when(tokenRevocationRepository.findAfter(eq(10L), any(Pageable.class)))
+                .thenReturn(List.of(revocation(12L, "b")));
+        when(tokenRevocationRepository.findByIds(anyCollection())).thenReturn(List.of());
+
+        index.pollRevocations();
+        index.pollRevocations();
+        index.pollRevocations();
+
+        verify(tokenRevocationRepository, times(1)).findByIds(anyCollection());
+    }
+
+    private TokenRevocationIndex index(Duration lateWindow) {
+        TokenRevocationIndex index = new TokenRevocationIndex(tokenBlacklistRepository, tokenRevocationRepository,
+                1000, lateWindow);
+        index.reload();
+        return index;
+    }
+
+    private static RevocationView revocation(long id, String token) {
+        Instant expiration = Instant.now().plus(Duration.ofHours(1));
+        return new RevocationView() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getToken() {
+                return token;
+            }
+
+            @Override
+            public Instant getExpirationTime() {
+                return expiration;
+            }
+        };
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
+import com.example.demo.enums.ConfigChangeType;
 import com.example.demo.enums.FieldType;
 import com.example.demo.enums.ScopeType;
 import com.example.demo.exception.ApiException;
@@ -43,6 +45,9 @@ class FieldConfigurationServiceTest {
     @Mock
     private FieldSetLookup fieldSetLookup;
     
+    @Mock
+    private ConfigChangeOutbox configChangeOutbox;
+    
     @Mock
     private DtoMapperFacade dtoMapper;
     
@@ -179,6 +184,7 @@ class FieldConfigurationServiceTest {
         assertNotNull(result);
         verify(fieldConfigurationRepository).findByIdAndTenant(1L, tenant);
         verify(fieldConfigurationRepository).save(any(FieldConfiguration.class));
+        verify(configChangeOutbox).append(1L, ConfigChangeType.FIELD, 1L);
     }
 
     @Test
@@ -228,6 +234,7 @@ class FieldConfigurationServiceTest {
 
         // Then
         verify(fieldConfigurationRepository).deleteByIdAndTenant(1L, tenant);
+        verify(configChangeOutbox).append(1L, ConfigChangeType.FIELD, 1L);
     }
 
     @Test
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.configchange.ConfigChangeOutbox;
 import com.example.demo.dto.*;
 import com.example.demo.entity.*;
 import com.example.demo.enums.ScopeType;
@@ -9,6 +10,7 @@ import com.example.demo.mapper.DtoMapperFacade;
 import com.example.demo.metadata.WorkflowMetaMapper;
 import com.example.demo.metadata.*;
 import com.example.demo.repository.*;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -57,6 +59,12 @@ class WorkflowServiceTest {
     
     @Mock
     private WorkflowMetaMapper workflowMetaMapper;
+
+    @Mock
+    private ConfigChangeOutbox configChangeOutbox;
+
+    @Mock
+    private CompiledWorkflowService compiledWorkflowService;
     
     @InjectMocks
     private WorkflowService workflowService;
@@ -0,0 +1,130 @@
+package com.example.demo.service.item;
+
+import com.example.demo.dto.ItemDetailDto;
+import com.example.demo.entity.Tenant;
+import com.example.demo.entity.User;
+import com.example.demo.repository.ItemRepository;
+import com.example.demo.repository.ItemRepository.DetailView;
+import com.example.demo.repository.ItemTypeConfigurationRepository;
+import com.example.demo.repository.ProjectRepository;
+import com.example.demo.repository.TenantRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.repository.WorkflowStatusRepository;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshot;
+import com.example.demo.service.configsnapshot.TenantConfigSnapshotService;
+import com.example.demo.service.permission.matrix.PermissionMatrixService;
+import com.example.demo.service.workflow.compiled.CompiledWorkflowService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ItemServiceTest {
+
+    private static final long TENANT_ID = 1L;
+    private static final long USER_ID = 2L;
+    private static final long PROJECT_ID = 3L;
+    private static final long ITEM_ID = 4L;
+    private static final long CONFIGURATION_ID = 5L;
+    private static final long STATUS_ID = 6L;
+    private static final long EDITABLE_FIELD_ID = 10L;
+    private static final long HIDDEN_FIELD_ID = 11L;
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private TenantRepository tenantRepository;
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ItemTypeConfigurationRepository itemTypeConfigurationRepository;
+
+    @Mock
+    private WorkflowStatusRepository workflowStatusRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TenantConfigSnapshotService tenantConfigSnapshotService;
+
+    @Mock
+    private CompiledWorkflowService compiledWorkflowService;
+
+    @Mock
+    private ItemTransitionEngine itemTransitionEngine;
+
+    @Mock
+    private ItemFieldValueService itemFieldValueService;
+
+    @Mock
+    private PermissionMatrixService permissionMatrixService;
+
+    @InjectMocks
+    private ItemService itemService;
+
+    private Tenant tenant;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tenant = new Tenant();
+        tenant.setId(TENANT_ID);
+        user = new User();
+        user.setId(USER_ID);
+
+        DetailView row = mock(DetailView.class);
+        when(row.getId()).thenReturn(ITEM_ID);
+        when(row.getProjectId()).thenReturn(PROJECT_ID);
+        when(row.getItemTypeConfigurationId()).thenReturn(CONFIGURATION_ID);
+        when(row.getWorkflowStatusId()).thenReturn(STATUS_ID);
+        when(row.getVersion()).thenReturn(0L);
+        when(itemRepository.findDetail(ITEM_ID, PROJECT_ID, TENANT_ID)).thenReturn(Optional.of(row));
+        when(tenantConfigSnapshotService.get(TENANT_ID)).thenReturn(mock(TenantConfigSnapshot.class));
+        when(itemFieldValueService.load(List.of(ITEM_ID), null))
+                .thenReturn(Map.of(ITEM_ID, Map.of(EDITABLE_FIELD_ID, "editable", HIDDEN_FIELD_ID, "hidden")));
+
+        when(permissionMatrixService.canViewField(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(false);
+        when(permissionMatrixService.canEditField(anyLong(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(false);
+    }
+
+    @Test
+    void editorsOnlyUserSeesTheFieldsTheyCanEdit() {
+        when(itemTransitionEngine.isAdmin(TENANT_ID, USER_ID, PROJECT_ID)).thenReturn(false);
+        when(permissionMatrixService.canEditField(USER_ID, TENANT_ID, PROJECT_ID, CONFIGURATION_ID,
+                EDITABLE_FIELD_ID, STATUS_ID)).thenReturn(true);
+
+        ItemDetailDto detail = itemService.getDetail(tenant, user, PROJECT_ID, ITEM_ID);
+
+        assertEquals(Map.of(EDITABLE_FIELD_ID, "editable"), detail.fields());
+    }
+
+    @Test
+    void adminSeesAllFieldsWithoutFieldPermissions() {
+        when(itemTransitionEngine.isAdmin(TENANT_ID, USER_ID, PROJECT_ID)).thenReturn(true);
+
+        ItemDetailDto detail = itemService.getDetail(tenant, user, PROJECT_ID, ITEM_ID);
+
+        assertEquals(Map.of(EDITABLE_FIELD_ID, "editable", HIDDEN_FIELD_ID, "hidden"), detail.fields());
+        verifyNoInteractions(permissionMatrixService);
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.demo.service.permission.matrix;
+
+import com.example.demo.service.permission.matrix.PermissionMatrix.GrantMembers;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Confronta PermissionMatrix.hasPermission con la valutazione per assegnazione del modello JPA
+ * (grant, gruppi e GrantRoleAssignment navigati ad ogni richiesta), anche dopo gli aggiornamenti in place.
+ */
+class PermissionMatrixTest {
+
+    private static final long TENANT_ID = 1L;
+    private static final String TYPE = "ExecutorPermission";
+
+    @Test
+    void negatedUserLosesPermissionGrantedByGroupAndRole() {
+        Model model = new Model()
+                .groupMember(10L, 1L).groupMember(10L, 2L)
+                .grant(100L, Set.of(), Set.of(10L), Set.of(1L), Set.of())
+                .grant(200L, Set.of(1L, 2L), Set.of(), Set.of(), Set.of())
+                .roleGrant(5L, null, 200L)
+                .assignment(1L, null, 100L, 5L);
+        PermissionMatrix matrix = model.build();
+
+        assertFalse(matrix.hasPermission(1L, TYPE, 1L, null));
+        assertTrue(matrix.hasPermission(2L, TYPE, 1L, null));
+        assertMatchesReference(model, matrix);
+    }
+
+    @Test
+    void negatedGroupRemovesItsMembersExceptDeniedUsers() {
+        Model model = new Model()
+                .groupMember(10L, 1L).groupMember(10L, 2L).groupDenied(10L, 2L)
+                .grant(100L, Set.of(1L, 2L, 3L), Set.of(), Set.of(), Set.of(10L))
+                .assignment(1L, null, 100L);
+        PermissionMatrix matrix = model.build();
+
+        assertFalse(matrix.hasPermission(1L, TYPE, 1L, null));
+        // 2 è escluso dal gruppo, quindi la negazione del gruppo non lo tocca
+        assertTrue(matrix.hasPermission(2L, TYPE, 1L, null));
+        assertTrue(matrix.hasPermission(3L, TYPE, 1L, 7L));
+        assertMatchesReference(model, matrix);
+    }
+
+    @Test
+    void projectAssignmentAppliesOnlyToItsProject() {
+        Model model = new Model()
+                .grant(100L, Set.of(1L), Set.of(), Set.of(), Set.of())
+                .assignment(1L, 7L, 100L);
+        PermissionMatrix matrix = model.build();
+
+        assertTrue(matrix.hasPermission(1L, TYPE, 1L, 7L));
+        assertFalse(matrix.hasPermission(1L, TYPE, 1L, 8L));
+        assertFalse(matrix.hasPermission(1L, TYPE, 1L, null));
+        assertMatchesReference(model, matrix);
+    }
+
+    @Test
+    void roleHeldInTenantAppliesEverywhereAndRoleHeldInProjectOnlyThere() {
+        Model model = new Model()
+                .grant(200L, Set.of(1L), Set.of(), Set.of(), Set.of())
+                .grant(201L, Set.of(2L), Set.of(), Set.of(), Set.of())
+                .roleGrant(5L, null, 200L)
+                .roleGrant(5L, 7L, 201L)
+                .assignment(1L, null, null, 5L);
+        PermissionMatrix matrix = model.build();
+
+        assertTrue(matrix.hasPermission(1L, TYPE, 1L, null));
+        assertTrue(matrix.hasPermission(1L, TYPE, 1L, 8L));
+        assertTrue(matrix.hasPermission(2L, TYPE, 1L, 7L));
+        assertFalse(matrix.hasPermission(2L, TYPE, 1L, 8L));
+        assertFalse(matrix.hasPermission(2L, TYPE, 1L, null));
+        assertMatchesReference(model, matrix);
+    }
+
+    @Test
+    void randomMatrixMatchesPerAssignmentEvaluation() {
+        Model model = Model.random(new SplittableRandom(42));
+
+        assertMatchesReference(model, model.build());
+    }
+
+    @Test
+    void updateGroupMatchesReference() {
+        SplittableRandom random = new SplittableRandom(7);
+        Model model = Model.random(random);
+        PermissionMatrix matrix = model.build();
+        assertMatchesReference(model, matrix);
+
+        for (long groupId = 1; groupId <= Model.GROUPS; groupId++) {
+            Set<Long> users = model.randomUsers(random, 6);
+            Set<Long> denied = model.randomUsers(random, 1);
+            model.replaceGroup(groupId, users, denied);
+            matrix.updateGroup(groupId, users, denied);
+            assertMatchesReference(model, matrix);
+        }
+
+        // Gruppo eliminato
+        model.replaceGroup(1L, Set.of(), Set.of());
+        matrix.updateGroup(1L, List.of(), List.of());
+        assertMatchesReference(model, matrix);
+    }
+
+    @Test
+    void updateRoleHoldersMatchesReference() {
+        SplittableRandom random = new SplittableRandom(11);
+        Model model = Model.random(random);
+        PermissionMatrix matrix = model.build();
+        assertMatchesReference(model, matrix);
+
+        for (long id = 1; id <= Model.ROLES; id++) {
+            Long roleId = id;
+            model.roleGrants.removeIf(row -> row.roleId().equals(roleId));
+            Map<Long, List<GrantMembers>> grantsByProject = new HashMap<>();
+            for (int i = 0; i < 2; i++) {
+                Long projectId = random.nextBoolean() ? null : (Long) (1L + random.nextInt(Model.PROJECTS));
+                long grantId = model.randomGrant(random);
+                model.roleGrant(roleId, projectId, grantId);
+                grantsByProject.computeIfAbsent(projectId, key -> new ArrayList<>()).add(model.grants.get(grantId));
+            }
+            matrix.updateRoleHolders(roleId, grantsByProject);
+            assertMatchesReference(model, matrix);
+        }
+
+        // Ruolo senza più GrantRoleAssignment
+        model.roleGrants.removeIf(row -> row.roleId() == 1L);
+        matrix.updateRoleHolders(1L, Map.of());
+        assertMatchesReference(model, matrix);
+    }
+
+    private static void assertMatchesReference(Model model, PermissionMatrix matrix) {
+        List<Long> projects = new ArrayList<>();
+        projects.add(null);
+        for (long projectId = 1; projectId <= Model.PROJECTS + 1; projectId++) {
+            projects.add(projectId);
+        }
+        for (long userId = 1; userId <= Model.USERS; userId++) {
+            for (long permissionId = 1; permissionId <= Model.PERMISSIONS; permissionId++) {
+                for (Long projectId : projects) {
+                    assertEquals(model.hasPermission(userId, permissionId, projectId),
+                            matrix.hasPermission(userId, TYPE, permissionId, projectId),
+                            "user " + userId + ", permission " + permissionId + ", project " + projectId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Righe equivalenti a quelle lette dal database, valutate come faceva il vecchio controllo per assegnazione.
+     */
+    private static final class Model {
+
+        static final int USERS = 30;
+        static final int GROUPS = 5;
+        static final int ROLES = 4;
+        static final int PROJECTS = 3;
+        static final int PERMISSIONS = 8;
+
+        final Map<Long, Set<Long>> groupUsers = new HashMap<>();
+        final Map<Long, Set<Long>> groupDenied = new HashMap<>();
+        final Map<Long, GrantMembers> grants = new HashMap<>();
+        final List<RoleGrantRow> roleGrants = new ArrayList<>();
+        final List<AssignmentRow> assignments = new ArrayList<>();
+
+        static Model random(SplittableRandom random) {
+            Model model = new Model();
+            for (long id = 1; id <= GROUPS; id++) {
+                Long groupId = id;
+                model.randomUsers(random, 6).forEach(userId -> model.groupMember(groupId, userId));
+                model.randomUsers(random, 1).forEach(userId -> model.groupDenied(groupId, userId));
+            }
+            for (long roleId = 1; roleId <= ROLES; roleId++) {
+                model.roleGrant(roleId, null, model.randomGrant(random));
+                model.roleGrant(roleId, 1L + random.nextInt(PROJECTS), model.randomGrant(random));
+            }
+            long assignmentId = 0;
+            for (long permissionId = 1; permissionId <= PERMISSIONS; permissionId++) {
+                Long grantId = random.nextInt(4) == 0 ? null : (Long) model.randomGrant(random);
+                Set<Long> roles = new HashSet<>();
+                random.ints(random.nextInt(3), 1, ROLES + 1).forEach(roleId -> roles.add((long) roleId));
+                model.assignments.add(new AssignmentRow(++assignmentId, permissionId, null, grantId, roles));
+                if (random.nextBoolean()) {
+                    model.assignments.add(new AssignmentRow(++assignmentId, permissionId,
+                            1L + random.nextInt(PROJECTS), model.randomGrant(random), Set.of()));
+                }
+            }
+            return model;
+        }
+
+        Model groupMember(Long groupId, Long userId) {
+            groupUsers.computeIfAbsent(groupId, id -> new HashSet<>()).add(userId);
+            return this;
+        }
+
+        Model groupDenied(Long groupId, Long userId) {
+            groupDenied.computeIfAbsent(groupId, id -> new HashSet<>()).add(userId);
+            return this;
+        }
+
+        void replaceGroup(Long groupId, Set<Long> users, Set<Long> denied) {
+            groupUsers.put(groupId, new HashSet<>(users));
+            groupDenied.put(groupId, new HashSet<>(denied));
+        }
+
+        Model grant(Long grantId, Set<Long> users, Set<Long> groups, Set<Long> negatedUsers, Set<Long> negatedGroups) {
+            grants.put(grantId, new GrantMembers(new HashSet<>(users), new HashSet<>(groups),
+                    new HashSet<>(negatedUsers), new HashSet<>(negatedGroups)));
+            return this;
+        }
+
+        Model roleGrant(Long roleId, Long projectId, Long grantId) {
+            roleGrants.add(new RoleGrantRow(roleId, projectId, grantId));
+            return this;
+        }
+
+        Model assignment(Long permissionId, Long projectId, Long grantId, Long... roleIds) {
+            assignments.add(new AssignmentRow((long) assignments.size() + 1, permissionId, projectId, grantId,
+                    Set.of(roleIds)));
+            return this;
+        }
+
+        long randomGrant(SplittableRandom random) {
+            long grantId = grants.size() + 1000L;
+            Set<Long> groups = new HashSet<>();
+            Set<Long> negatedGroups = new HashSet<>();
+            if (random.nextBoolean()) {
+                groups.add(1L + random.nextInt(GROUPS));
+            }
+            if (random.nextInt(3) == 0) {
+                negatedGroups.add(1L + random.nextInt(GROUPS));
+            }
+            grant(grantId, randomUsers(random, 3), groups, randomUsers(random, 1), negatedGroups);
+            return grantId;
+        }
+
+        Set<Long> randomUsers(SplittableRandom random, int count) {
+            Set<Long> users = new HashSet<>();
+            random.ints(count, 1, USERS + 1).forEach(userId -> users.add((long) userId));
+            return users;
+        }
+
+        PermissionMatrix build() {
+            PermissionMatrix.Builder builder = PermissionMatrix.builder(TENANT_ID);
+            groupUsers.forEach((groupId, users) -> users.forEach(userId -> builder.groupMember(groupId, userId)));
+            groupDenied.forEach((groupId, users) -> users.forEach(userId -> builder.groupDeniedUser(groupId, userId)));
+            grants.forEach((grantId, members) -> {
+                members.users().forEach(userId -> builder.grantUser(grantId, userId));
+                members.groups().forEach(groupId -> builder.grantGroup(grantId, groupId));
+                members.negatedUsers().forEach(userId -> builder.grantNegatedUser(grantId, userId));
+                members.negatedGroups().forEach(groupId -> builder.grantNegatedGroup(grantId, groupId));
+            });
+            roleGrants.forEach(row -> builder.roleGrant(row.roleId(), row.projectId(), row.grantId()));
+            assignments.forEach(row -> {
+                builder.assignment(row.assignmentId(), TYPE, row.permissionId(), row.projectId(), row.grantId());
+                row.roleIds().forEach(roleId -> builder.assignmentRole(row.assignmentId(), roleId));
+            });
+            return builder.build();
+        }
+
+        boolean hasPermission(Long userId, Long permissionId, Long projectId) {
+            for (AssignmentRow row : assignments) {
+                boolean applies = row.projectId() == null || (projectId != null && row.projectId().equals(projectId));
+                if (row.permissionId().equals(permissionId) && applies && assignmentGrants(row, userId, projectId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean assignmentGrants(AssignmentRow row, Long userId, Long projectId) {
+            GrantMembers grant = row.grantId() != null ? grants.get(row.grantId()) : null;
+            if (grant != null && (grant.negatedUsers().contains(userId)
+                    || grant.negatedGroups().stream().anyMatch(groupId -> isMember(groupId, userId)))) {
+                return false;
+            }
+            if (grant != null && grantIncludes(grant, userId)) {
+                return true;
+            }
+            for (Long roleId : row.roleIds()) {
+                for (RoleGrantRow roleGrant : roleGrants) {
+                    boolean inScope = roleGrant.projectId() == null
+                            || (projectId != null && roleGrant.projectId().equals(projectId));
+                    if (roleGrant.roleId().equals(roleId) && inScope
+                            && grantIncludes(grants.get(roleGrant.grantId()), userId)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean grantIncludes(GrantMembers grant, Long userId) {
+            if (grant.negatedUsers().contains(userId)
+                    || grant.negatedGroups().stream().anyMatch(groupId -> isMember(groupId, userId))) {
+                return false;
+            }
+            return grant.users().contains(userId) || grant.groups().stream().anyMatch(groupId -> isMember(groupId, userId));
+        }
+
+        private boolean isMember(Long groupId, Long userId) {
+            return groupUsers.getOrDefault(groupId, Set.of()).contains(userId)
+                    && !groupDenied.getOrDefault(groupId, Set.of()).contains(userId);
+        }
+    }
+
+    private record RoleGrantRow(Long roleId, Long projectId, Long grantId) {
+    }
+
+    private record AssignmentRow(Long assignmentId, Long permissionId, Long projectId, Long grantId, Set<Long> roleIds) {
+    }
+}